@@ -53,6 +53,9 @@
 import org.lanternpowered.server.service.CloseableService;
 import org.lanternpowered.server.service.LanternServiceManager;
 import org.lanternpowered.server.text.LanternTexts;
+import org.lanternpowered.server.tick.TickLoop;
+import org.lanternpowered.server.tick.TickPhase;
+import org.lanternpowered.server.tick.TickTimings;
 import org.lanternpowered.server.util.SecurityHelper;
 import org.lanternpowered.server.util.ShutdownMonitorThread;
 import org.lanternpowered.server.world.LanternWorldManager;
@@ -98,8 +101,6 @@
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -108,9 +109,11 @@
 @Singleton
 public final class LanternServer implements Server {
 
-    // The executor service for the server ticks
-    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
-            runnable -> this.mainThread = new Thread(runnable, "server"));
+    // The loop that runs the server ticks
+    @Nullable private TickLoop tickLoop;
+
+    // The durations of the server ticks
+    private volatile TickTimings tickTimings = new TickTimings(LanternGame.TICKS_PER_SECOND);
 
     @SuppressWarnings("NullableProblems")
     private Thread mainThread;
@@ -272,13 +275,16 @@ void start() throws IOException {
             }
         }
 
-        this.executor.scheduleAtFixedRate(() -> {
+        this.tickTimings = new TickTimings(LanternGame.TICKS_PER_SECOND);
+        this.tickLoop = new TickLoop(this.logger, () -> {
             try {
                 pulse();
             } catch (Exception e) {
                 this.logger.error("Error while pulsing", e);
             }
-        }, 0, LanternGame.TICK_DURATION, TimeUnit.MILLISECONDS);
+        }, TimeUnit.MILLISECONDS.toNanos(LanternGame.TICK_DURATION), config.getTickCatchUpPolicy(), config.getTickMaxCatchUpTicks());
+        this.mainThread = new Thread(this.tickLoop, "server");
+        this.mainThread.start();
 
         this.game.postGameStateChange(SpongeEventFactory.createGameStartedServerEvent(gameCause));
     }
@@ -352,14 +358,44 @@ private void bindRcon() {
      * Pulses (ticks) the game.
      */
     private void pulse() {
+        final TickTimings timings = this.tickTimings;
+        final long start = System.nanoTime();
         this.runningTimeTicks.incrementAndGet();
         // Pulse the network sessions
         this.networkManager.pulseSessions();
+        long time = System.nanoTime();
+        final long network = time - start;
         // Pulse the sync scheduler tasks
         this.game.getScheduler().pulseSyncScheduler();
-        // Pulse the world threads
+        time = record(timings, TickPhase.SYNC_SCHEDULER, time);
+        // Pulse the world threads and wait for the worlds to
+        // complete this tick, before the messages are flushed
         this.worldManager.pulse();
+        this.worldManager.awaitPulse();
+        time = record(timings, TickPhase.WORLDS, time);
         AdvancementTrees.INSTANCE.pulse();
+        time = record(timings, TickPhase.ADVANCEMENTS, time);
+        // Flush all the messages that were send during this tick, this
+        // is the only point where the batched messages are flushed
+        this.networkManager.flushSessions();
+        final long end = System.nanoTime();
+        timings.record(TickPhase.NETWORK, network + end - time);
+        timings.recordTick(start, end);
+    }
+
+    private static long record(TickTimings timings, TickPhase phase, long start) {
+        final long end = System.nanoTime();
+        timings.record(phase, end - start);
+        return end;
+    }
+
+    /**
+     * Gets the {@link TickTimings} of the server ticks.
+     *
+     * @return The tick timings
+     */
+    public TickTimings getTickTimings() {
+        return this.tickTimings;
     }
 
     /**
@@ -609,8 +645,10 @@ public void shutdown(Text kickMessage) {
         // Stop the world manager
         this.worldManager.shutdown();
 
-        // Shutdown the executor
-        this.executor.shutdown();
+        // Stop the tick loop
+        if (this.tickLoop != null) {
+            this.tickLoop.stop();
+        }
 
         // Stop the async scheduler
         this.game.getScheduler().shutdownAsyncScheduler(5, TimeUnit.SECONDS);
@@ -680,7 +718,7 @@ public ChunkTicketManager getChunkTicketManager() {
 
     @Override
     public double getTicksPerSecond() {
-        return LanternGame.TICKS_PER_SECOND; // TODO
+        return this.tickTimings.getTicksPerSecond();
     }
 
     @Override
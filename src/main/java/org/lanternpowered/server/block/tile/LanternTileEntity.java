@@ -28,7 +28,7 @@
 import org.lanternpowered.server.data.AdditionalContainerCollection;
 import org.lanternpowered.server.data.DataHelper;
 import org.lanternpowered.server.data.DataQueries;
-import org.lanternpowered.server.data.IAdditionalDataHolder;
+import org.lanternpowered.server.data.IChangeTrackingDataHolder;
 import org.lanternpowered.server.data.ValueCollection;
 import org.lanternpowered.server.data.property.AbstractPropertyHolder;
 import org.lanternpowered.server.game.registry.type.block.TileEntityTypeRegistryModule;
@@ -44,7 +44,9 @@
 import org.spongepowered.api.world.Location;
 import org.spongepowered.api.world.World;
 
-public abstract class LanternTileEntity implements TileEntity, IAdditionalDataHolder, AbstractPropertyHolder {
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public abstract class LanternTileEntity implements TileEntity, IChangeTrackingDataHolder, AbstractPropertyHolder {
 
     private static boolean bypassEntityTypeLookup;
 
@@ -54,6 +56,12 @@ public abstract class LanternTileEntity implements TileEntity, IAdditionalDataHo
     private volatile Location<World> location;
     private volatile boolean valid;
 
+    /**
+     * Whether the state of this tile entity changed
+     * since the last time that it was checked.
+     */
+    private final AtomicBoolean changed = new AtomicBoolean();
+
     protected LanternTileEntity() {
         if (!bypassEntityTypeLookup) {
             this.tileEntityType = TileEntityTypeRegistryModule.get().getByClass(this.getClass()).orElseThrow(
@@ -74,6 +82,25 @@ protected void registerKeys() {
     public void pulse() {
     }
 
+    /**
+     * Marks the state of this tile entity as changed, the
+     * chunk it's located in will be saved again.
+     */
+    @Override
+    public void markChanged() {
+        this.changed.set(true);
+    }
+
+    /**
+     * Gets whether the state of this tile entity changed since
+     * the last time that this method was called and resets it.
+     *
+     * @return Whether the state changed
+     */
+    public boolean pollChanged() {
+        return this.changed.getAndSet(false);
+    }
+
     @Override
     public ValueCollection getValueCollection() {
         return this.valueCollection;
@@ -92,6 +119,7 @@ public boolean validateRawData(DataView dataView) {
     @Override
     public void setRawData(DataView dataView) throws InvalidDataException {
         DataHelper.deserializeRawData(dataView, this);
+        markChanged();
     }
 
     @Override
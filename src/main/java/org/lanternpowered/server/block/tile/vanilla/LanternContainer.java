@@ -26,7 +26,9 @@
 package org.lanternpowered.server.block.tile.vanilla;
 
 import org.lanternpowered.server.inventory.AbstractInventory;
+import org.lanternpowered.server.inventory.slot.LanternSlot;
 import org.spongepowered.api.block.tileentity.carrier.TileEntityCarrier;
+import org.spongepowered.api.item.inventory.Slot;
 import org.spongepowered.api.item.inventory.type.TileEntityInventory;
 
 public abstract class LanternContainer<I extends TileEntityInventory<TileEntityCarrier>> extends LanternContainerBase implements TileEntityCarrier {
@@ -36,6 +38,12 @@
     protected LanternContainer() {
         this.inventory = createInventory();
         ((AbstractInventory) this.inventory).add(this);
+        // Changes to the content should be saved with the chunk
+        for (Slot slot : this.inventory.<Slot>slots()) {
+            if (slot instanceof LanternSlot) {
+                ((LanternSlot) slot).addChangeListener(slot1 -> markChanged());
+            }
+        }
     }
 
     protected abstract I createInventory();
@@ -0,0 +1,72 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.command;
+
+import static org.lanternpowered.server.text.translation.TranslationHelper.t;
+
+import org.lanternpowered.server.data.io.ChunkIOService;
+import org.lanternpowered.server.data.io.anvil.AnvilChunkIOService;
+import org.lanternpowered.server.data.io.anvil.RegionCompactionResult;
+import org.lanternpowered.server.game.Lantern;
+import org.lanternpowered.server.world.LanternWorld;
+import org.spongepowered.api.command.CommandException;
+import org.spongepowered.api.command.CommandResult;
+import org.spongepowered.api.command.args.GenericArguments;
+import org.spongepowered.api.command.spec.CommandSpec;
+import org.spongepowered.api.plugin.PluginContainer;
+
+public final class CommandCompact extends CommandProvider {
+
+    public CommandCompact() {
+        super(4, "compact");
+    }
+
+    @Override
+    public void completeSpec(PluginContainer pluginContainer, CommandSpec.Builder specBuilder) {
+        specBuilder
+                .description(t("commands.compact.description"))
+                .arguments(
+                        GenericArguments.optional(GenericArguments.world(CommandHelper.WORLD_KEY))
+                )
+                .executor((src, args) -> {
+                    final LanternWorld world = CommandHelper.getWorld(src, args);
+                    final ChunkIOService chunkIOService = world.getChunkManager().getChunkIOService();
+                    if (!(chunkIOService instanceof AnvilChunkIOService)) {
+                        throw new CommandException(t("commands.compact.not_supported", world.getName()));
+                    }
+                    src.sendMessage(t("commands.compact.start", world.getName()));
+                    // Compact the regions async, and report back on the main thread
+                    Lantern.getScheduler().submitAsyncTask(() -> {
+                        final RegionCompactionResult result = ((AnvilChunkIOService) chunkIOService).compactRegions();
+                        Lantern.getScheduler().createTaskBuilder().execute(() -> src.sendMessage(t("commands.compact.success",
+                                result.getRegionCount(), world.getName(), result.getBytesReclaimed(),
+                                String.format("%.2f", result.getSectorsPerChunkBefore()),
+                                String.format("%.2f", result.getSectorsPerChunkAfter())))).submit(pluginContainer);
+                    });
+                    return CommandResult.success();
+                });
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.command;
+
+import static org.lanternpowered.server.text.translation.TranslationHelper.t;
+
+import org.lanternpowered.server.game.Lantern;
+import org.lanternpowered.server.tick.TickHistogram;
+import org.lanternpowered.server.tick.TickPhase;
+import org.lanternpowered.server.tick.TickTimings;
+import org.lanternpowered.server.world.LanternWorld;
+import org.spongepowered.api.command.CommandResult;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.command.spec.CommandSpec;
+import org.spongepowered.api.plugin.PluginContainer;
+import org.spongepowered.api.world.World;
+
+import java.util.concurrent.TimeUnit;
+
+public final class CommandTps extends CommandProvider {
+
+    public CommandTps() {
+        super(4, "tps");
+    }
+
+    @Override
+    public void completeSpec(PluginContainer pluginContainer, CommandSpec.Builder specBuilder) {
+        specBuilder
+                .description(t("commands.tps.description"))
+                .executor((src, args) -> {
+                    final TickTimings timings = Lantern.getServer().getTickTimings();
+                    src.sendMessage(t("commands.tps.tps", formatDecimal(timings.getTicksPerSecond()),
+                            TimeUnit.NANOSECONDS.toSeconds(timings.getDuration())));
+                    sendHistogram(src, "tick", timings.getTickHistogram());
+                    for (TickPhase phase : TickPhase.values()) {
+                        sendHistogram(src, phase.getName(), timings.getHistogram(phase));
+                    }
+                    for (World world : Lantern.getServer().getWorlds()) {
+                        final LanternWorld world0 = (LanternWorld) world;
+                        if (world0.isHibernating()) {
+                            src.sendMessage(t("commands.tps.world.hibernating", world0.getName()));
+                        } else {
+                            src.sendMessage(t("commands.tps.world", world0.getName(), formatMillis(world0.getTickDuration())));
+                        }
+                    }
+                    return CommandResult.success();
+                });
+    }
+
+    private static void sendHistogram(CommandSource src, String name, TickHistogram histogram) {
+        src.sendMessage(t("commands.tps.phase", name,
+                formatMillis(histogram.getValueAtPercentile(50)),
+                formatMillis(histogram.getValueAtPercentile(95)),
+                formatMillis(histogram.getValueAtPercentile(99)),
+                formatMillis(histogram.getMax())));
+    }
+
+    private static String formatMillis(long nanos) {
+        return formatDecimal(nanos / 1e6);
+    }
+
+    private static String formatDecimal(double value) {
+        return String.format("%.2f", value);
+    }
+}
@@ -61,6 +61,7 @@ public void load() {
         commandProviders.put(this.minecraft, new CommandBan());
         commandProviders.put(this.minecraft, new CommandBanIp());
         commandProviders.put(this.minecraft, new CommandBorder());
+        commandProviders.put(this.implementation, new CommandCompact());
         commandProviders.put(this.minecraft, new CommandDeop());
         commandProviders.put(this.minecraft, new CommandDifficulty());
         commandProviders.put(this.minecraft, new CommandGameMode());
@@ -89,6 +90,7 @@ public void load() {
         commandProviders.put(this.minecraft, new CommandTitle());
         commandProviders.put(this.minecraft, new CommandToggleDownfall());
         commandProviders.put(this.minecraft, new CommandTp());
+        commandProviders.put(this.implementation, new CommandTps());
         commandProviders.put(this.implementation, new CommandVersion());
         commandProviders.put(this.minecraft, new CommandWeather());
         commandProviders.put(this.minecraft, new CommandWhitelist());
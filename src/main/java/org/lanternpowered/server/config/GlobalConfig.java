@@ -41,6 +41,7 @@
 import org.lanternpowered.server.config.world.chunk.GlobalChunkLoading;
 import org.lanternpowered.server.game.DirectoryKeys;
 import org.lanternpowered.server.network.ProxyType;
+import org.lanternpowered.server.tick.CatchUpPolicy;
 import org.lanternpowered.server.util.IpSet;
 import org.lanternpowered.server.util.functions.Predicates;
 import org.spongepowered.api.text.Text;
@@ -169,6 +170,36 @@ private static final class Server {
         @Setting(value = "network-compression-threshold")
         private int networkCompressionThreshold = 256;
 
+        @Setting(value = "network-compression-level", comment =
+                "The zlib compression level (0-9) of messages, -1 uses the zlib default.")
+        private int networkCompressionLevel = -1;
+
+        @Setting(value = "network-compression-levels", comment =
+                "The zlib compression levels (0-9) of specific message types, mapped by\n " +
+                "the simple class name of the message type. Chunk data uses a cheaper\n " +
+                "level by default because it is the bulk of the compressed data.")
+        private Map<String, Integer> networkCompressionLevels = new HashMap<>(ImmutableMap.of("MessagePlayOutChunkData", 3));
+
+        @Setting(value = "chunk-send-chunks-per-tick", comment =
+                "The maximum amount of chunks that will be send to a player per tick.")
+        private int chunkSendChunksPerTick = 16;
+
+        @Setting(value = "chunk-send-bytes-per-tick", comment =
+                "The maximum amount of chunk data (estimated and uncompressed) in bytes that\n " +
+                "will be send to a player per tick. At least one chunk will always be send.")
+        private int chunkSendBytesPerTick = 256 * 1024;
+
+        @Setting(value = "tick-catch-up-policy", comment =
+                "How the server recovers from ticks that took too long, one of:\n " +
+                "SKIP: Drops all the missed ticks.\n " +
+                "LIMITED: Runs at most 'tick-max-catch-up-ticks' missed ticks, drops the rest.\n " +
+                "FULL: Runs all the missed ticks.")
+        private CatchUpPolicy tickCatchUpPolicy = CatchUpPolicy.LIMITED;
+
+        @Setting(value = "tick-max-catch-up-ticks", comment =
+                "The maximum amount of missed ticks that will be run when the LIMITED policy is used.")
+        private int tickMaxCatchUpTicks = 40;
+
         @Setting(value = "chat-spam-threshold", comment =
                 "The minimum time between messages (in milliseconds) when they will be considered spam.")
         private int chatSpamThreshold = 200;
@@ -338,6 +369,30 @@ public int getNetworkCompressionThreshold() {
         return this.server.networkCompressionThreshold;
     }
 
+    public int getNetworkCompressionLevel() {
+        return this.server.networkCompressionLevel;
+    }
+
+    public Map<String, Integer> getNetworkCompressionLevels() {
+        return this.server.networkCompressionLevels;
+    }
+
+    public int getChunkSendChunksPerTick() {
+        return this.server.chunkSendChunksPerTick;
+    }
+
+    public int getChunkSendBytesPerTick() {
+        return this.server.chunkSendBytesPerTick;
+    }
+
+    public CatchUpPolicy getTickCatchUpPolicy() {
+        return this.server.tickCatchUpPolicy;
+    }
+
+    public int getTickMaxCatchUpTicks() {
+        return this.server.tickMaxCatchUpTicks;
+    }
+
     public int getRconPort() {
         return this.rcon.port;
     }
@@ -60,6 +60,31 @@ private static class Chunks {
         private int clumpingThreshold = 64;
     }
 
+    @Setting(value = "region-ticking", comment = "The settings of the parallel ticking of world regions.")
+    private RegionTicking regionTicking = new RegionTicking();
+
+    @ConfigSerializable
+    private static class RegionTicking {
+
+        @Setting(value = "enabled", comment =
+                "Enable to tick the entities and tile entities of the world in parallel. The\n " +
+                "loaded chunks are partitioned into regions, regions that aren't adjacent are\n " +
+                "ticked at the same time. Entities and tile entities may only affect things within\n " +
+                "half the size of a region, plugins that don't respect this may break.")
+        private boolean enabled = false;
+
+        @Setting(value = "region-size", comment =
+                "The size of a region in chunks, this is rounded up to a power of two.\n " +
+                "Half of this size is the range in which an entity or tile entity can safely interact.")
+        private int regionSize = 8;
+    }
+
+    @Setting(value = "hibernate-when-idle", comment =
+            "Enable if this world should stop ticking while it's idle, a world is idle if\n " +
+            "there are no players and no chunks are loaded, which also means that no chunks\n " +
+            "are forced. The time and weather of the world don't advance while hibernating.")
+    private boolean hibernateWhenIdle = false;
+
     @Setting(value = "pvp-enabled", comment = "Enable if this world allows PVP combat.")
     private boolean pvpEnabled = true;
 
@@ -125,6 +150,18 @@ public int getChunkClumpingThreshold() {
         return this.chunks.clumpingThreshold;
     }
 
+    public boolean isRegionTickingEnabled() {
+        return this.regionTicking.enabled;
+    }
+
+    public int getRegionTickingSize() {
+        return this.regionTicking.regionSize;
+    }
+
+    public boolean hibernateWhenIdle() {
+        return this.hibernateWhenIdle;
+    }
+
     public GameMode getGameMode() {
         return this.gameMode.mode;
     }
@@ -0,0 +1,121 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.data;
+
+import org.spongepowered.api.data.DataTransactionResult;
+import org.spongepowered.api.data.key.Key;
+import org.spongepowered.api.data.manipulator.DataManipulator;
+import org.spongepowered.api.data.merge.MergeFunction;
+import org.spongepowered.api.data.value.BaseValue;
+
+/**
+ * A {@link IAdditionalDataHolder} that will be notified through
+ * {@link #markChanged()} every time that data is successfully
+ * offered to or removed from it.
+ */
+public interface IChangeTrackingDataHolder extends IAdditionalDataHolder {
+
+    /**
+     * Marks the data of this data holder as changed.
+     */
+    void markChanged();
+
+    @Override
+    default <E> boolean offerFast(Key<? extends BaseValue<E>> key, E element) {
+        return markChanged(IAdditionalDataHolder.super.offerFast(key, element));
+    }
+
+    @Override
+    default <E> DataTransactionResult offer(Key<? extends BaseValue<E>> key, E element) {
+        return markChanged(IAdditionalDataHolder.super.offer(key, element));
+    }
+
+    @Override
+    default <E> boolean offerFast(BaseValue<E> value) {
+        return markChanged(IAdditionalDataHolder.super.offerFast(value));
+    }
+
+    @Override
+    default <E> DataTransactionResult offer(BaseValue<E> value) {
+        return markChanged(IAdditionalDataHolder.super.offer(value));
+    }
+
+    @Override
+    default boolean offerFast(DataManipulator<?, ?> valueContainer, MergeFunction function) {
+        return markChanged(IAdditionalDataHolder.super.offerFast(valueContainer, function));
+    }
+
+    @Override
+    default DataTransactionResult offer(DataManipulator<?, ?> valueContainer, MergeFunction function) {
+        return markChanged(IAdditionalDataHolder.super.offer(valueContainer, function));
+    }
+
+    @Override
+    default boolean removeFast(Key<?> key) {
+        return markChanged(IAdditionalDataHolder.super.removeFast(key));
+    }
+
+    @Override
+    default DataTransactionResult remove(Key<?> key) {
+        return markChanged(IAdditionalDataHolder.super.remove(key));
+    }
+
+    @Override
+    default boolean removeFast(Class<? extends DataManipulator<?, ?>> containerClass) {
+        return markChanged(IAdditionalDataHolder.super.removeFast(containerClass));
+    }
+
+    @Override
+    default DataTransactionResult remove(Class<? extends DataManipulator<?, ?>> containerClass) {
+        return markChanged(IAdditionalDataHolder.super.remove(containerClass));
+    }
+
+    /**
+     * Marks the data as changed if the operation was successful.
+     *
+     * @param success Whether the operation was successful
+     * @return The success state
+     */
+    default boolean markChanged(boolean success) {
+        if (success) {
+            markChanged();
+        }
+        return success;
+    }
+
+    /**
+     * Marks the data as changed if the transaction was successful.
+     *
+     * @param result The transaction result
+     * @return The transaction result
+     */
+    default DataTransactionResult markChanged(DataTransactionResult result) {
+        if (result.isSuccessful()) {
+            markChanged();
+        }
+        return result;
+    }
+}
@@ -70,7 +70,30 @@ public interface ChunkIOService extends WorldStorage {
      * @param chunk The chunk to write from
      * @throws IOException If an i/o error occurs
      */
-    void write(LanternChunk chunk) throws IOException;
+    default void write(LanternChunk chunk) throws IOException {
+        write(chunk.getX(), chunk.getZ(), createSnapshot(chunk));
+    }
+
+    /**
+     * Creates a snapshot of all the data of the chunk that should be
+     * written. The chunk shouldn't be modified while the snapshot is being
+     * created, the snapshot itself can be written from any thread.
+     *
+     * @param chunk The chunk to create the snapshot from
+     * @return The snapshot
+     */
+    Snapshot createSnapshot(LanternChunk chunk);
+
+    /**
+     * Writes a chunk snapshot that was created
+     * through {@link #createSnapshot(LanternChunk)}.
+     *
+     * @param x The x coordinate of the chunk
+     * @param z The z coordinate of the chunk
+     * @param snapshot The snapshot
+     * @throws IOException If an i/o error occurs
+     */
+    void write(int x, int z, Snapshot snapshot) throws IOException;
 
     /**
      * Unload the service, performing any cleanup necessary.
@@ -84,4 +107,11 @@ public interface ChunkIOService extends WorldStorage {
     default boolean exists(Vector3i chunkCoords) throws IOException {
         return exists(chunkCoords.getX(), chunkCoords.getZ());
     }
+
+    /**
+     * A snapshot of the data of a chunk, the format is
+     * specific to the {@link ChunkIOService} that created it.
+     */
+    interface Snapshot {
+    }
 }
@@ -47,6 +47,7 @@
  */
 package org.lanternpowered.server.data.io.anvil;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static org.lanternpowered.server.data.io.anvil.RegionFileCache.REGION_AREA;
 import static org.lanternpowered.server.data.io.anvil.RegionFileCache.REGION_MASK;
 import static org.lanternpowered.server.data.io.anvil.RegionFileCache.REGION_SIZE;
@@ -62,12 +63,12 @@
 import org.lanternpowered.server.data.io.store.ObjectSerializer;
 import org.lanternpowered.server.data.io.store.ObjectSerializerRegistry;
 import org.lanternpowered.server.data.persistence.nbt.NbtDataContainerInputStream;
-import org.lanternpowered.server.data.persistence.nbt.NbtDataContainerOutputStream;
-import org.lanternpowered.server.data.DataQueries;
+import org.lanternpowered.server.data.persistence.nbt.NbtStreamReader;
+import org.lanternpowered.server.data.persistence.nbt.NbtStreamWriter;
 import org.lanternpowered.server.entity.LanternEntity;
 import org.lanternpowered.server.game.DirectoryKeys;
+import org.lanternpowered.server.game.Lantern;
 import org.lanternpowered.server.scheduler.LanternScheduler;
-import org.lanternpowered.server.util.NibbleArray;
 import org.lanternpowered.server.world.chunk.LanternChunk;
 import org.lanternpowered.server.world.chunk.LanternChunk.ChunkSection;
 import org.lanternpowered.server.world.chunk.LanternChunk.ChunkSectionSnapshot;
@@ -77,6 +78,7 @@
 import org.spongepowered.api.data.DataView;
 import org.spongepowered.api.data.persistence.InvalidDataException;
 import org.spongepowered.api.entity.living.player.Player;
+import org.spongepowered.api.scheduler.Task;
 import org.spongepowered.api.world.Location;
 import org.spongepowered.api.world.World;
 import org.spongepowered.api.world.storage.ChunkDataStream;
@@ -91,6 +93,7 @@
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 
 import javax.annotation.Nullable;
@@ -98,34 +101,18 @@
 @Singleton
 public class AnvilChunkIOService implements ChunkIOService {
 
-    private static final DataQuery VERSION = DataQuery.of("V"); // byte
-    private static final DataQuery LEVEL = DataQuery.of("Level"); // compound
-    private static final DataQuery SECTIONS = DataQuery.of("Sections"); // array
-    private static final DataQuery X = DataQuery.of("xPos"); // int
-    private static final DataQuery Z = DataQuery.of("zPos"); // int
-    private static final DataQuery Y = DataQuery.of("Y"); // byte
-    private static final DataQuery BLOCKS = DataQuery.of("Blocks"); // byte array
-    private static final DataQuery BLOCKS_EXTRA = DataQuery.of("Add"); // (nibble) byte array
-    private static final DataQuery DATA = DataQuery.of("Data"); // (nibble) byte array
-    private static final DataQuery BLOCK_LIGHT = DataQuery.of("BlockLight"); // (nibble) byte array
-    private static final DataQuery SKY_LIGHT = DataQuery.of("SkyLight"); // (nibble) byte array
-    private static final DataQuery TERRAIN_POPULATED = DataQuery.of("TerrainPopulated"); // (boolean) byte
-    private static final DataQuery LIGHT_POPULATED = DataQuery.of("LightPopulated"); // (boolean) byte
-    private static final DataQuery BIOMES = DataQuery.of("Biomes"); // byte array
-    // A extra tag for the biomes to support the custom biomes
-    private static final DataQuery BIOMES_EXTRA = DataQuery.of("BiomesE"); // byte array
-    private static final DataQuery HEIGHT_MAP = DataQuery.of("HeightMap");  // int array
-    private static final DataQuery LAST_UPDATE = DataQuery.of("LastUpdate"); // long
-    private static final DataQuery TRACKER_DATA_TABLE = DataQuery.of("BlockPosTable");
     private static final DataQuery TRACKER_BLOCK_POS = DataQuery.of("pos");
     private static final DataQuery TRACKER_ENTRY_CREATOR = DataQuery.of("owner");
     private static final DataQuery TRACKER_ENTRY_NOTIFIER = DataQuery.of("notifier");
     private static final DataQuery TILE_ENTITY_X = DataQuery.of("x");
     private static final DataQuery TILE_ENTITY_Y = DataQuery.of("y");
     private static final DataQuery TILE_ENTITY_Z = DataQuery.of("z");
-    private static final DataQuery TILE_ENTITIES = DataQuery.of("TileEntities");
-    private static final DataQuery INHABITED_TIME = DataQuery.of("InhabitedTime");
-    private static final DataQuery ENTITIES = DataQuery.of("Entities");
+
+    // The time that a region should be idle before it can be compacted
+    private static final long COMPACTION_IDLE_TIME = TimeUnit.MINUTES.toMillis(5);
+
+    // The fraction of the sectors that should be free before a region gets compacted
+    private static final double COMPACTION_MIN_FREE_RATIO = 0.25;
 
     private final World world;
     private final Logger logger;
@@ -133,6 +120,9 @@ public class AnvilChunkIOService implements ChunkIOService {
     private final RegionFileCache cache;
     private final Path baseDir;
 
+    // The task that compacts the idle region files
+    private final Task compactionTask;
+
     // TODO: Consider the session.lock file
 
     @Inject
@@ -142,6 +132,27 @@ public AnvilChunkIOService(@Named(DirectoryKeys.WORLD) Path baseDir, World world
         this.baseDir = baseDir;
         this.logger = logger;
         this.world = world;
+        this.compactionTask = scheduler.createTaskBuilder().async()
+                .delay(COMPACTION_IDLE_TIME, TimeUnit.MILLISECONDS).interval(COMPACTION_IDLE_TIME, TimeUnit.MILLISECONDS)
+                .execute(this::compactIdleRegions).submit(Lantern.getMinecraftPlugin());
+    }
+
+    private void compactIdleRegions() {
+        final RegionCompactionResult result = this.cache.compactIdleRegions(COMPACTION_IDLE_TIME, COMPACTION_MIN_FREE_RATIO);
+        if (result.getRegionCount() > 0) {
+            this.logger.debug("Compacted {} region files of the world {}, reclaimed {} bytes, sectors per chunk: {} -> {}",
+                    result.getRegionCount(), getWorldProperties().getWorldName(), result.getBytesReclaimed(),
+                    result.getSectorsPerChunkBefore(), result.getSectorsPerChunkAfter());
+        }
+    }
+
+    /**
+     * Compacts all the region files of the world.
+     *
+     * @return The compaction result
+     */
+    public RegionCompactionResult compactRegions() {
+        return this.cache.compactAllRegions();
     }
 
     @Override
@@ -159,54 +170,33 @@ public boolean read(LanternChunk chunk) throws IOException {
         final int x = chunk.getX();
         final int z = chunk.getZ();
 
-        final RegionFile region = this.cache.getRegionFileByChunk(x, z);
+        final RegionFile region = this.cache.acquireRegionFileByChunk(x, z);
         final int regionX = x & REGION_MASK;
         final int regionZ = z & REGION_MASK;
 
-        final DataInputStream is = region.getChunkDataInputStream(regionX, regionZ);
+        // The chunk data is read into memory, the region file isn't needed afterwards
+        final DataInputStream is;
+        try {
+            is = region.getChunkDataInputStream(regionX, regionZ);
+        } finally {
+            this.cache.release(region);
+        }
         if (is == null) {
             return false;
         }
 
-        final DataView levelDataView;
-        try (NbtDataContainerInputStream nbt = new NbtDataContainerInputStream(is)) {
-            levelDataView = nbt.read().getView(LEVEL).get();
+        final AnvilChunkReader chunkReader;
+        try (NbtStreamReader reader = new NbtStreamReader(is)) {
+            chunkReader = AnvilChunkReader.read(reader);
         }
 
-        // read the vertical sections
-        final List<DataView> sectionList = levelDataView.getViewList(SECTIONS).get();
-        final ChunkSection[] sections = new ChunkSection[16];
-        //noinspection unchecked
-        final Short2ObjectOpenHashMap<LanternTileEntity>[] tileEntitySections = new Short2ObjectOpenHashMap[sections.length];
-
-        for (DataView sectionTag : sectionList) {
-            final int y = sectionTag.getInt(Y).get();
-            final byte[] rawTypes = (byte[]) sectionTag.get(BLOCKS).get();
-
-            final byte[] extTypes = sectionTag.contains(BLOCKS_EXTRA) ? (byte[]) sectionTag.get(BLOCKS_EXTRA).get() : null;
-            final byte[] data = (byte[]) sectionTag.get(DATA).get();
-            final byte[] blockLight = (byte[]) sectionTag.get(BLOCK_LIGHT).get();
-            final byte[] skyLight = (byte[]) sectionTag.get(SKY_LIGHT).get();
-
-            final NibbleArray dataArray = new NibbleArray(rawTypes.length, data, true);
-            final NibbleArray extTypesArray = extTypes == null ? null : new NibbleArray(rawTypes.length, extTypes, true);
-
-            final short[] types = new short[rawTypes.length];
-            for (int i = 0; i < rawTypes.length; i++) {
-                types[i] = (short) ((extTypesArray == null ? 0 : extTypesArray.get(i)) << 12 | ((rawTypes[i] & 0xff) << 4) | dataArray.get(i));
-            }
-
-            tileEntitySections[y] = new Short2ObjectOpenHashMap<>();
-            sections[y] = new ChunkSection(types, new NibbleArray(rawTypes.length, skyLight, true),
-                    new NibbleArray(rawTypes.length, blockLight, true), tileEntitySections[y]);
-        }
-
-        levelDataView.getViewList(TILE_ENTITIES).ifPresent(tileEntityViews -> {
+        final List<Short2ObjectOpenHashMap<LanternTileEntity>> tileEntitySections = chunkReader.tileEntitySections;
+        if (!chunkReader.tileEntities.isEmpty()) {
             final ObjectSerializer<LanternTileEntity> tileEntitySerializer = ObjectSerializerRegistry.get().get(LanternTileEntity.class).get();
-            for (DataView tileEntityView : tileEntityViews) {
+            for (DataView tileEntityView : chunkReader.tileEntities) {
                 final int tileY = tileEntityView.getInt(TILE_ENTITY_Y).get();
                 final int section = tileY >> 4;
-                if (tileEntitySections[section] == null) {
+                if (section < 0 || section >= tileEntitySections.size() || tileEntitySections.get(section) == null) {
                     continue;
                 }
                 final int tileZ = tileEntityView.getInt(TILE_ENTITY_Z).get();
@@ -215,66 +205,49 @@ public boolean read(LanternChunk chunk) throws IOException {
                     final LanternTileEntity tileEntity = tileEntitySerializer.deserialize(tileEntityView);
                     tileEntity.setLocation(new Location<>(this.world, tileX, tileY, tileZ));
                     tileEntity.setValid(true);
-                    tileEntitySections[section].put((short) ChunkSection.index(tileX & 0xf, tileY & 0xf, tileZ & 0xf), tileEntity);
+                    tileEntitySections.get(section).put((short) ChunkSection.index(tileX & 0xf, tileY & 0xf, tileZ & 0xf), tileEntity);
                 } catch (InvalidDataException e) {
                     this.logger.warn("Error loading tile entity at ({};{};{}) in the chunk ({},{}) in the world {}",
                             tileX & 0xf, tileY & 0xf, tileZ & 0xf, x, z, getWorldProperties().getWorldName(), e);
                 }
             }
-        });
-
-        final DataView spongeDataView = levelDataView.getView(DataQueries.SPONGE_DATA).orElse(null);
-        final List<DataView> trackerDataViews = spongeDataView == null ? null : levelDataView.getViewList(TRACKER_DATA_TABLE).orElse(null);
+        }
 
         //noinspection unchecked
         final Short2ObjectMap<LanternChunk.TrackerData>[] trackerData = chunk.getTrackerData().getRawObjects();
 
-        if (trackerDataViews != null) {
-            for (DataView dataView : trackerDataViews) {
-                final Optional<Short> optIndex = dataView.getShort(TRACKER_BLOCK_POS);
-                if (!optIndex.isPresent()) {
-                    continue;
-                }
-                final int creatorId = dataView.getInt(TRACKER_ENTRY_CREATOR).orElse(-1);
-                final int notifierId = dataView.getInt(TRACKER_ENTRY_NOTIFIER).orElse(-1);
-                // index = z << 12 | y << 4 | x
-                int index = optIndex.get() & 0xffff;
-                final int section = (index >> 8) & 0xf;
-                // Convert the index to the section based system
-                // index = y << 8 | z << 4 | x
-                index = ChunkSection.index(index & 0xf, (index >> 4) & 0xf, index >> 12);
-                trackerData[section].put((short) index, new LanternChunk.TrackerData(creatorId, notifierId));
+        for (DataView dataView : chunkReader.trackerData) {
+            final Optional<Short> optIndex = dataView.getShort(TRACKER_BLOCK_POS);
+            if (!optIndex.isPresent()) {
+                continue;
             }
+            final int creatorId = dataView.getInt(TRACKER_ENTRY_CREATOR).orElse(-1);
+            final int notifierId = dataView.getInt(TRACKER_ENTRY_NOTIFIER).orElse(-1);
+            // index = z << 12 | y << 4 | x
+            int index = optIndex.get() & 0xffff;
+            final int section = (index >> 8) & 0xf;
+            // Convert the index to the section based system
+            // index = y << 8 | z << 4 | x
+            index = ChunkSection.index(index & 0xf, (index >> 4) & 0xf, index >> 12);
+            trackerData[section].put((short) index, new LanternChunk.TrackerData(creatorId, notifierId));
         }
 
         // initialize the chunk
-        chunk.initializeSections(sections);
-        chunk.setPopulated(levelDataView.getInt(TERRAIN_POPULATED).orElse(0) > 0);
-
-        if (levelDataView.contains(BIOMES)) {
-            final byte[] biomes = (byte[]) levelDataView.get(BIOMES).get();
-            final byte[] biomesExtra = (byte[]) (levelDataView.contains(BIOMES_EXTRA) ? levelDataView.get(BIOMES_EXTRA).get() : null);
-            final short[] newBiomes = new short[biomes.length];
-            for (int i = 0; i < biomes.length; i++) {
-                newBiomes[i] = (short) ((biomesExtra == null ? 0 : biomesExtra[i]) << 8 | biomes[i]);
-            }
-            chunk.initializeBiomes(newBiomes);
-        }
+        chunk.initializeSections(chunkReader.sections);
+        chunk.setPopulated(chunkReader.populated);
 
-        final Object heightMap;
-        if (levelDataView.contains(HEIGHT_MAP) && (heightMap = levelDataView.get(HEIGHT_MAP).get()) instanceof int[]) {
-            chunk.initializeHeightMap((int[]) heightMap);
-        } else {
-            chunk.initializeHeightMap(null);
+        if (chunkReader.biomes != null) {
+            chunk.initializeBiomes(chunkReader.biomes);
         }
+        chunk.initializeHeightMap(chunkReader.heightMap);
 
-        levelDataView.getLong(INHABITED_TIME).ifPresent(time -> chunk.setInhabitedTime(time.intValue()));
-        chunk.setLightPopulated(levelDataView.getInt(LIGHT_POPULATED).orElse(0) > 0);
+        chunk.setInhabitedTime(chunkReader.inhabitedTime);
+        chunk.setLightPopulated(chunkReader.lightPopulated);
         chunk.initializeLight();
 
-        levelDataView.getViewList(ENTITIES).ifPresent(entityViews -> {
+        if (!chunkReader.entities.isEmpty()) {
             final ObjectSerializer<LanternEntity> entitySerializer = ObjectSerializerRegistry.get().get(LanternEntity.class).get();
-            for (DataView entityView : entityViews) {
+            for (DataView entityView : chunkReader.entities) {
                 try {
                     final LanternEntity entity = entitySerializer.deserialize(entityView);
                     chunk.addEntity(entity, entity.getPosition().getFloorY() >> 4);
@@ -283,80 +256,36 @@ public boolean read(LanternChunk chunk) throws IOException {
                             x, z, getWorldProperties().getWorldName(), e);
                 }
             }
-        });
+        }
 
         return true;
     }
 
     @Override
-    public void write(LanternChunk chunk) throws IOException {
+    public ChunkIOService.Snapshot createSnapshot(LanternChunk chunk) {
         final int x = chunk.getX();
         final int z = chunk.getZ();
 
-        final RegionFile region = this.cache.getRegionFileByChunk(x, z);
-
-        final int regionX = x & REGION_MASK;
-        final int regionZ = z & REGION_MASK;
-
-        final DataContainer rootView = DataContainer.createNew(DataView.SafetyMode.NO_DATA_CLONED);
-        final DataView levelDataView = rootView.createView(LEVEL);
-
-        // Core properties
-        levelDataView.set(VERSION, (byte) 1);
-        levelDataView.set(X, chunk.getX());
-        levelDataView.set(Z, chunk.getZ());
-        levelDataView.set(TERRAIN_POPULATED, (byte) (chunk.isPopulated() ? 1 : 0));
-        levelDataView.set(LIGHT_POPULATED, (byte) (chunk.isLightPopulated() ? 1 : 0));
-        levelDataView.set(LAST_UPDATE, 0L);
-        levelDataView.set(INHABITED_TIME, chunk.getInhabitedTime());
+        final AnvilChunkSnapshot snapshot = new AnvilChunkSnapshot(x, z);
+        snapshot.populated = chunk.isPopulated();
+        snapshot.lightPopulated = chunk.isLightPopulated();
+        snapshot.inhabitedTime = chunk.getInhabitedTime();
 
         // Chunk sections
         final ChunkSectionSnapshot[] sections = chunk.getSectionSnapshots(true);
-        final List<DataView> sectionDataViews = new ArrayList<>();
+        final List<AnvilChunkSnapshot.Section> sectionSnapshots = new ArrayList<>();
         final List<DataView> tileEntityDataViews = new ArrayList<>();
 
-        for (byte i = 0; i < sections.length; ++i) {
+        //noinspection unchecked
+        final ObjectSerializer<LanternTileEntity> tileEntitySerializer = ObjectSerializerRegistry.get().get(LanternTileEntity.class).get();
+        for (int i = 0; i < sections.length; ++i) {
             final ChunkSectionSnapshot section = sections[i];
             if (section == null) {
                 continue;
             }
 
-            final DataContainer sectionDataView = DataContainer.createNew(DataView.SafetyMode.NO_DATA_CLONED);
-            sectionDataView.set(Y, i);
-
-            final byte[] rawTypes = new byte[section.types.length];
-            final short[] types = section.types;
-
-            NibbleArray extTypes = null;
-            final NibbleArray data = new NibbleArray(rawTypes.length);
-
-            for (int j = 0; j < rawTypes.length; j++) {
-                rawTypes[j] = (byte) ((types[j] >> 4) & 0xff);
-                byte extType = (byte) (types[j] >> 12);
-                if (extType != 0) {
-                    if (extTypes == null) {
-                        extTypes = new NibbleArray(rawTypes.length);
-                    }
-                    extTypes.set(j, extType);
-                }
-                data.set(j, (byte) (types[j] & 0xf));
-            }
-            sectionDataView.set(BLOCKS, rawTypes);
-            if (extTypes != null) {
-                sectionDataView.set(BLOCKS_EXTRA, extTypes.getPackedArray());
-            }
-            sectionDataView.set(DATA, data.getPackedArray());
-            sectionDataView.set(BLOCK_LIGHT, section.lightFromBlock);
-
-            final byte[] lightFromSky = section.lightFromSky;
-            if (lightFromSky != null) {
-                sectionDataView.set(SKY_LIGHT, lightFromSky);
-            }
-
-            sectionDataViews.add(sectionDataView);
+            sectionSnapshots.add(new AnvilChunkSnapshot.Section(i, section.types, section.lightFromBlock, section.lightFromSky));
 
-            //noinspection unchecked
-            final ObjectSerializer<LanternTileEntity> tileEntitySerializer = ObjectSerializerRegistry.get().get(LanternTileEntity.class).get();
             // Serialize the tile entities
             for (Short2ObjectMap.Entry<LanternTileEntity> tileEntityEntry : section.tileEntities.short2ObjectEntrySet()) {
                 if (!tileEntityEntry.getValue().isValid()) {
@@ -371,9 +300,10 @@ public void write(LanternChunk chunk) throws IOException {
             }
         }
 
-        levelDataView.set(TILE_ENTITIES, tileEntityDataViews);
-        levelDataView.set(SECTIONS, sectionDataViews);
-        levelDataView.set(HEIGHT_MAP, chunk.getHeightMap());
+        snapshot.sections = sectionSnapshots.toArray(new AnvilChunkSnapshot.Section[sectionSnapshots.size()]);
+        snapshot.tileEntities = tileEntityDataViews;
+        snapshot.heightMap = chunk.getHeightMap();
+        snapshot.biomes = chunk.getBiomes();
 
         //noinspection unchecked
         final Short2ObjectMap<LanternChunk.TrackerData>[] trackerData = chunk.getTrackerData().getRawObjects();
@@ -394,30 +324,7 @@ public void write(LanternChunk chunk) throws IOException {
                 trackerDataViews.add(trackerDataView);
             }
         }
-
-        if (!trackerDataViews.isEmpty()) {
-            levelDataView.createView(DataQueries.SPONGE_DATA).set(TRACKER_DATA_TABLE, trackerDataViews);
-        }
-
-        final short[] biomes = chunk.getBiomes();
-        final byte[] biomes0 = new byte[biomes.length];
-        byte[] biomes1 = null;
-
-        for (int i = 0; i < biomes.length; i++) {
-            biomes0[i] = (byte) (biomes[i] & 0xff);
-            byte value = (byte) ((biomes[i] >> 4) & 0xff);
-            if (value != 0) {
-                if (biomes1 == null) {
-                    biomes1 = new byte[biomes0.length];
-                }
-                biomes1[i] = value;
-            }
-        }
-
-        levelDataView.set(BIOMES, biomes0);
-        if (biomes1 != null) {
-            levelDataView.set(BIOMES_EXTRA, biomes1);
-        }
+        snapshot.trackerData = trackerDataViews;
 
         //noinspection unchecked
         final List<LanternEntity> entities = new ArrayList(chunk.getEntities(entity -> !(entity instanceof Player)));
@@ -431,17 +338,31 @@ public void write(LanternChunk chunk) throws IOException {
             final DataView entityView = entitySerializer.serialize(entity);
             entityViews.add(entityView);
         }
+        snapshot.entities = entityViews;
+
+        return snapshot;
+    }
+
+    @Override
+    public void write(int x, int z, ChunkIOService.Snapshot snapshot) throws IOException {
+        checkArgument(snapshot instanceof AnvilChunkSnapshot, "Unsupported chunk snapshot: %s", snapshot);
+        final RegionFile region = this.cache.acquireRegionFileByChunk(x, z);
 
-        levelDataView.set(ENTITIES, entityViews);
+        final int regionX = x & REGION_MASK;
+        final int regionZ = z & REGION_MASK;
 
-        try (NbtDataContainerOutputStream nbt = new NbtDataContainerOutputStream(region.getChunkDataOutputStream(regionX, regionZ))) {
-            nbt.write(rootView);
-            nbt.flush();
+        // The data is written to the region file once the stream is closed
+        try (NbtStreamWriter writer = new NbtStreamWriter(region.getChunkDataOutputStream(regionX, regionZ))) {
+            AnvilChunkWriter.write(writer, (AnvilChunkSnapshot) snapshot);
+            writer.flush();
+        } finally {
+            this.cache.release(region);
         }
     }
 
     @Override
     public void unload() throws IOException {
+        this.compactionTask.cancel();
         this.cache.clear();
     }
 
@@ -577,11 +498,16 @@ public CompletableFuture<Optional<DataContainer>> getChunkData(Vector3i chunkCoo
             final int x = chunkCoords.getX();
             final int z = chunkCoords.getZ();
 
-            final RegionFile region = cache.getRegionFileByChunk(x, z);
+            final RegionFile region = cache.acquireRegionFileByChunk(x, z);
             final int regionX = x & REGION_MASK;
             final int regionZ = z & REGION_MASK;
 
-            final DataInputStream is = region.getChunkDataInputStream(regionX, regionZ);
+            final DataInputStream is;
+            try {
+                is = region.getChunkDataInputStream(regionX, regionZ);
+            } finally {
+                cache.release(region);
+            }
             if (is == null) {
                 return Optional.empty();
             }
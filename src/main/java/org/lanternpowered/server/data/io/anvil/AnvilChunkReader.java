@@ -0,0 +1,295 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.data.io.anvil;
+
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.BIOMES;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.BIOMES_EXTRA;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.BLOCKS;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.BLOCKS_EXTRA;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.BLOCK_LIGHT;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.DATA;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.ENTITIES;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.HEIGHT_MAP;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.INHABITED_TIME;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.LEVEL;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.LIGHT_POPULATED;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.NIBBLE_ARRAY_SIZE;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.SECTIONS;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.SKY_LIGHT;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.SPONGE_DATA;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.TERRAIN_POPULATED;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.TILE_ENTITIES;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.TRACKER_DATA_TABLE;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.Y;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.BYTE_ARRAY;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.COMPOUND;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.END;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.INT_ARRAY;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.LIST;
+import static org.lanternpowered.server.world.chunk.LanternChunk.CHUNK_SECTION_VOLUME;
+
+import it.unimi.dsi.fastutil.shorts.Short2ObjectOpenHashMap;
+import org.lanternpowered.server.block.tile.LanternTileEntity;
+import org.lanternpowered.server.data.persistence.nbt.NbtStreamReader;
+import org.lanternpowered.server.util.NibbleArray;
+import org.lanternpowered.server.world.chunk.LanternChunk.ChunkSection;
+import org.spongepowered.api.data.DataView;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+/**
+ * Decodes the anvil chunk format from a {@link NbtStreamReader}. The block
+ * types, block data and light values of the sections are decoded directly
+ * into the final {@link ChunkSection} arrays, only the entities, tile
+ * entities and tracker data are read as {@link DataView}s.
+ */
+final class AnvilChunkReader {
+
+    /**
+     * The temporary arrays that are used to combine the block
+     * types, these are reused for every section that is read.
+     */
+    private static final class SectionBuffers {
+
+        private final byte[] blocks = new byte[CHUNK_SECTION_VOLUME];
+        private final byte[] blocksExtra = new byte[NIBBLE_ARRAY_SIZE];
+        private final byte[] data = new byte[NIBBLE_ARRAY_SIZE];
+        private final short[] types = new short[CHUNK_SECTION_VOLUME];
+    }
+
+    private static final ThreadLocal<SectionBuffers> sectionBuffers = ThreadLocal.withInitial(SectionBuffers::new);
+
+    final ChunkSection[] sections = new ChunkSection[16];
+    final List<Short2ObjectOpenHashMap<LanternTileEntity>> tileEntitySections = new ArrayList<>(Collections.nCopies(this.sections.length, null));
+
+    @Nullable short[] biomes;
+    @Nullable int[] heightMap;
+    boolean populated;
+    boolean lightPopulated;
+    long inhabitedTime;
+
+    List<DataView> tileEntities = Collections.emptyList();
+    List<DataView> entities = Collections.emptyList();
+    List<DataView> trackerData = Collections.emptyList();
+
+    private AnvilChunkReader() {
+    }
+
+    /**
+     * Reads the chunk data from the given {@link NbtStreamReader}.
+     *
+     * @param reader The reader
+     * @return The chunk reader that holds the decoded data
+     * @throws IOException
+     */
+    static AnvilChunkReader read(NbtStreamReader reader) throws IOException {
+        final AnvilChunkReader chunkReader = new AnvilChunkReader();
+        if (reader.readTagType() != COMPOUND) {
+            throw new IOException("The chunk data should start with a compound tag.");
+        }
+        reader.readTagName();
+        boolean level = false;
+        byte type;
+        while ((type = reader.readTagType()) != END) {
+            final String name = reader.readTagName();
+            if (type == COMPOUND && name.equals(LEVEL)) {
+                chunkReader.readLevel(reader);
+                level = true;
+            } else {
+                reader.skipPayload(type);
+            }
+        }
+        if (!level) {
+            throw new IOException("The chunk data is missing the " + LEVEL + " tag.");
+        }
+        return chunkReader;
+    }
+
+    private void readLevel(NbtStreamReader reader) throws IOException {
+        byte[] biomes = null;
+        byte[] biomesExtra = null;
+        byte type;
+        while ((type = reader.readTagType()) != END) {
+            final String name = reader.readTagName();
+            switch (name) {
+                case SECTIONS:
+                    if (type == LIST) {
+                        readSections(reader);
+                        continue;
+                    }
+                    break;
+                case TERRAIN_POPULATED:
+                    this.populated = reader.readIntegral(type, 0) > 0;
+                    continue;
+                case LIGHT_POPULATED:
+                    this.lightPopulated = reader.readIntegral(type, 0) > 0;
+                    continue;
+                case INHABITED_TIME:
+                    this.inhabitedTime = reader.readIntegral(type, 0);
+                    continue;
+                case BIOMES:
+                    if (type == BYTE_ARRAY) {
+                        biomes = reader.readByteArray();
+                        continue;
+                    }
+                    break;
+                case BIOMES_EXTRA:
+                    if (type == BYTE_ARRAY) {
+                        biomesExtra = reader.readByteArray();
+                        continue;
+                    }
+                    break;
+                case HEIGHT_MAP:
+                    if (type == INT_ARRAY) {
+                        this.heightMap = reader.readIntArray();
+                        continue;
+                    }
+                    break;
+                case TILE_ENTITIES:
+                    if (type == LIST) {
+                        this.tileEntities = reader.readCompoundList();
+                        continue;
+                    }
+                    break;
+                case ENTITIES:
+                    if (type == LIST) {
+                        this.entities = reader.readCompoundList();
+                        continue;
+                    }
+                    break;
+                case SPONGE_DATA:
+                    if (type == COMPOUND) {
+                        readSpongeData(reader);
+                        continue;
+                    }
+                    break;
+            }
+            reader.skipPayload(type);
+        }
+        if (biomes != null) {
+            final short[] newBiomes = new short[biomes.length];
+            for (int i = 0; i < biomes.length; i++) {
+                newBiomes[i] = (short) ((biomesExtra == null || i >= biomesExtra.length ? 0 : (biomesExtra[i] & 0xff) << 8) | biomes[i] & 0xff);
+            }
+            this.biomes = newBiomes;
+        }
+    }
+
+    private void readSpongeData(NbtStreamReader reader) throws IOException {
+        byte type;
+        while ((type = reader.readTagType()) != END) {
+            final String name = reader.readTagName();
+            if (type == LIST && name.equals(TRACKER_DATA_TABLE)) {
+                this.trackerData = reader.readCompoundList();
+            } else {
+                reader.skipPayload(type);
+            }
+        }
+    }
+
+    private void readSections(NbtStreamReader reader) throws IOException {
+        final byte elementType = reader.readByte();
+        final int size = reader.readInt();
+        if (elementType != COMPOUND) {
+            for (int i = 0; i < size; i++) {
+                reader.skipPayload(elementType);
+            }
+            return;
+        }
+        final SectionBuffers buffers = sectionBuffers.get();
+        for (int i = 0; i < size; i++) {
+            readSection(reader, buffers);
+        }
+    }
+
+    private void readSection(NbtStreamReader reader, SectionBuffers buffers) throws IOException {
+        int y = -1;
+        boolean blocks = false;
+        boolean blocksExtra = false;
+        boolean data = false;
+        byte[] blockLight = null;
+        byte[] skyLight = null;
+
+        byte type;
+        while ((type = reader.readTagType()) != END) {
+            final String name = reader.readTagName();
+            if (type == BYTE_ARRAY) {
+                switch (name) {
+                    case BLOCKS:
+                        reader.readByteArray(buffers.blocks);
+                        blocks = true;
+                        continue;
+                    case BLOCKS_EXTRA:
+                        reader.readByteArray(buffers.blocksExtra);
+                        blocksExtra = true;
+                        continue;
+                    case DATA:
+                        reader.readByteArray(buffers.data);
+                        data = true;
+                        continue;
+                    case BLOCK_LIGHT:
+                        reader.readByteArray(blockLight = new byte[NIBBLE_ARRAY_SIZE]);
+                        continue;
+                    case SKY_LIGHT:
+                        reader.readByteArray(skyLight = new byte[NIBBLE_ARRAY_SIZE]);
+                        continue;
+                }
+            } else if (name.equals(Y)) {
+                y = (int) reader.readIntegral(type, -1);
+                continue;
+            }
+            reader.skipPayload(type);
+        }
+        if (y < 0 || y >= this.sections.length || !blocks) {
+            return;
+        }
+
+        final byte[] rawTypes = buffers.blocks;
+        final byte[] extTypes = blocksExtra ? buffers.blocksExtra : null;
+        final byte[] rawData = data ? buffers.data : null;
+        final short[] types = buffers.types;
+
+        for (int i = 0; i < NIBBLE_ARRAY_SIZE; i++) {
+            final int j = i << 1;
+            final int ext = extTypes == null ? 0 : extTypes[i];
+            final int dat = rawData == null ? 0 : rawData[i];
+            types[j] = (short) ((ext & 0xf) << 12 | (rawTypes[j] & 0xff) << 4 | dat & 0xf);
+            types[j + 1] = (short) ((ext & 0xf0) << 8 | (rawTypes[j + 1] & 0xff) << 4 | (dat >> 4) & 0xf);
+        }
+
+        final Short2ObjectOpenHashMap<LanternTileEntity> tileEntities = new Short2ObjectOpenHashMap<>();
+        this.tileEntitySections.set(y, tileEntities);
+        this.sections[y] = new ChunkSection(types,
+                NibbleArray.wrap(CHUNK_SECTION_VOLUME, skyLight == null ? new byte[NIBBLE_ARRAY_SIZE] : skyLight),
+                NibbleArray.wrap(CHUNK_SECTION_VOLUME, blockLight == null ? new byte[NIBBLE_ARRAY_SIZE] : blockLight),
+                tileEntities);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.data.io.anvil;
+
+import org.lanternpowered.server.data.io.ChunkIOService;
+import org.lanternpowered.server.world.chunk.ChunkBlockStateArray;
+import org.spongepowered.api.data.DataView;
+
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+/**
+ * The snapshot of a chunk that will be written by the {@link AnvilChunkWriter}. The
+ * sections, biomes and height map are kept as arrays, only the entities, tile
+ * entities and tracker data are serialized into {@link DataView}s.
+ */
+final class AnvilChunkSnapshot implements ChunkIOService.Snapshot {
+
+    static final class Section {
+
+        final int y;
+        final ChunkBlockStateArray types;
+        final byte[] blockLight;
+        @Nullable final byte[] skyLight;
+
+        Section(int y, ChunkBlockStateArray types, byte[] blockLight, @Nullable byte[] skyLight) {
+            this.y = y;
+            this.types = types;
+            this.blockLight = blockLight;
+            this.skyLight = skyLight;
+        }
+    }
+
+    final int x;
+    final int z;
+
+    Section[] sections = new Section[0];
+
+    short[] biomes = new short[0];
+    int[] heightMap = new int[0];
+    boolean populated;
+    boolean lightPopulated;
+    long inhabitedTime;
+
+    List<DataView> tileEntities = Collections.emptyList();
+    List<DataView> entities = Collections.emptyList();
+    List<DataView> trackerData = Collections.emptyList();
+
+    AnvilChunkSnapshot(int x, int z) {
+        this.x = x;
+        this.z = z;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.data.io.anvil;
+
+import static org.lanternpowered.server.world.chunk.LanternChunk.CHUNK_SECTION_VOLUME;
+
+/**
+ * The tag names that are used by the {@link AnvilChunkReader} and {@link AnvilChunkWriter}.
+ */
+final class AnvilChunkTags {
+
+    static final String VERSION = "V"; // byte
+    static final String LEVEL = "Level"; // compound
+    static final String SECTIONS = "Sections"; // array
+    static final String X = "xPos"; // int
+    static final String Z = "zPos"; // int
+    static final String Y = "Y"; // byte
+    static final String BLOCKS = "Blocks"; // byte array
+    static final String BLOCKS_EXTRA = "Add"; // (nibble) byte array
+    static final String DATA = "Data"; // (nibble) byte array
+    static final String BLOCK_LIGHT = "BlockLight"; // (nibble) byte array
+    static final String SKY_LIGHT = "SkyLight"; // (nibble) byte array
+    static final String TERRAIN_POPULATED = "TerrainPopulated"; // (boolean) byte
+    static final String LIGHT_POPULATED = "LightPopulated"; // (boolean) byte
+    static final String BIOMES = "Biomes"; // byte array
+    // A extra tag for the biomes to support the custom biomes
+    static final String BIOMES_EXTRA = "BiomesE"; // byte array
+    static final String HEIGHT_MAP = "HeightMap";  // int array
+    static final String LAST_UPDATE = "LastUpdate"; // long
+    static final String INHABITED_TIME = "InhabitedTime"; // long
+    static final String TILE_ENTITIES = "TileEntities"; // compound list
+    static final String ENTITIES = "Entities"; // compound list
+    static final String SPONGE_DATA = "SpongeData"; // compound
+    static final String TRACKER_DATA_TABLE = "BlockPosTable"; // compound list
+
+    // The size of a packed nibble array of a chunk section
+    static final int NIBBLE_ARRAY_SIZE = CHUNK_SECTION_VOLUME / 2;
+
+    private AnvilChunkTags() {
+    }
+}
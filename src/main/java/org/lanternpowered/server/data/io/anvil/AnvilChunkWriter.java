@@ -0,0 +1,177 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.data.io.anvil;
+
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.BIOMES;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.BIOMES_EXTRA;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.BLOCKS;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.BLOCKS_EXTRA;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.BLOCK_LIGHT;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.DATA;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.ENTITIES;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.HEIGHT_MAP;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.INHABITED_TIME;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.LAST_UPDATE;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.LEVEL;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.LIGHT_POPULATED;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.NIBBLE_ARRAY_SIZE;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.SECTIONS;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.SKY_LIGHT;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.SPONGE_DATA;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.TERRAIN_POPULATED;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.TILE_ENTITIES;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.TRACKER_DATA_TABLE;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.VERSION;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.X;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.Y;
+import static org.lanternpowered.server.data.io.anvil.AnvilChunkTags.Z;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.COMPOUND;
+import static org.lanternpowered.server.world.chunk.LanternChunk.CHUNK_SECTION_VOLUME;
+
+import org.lanternpowered.server.data.persistence.nbt.NbtStreamWriter;
+import org.lanternpowered.server.world.chunk.ChunkBlockStateArray;
+
+import java.io.IOException;
+
+/**
+ * Encodes a {@link AnvilChunkSnapshot} into the anvil chunk format. The
+ * sections are split into the block, extra block and data arrays in reused
+ * buffers and are written directly to the {@link NbtStreamWriter}.
+ */
+final class AnvilChunkWriter {
+
+    /**
+     * The temporary arrays that are used to split the block
+     * types, these are reused for every section that is written.
+     */
+    private static final class SectionBuffers {
+
+        private final byte[] blocks = new byte[CHUNK_SECTION_VOLUME];
+        private final byte[] blocksExtra = new byte[NIBBLE_ARRAY_SIZE];
+        private final byte[] data = new byte[NIBBLE_ARRAY_SIZE];
+    }
+
+    private static final ThreadLocal<SectionBuffers> sectionBuffers = ThreadLocal.withInitial(SectionBuffers::new);
+
+    /**
+     * Writes the chunk snapshot to the given {@link NbtStreamWriter}.
+     *
+     * @param writer The writer
+     * @param snapshot The chunk snapshot
+     * @throws IOException
+     */
+    static void write(NbtStreamWriter writer, AnvilChunkSnapshot snapshot) throws IOException {
+        writer.startCompound("");
+        writer.startCompound(LEVEL);
+
+        // Core properties
+        writer.writeByte(VERSION, (byte) 1);
+        writer.writeInt(X, snapshot.x);
+        writer.writeInt(Z, snapshot.z);
+        writer.writeByte(TERRAIN_POPULATED, (byte) (snapshot.populated ? 1 : 0));
+        writer.writeByte(LIGHT_POPULATED, (byte) (snapshot.lightPopulated ? 1 : 0));
+        writer.writeLong(LAST_UPDATE, 0L);
+        writer.writeLong(INHABITED_TIME, snapshot.inhabitedTime);
+
+        writer.writeCompoundList(TILE_ENTITIES, snapshot.tileEntities);
+
+        // Chunk sections
+        final SectionBuffers buffers = sectionBuffers.get();
+        writer.startList(SECTIONS, COMPOUND, snapshot.sections.length);
+        for (AnvilChunkSnapshot.Section section : snapshot.sections) {
+            writeSection(writer, section, buffers);
+        }
+
+        writer.writeIntArray(HEIGHT_MAP, snapshot.heightMap);
+
+        if (!snapshot.trackerData.isEmpty()) {
+            writer.startCompound(SPONGE_DATA);
+            writer.writeCompoundList(TRACKER_DATA_TABLE, snapshot.trackerData);
+            writer.endCompound();
+        }
+
+        final short[] biomes = snapshot.biomes;
+        final byte[] biomes0 = new byte[biomes.length];
+        byte[] biomes1 = null;
+
+        for (int i = 0; i < biomes.length; i++) {
+            biomes0[i] = (byte) (biomes[i] & 0xff);
+            final byte value = (byte) ((biomes[i] >> 8) & 0xff);
+            if (value != 0) {
+                if (biomes1 == null) {
+                    biomes1 = new byte[biomes0.length];
+                }
+                biomes1[i] = value;
+            }
+        }
+
+        writer.writeByteArray(BIOMES, biomes0);
+        if (biomes1 != null) {
+            writer.writeByteArray(BIOMES_EXTRA, biomes1);
+        }
+
+        writer.writeCompoundList(ENTITIES, snapshot.entities);
+
+        writer.endCompound();
+        writer.endCompound();
+    }
+
+    private static void writeSection(NbtStreamWriter writer, AnvilChunkSnapshot.Section section,
+            SectionBuffers buffers) throws IOException {
+        final ChunkBlockStateArray types = section.types;
+        final byte[] blocks = buffers.blocks;
+        final byte[] blocksExtra = buffers.blocksExtra;
+        final byte[] data = buffers.data;
+
+        int extra = 0;
+        for (int i = 0; i < NIBBLE_ARRAY_SIZE; i++) {
+            final int j = i << 1;
+            final int type0 = types.get(j) & 0xffff;
+            final int type1 = types.get(j + 1) & 0xffff;
+            blocks[j] = (byte) (type0 >> 4);
+            blocks[j + 1] = (byte) (type1 >> 4);
+            data[i] = (byte) ((type0 & 0xf) | (type1 & 0xf) << 4);
+            final int ext = (type0 >> 12) | (type1 >> 12) << 4;
+            blocksExtra[i] = (byte) ext;
+            extra |= ext;
+        }
+
+        writer.writeByte(Y, (byte) section.y);
+        writer.writeByteArray(BLOCKS, blocks);
+        if (extra != 0) {
+            writer.writeByteArray(BLOCKS_EXTRA, blocksExtra);
+        }
+        writer.writeByteArray(DATA, data);
+        writer.writeByteArray(BLOCK_LIGHT, section.blockLight);
+        if (section.skyLight != null) {
+            writer.writeByteArray(SKY_LIGHT, section.skyLight);
+        }
+        writer.endCompound();
+    }
+
+    private AnvilChunkWriter() {
+    }
+}
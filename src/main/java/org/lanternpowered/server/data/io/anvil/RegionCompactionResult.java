@@ -0,0 +1,87 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.data.io.anvil;
+
+/**
+ * The summary of the compaction of one or multiple region files.
+ */
+public final class RegionCompactionResult {
+
+    private int regions;
+    private long bytesReclaimed;
+
+    private int chunks;
+    private long sectorsBefore;
+    private long sectorsAfter;
+
+    void add(RegionFile.Stats before, RegionFile.Stats after) {
+        this.regions++;
+        this.bytesReclaimed += before.getFileSize() - after.getFileSize();
+        this.chunks += after.getChunkCount();
+        this.sectorsBefore += Math.round(before.getSectorsPerChunk() * before.getChunkCount());
+        this.sectorsAfter += Math.round(after.getSectorsPerChunk() * after.getChunkCount());
+    }
+
+    /**
+     * Gets the amount of region files that were compacted.
+     *
+     * @return The region count
+     */
+    public int getRegionCount() {
+        return this.regions;
+    }
+
+    /**
+     * Gets the amount of bytes that were reclaimed.
+     *
+     * @return The reclaimed bytes
+     */
+    public long getBytesReclaimed() {
+        return this.bytesReclaimed;
+    }
+
+    /**
+     * Gets the average amount of sectors that had to be read
+     * per chunk before the compaction, see
+     * {@link RegionFile.Stats#getSectorsPerChunk()}.
+     *
+     * @return The sectors per chunk
+     */
+    public double getSectorsPerChunkBefore() {
+        return this.chunks == 0 ? 0 : this.sectorsBefore / (double) this.chunks;
+    }
+
+    /**
+     * Gets the average amount of sectors that have to be
+     * read per chunk after the compaction, see
+     * {@link RegionFile.Stats#getSectorsPerChunk()}.
+     *
+     * @return The sectors per chunk
+     */
+    public double getSectorsPerChunkAfter() {
+        return this.chunks == 0 ? 0 : this.sectorsAfter / (double) this.chunks;
+    }
+}
@@ -67,21 +67,33 @@
  */
 package org.lanternpowered.server.data.io.anvil;
 
+import com.google.common.base.MoreObjects;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.PooledByteBufAllocator;
 import org.lanternpowered.server.game.Lantern;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.StampedLock;
 import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 import java.util.zip.GZIPInputStream;
@@ -89,6 +101,13 @@
 
 import javax.annotation.Nullable;
 
+/**
+ * A region file that is accessed through positional i/o on a {@link FileChannel}.
+ * <p>
+ * The offset and timestamp tables are cached in memory. Every chunk has its own
+ * lock, which allows chunks to be read and written in parallel, only the
+ * allocation of sectors is guarded by a lock that is shared by the whole file.
+ */
 public final class RegionFile {
 
     private static final Marker REGION_FILE_MARKER = MarkerFactory.getMarker("REGION_FILE");
@@ -99,93 +118,183 @@ public final class RegionFile {
     private static final int SECTOR_BYTES = 4096;
     private static final int SECTOR_INTS = SECTOR_BYTES / 4;
 
+    private static final int HEADER_BYTES = SECTOR_BYTES * 2;
+
     private static final int CHUNK_HEADER_SIZE = 5;
-    private static final byte[] EMPTY_SECTOR = new byte[SECTOR_BYTES];
 
-    private final RandomAccessFile file;
-    private final int[] offsets;
-    private final BitSet usedSectors;
+    // The size of the buffer that the deflater output stream writes the compressed data through
+    private static final int DEFLATE_BUFFER_SIZE = 8192;
+
+    // The deflaters that are used to compress the chunk data, creating a
+    // new deflater for every chunk write is expensive and the native
+    // memory is only freed once the deflater gets finalized
+    private static final ThreadLocal<Deflater> deflaters = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+
+    private final FileChannel channel;
     private final int regionX;
     private final int regionZ;
 
-    private int sectorCount;
+    // The cached offset and timestamp tables
+    private final AtomicIntegerArray offsets = new AtomicIntegerArray(SECTOR_INTS);
+    private final AtomicIntegerArray timestamps = new AtomicIntegerArray(SECTOR_INTS);
+
+    // The locks of every chunk, a chunk can be read by multiple
+    // threads at the same time, but only be written by one
+    private final StampedLock[] chunkLocks = new StampedLock[SECTOR_INTS];
+
+    // The sectors that are in use, the allocation of sectors
+    // should only be done while holding the lock of this object
+    private final BitSet usedSectors;
+
+    private volatile int sectorCount;
+
+    // The last time that a chunk was read or written
+    private volatile long lastAccessTime = System.currentTimeMillis();
+
+    // The references to this region file, the region file cache holds one
+    // and every operation that accesses the file holds one while it's
+    // running, the file will be closed once all of them are released
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    /**
+     * The statistics of the sector usage of a region file.
+     */
+    public static final class Stats {
+
+        private final int chunks;
+        private final int usedSectors;
+        private final int sectors;
+
+        private Stats(int chunks, int usedSectors, int sectors) {
+            this.usedSectors = usedSectors;
+            this.sectors = sectors;
+            this.chunks = chunks;
+        }
+
+        /**
+         * Gets the amount of chunks that are stored.
+         *
+         * @return The chunk count
+         */
+        public int getChunkCount() {
+            return this.chunks;
+        }
+
+        /**
+         * Gets the size of the file in bytes.
+         *
+         * @return The file size
+         */
+        public long getFileSize() {
+            return (long) this.sectors * SECTOR_BYTES;
+        }
+
+        /**
+         * Gets the amount of sectors that are used by chunk data.
+         *
+         * @return The used sectors
+         */
+        public int getUsedSectors() {
+            return this.usedSectors;
+        }
+
+        /**
+         * Gets the amount of sectors that aren't used.
+         *
+         * @return The free sectors
+         */
+        public int getFreeSectors() {
+            return this.sectors - 2 - this.usedSectors;
+        }
+
+        /**
+         * Gets the average amount of sectors that have to be read per chunk
+         * when all the chunks in the region are read sequentially, this
+         * includes the free sectors between the chunks.
+         *
+         * @return The sectors per chunk
+         */
+        public double getSectorsPerChunk() {
+            return this.chunks == 0 ? 0 : (this.sectors - 2) / (double) this.chunks;
+        }
+    }
 
     RegionFile(Path path, int regionX, int regionZ) throws IOException {
         this.regionX = regionX;
         this.regionZ = regionZ;
-        this.offsets = new int[SECTOR_INTS];
-
-        long lastModified = 0;
-        if (Files.isRegularFile(path)) {
-            lastModified = Files.getLastModifiedTime(path).toMillis();
+        for (int i = 0; i < this.chunkLocks.length; i++) {
+            this.chunkLocks[i] = new StampedLock();
         }
 
-        this.file = new RandomAccessFile(path.toFile(), "rw");
-
-        long length = this.file.length();
-        // seek to the end to prepare size checking
-        this.file.seek(length);
+        final boolean exists = Files.isRegularFile(path);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
 
+        long length = this.channel.size();
         // if the file size is under 8KB, grow it (4K chunk offset table, 4K timestamp table)
-        if (length < 2 * SECTOR_BYTES) {
-            if (lastModified != 0) {
+        if (length < HEADER_BYTES) {
+            if (exists) {
                 // Only give a warning if the region file existed beforehand
                 Lantern.getLogger().warn(REGION_FILE_MARKER, "Region \"{}\" under 8K: {} increasing by {}",
-                        path, length, 2 * SECTOR_BYTES - length);
-            }
-
-            if (length == 0) {
-                this.file.write(EMPTY_SECTOR);
-                this.file.write(EMPTY_SECTOR);
-            } else {
-                for (; length < 2 * SECTOR_BYTES; length++) {
-                    this.file.write(0);
-                }
+                        path, length, HEADER_BYTES - length);
             }
+            writeFully(ByteBuffer.allocate((int) (HEADER_BYTES - length)), length);
+            length = HEADER_BYTES;
         }
 
-        length = this.file.length();
         // if the file size is not a multiple of 4KB, grow it
         if ((length & 0xfff) != 0) {
             Lantern.getLogger().warn(REGION_FILE_MARKER, "Region \"{}\" not aligned: {} increasing by {}",
                     path, length, SECTOR_BYTES - (length & 0xfff));
-
-            length = length & 0xfff;
-            for (; length < SECTOR_BYTES; length++) {
-                this.file.write(0);
-            }
+            final int added = SECTOR_BYTES - (int) (length & 0xfff);
+            writeFully(ByteBuffer.allocate(added), length);
+            length += added;
         }
 
         // set up the available sector map
-        final int nSectors = (int) (this.file.length() / SECTOR_BYTES);
+        final int nSectors = (int) (length / SECTOR_BYTES);
         this.sectorCount = nSectors;
         this.usedSectors = new BitSet(nSectors);
-        this.usedSectors.set(0, 2);
-
         // set the following sectors
         // 0 - chunk offset table
         // 1 - for the last modified
+        this.usedSectors.set(0, 2);
 
-        // read offsets from offset table
-        this.file.seek(0);
+        // read the offset and timestamp tables at once
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(header, 0);
+        header.flip();
+        final IntBuffer headerInts = header.asIntBuffer();
         for (int i = 0; i < SECTOR_INTS; ++i) {
-            final int offset = this.file.readInt();
-            this.offsets[i] = offset;
+            final int offset = headerInts.get(i);
+            this.offsets.set(i, offset);
+            this.timestamps.set(i, headerInts.get(SECTOR_INTS + i));
 
             final int startSector = (offset >> 8);
             final int numSectors = (offset & 0xff);
 
-            if (offset != 0 && startSector >= 0 && startSector + numSectors <= nSectors) {
+            if (offset != 0 && startSector >= 2 && startSector + numSectors <= nSectors) {
                 this.usedSectors.set(startSector, startSector + numSectors);
             } else if (offset != 0) {
                 Lantern.getLogger().warn(REGION_FILE_MARKER, "Region \"{}\": offsets[{}] = {} -> {},{} does not fit",
                         path, i, offset, startSector, numSectors);
             }
         }
-        // read timestamps from timestamp table -- the timestamps aren't used, so there is no need to read them
-        // for (int i = 0; i < SECTOR_INTS; ++i) {
-        //     this.file.readInt();
-        // }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            final int read = this.channel.read(buffer, position);
+            if (read == -1) {
+                throw new EOFException();
+            }
+            position += read;
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += this.channel.write(buffer, position);
+        }
     }
 
     /**
@@ -196,11 +305,14 @@ public final class RegionFile {
      * @param z the z coordinate
      * @return whether the chunk data exists
      */
-    public synchronized boolean hasChunk(int x, int z) {
+    public boolean hasChunk(int x, int z) {
         checkBounds(x, z);
 
+        final int index = index(x, z);
+        final StampedLock lock = this.chunkLocks[index];
+        final long stamp = lock.readLock();
         try {
-            final int offset = getOffset(x, z);
+            final int offset = this.offsets.get(index);
             if (offset == 0) {
                 // Does not exist
                 return false;
@@ -213,34 +325,134 @@ public synchronized boolean hasChunk(int x, int z) {
                 return false;
             }
 
-            this.file.seek(sectorNumber * SECTOR_BYTES);
-            final int length = this.file.readInt();
+            final ByteBuffer header = ByteBuffer.allocate(CHUNK_HEADER_SIZE);
+            readFully(header, (long) sectorNumber * SECTOR_BYTES);
+            final int length = header.getInt(0);
             if (length > SECTOR_BYTES * numSectors) {
                 logWarning();
                 return false;
             }
 
-            final byte version = this.file.readByte();
+            final byte version = header.get(4);
             if (version == VERSION_GZIP || version == VERSION_DEFLATE) {
                 return true;
             }
         } catch (IOException ignored) {
+        } finally {
+            lock.unlockRead(stamp);
         }
 
         logWarning();
         return false;
     }
 
+    /**
+     * Gets the last time (in milliseconds) that
+     * a chunk in this region was read or written.
+     *
+     * @return The last access time
+     */
+    public long getLastAccessTime() {
+        return this.lastAccessTime;
+    }
+
+    /**
+     * Tries to retain a reference to this region file, this
+     * prevents that the file is closed while it's being used.
+     *
+     * @return Whether the reference was retained, false if the file is closed
+     */
+    boolean retain() {
+        int references;
+        do {
+            references = this.references.get();
+            if (references <= 0) {
+                return false;
+            }
+        } while (!this.references.compareAndSet(references, references + 1));
+        return true;
+    }
+
+    /**
+     * Releases a reference to this region file, the file
+     * will be closed once the last reference is released.
+     *
+     * @return Whether the file was closed
+     * @throws IOException If an error occurred while closing the file
+     */
+    boolean release() throws IOException {
+        if (this.references.decrementAndGet() != 0) {
+            return false;
+        }
+        close();
+        return true;
+    }
+
+    /**
+     * Gets the x coordinate of this region.
+     *
+     * @return The x coordinate
+     */
+    public int getRegionX() {
+        return this.regionX;
+    }
+
+    /**
+     * Gets the z coordinate of this region.
+     *
+     * @return The z coordinate
+     */
+    public int getRegionZ() {
+        return this.regionZ;
+    }
+
+    /**
+     * Gets the current {@link Stats} of this region file.
+     *
+     * @return The stats
+     */
+    public Stats getStats() {
+        synchronized (this.usedSectors) {
+            int chunks = 0;
+            for (int i = 0; i < SECTOR_INTS; i++) {
+                if (this.offsets.get(i) != 0) {
+                    chunks++;
+                }
+            }
+            return new Stats(chunks, this.usedSectors.cardinality() - 2, this.sectorCount);
+        }
+    }
+
+    /**
+     * Gets the time (in seconds since the epoch) of the last time
+     * that the chunk at the coordinates (relative to the region
+     * coordinates) was written.
+     *
+     * @param x the x coordinate
+     * @param z the z coordinate
+     * @return the timestamp, or 0 if the chunk doesn't exist
+     */
+    public int getTimestamp(int x, int z) {
+        checkBounds(x, z);
+        return this.timestamps.get(index(x, z));
+    }
+
     /*
      * gets an (uncompressed) stream representing the chunk data returns null if
-     * the chunk is not found or an error occurs
+     * the chunk is not found or an error occurs, the compressed data is read into
+     * a pooled buffer which will be released when the stream is closed
      */
     @Nullable
-    public synchronized DataInputStream getChunkDataInputStream(int x, int z) {
+    public DataInputStream getChunkDataInputStream(int x, int z) {
         checkBounds(x, z);
 
+        final int index = index(x, z);
+        final StampedLock lock = this.chunkLocks[index];
+        ByteBuf buf = null;
+        this.lastAccessTime = System.currentTimeMillis();
+        final long stamp = lock.readLock();
         try {
-            final int offset = getOffset(x, z);
+            final int offset = this.offsets.get(index);
             if (offset == 0) {
                 // Does not exist
                 return null;
@@ -253,24 +465,37 @@ public synchronized DataInputStream getChunkDataInputStream(int x, int z) {
                 return null;
             }
 
-            this.file.seek(sectorNumber * SECTOR_BYTES);
-            final int length = this.file.readInt();
-            if (length > SECTOR_BYTES * numSectors) {
+            // Read all the sectors at once
+            final int capacity = numSectors * SECTOR_BYTES;
+            buf = PooledByteBufAllocator.DEFAULT.heapBuffer(capacity, capacity);
+            readFully(buf.nioBuffer(0, capacity), (long) sectorNumber * SECTOR_BYTES);
+
+            final int length = buf.getInt(0);
+            if (length > capacity - 4 || length < 1) {
                 logWarning();
                 return null;
             }
+            buf.setIndex(CHUNK_HEADER_SIZE, length + 4);
 
-            final byte version = this.file.readByte();
+            final byte version = buf.getByte(4);
+            final InputStream is;
             if (version == VERSION_GZIP) {
-                final byte[] data = new byte[length - 1];
-                this.file.read(data);
-                return new DataInputStream(new BufferedInputStream(new GZIPInputStream(new ByteArrayInputStream(data))));
+                is = new GZIPInputStream(new ByteBufInputStream(buf, true));
             } else if (version == VERSION_DEFLATE) {
-                final byte[] data = new byte[length - 1];
-                this.file.read(data);
-                return new DataInputStream(new BufferedInputStream(new InflaterInputStream(new ByteArrayInputStream(data))));
+                is = new InflaterInputStream(new ByteBufInputStream(buf, true));
+            } else {
+                logWarning();
+                return null;
             }
+            // The stream is now responsible for releasing the buffer
+            buf = null;
+            return new DataInputStream(new BufferedInputStream(is));
         } catch (IOException ignored) {
+        } finally {
+            lock.unlockRead(stamp);
+            if (buf != null) {
+                buf.release();
+            }
         }
         logWarning();
         return null;
@@ -284,42 +509,70 @@ private void logWarning() {
                 this.regionX, this.regionZ);
     }
 
+    /**
+     * Gets a output stream to write the data of the chunk at the given coordinates,
+     * the data will be written to the file once the stream is closed. The deflater
+     * of the stream is reused per thread, so the stream must be closed before
+     * a new one is requested on the same thread.
+     *
+     * @param x The x coordinate of the chunk within the region
+     * @param z The z coordinate of the chunk within the region
+     * @return The output stream
+     */
     public DataOutputStream getChunkDataOutputStream(int x, int z) {
         checkBounds(x, z);
+        final Deflater deflater = deflaters.get();
+        deflater.reset();
         return new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(
-                new ChunkBuffer(x, z), new Deflater(Deflater.BEST_SPEED))));
+                new ChunkBuffer(x, z), deflater, DEFLATE_BUFFER_SIZE)));
     }
 
     /*
      * lets chunk writing be multithreaded by not locking the whole file as a
-     * chunk is serializing -- only writes when serialization is over
+     * chunk is serializing -- only writes when serialization is over, the data
+     * is written into a pooled buffer that leaves space for the chunk header
      */
-    private class ChunkBuffer extends ByteArrayOutputStream {
+    private class ChunkBuffer extends OutputStream {
 
+        private final ByteBuf buf = PooledByteBufAllocator.DEFAULT.heapBuffer(8192); // initialize to 8KB
         private final int x;
         private final int z;
+        private boolean closed;
 
         ChunkBuffer(int x, int z) {
-            super(8096); // initialize to 8KB
+            this.buf.writerIndex(CHUNK_HEADER_SIZE);
             this.x = x;
             this.z = z;
         }
 
+        @Override
+        public void write(int b) throws IOException {
+            this.buf.writeByte(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.buf.writeBytes(b, off, len);
+        }
+
         @Override
         public void close() throws IOException {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
             try {
-                RegionFile.this.write(this.x, this.z, this.buf, this.count);
+                RegionFile.this.write(this.x, this.z, this.buf);
             } finally {
-                super.close();
+                this.buf.release();
             }
         }
     }
 
-    // write a chunk at (x,z) with length bytes of data to disk
-    protected synchronized void write(int x, int z, byte[] data, int length) throws IOException {
-        final int offset = getOffset(x, z);
-        int sectorNumber = offset >> 8;
-        final int sectorsAllocated = offset & 0xff;
+    // write a chunk at (x,z) to disk, the buffer contains the chunk data
+    // after space that is reserved for the chunk header
+    private void write(int x, int z, ByteBuf buf) throws IOException {
+        final int length = buf.writerIndex() - CHUNK_HEADER_SIZE;
         final int sectorsNeeded = (length + CHUNK_HEADER_SIZE) / SECTOR_BYTES + 1;
 
         // maximum chunk size is 1MB
@@ -327,64 +580,219 @@ protected synchronized void write(int x, int z, byte[] data, int length) throws
             return;
         }
 
-        if (sectorNumber != 0 && sectorsAllocated == sectorsNeeded) {
-            // we can simply overwrite the old sectors
-            write(sectorNumber, data, length);
-        } else {
-            // we need to allocate new sectors
-
-            // mark the sectors previously used for this chunk as free
-            this.usedSectors.clear(sectorNumber, sectorNumber + sectorsAllocated);
-
-            // scan for a free space large enough to store this chunk
-            int runStart = this.usedSectors.nextClearBit(2);
-            int runLength = 0;
-            if (runStart != -1 && runStart < this.sectorCount) {
-                for (int i = runStart; i < this.sectorCount; ++i) {
-                    if (runLength != 0) {
-                        if (!this.usedSectors.get(i)) {
-                            runLength++;
-                        } else {
-                            runLength = 0;
-                        }
-                    } else if (!this.usedSectors.get(i)) {
-                        runStart = i;
-                        runLength = 1;
-                    }
-                    if (runLength >= sectorsNeeded) {
-                        break;
-                    }
+        // Complete all the sectors before locking, the unused
+        // space is cleared to keep the file aligned
+        final int capacity = sectorsNeeded * SECTOR_BYTES;
+        buf.setInt(0, length + 1); // chunk length
+        buf.setByte(4, VERSION_DEFLATE); // chunk version number
+        buf.writeZero(capacity - buf.writerIndex());
+
+        final int index = index(x, z);
+        final StampedLock lock = this.chunkLocks[index];
+        this.lastAccessTime = System.currentTimeMillis();
+        final long stamp = lock.writeLock();
+        try {
+            final int offset = this.offsets.get(index);
+            final int oldSectorNumber = offset >> 8;
+            final int sectorsAllocated = offset & 0xff;
+
+            if (oldSectorNumber != 0 && sectorsAllocated >= sectorsNeeded) {
+                // we can simply overwrite the old sectors
+                writeFully(buf.nioBuffer(0, capacity), (long) oldSectorNumber * SECTOR_BYTES);
+                if (sectorsAllocated != sectorsNeeded) {
+                    // Release the sectors that aren't needed anymore
+                    setOffset(index, (oldSectorNumber << 8) | sectorsNeeded);
+                    free(oldSectorNumber + sectorsNeeded, sectorsAllocated - sectorsNeeded);
                 }
             } else {
-                runStart = this.sectorCount;
+                // we need to allocate new sectors
+                final int sectorNumber = allocate(sectorsNeeded);
+                // Write chunk data and offset
+                writeFully(buf.nioBuffer(0, capacity), (long) sectorNumber * SECTOR_BYTES);
+                setOffset(index, (sectorNumber << 8) | sectorsNeeded);
+                // The old sectors are only released once they are no longer
+                // referenced, this way will the old data be kept on failures
+                if (oldSectorNumber != 0) {
+                    free(oldSectorNumber, sectorsAllocated);
+                }
             }
+            setTimestamp(index, (int) (System.currentTimeMillis() / 1000L));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
 
-            sectorNumber = runStart;
-            if (runLength < sectorsNeeded) {
-                final int added = sectorsNeeded - runLength;
-                this.sectorCount += added;
-                this.file.seek(this.file.length());
-                for (int i = 0; i < added; i++) {
-                    this.file.write(EMPTY_SECTOR);
+    /**
+     * Allocates a run of sectors. The smallest run of free sectors
+     * that fits will be used, the file will only be grown if there
+     * is no such run.
+     *
+     * @param sectorsNeeded The amount of sectors that are needed
+     * @return The first sector of the allocated run
+     */
+    private int allocate(int sectorsNeeded) {
+        synchronized (this.usedSectors) {
+            final int sectorCount = this.sectorCount;
+
+            int bestStart = -1;
+            int bestLength = Integer.MAX_VALUE;
+            int tailStart = -1;
+
+            // scan for the smallest free space that is large enough to store this chunk
+            int start = this.usedSectors.nextClearBit(2);
+            while (start < sectorCount) {
+                int end = this.usedSectors.nextSetBit(start);
+                if (end == -1 || end > sectorCount) {
+                    end = sectorCount;
+                    tailStart = start;
                 }
+                final int length = end - start;
+                if (length >= sectorsNeeded && length < bestLength) {
+                    bestStart = start;
+                    bestLength = length;
+                    // Can't get any better
+                    if (length == sectorsNeeded) {
+                        break;
+                    }
+                }
+                start = this.usedSectors.nextClearBit(end);
+            }
+
+            if (bestStart == -1) {
+                // Grow the file, the free sectors at the end of the file can be reused,
+                // the new sectors will be filled once the chunk data is written
+                bestStart = tailStart != -1 ? tailStart : sectorCount;
+                this.sectorCount = bestStart + sectorsNeeded;
             }
 
-            // Clear the sectors to set them in use
-            this.usedSectors.set(sectorNumber, sectorNumber + sectorsNeeded);
+            // Set the sectors in use
+            this.usedSectors.set(bestStart, bestStart + sectorsNeeded);
+            return bestStart;
+        }
+    }
+
+    private void free(int sectorNumber, int sectors) {
+        synchronized (this.usedSectors) {
+            this.usedSectors.clear(sectorNumber, sectorNumber + sectors);
+        }
+    }
+
+    /**
+     * Compacts this region file, the chunks will be moved one by one towards the
+     * start of the file into the first run of free sectors that fits, after which
+     * the free sectors at the end of the file will be truncated. Only the chunk
+     * that is being moved is locked, so the other chunks can still be read and
+     * written during the compaction.
+     *
+     * @throws IOException If an i/o error occurs
+     */
+    public void compact() throws IOException {
+        // Collect all the chunks, sorted by their current position
+        final long[] entries = new long[SECTOR_INTS];
+        int count = 0;
+        for (int i = 0; i < SECTOR_INTS; i++) {
+            final int offset = this.offsets.get(i);
+            if (offset != 0) {
+                entries[count++] = (long) (offset >> 8) << 32 | i;
+            }
+        }
+        Arrays.sort(entries, 0, count);
+        for (int i = 0; i < count; i++) {
+            compactChunk((int) entries[i]);
+        }
+        synchronized (this.usedSectors) {
+            // Sectors that are allocated by chunk writes are always marked as
+            // used before the data is written, so they will never be truncated
+            final int sectorCount = Math.max(2, this.usedSectors.length());
+            if (sectorCount < this.sectorCount) {
+                // Make sure that all the offsets are written before the file is truncated
+                this.channel.force(false);
+                this.channel.truncate((long) sectorCount * SECTOR_BYTES);
+                this.sectorCount = sectorCount;
+            }
+        }
+    }
 
-            // Write chunk data and offset
-            write(sectorNumber, data, length);
-            setOffset(x, z, (sectorNumber << 8) | sectorsNeeded);
+    private void compactChunk(int index) throws IOException {
+        final StampedLock lock = this.chunkLocks[index];
+        final long stamp = lock.writeLock();
+        try {
+            // The chunk may be written or removed since the positions were collected
+            final int offset = this.offsets.get(index);
+            if (offset == 0) {
+                return;
+            }
+            final int sectorNumber = offset >> 8;
+            final int numSectors = offset & 0xff;
+            final int target;
+            final int tempSectorNumber;
+            synchronized (this.usedSectors) {
+                if (sectorNumber < 2 || sectorNumber + numSectors > this.sectorCount) {
+                    // The chunk couldn't be read anyway, so drop it
+                    logWarning();
+                    setOffset(index, 0);
+                    return;
+                }
+                // The sectors of the chunk itself can be reused
+                this.usedSectors.clear(sectorNumber, sectorNumber + numSectors);
+                target = findFreeSectors(numSectors, sectorNumber);
+                this.usedSectors.set(sectorNumber, sectorNumber + numSectors);
+                if (target == -1) {
+                    return;
+                }
+                // Reserve the target sectors, the overlap with the current sectors is already in use
+                this.usedSectors.set(target, Math.min(target + numSectors, sectorNumber));
+                // If the target overlaps with the current sectors, move the chunk to other
+                // sectors first so that there is always a valid copy in the file
+                tempSectorNumber = target + numSectors > sectorNumber ? allocate(numSectors) : -1;
+            }
+            final int capacity = numSectors * SECTOR_BYTES;
+            final ByteBuf buf = PooledByteBufAllocator.DEFAULT.heapBuffer(capacity, capacity);
+            try {
+                readFully(buf.nioBuffer(0, capacity), (long) sectorNumber * SECTOR_BYTES);
+                if (tempSectorNumber != -1) {
+                    writeFully(buf.nioBuffer(0, capacity), (long) tempSectorNumber * SECTOR_BYTES);
+                    setOffset(index, (tempSectorNumber << 8) | numSectors);
+                }
+                writeFully(buf.nioBuffer(0, capacity), (long) target * SECTOR_BYTES);
+                setOffset(index, (target << 8) | numSectors);
+            } finally {
+                buf.release();
+            }
+            // The old sectors are only released once they are no longer referenced
+            synchronized (this.usedSectors) {
+                this.usedSectors.clear(sectorNumber, sectorNumber + numSectors);
+                this.usedSectors.set(target, target + numSectors);
+                if (tempSectorNumber != -1) {
+                    this.usedSectors.clear(tempSectorNumber, tempSectorNumber + numSectors);
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        setTimestamp(x, z, (int) (System.currentTimeMillis() / 1000L));
     }
 
-    // write a chunk data to the region file at specified sector number
-    private void write(int sectorNumber, byte[] data, int length) throws IOException {
-        this.file.seek(sectorNumber * SECTOR_BYTES);
-        this.file.writeInt(length + 1); // chunk length
-        this.file.writeByte(VERSION_DEFLATE); // chunk version number
-        this.file.write(data, 0, length); // chunk data
+    /**
+     * Finds the first run of free sectors that fits
+     * and starts before the given sector number.
+     *
+     * @param sectorsNeeded The amount of sectors that are needed
+     * @param limit The sector number the run should start before
+     * @return The first sector of the run, or -1 if there is none
+     */
+    private int findFreeSectors(int sectorsNeeded, int limit) {
+        int start = this.usedSectors.nextClearBit(2);
+        while (start < limit) {
+            int end = this.usedSectors.nextSetBit(start);
+            if (end == -1 || end > this.sectorCount) {
+                end = this.sectorCount;
+            }
+            if (end - start >= sectorsNeeded) {
+                return start;
+            }
+            start = this.usedSectors.nextClearBit(end);
+        }
+        return -1;
     }
 
     // is this an invalid chunk coordinate?
@@ -394,23 +802,36 @@ private void checkBounds(int x, int z) {
         }
     }
 
-    private int getOffset(int x, int z) {
-        return this.offsets[x + z * 32];
+    private static int index(int x, int z) {
+        return x + z * 32;
+    }
+
+    private void setOffset(int index, int offset) throws IOException {
+        this.offsets.set(index, offset);
+        writeInt(index * 4, offset);
+    }
+
+    private void setTimestamp(int index, int value) throws IOException {
+        this.timestamps.set(index, value);
+        writeInt(SECTOR_BYTES + index * 4, value);
     }
 
-    private void setOffset(int x, int z, int offset) throws IOException {
-        this.offsets[x + z * 32] = offset;
-        this.file.seek((x + z * 32) * 4);
-        this.file.writeInt(offset);
+    private void writeInt(long position, int value) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(4);
+        buffer.putInt(0, value);
+        writeFully(buffer, position);
     }
 
-    private void setTimestamp(int x, int z, int value) throws IOException {
-        this.file.seek(SECTOR_BYTES + (x + z * 32) * 4);
-        this.file.writeInt(value);
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("x", this.regionX)
+                .add("z", this.regionZ)
+                .toString();
     }
 
     public void close() throws IOException {
-        this.file.getChannel().force(true);
-        this.file.close();
+        this.channel.force(true);
+        this.channel.close();
     }
 }
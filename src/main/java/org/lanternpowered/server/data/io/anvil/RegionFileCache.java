@@ -53,8 +53,12 @@
 import org.lanternpowered.server.game.Lantern;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -73,6 +77,13 @@ final class RegionFileCache {
     private static final int MAX_CACHE_SIZE = 256;
 
     private final Cache<Long, RegionFile> cache;
+
+    /**
+     * All the region files that are open, this includes the ones that were removed
+     * from the cache but are still in use and the ones that are being compacted
+     * outside the cache. There may only be one open instance per region file.
+     */
+    private final Map<Long, RegionFile> openFiles = new ConcurrentHashMap<>();
     private final String extension;
     private final Pattern filePattern;
     private final Path regionDir;
@@ -92,13 +103,14 @@ final class RegionFileCache {
             Lantern.getLogger().warn("Failed to create directory: " + this.regionDir);
         }
 
+        // The cache holds a reference to the region files, the file will
+        // only be closed once all the operations on it are completed
         this.cache = Caffeine.newBuilder()
                 .maximumSize(MAX_CACHE_SIZE)
-                .softValues()
                 .removalListener((key, value, cause) -> {
                     if (value != null) {
                         try {
-                            ((RegionFile) value).close();
+                            release((RegionFile) value);
                         } catch (IOException e) {
                             throw new RuntimeException(e);
                         }
@@ -107,6 +119,10 @@ final class RegionFileCache {
                 .build();
     }
 
+    private static long key(int regionX, int regionZ) {
+        return (regionZ & 0xffffffffL) << 32 | regionX & 0xffffffffL;
+    }
+
     public Path[] getRegionFiles() {
         try {
             return Files.list(this.regionDir).filter(file -> this.filePattern.matcher(file.getFileName().toString()).matches()).toArray(Path[]::new);
@@ -121,11 +137,21 @@ public RegionFile getRegionFileByChunk(int chunkX, int chunkZ) throws IOExceptio
         return this.getRegionFile(regionX, regionZ);
     }
 
+    /**
+     * Gets the cached {@link RegionFile} at the given coordinates, the file may
+     * be closed at any time. Use {@link #acquireRegionFile(int, int)} for
+     * operations that access the file.
+     *
+     * @param regionX The x coordinate of the region
+     * @param regionZ The z coordinate of the region
+     * @return The region file
+     * @throws IOException
+     */
     public RegionFile getRegionFile(int regionX, int regionZ) throws IOException {
-        final long coords = (regionZ & 0xffffffffL) << 32 | regionX & 0xffffffffL;
-        return this.cache.get(coords, coords0 -> {
+        return this.cache.get(key(regionX, regionZ), coords -> {
             try {
-                return new RegionFile(this.regionDir.resolve("r." + regionX + "." + regionZ + "." + this.extension), regionX, regionZ);
+                // The reference of the opened file is owned by the cache
+                return open(regionX, regionZ);
             } catch (IOException e) {
                 Lantern.getLogger().error("Failed to load the region file (%s;%s)", regionX, regionZ);
                 throw new RuntimeException(e);
@@ -133,6 +159,164 @@ public RegionFile getRegionFile(int regionX, int regionZ) throws IOException {
         });
     }
 
+    public RegionFile acquireRegionFileByChunk(int chunkX, int chunkZ) throws IOException {
+        final int regionX = chunkX >> REGION_COORDINATE_BITS;
+        final int regionZ = chunkZ >> REGION_COORDINATE_BITS;
+        return this.acquireRegionFile(regionX, regionZ);
+    }
+
+    /**
+     * Gets the {@link RegionFile} at the given coordinates and retains a reference
+     * to it, the file won't be closed until {@link #release(RegionFile)} is called.
+     *
+     * @param regionX The x coordinate of the region
+     * @param regionZ The z coordinate of the region
+     * @return The region file
+     * @throws IOException
+     */
+    public RegionFile acquireRegionFile(int regionX, int regionZ) throws IOException {
+        while (true) {
+            final RegionFile regionFile = getRegionFile(regionX, regionZ);
+            if (regionFile.retain()) {
+                return regionFile;
+            }
+            // The file was removed from the cache and closed in the
+            // meantime, try again, this will open the file again
+        }
+    }
+
+    /**
+     * Releases a reference to the {@link RegionFile} that was
+     * acquired through {@link #acquireRegionFile(int, int)}.
+     *
+     * @param regionFile The region file
+     * @throws IOException
+     */
+    public void release(RegionFile regionFile) throws IOException {
+        if (regionFile.release()) {
+            this.openFiles.remove(key(regionFile.getRegionX(), regionFile.getRegionZ()), regionFile);
+        }
+    }
+
+    /**
+     * Opens the {@link RegionFile} at the given coordinates, the caller owns a
+     * reference to the returned file. A file that is still open will be reused.
+     *
+     * @param regionX The x coordinate of the region
+     * @param regionZ The z coordinate of the region
+     * @return The region file
+     * @throws IOException
+     */
+    private RegionFile open(int regionX, int regionZ) throws IOException {
+        try {
+            return this.openFiles.compute(key(regionX, regionZ), (coords, regionFile) -> {
+                if (regionFile != null && regionFile.retain()) {
+                    return regionFile;
+                }
+                try {
+                    return new RegionFile(this.regionDir.resolve("r." + regionX + "." + regionZ + "." + this.extension), regionX, regionZ);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Compacts all the cached region files that weren't accessed
+     * for the given amount of time and of which at least the given
+     * fraction of the sectors is free.
+     *
+     * @param idleTime The idle time in milliseconds
+     * @param minFreeRatio The minimum fraction of free sectors
+     * @return The compaction result
+     */
+    public RegionCompactionResult compactIdleRegions(long idleTime, double minFreeRatio) {
+        final RegionCompactionResult result = new RegionCompactionResult();
+        final long time = System.currentTimeMillis();
+        for (RegionFile regionFile : this.cache.asMap().values()) {
+            if (time - regionFile.getLastAccessTime() < idleTime) {
+                continue;
+            }
+            final RegionFile.Stats stats = regionFile.getStats();
+            final int sectors = stats.getUsedSectors() + stats.getFreeSectors();
+            if (sectors == 0 || stats.getFreeSectors() / (double) sectors < minFreeRatio) {
+                continue;
+            }
+            // The file may not be closed while it's being compacted
+            if (!regionFile.retain()) {
+                continue;
+            }
+            try {
+                compact(regionFile, result);
+            } finally {
+                releaseQuietly(regionFile);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Compacts all the region files in the region directory that aren't
+     * in use, these files are opened outside the cache so that the cached
+     * files won't be evicted. The cached region files will be compacted
+     * by {@link #compactIdleRegions(long, double)}.
+     *
+     * @return The compaction result
+     */
+    public RegionCompactionResult compactAllRegions() {
+        final RegionCompactionResult result = new RegionCompactionResult();
+        for (Path path : getRegionFiles()) {
+            final Matcher matcher = this.filePattern.matcher(path.getFileName().toString());
+            if (!matcher.matches()) {
+                continue;
+            }
+            final int regionX = Integer.parseInt(matcher.group(1));
+            final int regionZ = Integer.parseInt(matcher.group(2));
+            // Skip the region files that are cached or still in use
+            final long coords = key(regionX, regionZ);
+            if (this.cache.getIfPresent(coords) != null || this.openFiles.containsKey(coords)) {
+                continue;
+            }
+            // Chunk operations that load the region file in the
+            // meantime will share the opened instance
+            final RegionFile regionFile;
+            try {
+                regionFile = open(regionX, regionZ);
+            } catch (IOException e) {
+                Lantern.getLogger().error("Failed to load the region file ({};{})", regionX, regionZ, e);
+                continue;
+            }
+            try {
+                compact(regionFile, result);
+            } finally {
+                releaseQuietly(regionFile);
+            }
+        }
+        return result;
+    }
+
+    private void releaseQuietly(RegionFile regionFile) {
+        try {
+            release(regionFile);
+        } catch (IOException e) {
+            Lantern.getLogger().error("Failed to close the region file {}", regionFile, e);
+        }
+    }
+
+    private static void compact(RegionFile regionFile, RegionCompactionResult result) {
+        final RegionFile.Stats before = regionFile.getStats();
+        try {
+            regionFile.compact();
+        } catch (IOException e) {
+            Lantern.getLogger().error("Failed to compact the region file {}", regionFile, e);
+            return;
+        }
+        result.add(before, regionFile.getStats());
+    }
+
     public void clear() {
         this.cache.invalidateAll();
     }
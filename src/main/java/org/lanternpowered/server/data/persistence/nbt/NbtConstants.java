@@ -29,7 +29,7 @@
  * The nbt constants. These are the ids of all the types that can be used in a
  * nbt tag.
  */
-class NbtConstants {
+public final class NbtConstants {
 
     public static final byte END = 0;
     public static final byte BYTE = 1;
@@ -142,6 +142,19 @@ public DataContainer read() throws IOException, InvalidDataFormatException {
         return (DataContainer) this.readObject(null, entry, 0);
     }
 
+    /**
+     * Reads the payload of a tag with the given type, the
+     * type and name of the tag should already be consumed.
+     *
+     * @param type The tag type
+     * @return The payload
+     * @throws IOException
+     * @throws InvalidDataFormatException
+     */
+    Object readPayload(byte type) throws IOException, InvalidDataFormatException {
+        return this.readPayload(null, type, 0);
+    }
+
     private Object readObject(@Nullable DataView container, Entry entry, int depth) throws IOException, InvalidDataFormatException {
         return this.readPayload(container, entry.type, depth);
     }
@@ -170,10 +183,8 @@ private Object readPayload(@Nullable DataView container, byte type, int depth) t
         if (type == BYTE) {
             return this.dis.readByte();
         } else if (type == BYTE_ARRAY) {
-            byte[] array = new byte[this.dis.readInt()];
-            for (int i = 0; i < array.length; i++) {
-                array[i] = this.dis.readByte();
-            }
+            final byte[] array = new byte[this.dis.readInt()];
+            this.dis.readFully(array);
             return array;
         } else if (type == COMPOUND) {
             if (container == null) {
@@ -108,6 +108,17 @@ public void write(DataView dataView) throws IOException {
         writeEntry("", checkNotNull(dataView, "dataView"));
     }
 
+    /**
+     * Writes the given {@link DataView} as the payload of
+     * a compound tag, the type and name should already be written.
+     *
+     * @param dataView The data view
+     * @throws IOException
+     */
+    void writeCompoundPayload(DataView dataView) throws IOException {
+        writePayload(COMPOUND, checkNotNull(dataView, "dataView"));
+    }
+
     @SuppressWarnings("unchecked")
     private void writePayload(byte type, Object object) throws IOException {
         if (type == UNKNOWN) {
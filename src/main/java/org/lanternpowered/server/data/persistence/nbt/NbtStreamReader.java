@@ -0,0 +1,307 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.data.persistence.nbt;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.BYTE;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.BYTE_ARRAY;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.COMPOUND;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.DOUBLE;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.END;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.FLOAT;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.INT;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.INT_ARRAY;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.LIST;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.LONG;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.SHORT;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.STRING;
+
+import org.spongepowered.api.data.DataView;
+import org.spongepowered.api.data.persistence.InvalidDataFormatException;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A streaming reader for the nbt format. Unlike the {@link NbtDataContainerInputStream}
+ * this reader doesn't build a {@link DataView} tree, the caller walks through the tags
+ * one by one and decides for every tag whether the payload should be read into a
+ * primitive (array), a {@link DataView} or be skipped.
+ * <p>
+ * A compound is read by calling {@link #readTagType()} until it returns {@link NbtConstants#END},
+ * after every other tag type the name has to be read with {@link #readTagName()} followed by
+ * exactly one payload read or {@link #skipPayload(byte)}.
+ */
+public class NbtStreamReader implements Closeable {
+
+    private final DataInputStream dis;
+    private final NbtDataContainerInputStream containerInputStream;
+
+    /**
+     * Creates a new nbt stream reader.
+     *
+     * @param inputStream The input stream
+     */
+    public NbtStreamReader(InputStream inputStream) {
+        checkNotNull(inputStream, "inputStream");
+        this.dis = inputStream instanceof DataInputStream ? (DataInputStream) inputStream : new DataInputStream(inputStream);
+        this.containerInputStream = new NbtDataContainerInputStream(this.dis);
+    }
+
+    /**
+     * Reads the type of the next tag.
+     *
+     * @return The tag type
+     * @throws IOException
+     */
+    public byte readTagType() throws IOException {
+        return this.dis.readByte();
+    }
+
+    /**
+     * Reads the name of the current tag.
+     *
+     * @return The tag name
+     * @throws IOException
+     */
+    public String readTagName() throws IOException {
+        return this.dis.readUTF();
+    }
+
+    public byte readByte() throws IOException {
+        return this.dis.readByte();
+    }
+
+    public short readShort() throws IOException {
+        return this.dis.readShort();
+    }
+
+    public int readInt() throws IOException {
+        return this.dis.readInt();
+    }
+
+    public long readLong() throws IOException {
+        return this.dis.readLong();
+    }
+
+    public float readFloat() throws IOException {
+        return this.dis.readFloat();
+    }
+
+    public double readDouble() throws IOException {
+        return this.dis.readDouble();
+    }
+
+    public String readString() throws IOException {
+        return this.dis.readUTF();
+    }
+
+    /**
+     * Reads the payload of a integral number tag (byte, short, int or long)
+     * as a long. Any other tag type will be skipped.
+     *
+     * @param type The tag type
+     * @param defaultValue The value to return if the tag isn't a integral number
+     * @return The number
+     * @throws IOException
+     */
+    public long readIntegral(byte type, long defaultValue) throws IOException {
+        switch (type) {
+            case BYTE:
+                return this.dis.readByte();
+            case SHORT:
+                return this.dis.readShort();
+            case INT:
+                return this.dis.readInt();
+            case LONG:
+                return this.dis.readLong();
+            default:
+                skipPayload(type);
+                return defaultValue;
+        }
+    }
+
+    /**
+     * Reads the payload of a byte array tag.
+     *
+     * @return The byte array
+     * @throws IOException
+     */
+    public byte[] readByteArray() throws IOException {
+        final byte[] array = new byte[this.dis.readInt()];
+        this.dis.readFully(array);
+        return array;
+    }
+
+    /**
+     * Reads the payload of a byte array tag directly into the target
+     * array. The length of the stored array must match the target length.
+     *
+     * @param target The target array
+     * @throws IOException If the lengths don't match
+     */
+    public void readByteArray(byte[] target) throws IOException {
+        final int length = this.dis.readInt();
+        if (length != target.length) {
+            skipFully(length);
+            throw new IOException("Byte array length mismatch: Got " + length + ", but expected " + target.length);
+        }
+        this.dis.readFully(target);
+    }
+
+    /**
+     * Reads the payload of a int array tag.
+     *
+     * @return The int array
+     * @throws IOException
+     */
+    public int[] readIntArray() throws IOException {
+        final int[] array = new int[this.dis.readInt()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = this.dis.readInt();
+        }
+        return array;
+    }
+
+    /**
+     * Reads the payload of a compound tag as a {@link DataView}.
+     *
+     * @return The data view
+     * @throws IOException
+     */
+    public DataView readCompound() throws IOException {
+        return (DataView) this.containerInputStream.readPayload(COMPOUND);
+    }
+
+    /**
+     * Reads the payload of a list tag that contains compounds. A list
+     * with a different element type will be skipped and result in a
+     * empty list.
+     *
+     * @return The data views
+     * @throws IOException
+     */
+    public List<DataView> readCompoundList() throws IOException {
+        final byte elementType = this.dis.readByte();
+        final int size = this.dis.readInt();
+        if (elementType != COMPOUND) {
+            for (int i = 0; i < size; i++) {
+                skipPayload(elementType);
+            }
+            return Collections.emptyList();
+        }
+        final List<DataView> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(readCompound());
+        }
+        return list;
+    }
+
+    /**
+     * Reads the payload of the tag with the given type as a object, in
+     * the same way the {@link NbtDataContainerInputStream} would do.
+     *
+     * @param type The tag type
+     * @return The object
+     * @throws IOException
+     */
+    public Object readPayload(byte type) throws IOException {
+        return this.containerInputStream.readPayload(type);
+    }
+
+    /**
+     * Skips the payload of the tag with the given type.
+     *
+     * @param type The tag type
+     * @throws IOException
+     */
+    public void skipPayload(byte type) throws IOException {
+        switch (type) {
+            case END:
+                break;
+            case BYTE:
+                skipFully(1);
+                break;
+            case SHORT:
+                skipFully(2);
+                break;
+            case INT:
+            case FLOAT:
+                skipFully(4);
+                break;
+            case LONG:
+            case DOUBLE:
+                skipFully(8);
+                break;
+            case BYTE_ARRAY:
+                skipFully(this.dis.readInt());
+                break;
+            case INT_ARRAY:
+                skipFully(this.dis.readInt() * 4);
+                break;
+            case STRING:
+                skipFully(this.dis.readUnsignedShort());
+                break;
+            case LIST:
+                final byte elementType = this.dis.readByte();
+                final int size = this.dis.readInt();
+                for (int i = 0; i < size; i++) {
+                    skipPayload(elementType);
+                }
+                break;
+            case COMPOUND:
+                byte tagType;
+                while ((tagType = this.dis.readByte()) != END) {
+                    skipFully(this.dis.readUnsignedShort());
+                    skipPayload(tagType);
+                }
+                break;
+            default:
+                throw new InvalidDataFormatException("Attempt to skip a unknown nbt tag type: " + type);
+        }
+    }
+
+    private void skipFully(int bytes) throws IOException {
+        while (bytes > 0) {
+            final int skipped = this.dis.skipBytes(bytes);
+            if (skipped <= 0) {
+                throw new EOFException();
+            }
+            bytes -= skipped;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.dis.close();
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.data.persistence.nbt;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.BYTE;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.BYTE_ARRAY;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.COMPOUND;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.END;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.INT;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.INT_ARRAY;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.LIST;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.LONG;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.SHORT;
+
+import org.spongepowered.api.data.DataView;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * A streaming writer for the nbt format, the counterpart of the {@link NbtStreamReader}.
+ * Tags are written directly to the underlying stream without building a {@link DataView}
+ * tree first. Every {@link #startCompound(String)} must be closed by {@link #endCompound()}
+ * and the elements of a list started with {@link #startList(String, byte, int)} are written
+ * as payloads, without type and name.
+ */
+public class NbtStreamWriter implements Closeable, Flushable {
+
+    private final DataOutputStream dos;
+    private final NbtDataContainerOutputStream containerOutputStream;
+
+    /**
+     * Creates a new nbt stream writer.
+     *
+     * @param outputStream The output stream
+     */
+    public NbtStreamWriter(OutputStream outputStream) {
+        checkNotNull(outputStream, "outputStream");
+        this.dos = outputStream instanceof DataOutputStream ? (DataOutputStream) outputStream : new DataOutputStream(outputStream);
+        this.containerOutputStream = new NbtDataContainerOutputStream(this.dos);
+    }
+
+    /**
+     * Writes the type and name of a tag, must be followed by the payload.
+     *
+     * @param type The tag type
+     * @param name The tag name
+     * @throws IOException
+     */
+    public void writeTag(byte type, String name) throws IOException {
+        this.dos.writeByte(type);
+        this.dos.writeUTF(name);
+    }
+
+    public void writeByte(String name, byte value) throws IOException {
+        writeTag(BYTE, name);
+        this.dos.writeByte(value);
+    }
+
+    public void writeShort(String name, short value) throws IOException {
+        writeTag(SHORT, name);
+        this.dos.writeShort(value);
+    }
+
+    public void writeInt(String name, int value) throws IOException {
+        writeTag(INT, name);
+        this.dos.writeInt(value);
+    }
+
+    public void writeLong(String name, long value) throws IOException {
+        writeTag(LONG, name);
+        this.dos.writeLong(value);
+    }
+
+    public void writeByteArray(String name, byte[] array) throws IOException {
+        writeTag(BYTE_ARRAY, name);
+        writeByteArrayPayload(array);
+    }
+
+    public void writeIntArray(String name, int[] array) throws IOException {
+        writeTag(INT_ARRAY, name);
+        this.dos.writeInt(array.length);
+        for (int value : array) {
+            this.dos.writeInt(value);
+        }
+    }
+
+    /**
+     * Writes the payload of a byte array tag.
+     *
+     * @param array The byte array
+     * @throws IOException
+     */
+    public void writeByteArrayPayload(byte[] array) throws IOException {
+        this.dos.writeInt(array.length);
+        this.dos.write(array);
+    }
+
+    /**
+     * Starts a named compound tag.
+     *
+     * @param name The tag name
+     * @throws IOException
+     */
+    public void startCompound(String name) throws IOException {
+        writeTag(COMPOUND, name);
+    }
+
+    /**
+     * Ends the current compound tag, this is also used to end
+     * compounds that are elements of a list.
+     *
+     * @throws IOException
+     */
+    public void endCompound() throws IOException {
+        this.dos.writeByte(END);
+    }
+
+    /**
+     * Starts a list tag, must be followed by exactly {@code size} payloads
+     * of the given element type.
+     *
+     * @param name The tag name
+     * @param elementType The type of the elements
+     * @param size The size of the list
+     * @throws IOException
+     */
+    public void startList(String name, byte elementType, int size) throws IOException {
+        writeTag(LIST, name);
+        this.dos.writeByte(size == 0 ? END : elementType);
+        this.dos.writeInt(size);
+    }
+
+    /**
+     * Writes the given {@link DataView} as the payload of a compound tag.
+     *
+     * @param dataView The data view
+     * @throws IOException
+     */
+    public void writeCompoundPayload(DataView dataView) throws IOException {
+        this.containerOutputStream.writeCompoundPayload(dataView);
+    }
+
+    /**
+     * Writes a list tag with the given {@link DataView}s as compounds.
+     *
+     * @param name The tag name
+     * @param dataViews The data views
+     * @throws IOException
+     */
+    public void writeCompoundList(String name, List<DataView> dataViews) throws IOException {
+        startList(name, COMPOUND, dataViews.size());
+        for (DataView dataView : dataViews) {
+            writeCompoundPayload(dataView);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.dos.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.dos.close();
+    }
+}
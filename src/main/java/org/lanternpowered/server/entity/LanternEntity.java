@@ -35,7 +35,7 @@
 import org.lanternpowered.server.data.AdditionalContainerCollection;
 import org.lanternpowered.server.data.DataHelper;
 import org.lanternpowered.server.data.DataQueries;
-import org.lanternpowered.server.data.IAdditionalDataHolder;
+import org.lanternpowered.server.data.IChangeTrackingDataHolder;
 import org.lanternpowered.server.data.ValueCollection;
 import org.lanternpowered.server.data.key.LanternKeys;
 import org.lanternpowered.server.data.property.AbstractPropertyHolder;
@@ -76,10 +76,11 @@
 import java.util.Optional;
 import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.annotation.Nullable;
 
-public class LanternEntity implements Entity, IAdditionalDataHolder, AbstractPropertyHolder {
+public class LanternEntity implements Entity, IChangeTrackingDataHolder, AbstractPropertyHolder {
 
     @SuppressWarnings("unused")
     private static boolean bypassEntityTypeLookup;
@@ -121,7 +122,26 @@ public class LanternEntity implements Entity, IAdditionalDataHolder, AbstractPro
 
     private boolean onGround;
 
-    @Nullable private volatile Vector3i lastChunkCoords;
+    /**
+     * Whether the state of this entity changed since
+     * the last time that it was checked.
+     */
+    private final AtomicBoolean changed = new AtomicBoolean();
+
+    /**
+     * The coordinates of the chunk section the entity was last
+     * located in, only valid if {@link #hasLastChunkSection} is true.
+     */
+    private volatile boolean hasLastChunkSection;
+    private int lastChunkSectionX;
+    private int lastChunkSectionY;
+    private int lastChunkSectionZ;
+
+    /**
+     * The index of this entity in the tick list of the world,
+     * or {@code -1} if it's not being ticked.
+     */
+    private int tickIndex = -1;
 
     /**
      * The base of the {@link AABB} of this entity.
@@ -261,11 +281,47 @@ public void resurrect() {
 
     @Nullable
     public Vector3i getLastChunkSectionCoords() {
-        return this.lastChunkCoords;
+        return this.hasLastChunkSection ? new Vector3i(this.lastChunkSectionX, this.lastChunkSectionY, this.lastChunkSectionZ) : null;
     }
 
     public void setLastChunkCoords(@Nullable Vector3i coords) {
-        this.lastChunkCoords = coords;
+        if (coords == null) {
+            this.hasLastChunkSection = false;
+        } else {
+            setLastChunkSection(coords.getX(), coords.getY(), coords.getZ());
+        }
+    }
+
+    public boolean hasLastChunkSection() {
+        return this.hasLastChunkSection;
+    }
+
+    public int getLastChunkSectionX() {
+        return this.lastChunkSectionX;
+    }
+
+    public int getLastChunkSectionY() {
+        return this.lastChunkSectionY;
+    }
+
+    public int getLastChunkSectionZ() {
+        return this.lastChunkSectionZ;
+    }
+
+    public void setLastChunkSection(int x, int y, int z) {
+        this.lastChunkSectionX = x;
+        this.lastChunkSectionY = y;
+        this.lastChunkSectionZ = z;
+        // Written last, publishes the coordinates
+        this.hasLastChunkSection = true;
+    }
+
+    public int getTickIndex() {
+        return this.tickIndex;
+    }
+
+    public void setTickIndex(int tickIndex) {
+        this.tickIndex = tickIndex;
     }
 
     @Override
@@ -279,7 +335,29 @@ public boolean isOnGround() {
      * @param onGround The on ground state
      */
     public void setOnGround(boolean onGround) {
-        this.onGround = onGround;
+        if (this.onGround != onGround) {
+            this.onGround = onGround;
+            markChanged();
+        }
+    }
+
+    /**
+     * Marks the state of this entity as changed, the chunk
+     * it's located in will be saved again.
+     */
+    @Override
+    public void markChanged() {
+        this.changed.set(true);
+    }
+
+    /**
+     * Gets whether the state of this entity changed since the
+     * last time that this method was called and resets it.
+     *
+     * @return Whether the state changed
+     */
+    public boolean pollChanged() {
+        return this.changed.getAndSet(false);
     }
 
     @Override
@@ -313,6 +391,7 @@ public void setRawData(DataView dataView) throws InvalidDataException {
         setPosition(dataView.getObject(DataQueries.POSITION, Vector3d.class).get());
         setRotation(dataView.getObject(DataQueries.ROTATION, Vector3d.class).get());
         DataHelper.deserializeRawData(dataView, this);
+        markChanged();
     }
 
     @Override
@@ -345,12 +424,20 @@ protected void setWorld(@Nullable LanternWorld world) {
     }
 
     protected void setRawPosition(Vector3d position) {
-        this.position = checkNotNull(position, "position");
-        this.boundingBox = null;
+        checkNotNull(position, "position");
+        if (!position.equals(this.position)) {
+            this.position = position;
+            this.boundingBox = null;
+            markChanged();
+        }
     }
 
     protected void setRawRotation(Vector3d rotation) {
-        this.rotation = checkNotNull(rotation, "rotation");
+        checkNotNull(rotation, "rotation");
+        if (!rotation.equals(this.rotation)) {
+            this.rotation = rotation;
+            markChanged();
+        }
     }
 
     public Vector3d getPosition() {
@@ -358,16 +445,41 @@ public Vector3d getPosition() {
     }
 
     public void setPosition(Vector3d position) {
-        setRawPosition(position);
+        checkNotNull(position, "position");
+        runMove(this.world, position, () -> setRawPosition(position));
     }
 
     public boolean setPositionAndWorld(World world, Vector3d position) {
-        setRawPosition(position);
-        setWorld((LanternWorld) world);
+        checkNotNull(position, "position");
+        runMove((LanternWorld) world, position, () -> {
+            setRawPosition(position);
+            setWorld((LanternWorld) world);
+        });
         // TODO: Events
         return true;
     }
 
+    /**
+     * Runs the move of this entity to the given world and position. The move
+     * will be deferred if the regions of the current world are being ticked in
+     * parallel and the destination is out of reach of the current thread.
+     *
+     * @param world The target world
+     * @param position The target position
+     * @param move The move
+     */
+    private void runMove(@Nullable LanternWorld world, Vector3d position, Runnable move) {
+        final LanternWorld oldWorld = this.world;
+        if (oldWorld == null) {
+            move.run();
+        } else if (oldWorld == world) {
+            oldWorld.runInteraction(this.position.getFloorX() >> 4, this.position.getFloorZ() >> 4,
+                    position.getFloorX() >> 4, position.getFloorZ() >> 4, move);
+        } else {
+            oldWorld.runWorldInteraction(move);
+        }
+    }
+
     @Override
     public Location<World> getLocation() {
         checkState(this.world != null, "This entity doesn't have a world.");
@@ -387,7 +499,11 @@ public Vector3d getScale() {
 
     @Override
     public void setScale(Vector3d scale) {
-        this.scale = checkNotNull(scale, "scale");
+        checkNotNull(scale, "scale");
+        if (!scale.equals(this.scale)) {
+            this.scale = scale;
+            markChanged();
+        }
     }
 
     @Override
@@ -424,9 +540,13 @@ public boolean setLocationAndRotation(Location<World> location, Vector3d rotatio
         checkNotNull(location, "location");
         checkNotNull(rotation, "rotation");
 
-        setWorld((LanternWorld) location.getExtent());
-        setRawPosition(location.getPosition());
-        setRawRotation(rotation);
+        final LanternWorld world = (LanternWorld) location.getExtent();
+        final Vector3d position = location.getPosition();
+        runMove(world, position, () -> {
+            setWorld(world);
+            setRawPosition(position);
+            setRawRotation(rotation);
+        });
         // TODO: Events
         return true;
     }
@@ -464,9 +584,13 @@ public boolean setLocationAndRotation(Location<World> location, Vector3d rotatio
         }
         // TODO: No relative roll?
 
-        setWorld((LanternWorld) world);
-        setRawPosition(new Vector3d(x, y, z));
-        setRawRotation(new Vector3d(pitch, yaw, roll));
+        final Vector3d position = new Vector3d(x, y, z);
+        final Vector3d rotation1 = new Vector3d(pitch, yaw, roll);
+        runMove((LanternWorld) world, position, () -> {
+            setWorld((LanternWorld) world);
+            setRawPosition(position);
+            setRawRotation(rotation1);
+        });
 
         // TODO: Events
         return true;
@@ -610,6 +734,10 @@ public Random getRandom() {
 
     @Override
     public boolean damage(double damage, DamageSource damageSource, Cause cause) {
+        if (this.world != null) {
+            // The result depends on the state of this entity, so it cannot be deferred
+            this.world.checkWithinReach(this.position.getFloorX() >> 4, this.position.getFloorZ() >> 4);
+        }
         final Optional<Double> optHealth = get(Keys.HEALTH);
         if (!optHealth.isPresent()) {
             return false;
@@ -683,6 +683,9 @@ public void pulseChunkChanges() {
 
         this.lastChunkPos = new Vector2i(centralX, centralZ);
 
+        // Prioritize the chunk loads around the new position
+        world.getChunkManager().updateLoadPriorities();
+
         // Get the radius of visible chunks
         int radius = Math.min(world.getProperties().getConfig().getGeneration().getViewDistance(),
                 this.viewDistance == -1 ? Integer.MAX_VALUE : this.viewDistance + 1);
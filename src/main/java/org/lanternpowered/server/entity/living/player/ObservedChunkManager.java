@@ -30,26 +30,34 @@
 import static org.lanternpowered.server.world.chunk.LanternChunk.CHUNK_SECTION_VOLUME;
 
 import com.flowpowered.math.vector.Vector2i;
+import com.flowpowered.math.vector.Vector3d;
 import com.flowpowered.math.vector.Vector3i;
 import com.google.common.collect.Sets;
+import io.netty.channel.EventLoop;
+import io.netty.util.ReferenceCountUtil;
 import it.unimi.dsi.fastutil.shorts.Short2ObjectMap;
 import it.unimi.dsi.fastutil.shorts.Short2ObjectOpenHashMap;
-import it.unimi.dsi.fastutil.shorts.Short2ShortMap;
-import it.unimi.dsi.fastutil.shorts.Short2ShortOpenHashMap;
 import org.lanternpowered.server.block.action.BlockAction;
 import org.lanternpowered.server.block.tile.LanternTileEntity;
+import org.lanternpowered.server.config.GlobalConfig;
 import org.lanternpowered.server.data.io.store.ObjectSerializer;
 import org.lanternpowered.server.data.io.store.ObjectSerializerRegistry;
+import org.lanternpowered.server.game.Lantern;
 import org.lanternpowered.server.game.registry.type.block.BlockRegistryModule;
+import org.lanternpowered.server.network.NetworkSession;
 import org.lanternpowered.server.network.message.Message;
+import org.lanternpowered.server.network.message.PreEncodedMessage;
 import org.lanternpowered.server.network.vanilla.message.type.play.MessagePlayOutBlockAction;
 import org.lanternpowered.server.network.vanilla.message.type.play.MessagePlayOutBlockChange;
 import org.lanternpowered.server.network.vanilla.message.type.play.MessagePlayOutChunkData;
 import org.lanternpowered.server.network.vanilla.message.type.play.MessagePlayOutMultiBlockChange;
 import org.lanternpowered.server.network.vanilla.message.type.play.MessagePlayOutUnloadChunk;
+import org.lanternpowered.server.util.ThreadHelper;
 import org.lanternpowered.server.util.VariableValueArray;
+import org.lanternpowered.server.util.concurrent.ConcurrentLong2ObjectMap;
 import org.lanternpowered.server.world.LanternWorld;
 import org.lanternpowered.server.world.WorldEventListener;
+import org.lanternpowered.server.world.chunk.ChunkBlockStateArray;
 import org.lanternpowered.server.world.chunk.LanternChunk;
 import org.spongepowered.api.block.BlockState;
 import org.spongepowered.api.block.BlockType;
@@ -58,18 +66,54 @@
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import javax.annotation.Nullable;
+
 public final class ObservedChunkManager implements WorldEventListener {
 
+    // The amount of threads that will build the chunk data messages
+    private static final int THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+
+    // The maximum amount of tasks that can be queued before the
+    // world threads will start to build the messages themselves
+    private static final int MAX_QUEUED_TASKS = 4096;
+
+    /**
+     * The executor that builds the chunk data messages from the chunk
+     * snapshots, this executor is shared between all the worlds.
+     */
+    private static final ThreadPoolExecutor chunkMessageExecutor = new ThreadPoolExecutor(THREADS, THREADS, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(MAX_QUEUED_TASKS), ThreadHelper.newFastThreadLocalThreadFactory(),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+
+    static {
+        chunkMessageExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * The counter that is used to assign a unique epoch to every
+     * time that a player starts observing a chunk on the client.
+     */
+    private static final AtomicLong observationCounter = new AtomicLong();
+
     /**
      * The {@link World} attached to the observed chunk manager.
      */
@@ -78,14 +122,174 @@ public final class ObservedChunkManager implements WorldEventListener {
     /**
      * All the chunks that are being observed.
      */
-    private final Map<Long, ObservedChunk> observedChunks = new ConcurrentHashMap<>();
+    private final ConcurrentLong2ObjectMap<ObservedChunk> observedChunks = new ConcurrentLong2ObjectMap<>();
+
+    /**
+     * The chunks that are waiting to be send to the players.
+     */
+    private final Map<LanternPlayer, ChunkSendQueue> chunkSendQueues = new ConcurrentHashMap<>();
 
     public ObservedChunkManager(LanternWorld world) {
         this.world = world;
     }
 
     public void pulse() {
-        this.observedChunks.values().forEach(ObservedChunkManager.ObservedChunk::streamChanges);
+        pulseChunkSendQueues();
+        this.observedChunks.forEachValue(ObservedChunkManager.ObservedChunk::streamChanges);
+    }
+
+    /**
+     * Gets the amount of chunks that are waiting to be send to the given player.
+     *
+     * @param player The player
+     * @return The amount of queued chunks
+     */
+    public int getQueuedChunks(LanternPlayer player) {
+        final ChunkSendQueue queue = this.chunkSendQueues.get(player);
+        return queue == null ? 0 : queue.size();
+    }
+
+    /**
+     * Gets the amount of chunks that are waiting to be send to all the players.
+     *
+     * @return The amount of queued chunks
+     */
+    public int getQueuedChunks() {
+        int count = 0;
+        for (ChunkSendQueue queue : this.chunkSendQueues.values()) {
+            count += queue.size();
+        }
+        return count;
+    }
+
+    private void pulseChunkSendQueues() {
+        if (this.chunkSendQueues.isEmpty()) {
+            return;
+        }
+        final GlobalConfig globalConfig = Lantern.getGame().getGlobalConfig();
+        final int maxChunks = globalConfig.getChunkSendChunksPerTick();
+        final int maxBytes = globalConfig.getChunkSendBytesPerTick();
+        // Collect the players per chunk, so that the chunk data
+        // only has to be build once for all the players
+        final Map<ObservedChunk, List<LanternPlayer>> releasedChunks = new HashMap<>();
+        for (ChunkSendQueue queue : this.chunkSendQueues.values()) {
+            if (!queue.release(releasedChunks, maxChunks, maxBytes)) {
+                this.chunkSendQueues.remove(queue.player, queue);
+            }
+        }
+        releasedChunks.forEach(ObservedChunk::sendChunkLoad);
+    }
+
+    private void queueChunkSend(LanternPlayer player, ObservedChunk observedChunk) {
+        while (true) {
+            final ChunkSendQueue queue = this.chunkSendQueues.computeIfAbsent(player, ChunkSendQueue::new);
+            if (queue.add(observedChunk)) {
+                return;
+            }
+            // The queue was just removed, try again
+        }
+    }
+
+    private void dequeueChunkSend(LanternPlayer player, ObservedChunk observedChunk) {
+        final ChunkSendQueue queue = this.chunkSendQueues.get(player);
+        if (queue != null) {
+            queue.remove(observedChunk);
+        }
+    }
+
+    /**
+     * The chunks that are loaded but are still waiting to be send to
+     * a specific player. The chunks are released ordered by the distance
+     * to the player, limited by a budget per tick and only when the
+     * channel of the player is writable.
+     */
+    private final class ChunkSendQueue {
+
+        private final LanternPlayer player;
+
+        // All the chunks that are queued
+        private final Set<ObservedChunk> queued = new HashSet<>();
+        // The chunks in the order they should be send, this may
+        // contain chunks that are no longer queued
+        private final List<ObservedChunk> ordered = new ArrayList<>();
+
+        // The chunk position of the player when the chunks were sorted
+        private long sortCenter;
+        private boolean sorted;
+
+        // Whether this queue was removed from the manager
+        private boolean removed;
+
+        private ChunkSendQueue(LanternPlayer player) {
+            this.player = player;
+        }
+
+        synchronized boolean add(ObservedChunk observedChunk) {
+            if (this.removed) {
+                return false;
+            }
+            if (this.queued.add(observedChunk)) {
+                this.ordered.add(observedChunk);
+                this.sorted = false;
+            }
+            return true;
+        }
+
+        synchronized void remove(ObservedChunk observedChunk) {
+            this.queued.remove(observedChunk);
+        }
+
+        synchronized int size() {
+            return this.queued.size();
+        }
+
+        /**
+         * Releases the chunks that may be send this tick.
+         *
+         * @param releasedChunks The released chunks with their players
+         * @param maxChunks The maximum amount of chunks
+         * @param maxBytes The maximum amount of estimated bytes
+         * @return Whether this queue should be kept
+         */
+        synchronized boolean release(Map<ObservedChunk, List<LanternPlayer>> releasedChunks, int maxChunks, int maxBytes) {
+            if (this.queued.isEmpty()) {
+                this.ordered.clear();
+                this.removed = true;
+                return false;
+            }
+            // Wait until the client catches up
+            if (!this.player.getConnection().getChannel().isWritable()) {
+                return true;
+            }
+            final Vector3d position = this.player.getPosition();
+            final int centerX = position.getFloorX() >> 4;
+            final int centerZ = position.getFloorZ() >> 4;
+            final long center = LanternChunk.key(centerX, centerZ);
+            if (!this.sorted || center != this.sortCenter) {
+                this.ordered.removeIf(observedChunk -> !this.queued.contains(observedChunk));
+                this.ordered.sort(Comparator.comparingInt(observedChunk -> {
+                    final int dx = observedChunk.coords.getX() - centerX;
+                    final int dz = observedChunk.coords.getY() - centerZ;
+                    return dx * dx + dz * dz;
+                }));
+                this.sortCenter = center;
+                this.sorted = true;
+            }
+            int index = 0;
+            int chunks = 0;
+            int bytes = 0;
+            while (index < this.ordered.size() && chunks < maxChunks && bytes < maxBytes) {
+                final ObservedChunk observedChunk = this.ordered.get(index++);
+                if (!this.queued.remove(observedChunk)) {
+                    continue;
+                }
+                releasedChunks.computeIfAbsent(observedChunk, key -> new ArrayList<>()).add(this.player);
+                bytes += observedChunk.estimatedSize;
+                chunks++;
+            }
+            this.ordered.subList(0, index).clear();
+            return true;
+        }
     }
 
     @Override
@@ -133,6 +337,14 @@ public void onBlockAction(int x, int y, int z, BlockType blockType, BlockAction
         }
     }
 
+    @Override
+    public void onLightChange(LanternChunk chunk, int sectionBitMask) {
+        final ObservedChunk observedChunk = this.observedChunks.get(chunk.getKey());
+        if (observedChunk != null) {
+            observedChunk.addLightChange(sectionBitMask);
+        }
+    }
+
     void addObserver(Vector2i coords, LanternPlayer observer) {
         final long key = LanternChunk.key(coords.getX(), coords.getY());
         final ObservedChunk observedChunk = this.observedChunks.computeIfAbsent(key, key1 -> new ObservedChunk(coords));
@@ -145,11 +357,20 @@ void removeObserver(Vector2i coords, LanternPlayer observer, boolean updateClien
         if (observedChunk != null) {
             observedChunk.removeObserver(observer, updateClient);
             if (observedChunk.observers.isEmpty()) {
-                this.observedChunks.remove(key);
+                this.observedChunks.remove(key, observedChunk);
             }
         }
     }
 
+    // The estimated sizes of the chunk data, the block states are estimated with 8 bits
+    // per value, the real amount depends on the palette. Light is stored as nibbles.
+    private static final int SECTION_SIZE = CHUNK_SECTION_VOLUME + CHUNK_SECTION_VOLUME / 2;
+    private static final int SECTION_SIZE_SKY_LIGHT = SECTION_SIZE + CHUNK_SECTION_VOLUME / 2;
+    private static final int BIOMES_SIZE = 256;
+
+    // The estimated size of chunks that weren't snapshotted yet
+    private static final int DEFAULT_ESTIMATED_CHUNK_SIZE = 8 * SECTION_SIZE_SKY_LIGHT;
+
     private static final VariableValueArray EMPTY_SECTION_TYPES = new VariableValueArray(4, CHUNK_SECTION_VOLUME);
     private static final byte[] EMPTY_SECTION_LIGHT = new byte[CHUNK_SECTION_SIZE];
     private static final byte[] EMPTY_SECTION_SKY_LIGHT = new byte[CHUNK_SECTION_SIZE];
@@ -164,6 +385,27 @@ void removeObserver(Vector2i coords, LanternPlayer observer, boolean updateClien
     private static final MessagePlayOutChunkData.Section EMPTY_SECTION = new MessagePlayOutChunkData.Section(
             EMPTY_SECTION_TYPES, new int[1], EMPTY_SECTION_LIGHT, null, new Short2ObjectOpenHashMap<>());
 
+    /**
+     * A snapshot of the data that is needed to build a {@link MessagePlayOutChunkData}.
+     */
+    private static final class ChunkDataSnapshot {
+
+        private final LanternChunk.ChunkSectionSnapshot[] sections;
+        private final Short2ObjectMap<DataView>[] tileEntities;
+        private final int sectionsBitMask;
+        private final boolean skyLight;
+        @Nullable private final short[] biomes;
+
+        private ChunkDataSnapshot(LanternChunk.ChunkSectionSnapshot[] sections, Short2ObjectMap<DataView>[] tileEntities,
+                int sectionsBitMask, boolean skyLight, @Nullable short[] biomes) {
+            this.sectionsBitMask = sectionsBitMask;
+            this.tileEntities = tileEntities;
+            this.sections = sections;
+            this.skyLight = skyLight;
+            this.biomes = biomes;
+        }
+    }
+
     private class ObservedChunk {
 
         private final class QueuedBlockAction {
@@ -188,9 +430,12 @@ private QueuedBlockAction(BlockAction blockAction, MessagePlayOutBlockAction blo
         private final Set<LanternPlayer> observers = Sets.newConcurrentHashSet();
 
         /**
-         * All the observers that already know this chunk on the client.
+         * All the observers that already know this chunk on the client, mapped
+         * to the epoch of the observation. The epoch is captured when messages
+         * are queued, so that messages of a previous observation aren't send
+         * if the player stopped observing the chunk in the meantime.
          */
-        private final Set<LanternPlayer> clientObservers = Sets.newConcurrentHashSet();
+        private final Map<LanternPlayer, Long> clientObservers = new ConcurrentHashMap<>();
 
         /**
          * All the block changes that should be send to the observers.
@@ -211,6 +456,22 @@ private QueuedBlockAction(BlockAction blockAction, MessagePlayOutBlockAction blo
          */
         private volatile boolean dirtyChunk;
 
+        /**
+         * The bit mask of all the chunk sections of which the light changed.
+         */
+        private volatile int dirtyLightSections;
+
+        /**
+         * The tail of the message tasks of this chunk, the chunk data messages are
+         * built asynchronously and all the following messages have to wait for them.
+         */
+        private CompletableFuture<Void> pendingMessages = CompletableFuture.completedFuture(null);
+
+        /**
+         * The estimated size of the chunk data of this chunk, in bytes.
+         */
+        private volatile int estimatedSize = DEFAULT_ESTIMATED_CHUNK_SIZE;
+
         ObservedChunk(Vector2i coords) {
             this.coords = coords;
         }
@@ -242,6 +503,156 @@ void addBlockChange(Supplier<Vector3i> coords) {
             }
         }
 
+        void addLightChange(int sectionBitMask) {
+            // There is not need to track the changes if no one wants to see them
+            if (!this.dirtyChunk && !this.clientObservers.isEmpty()) {
+                this.dirtyLightSections |= sectionBitMask;
+            }
+        }
+
+        /**
+         * Queues a task that sends messages to the observers of this chunk. All the tasks
+         * of this chunk are executed in the order that they were queued, the task is
+         * executed directly if there aren't any chunk messages being built.
+         *
+         * @param task The task
+         */
+        private void queue(Runnable task) {
+            synchronized (this) {
+                if (!this.pendingMessages.isDone()) {
+                    this.pendingMessages = this.pendingMessages.thenRunAsync(wrap(task), chunkMessageExecutor);
+                    return;
+                }
+                task.run();
+            }
+        }
+
+        /**
+         * Queues a task that sends messages to the observers of this chunk, the task will
+         * be executed by the chunk message executor after the previously queued tasks.
+         *
+         * @param task The task
+         */
+        private void queueAsync(Runnable task) {
+            synchronized (this) {
+                this.pendingMessages = this.pendingMessages.thenRunAsync(wrap(task), chunkMessageExecutor);
+            }
+        }
+
+        private Runnable wrap(Runnable task) {
+            return () -> {
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    // Catch everything, otherwise would all the following tasks be skipped
+                    Lantern.getLogger().error("Failed to stream the messages of chunk ({};{})",
+                            this.coords.getX(), this.coords.getY(), t);
+                }
+            };
+        }
+
+        /**
+         * Queues the {@link Message} to be send to the current client observers.
+         *
+         * @param message The message
+         * @param compressed Whether the message should also be compressed once
+         */
+        private void queueToClientObservers(Message message, boolean compressed) {
+            final Map<LanternPlayer, Long> players = new HashMap<>(this.clientObservers);
+            queue(() -> send(players, Collections.singletonList(message), compressed));
+        }
+
+        /**
+         * Queues the chunk data of the given snapshot to be build and send
+         * to the current client observers.
+         *
+         * @param snapshot The chunk data snapshot
+         */
+        private void queueToClientObservers(ChunkDataSnapshot snapshot) {
+            final Map<LanternPlayer, Long> players = new HashMap<>(this.clientObservers);
+            queueAsync(() -> send(players, Collections.singletonList(createLoadChunkMessage(snapshot)), true));
+        }
+
+        /**
+         * Gets whether the player is still observing this
+         * chunk on the client with the given epoch.
+         *
+         * @param player The player
+         * @param epoch The epoch of the observation
+         * @return Whether the player is observing
+         */
+        private boolean isClientObserver(LanternPlayer player, long epoch) {
+            final Long epoch1 = this.clientObservers.get(player);
+            return epoch1 != null && epoch1 == epoch;
+        }
+
+        /**
+         * Sends the {@link Message}s to the player if it's still observing this chunk
+         * on the client with the given epoch. The observation is checked on the event
+         * loop of the player right before the messages are written, after all the
+         * messages that were send to the player before, for example a respawn.
+         *
+         * @param player The player
+         * @param epoch The epoch of the observation
+         * @param messages The messages
+         */
+        private void sendToClientObserver(LanternPlayer player, long epoch, List<Message> messages) {
+            final NetworkSession session = player.getConnection();
+            final EventLoop eventLoop = session.getChannel().eventLoop();
+            if (eventLoop.inEventLoop()) {
+                if (isClientObserver(player, epoch)) {
+                    session.send(messages);
+                }
+                return;
+            }
+            // Keep the messages alive until they are written
+            messages.forEach(ReferenceCountUtil::retain);
+            try {
+                eventLoop.execute(() -> {
+                    try {
+                        if (isClientObserver(player, epoch)) {
+                            session.send(messages);
+                        }
+                    } finally {
+                        messages.forEach(ReferenceCountUtil::release);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // The connection is already closed
+                messages.forEach(ReferenceCountUtil::release);
+            }
+        }
+
+        /**
+         * Sends the {@link Message}s to the players that are still client observers of
+         * this chunk, the first message will only be encoded once if there are multiple players.
+         *
+         * @param players The players mapped to the epochs of their observations
+         * @param messages The messages
+         * @param compressed Whether the first message should also be compressed once
+         */
+        private void send(Map<LanternPlayer, Long> players, List<Message> messages, boolean compressed) {
+            // The player may have been removed while the message was queued,
+            // in that case is the chunk already unloaded on the client
+            players.entrySet().removeIf(entry -> !isClientObserver(entry.getKey(), entry.getValue()));
+            if (players.isEmpty()) {
+                return;
+            }
+            if (players.size() == 1) {
+                players.forEach((player, epoch) -> sendToClientObserver(player, epoch, messages));
+                return;
+            }
+            final Message message = messages.get(0);
+            final PreEncodedMessage preEncodedMessage = compressed ? PreEncodedMessage.ofCompressed(message) : PreEncodedMessage.of(message);
+            final List<Message> messages1 = new ArrayList<>(messages);
+            messages1.set(0, preEncodedMessage);
+            try {
+                players.forEach((player, epoch) -> sendToClientObserver(player, epoch, messages1));
+            } finally {
+                preEncodedMessage.release();
+            }
+        }
+
         void streamChanges() {
             final LanternChunk chunk = world.getChunkManager().getChunkIfLoaded(this.coords);
             if (chunk == null || this.clientObservers.isEmpty()) {
@@ -249,13 +660,17 @@ void streamChanges() {
             }
 
             if (this.dirtyChunk) {
-                final MessagePlayOutChunkData message = createLoadChunkMessage(chunk, ALL_SECTIONS_BIT_MASK, true);
-                this.clientObservers.forEach(player -> player.getConnection().send(message));
+                queueToClientObservers(createChunkDataSnapshot(chunk, ALL_SECTIONS_BIT_MASK, true));
                 this.dirtyChunk = false;
                 this.dirtyBlocks.clear();
+                this.dirtyLightSections = 0;
                 return;
             }
 
+            // All the sections that should be resend because of light changes
+            int dirtyLightSections = this.dirtyLightSections;
+            this.dirtyLightSections = 0;
+
             if (!this.dirtyBlocks.isEmpty()) {
                 // All the changes per coordinate
                 final Set<Vector3i> changes = new HashSet<>();
@@ -272,8 +687,9 @@ void streamChanges() {
 
                 final int clumpingThreshold = world.getProperties().getConfig().getChunkClumpingThreshold();
                 if (changes.size() >= clumpingThreshold) {
-                    final MessagePlayOutChunkData message = createLoadChunkMessage(chunk, dirtySections, false);
-                    this.clientObservers.forEach(player -> player.getConnection().send(message));
+                    // The light changes will be included in this message
+                    queueToClientObservers(createChunkDataSnapshot(chunk, dirtySections | dirtyLightSections, false));
+                    dirtyLightSections = 0;
                 } else if (changes.size() > 1) {
                     final MessagePlayOutMultiBlockChange message = new MessagePlayOutMultiBlockChange(
                             this.coords.getX(), this.coords.getY(), changes.stream().map(coords -> {
@@ -281,18 +697,21 @@ void streamChanges() {
                                 final int z = coords.getZ() & 0xf;
                                 return new MessagePlayOutBlockChange(new Vector3i(x, coords.getY(), z), chunk.getType(coords));
                             }).collect(Collectors.toList()));
-                    this.clientObservers.forEach(player -> player.getConnection().send(message));
+                    queueToClientObservers(message, false);
                 } else {
                     dirtyBlock = changes.iterator().next();
-                    final MessagePlayOutBlockChange message = new MessagePlayOutBlockChange(dirtyBlock, chunk.getType(dirtyBlock));
-                    this.clientObservers.forEach(player -> player.getConnection().send(message));
+                    queueToClientObservers(new MessagePlayOutBlockChange(dirtyBlock, chunk.getType(dirtyBlock)), false);
                 }
 
                 // TODO: Also update tile entities
             }
 
+            if (dirtyLightSections != 0) {
+                queueToClientObservers(createChunkDataSnapshot(chunk, dirtyLightSections, false));
+            }
+
             if (!this.addedBlockActions.isEmpty()) {
-                final Set<Message> messages = new HashSet<>();
+                final List<Message> messages = new ArrayList<>();
 
                 for (Map.Entry<Vector3i, QueuedBlockAction> entry : this.addedBlockActions.entrySet()) {
                     final QueuedBlockAction blockAction = entry.getValue();
@@ -305,129 +724,173 @@ void streamChanges() {
                 }
 
                 this.addedBlockActions.clear();
-                this.clientObservers.forEach(player -> player.getConnection().send(messages));
+                final Map<LanternPlayer, Long> players = new HashMap<>(this.clientObservers);
+                queue(() -> players.forEach((player, epoch) -> sendToClientObserver(player, epoch, messages)));
             }
         }
 
-        private List<Message> createChunkLoadMessages(LanternChunk chunk) {
-            final List<Message> messages = new ArrayList<>();
-            messages.add(createLoadChunkMessage(chunk, ALL_SECTIONS_BIT_MASK, true));
-            if (!this.activeBlockActions.isEmpty()) {
-                this.activeBlockActions.values().forEach(queuedBlockAction -> messages.add(queuedBlockAction.blockActionData));
-            }
-            return messages;
+        /**
+         * Queues the chunk load messages to be build and send to the given players.
+         *
+         * @param chunk The chunk
+         * @param players The players mapped to the epochs of their observations
+         */
+        private void queueChunkLoad(LanternChunk chunk, Map<LanternPlayer, Long> players) {
+            final ChunkDataSnapshot snapshot = createChunkDataSnapshot(chunk, ALL_SECTIONS_BIT_MASK, true);
+            final List<Message> blockActions = new ArrayList<>();
+            this.activeBlockActions.values().forEach(queuedBlockAction -> blockActions.add(queuedBlockAction.blockActionData));
+            queueAsync(() -> {
+                final List<Message> messages = new ArrayList<>();
+                messages.add(createLoadChunkMessage(snapshot));
+                messages.addAll(blockActions);
+                // Encode and compress the chunk data only once for all the observers
+                send(players, messages, true);
+            });
         }
 
         /**
-         * Sends a chunk load message to all the observers
+         * Queues the chunk to be send to all the observers
          * of this chunk.
          *
          * @param chunk The chunk
          */
         void streamChunkLoad(LanternChunk chunk) {
-            List<Message> messages = null;
             for (LanternPlayer observer : this.observers) {
-                if (this.clientObservers.add(observer)) {
-                    if (messages == null) {
-                        messages = createChunkLoadMessages(chunk);
+                if (!this.clientObservers.containsKey(observer)) {
+                    queueChunkSend(observer, this);
+                }
+            }
+        }
+
+        /**
+         * Sends the chunk load messages to the given players, that were
+         * released from their chunk send queues.
+         *
+         * @param players The players
+         */
+        void sendChunkLoad(List<LanternPlayer> players) {
+            final LanternChunk chunk = world.getChunkManager().getChunkIfLoaded(this.coords);
+            // The chunk was unloaded in the meantime, it will be
+            // queued again when the chunk is loaded
+            if (chunk == null) {
+                return;
+            }
+            final Map<LanternPlayer, Long> observers = new HashMap<>();
+            for (LanternPlayer player : players) {
+                if (this.observers.contains(player)) {
+                    final long epoch = observationCounter.incrementAndGet();
+                    if (this.clientObservers.putIfAbsent(player, epoch) == null) {
+                        observers.put(player, epoch);
                     }
-                    observer.getConnection().send(messages);
                 }
             }
+            if (!observers.isEmpty()) {
+                queueChunkLoad(chunk, observers);
+            }
             // TODO: Also send tile entities
         }
 
         void streamChunkUnload(LanternChunk chunk) {
-            Message message = null;
+            final List<LanternPlayer> players = new ArrayList<>();
             for (LanternPlayer observer : this.observers) {
-                if (this.clientObservers.remove(observer)) {
-                    if (message == null) {
-                        message = new MessagePlayOutUnloadChunk(this.coords.getX(), this.coords.getY());
-                    }
-                    observer.getConnection().send(message);
+                if (this.clientObservers.remove(observer) != null) {
+                    players.add(observer);
                 }
             }
+            if (!players.isEmpty()) {
+                final Message message = new MessagePlayOutUnloadChunk(this.coords.getX(), this.coords.getY());
+                queue(() -> players.forEach(player -> player.getConnection().send(message)));
+            }
         }
 
-        private MessagePlayOutChunkData createLoadChunkMessage(LanternChunk chunk, int sectionsBitMask, boolean biomes) {
+        /**
+         * Creates a {@link ChunkDataSnapshot} of the given {@link LanternChunk}, this needs to
+         * be called from the world thread. The tile entities are serialized directly because
+         * they aren't safe to access from other threads.
+         *
+         * @param chunk The chunk
+         * @param sectionsBitMask The bit mask of the sections that should be included
+         * @param biomes Whether the biomes should be included
+         * @return The chunk data snapshot
+         */
+        private ChunkDataSnapshot createChunkDataSnapshot(LanternChunk chunk, int sectionsBitMask, boolean biomes) {
             // Whether we should send sky light
             final boolean skyLight = world.getDimension().hasSky();
 
             final LanternChunk.ChunkSectionSnapshot[] sections = chunk.getSectionSnapshots(skyLight, sectionsBitMask);
+            //noinspection unchecked
+            final Short2ObjectMap<DataView>[] tileEntities = new Short2ObjectMap[sections.length];
+            int estimatedSize = biomes ? BIOMES_SIZE : 0;
+
+            for (int i = 0; i < sections.length; i++) {
+                if (sections[i] == null) {
+                    continue;
+                }
+                estimatedSize += skyLight ? SECTION_SIZE_SKY_LIGHT : SECTION_SIZE;
+                final Short2ObjectMap<DataView> tileEntityDataViews = new Short2ObjectOpenHashMap<>();
+                // Serialize the tile entities
+                for (Short2ObjectMap.Entry<LanternTileEntity> tileEntityEntry : sections[i].tileEntities.short2ObjectEntrySet()) {
+                    if (!tileEntityEntry.getValue().isValid()) {
+                        continue;
+                    }
+                    //noinspection unchecked
+                    final ObjectSerializer<LanternTileEntity> store = ObjectSerializerRegistry.get().get(LanternTileEntity.class).get();
+                    final DataView dataView = store.serialize(tileEntityEntry.getValue());
+                    tileEntityDataViews.put(tileEntityEntry.getShortKey(), dataView);
+                }
+                tileEntities[i] = tileEntityDataViews;
+            }
+
+            if (sectionsBitMask == ALL_SECTIONS_BIT_MASK) {
+                this.estimatedSize = Math.max(estimatedSize, BIOMES_SIZE);
+            }
+            return new ChunkDataSnapshot(sections, tileEntities, sectionsBitMask, skyLight, biomes ? chunk.getBiomes() : null);
+        }
+
+        /**
+         * Creates the {@link MessagePlayOutChunkData} for the given {@link ChunkDataSnapshot},
+         * this can be called from any thread.
+         *
+         * @param snapshot The chunk data snapshot
+         * @return The chunk data message
+         */
+        private MessagePlayOutChunkData createLoadChunkMessage(ChunkDataSnapshot snapshot) {
+            final boolean skyLight = snapshot.skyLight;
+            final LanternChunk.ChunkSectionSnapshot[] sections = snapshot.sections;
             final MessagePlayOutChunkData.Section[] msgSections = new MessagePlayOutChunkData.Section[sections.length];
 
             for (int i = 0; i < sections.length; i++) {
                 if (sections[i] != null) {
                     final LanternChunk.ChunkSectionSnapshot section = sections[i];
-                    // The size of the palette
-                    int paletteSize = section.typesCountMap.size();
-                    // The amount of bits for every block state
-                    int bitsPerValue = Integer.highestOneBit(paletteSize);
-                    // The palette that will be send to the client
-                    int[] palette;
-                    // The lookup for global to local palette id
-                    Short2ShortMap globalToLocalPalette;
-                    // There seems to be a weird issue, some blocks are not rendered
-                    // on the client (bedrock with the flat generator) and it cannot
-                    // be placed in creative
-                    if (bitsPerValue <= 8) {
-                        // The vanilla client/server will not go lower then 4 bits
-                        if (bitsPerValue < 4) {
-                            bitsPerValue = 4;
-                        }
-                        globalToLocalPalette = new Short2ShortOpenHashMap(paletteSize);
-                        palette = new int[paletteSize];
-                        short currentId = 0;
-                        for (short type : section.typesCountMap.keySet().toShortArray()) {
-                            globalToLocalPalette.put(type, currentId);
-                            palette[currentId] = type;
-                            currentId++;
-                        }
-                    } else {
-                        // int statesCount = Registries.getBlockRegistry().getBlockStatesCount();
-                        // bitsPerValue = Integer.highestOneBit(statesCount);
-                        // The value should be the amount of bits per value of
-                        // the CLIENT palette, it will otherwise not work.
-                        // This is sadly enough hardcoded in the client
-                        bitsPerValue = 13;
-                        globalToLocalPalette = null;
-                        palette = null;
-                    }
-                    final short[] types = section.types;
-                    final VariableValueArray array = new VariableValueArray(bitsPerValue, types.length);
-                    if (globalToLocalPalette != null) {
-                        for (int j = 0; j < types.length; j++) {
-                            array.set(j, globalToLocalPalette.get(types[j]));
-                        }
-                    } else {
-                        for (int j = 0; j < types.length; j++) {
-                            array.set(j, types[j]);
-                        }
-                    }
-                    final Short2ObjectMap<DataView> tileEntityDataViews = new Short2ObjectOpenHashMap<>();
-                    // Serialize the tile entities
-                    for (Short2ObjectMap.Entry<LanternTileEntity> tileEntityEntry : section.tileEntities.short2ObjectEntrySet()) {
-                        if (!tileEntityEntry.getValue().isValid()) {
-                            continue;
+                    // The palette that will be send to the client, this will be
+                    // null if the global palette is used
+                    final int[] palette = section.types.getPalette();
+                    VariableValueArray array = section.types.getValues();
+                    // The snapshot contains a copy of the block states, which can be send directly
+                    // to the client, unless the bits per value of the global palette doesn't match
+                    // the hardcoded value of the client. This is a edge case for custom block ids.
+                    if (palette == null && array.getBitsPerValue() != ChunkBlockStateArray.GLOBAL_BITS_PER_VALUE) {
+                        final VariableValueArray array0 = new VariableValueArray(
+                                ChunkBlockStateArray.GLOBAL_BITS_PER_VALUE, array.getCapacity());
+                        final int mask = (1 << ChunkBlockStateArray.GLOBAL_BITS_PER_VALUE) - 1;
+                        for (int j = 0; j < array0.getCapacity(); j++) {
+                            array0.set(j, array.get(j) & mask);
                         }
-                        //noinspection unchecked
-                        final ObjectSerializer<LanternTileEntity> store = ObjectSerializerRegistry.get().get(LanternTileEntity.class).get();
-                        final DataView dataView = store.serialize(tileEntityEntry.getValue());
-                        tileEntityDataViews.put(tileEntityEntry.getShortKey(), dataView);
+                        array = array0;
                     }
                     msgSections[i] = new MessagePlayOutChunkData.Section(array, palette,
-                            section.lightFromBlock, section.lightFromSky, tileEntityDataViews);
+                            section.lightFromBlock, section.lightFromSky, snapshot.tileEntities[i]);
                 // The insert entry setting is used to send a "null" chunk
                 // after the chunk is already send to the client
                 // TODO: Better way to do this?
-                } else if (!biomes && ((1 << i) & sectionsBitMask) != 0) {
+                } else if (snapshot.biomes == null && ((1 << i) & snapshot.sectionsBitMask) != 0) {
                     msgSections[i] = skyLight ? EMPTY_SECTION_SKYLIGHT : EMPTY_SECTION;
                 }
             }
 
             byte[] biomesArray = null;
-            if (biomes) {
-                short[] biomesArray0 = chunk.getBiomes();
+            if (snapshot.biomes != null) {
+                final short[] biomesArray0 = snapshot.biomes;
                 biomesArray = new byte[biomesArray0.length];
                 for (int i = 0; i < biomesArray0.length; i++) {
                     // TODO: Only allow non-custom biome types to be send and maybe the ones supported by forge mods?
@@ -448,13 +911,17 @@ private MessagePlayOutChunkData createLoadChunkMessage(LanternChunk chunk, int s
          *                     again.
          */
         public void removeObserver(LanternPlayer observer, boolean updateClient) {
+            dequeueChunkSend(observer, this);
             if (this.observers.remove(observer) &&
-                    this.clientObservers.remove(observer) && updateClient) {
-                observer.getConnection().send(new MessagePlayOutUnloadChunk(this.coords.getX(), this.coords.getY()));
+                    this.clientObservers.remove(observer) != null && updateClient) {
+                // Queue the message, the chunk may still be loading on the client
+                final Message message = new MessagePlayOutUnloadChunk(this.coords.getX(), this.coords.getY());
+                queue(() -> observer.getConnection().send(message));
             }
             // Clear the dirty states, since no one will still want to see them
             if (this.clientObservers.isEmpty()) {
                 this.dirtyBlocks.clear();
+                this.dirtyLightSections = 0;
                 this.dirtyChunk = false;
             }
         }
@@ -468,11 +935,10 @@ public void removeObserver(LanternPlayer observer, boolean updateClient) {
         public void addObserver(LanternPlayer observer) {
             if (this.observers.add(observer)) {
                 LanternChunk chunk = world.getChunkManager().getChunkIfLoaded(this.coords);
-                // The chunk is already loaded, we can directly send the messages
-                // to the player
+                // The chunk is already loaded, we can queue the
+                // chunk to be send to the player
                 if (chunk != null) {
-                    this.clientObservers.add(observer);
-                    observer.getConnection().send(createChunkLoadMessages(chunk));
+                    queueChunkSend(observer, this);
                 }
                 // Otherwise we will wait for the LoadChunkEvent to be called and
                 // send the messages at that point
@@ -35,6 +35,7 @@
 import org.lanternpowered.server.inventory.PeekOfferTransactionsResult;
 import org.lanternpowered.server.inventory.PeekPollTransactionsResult;
 import org.lanternpowered.server.inventory.PeekSetTransactionsResult;
+import org.lanternpowered.server.inventory.SlotChangeListener;
 import org.lanternpowered.server.inventory.equipment.LanternEquipmentType;
 import org.spongepowered.api.data.property.item.EquipmentProperty;
 import org.spongepowered.api.item.ItemType;
@@ -79,6 +80,11 @@ public class LanternSlot extends AbstractMutableInventory implements Slot {
      */
     private final Set<LanternContainer> containers = Collections.newSetFromMap(new WeakHashMap<>());
 
+    /**
+     * All the {@link SlotChangeListener}s that are notified when the content changes.
+     */
+    private final List<SlotChangeListener> changeListeners = new ArrayList<>(1);
+
     public LanternSlot(@Nullable Inventory parent) {
         super(parent, null);
     }
@@ -95,10 +101,18 @@ public void removeContainer(LanternContainer container) {
         this.containers.remove(container);
     }
 
+    public void addChangeListener(SlotChangeListener listener) {
+        checkNotNull(listener, "listener");
+        this.changeListeners.add(listener);
+    }
+
     protected void queueUpdate() {
         for (LanternContainer container : this.containers) {
             container.queueSlotChange(this);
         }
+        for (SlotChangeListener listener : this.changeListeners) {
+            listener.onSlotChange(this);
+        }
     }
 
     /**
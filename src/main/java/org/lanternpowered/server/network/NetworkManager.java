@@ -43,6 +43,7 @@
 import org.lanternpowered.server.network.message.codec.SimpleCodecContext;
 import org.lanternpowered.server.network.pipeline.LegacyProtocolHandler;
 import org.lanternpowered.server.network.pipeline.MessageCodecHandler;
+import org.lanternpowered.server.network.pipeline.MessageFlushHandler;
 import org.lanternpowered.server.network.pipeline.MessageFramingHandler;
 import org.lanternpowered.server.network.pipeline.MessageProcessorHandler;
 import org.lanternpowered.server.network.pipeline.NoopHandler;
@@ -100,6 +101,14 @@ public void pulseSessions() {
         this.sessions.forEach(NetworkSession::pulse);
     }
 
+    /**
+     * Flushes all the messages that were batched
+     * by the sessions during the tick.
+     */
+    public void flushSessions() {
+        this.sessions.forEach(NetworkSession::flush);
+    }
+
     /**
      * Called when the {@link NetworkSession} becomes active.
      *
@@ -137,6 +146,7 @@ protected void initChannel(SocketChannel ch) throws Exception {
                         final NetworkSession networkSession = new NetworkSession(ch, server, NetworkManager.this);
                         final CodecContext codecContext = new SimpleCodecContext(new LanternByteBufferAllocator(ch.alloc()), ch, networkSession);
                         pipeline.addLast(new ReadTimeoutHandler(NetworkSession.READ_TIMEOUT_SECONDS))
+                                .addLast(NetworkSession.FLUSH, new MessageFlushHandler())
                                 .addLast(NetworkSession.LEGACY_PING, new LegacyProtocolHandler(networkSession))
                                 .addLast(NetworkSession.ENCRYPTION, NoopHandler.INSTANCE)
                                 .addLast(NetworkSession.FRAMING, new MessageFramingHandler())
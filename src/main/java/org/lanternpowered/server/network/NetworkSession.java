@@ -113,6 +113,7 @@ public final class NetworkSession extends SimpleChannelInboundHandler<Message> i
      */
     public static final int READ_TIMEOUT_SECONDS = 10;
 
+    public static final String FLUSH = "flush";
     public static final String ENCRYPTION = "encryption";
     public static final String LEGACY_PING = "legacy-ping";
     public static final String COMPRESSION = "compression";
@@ -221,6 +222,11 @@ public Channel getChannel() {
      */
     private int protocolVersion = -1;
 
+    /**
+     * Whether there are batched messages that weren't flushed yet.
+     */
+    private volatile boolean flushPending;
+
     public NetworkSession(Channel channel, LanternServer server, NetworkManager networkManager) {
         this.networkManager = networkManager;
         this.channel = channel;
@@ -541,7 +547,83 @@ private void closeChannel(Text reason) {
     }
 
     /**
-     * Sends a {@link Message} and returns the {@link ChannelFuture}.
+     * Gets whether the {@link Message} can be batched until the session
+     * is flushed. Messages are only batched in the play state and urgent
+     * messages, like keep alive and disconnect messages, are always
+     * flushed directly.
+     *
+     * @param message The message
+     * @return Whether the message can be batched
+     */
+    private boolean isBatched(Message message) {
+        return this.protocolState == ProtocolState.PLAY &&
+                !(message instanceof MessageInOutKeepAlive) && !(message instanceof MessageOutDisconnect);
+    }
+
+    /**
+     * Flushes all the {@link Message}s that were batched since the last
+     * flush. This is called at the end of every tick, but the channel may
+     * also be flushed sooner if too much data is pending.
+     */
+    public void flush() {
+        if (this.flushPending) {
+            this.flushPending = false;
+            this.channel.flush();
+        }
+    }
+
+    /**
+     * Writes all the {@link Message}s to the channel, the last message will use
+     * the given promise. The channel will only be flushed if one of the messages
+     * can't be batched or if the flush is forced.
+     *
+     * @param it The iterator of the messages
+     * @param promise The promise of the last message
+     * @param forceFlush Whether the channel should be flushed
+     */
+    private void write(Iterator<Message> it, ChannelPromise promise, boolean forceFlush) {
+        final ChannelPromise voidPromise = this.channel.voidPromise();
+        boolean flush = forceFlush;
+        while (true) {
+            final Message message = it.next();
+            final boolean next = it.hasNext();
+            flush |= !isBatched(message);
+            // Only use a normal channel promise for the last message
+            this.channel.write(message, next ? voidPromise : promise);
+            if (!next) {
+                break;
+            }
+        }
+        if (flush) {
+            this.flushPending = false;
+            this.channel.flush();
+        } else {
+            this.flushPending = true;
+        }
+    }
+
+    /**
+     * Writes all the {@link Message}s to the channel. All the writes will be
+     * combined inside the event loop to reduce overhead of wakeup calls and
+     * object creation.
+     *
+     * @param messages The messages
+     * @param promise The promise of the last message
+     * @param forceFlush Whether the channel should be flushed
+     */
+    private void write(List<Message> messages, ChannelPromise promise, boolean forceFlush) {
+        messages.forEach(ReferenceCountUtil::retain);
+        final EventLoop eventLoop = this.channel.eventLoop();
+        if (eventLoop.inEventLoop()) {
+            write(messages.iterator(), promise, forceFlush);
+        } else {
+            eventLoop.execute(() -> write(messages.iterator(), promise, forceFlush));
+        }
+    }
+
+    /**
+     * Sends a {@link Message} and returns the {@link ChannelFuture}. The
+     * message will always be flushed directly.
      *
      * @param message The message
      * @return The channel future
@@ -551,12 +633,14 @@ public ChannelFuture sendWithFuture(Message message) {
         if (!this.channel.isActive()) {
             return this.channel.newPromise();
         }
+        ReferenceCountUtil.retain(message);
         // Write the message and add a exception handler
         return this.channel.writeAndFlush(message).addListener(ChannelFutureListener.FIRE_EXCEPTION_ON_FAILURE);
     }
 
     /**
      * Sends a array of {@link Message}s and returns the {@link ChannelFuture}.
+     * The messages will always be flushed directly.
      *
      * @param messages The messages
      * @return The channel future
@@ -569,96 +653,34 @@ public ChannelFuture sendWithFuture(Message... messages) {
             return promise;
         }
         promise.addListener(ChannelFutureListener.FIRE_EXCEPTION_ON_FAILURE);
-        // Don't bother checking if we are in the event loop,
-        // there is only one message.
-        if (messages.length == 1) {
-            this.channel.writeAndFlush(messages[0], promise);
-        } else {
-            final EventLoop eventLoop = this.channel.eventLoop();
-            final ChannelPromise voidPromise = this.channel.voidPromise();
-            if (eventLoop.inEventLoop()) {
-                final int last = messages.length - 1;
-                for (int i = 0; i < last; i++) {
-                    ReferenceCountUtil.retain(messages[i]);
-                    this.channel.writeAndFlush(messages[i], voidPromise);
-                }
-                ReferenceCountUtil.retain(messages[last]);
-                this.channel.writeAndFlush(messages[last], promise);
-            } else {
-                // If there are more then one message, combine them inside the
-                // event loop to reduce overhead of wakeup calls and object creation
-
-                // Create a copy of the list, to avoid concurrent modifications
-                final List<Message> messages0 = ImmutableList.copyOf(messages);
-                messages0.forEach(ReferenceCountUtil::retain);
-                eventLoop.submit(() -> {
-                    final Iterator<Message> it0 = messages0.iterator();
-                    do {
-                        final Message message0 = it0.next();
-                        // Only use a normal channel promise for the last message
-                        this.channel.writeAndFlush(message0, it0.hasNext() ? voidPromise : promise);
-                    } while (it0.hasNext());
-                });
-            }
-        }
+        // Create a copy of the array, to avoid concurrent modifications
+        write(ImmutableList.copyOf(messages), promise, true);
         return promise;
     }
 
     /**
-     * Sends a iterable of {@link Message}s.
+     * Sends a iterable of {@link Message}s and returns the {@link ChannelFuture}.
+     * The messages will always be flushed directly.
      *
      * @param messages The messages
+     * @return The channel future
      */
     public ChannelFuture sendWithFuture(Iterable<Message> messages) {
         checkNotNull(messages, "messages");
-        final Iterator<Message> it = messages.iterator();
-        checkArgument(it.hasNext(), "messages cannot be empty");
+        checkArgument(messages.iterator().hasNext(), "messages cannot be empty");
         final ChannelPromise promise = this.channel.newPromise();
         if (!this.channel.isActive()) {
             return promise;
         }
         promise.addListener(ChannelFutureListener.FIRE_EXCEPTION_ON_FAILURE);
-        Message message = it.next();
-        // Don't bother checking if we are in the event loop,
-        // there is only one message.
-        if (!it.hasNext()) {
-            this.channel.writeAndFlush(message, promise);
-        } else {
-            final EventLoop eventLoop = this.channel.eventLoop();
-            final ChannelPromise voidPromise = this.channel.voidPromise();
-            if (eventLoop.inEventLoop()) {
-                while (true) {
-                    final boolean next = it.hasNext();
-                    // Only use a normal channel promise for the last message
-                    this.channel.writeAndFlush(message, next ? voidPromise : promise);
-                    if (!next) {
-                        break;
-                    }
-                    message = it.next();
-                    ReferenceCountUtil.retain(message);
-                }
-            } else {
-                // If there are more then one message, combine them inside the
-                // event loop to reduce overhead of wakeup calls and object creation
-
-                // Create a copy of the list, to avoid concurrent modifications
-                final List<Message> messages0 = ImmutableList.copyOf(messages);
-                messages0.forEach(ReferenceCountUtil::retain);
-                eventLoop.submit(() -> {
-                    final Iterator<Message> it0 = messages0.iterator();
-                    do {
-                        final Message message0 = it0.next();
-                        // Only use a normal channel promise for the last message
-                        this.channel.writeAndFlush(message0, it0.hasNext() ? voidPromise : promise);
-                    } while (it0.hasNext());
-                });
-            }
-        }
+        // Create a copy of the list, to avoid concurrent modifications
+        write(ImmutableList.copyOf(messages), promise, true);
         return promise;
     }
 
     /**
-     * Sends a {@link Message}.
+     * Sends a {@link Message}. The message will be batched until
+     * the session is flushed, unless it's a urgent message.
      *
      * @param message The message
      */
@@ -669,11 +691,17 @@ public void send(Message message) {
         }
         ReferenceCountUtil.retain(message);
         // Thrown exceptions will be delegated through the exceptionCaught method
-        this.channel.writeAndFlush(message, this.channel.voidPromise());
+        if (isBatched(message)) {
+            this.channel.write(message, this.channel.voidPromise());
+            this.flushPending = true;
+        } else {
+            this.channel.writeAndFlush(message, this.channel.voidPromise());
+        }
     }
 
     /**
-     * Sends a array of {@link Message}s.
+     * Sends a array of {@link Message}s. The messages will be batched
+     * until the session is flushed, unless one is a urgent message.
      *
      * @param messages The messages
      */
@@ -683,34 +711,17 @@ public void send(Message... messages) {
         if (!this.channel.isActive()) {
             return;
         }
-        final ChannelPromise voidPromise = this.channel.voidPromise();
         if (messages.length == 1) {
-            this.channel.writeAndFlush(messages[0], voidPromise);
+            send(messages[0]);
         } else {
-            final EventLoop eventLoop = this.channel.eventLoop();
-            if (eventLoop.inEventLoop()) {
-                for (Message message : messages) {
-                    ReferenceCountUtil.retain(message);
-                    this.channel.writeAndFlush(message, voidPromise);
-                }
-            } else {
-                // If there are more then one message, combine them inside the
-                // event loop to reduce overhead of wakeup calls and object creation
-
-                // Create a copy of the list, to avoid concurrent modifications
-                final List<Message> messages0 = ImmutableList.copyOf(messages);
-                messages0.forEach(ReferenceCountUtil::retain);
-                eventLoop.submit(() -> {
-                    for (Message message0 : messages0) {
-                        this.channel.writeAndFlush(message0, voidPromise);
-                    }
-                });
-            }
+            // Create a copy of the array, to avoid concurrent modifications
+            write(ImmutableList.copyOf(messages), this.channel.voidPromise(), false);
         }
     }
 
     /**
-     * Sends a iterable of {@link Message}s.
+     * Sends a iterable of {@link Message}s. The messages will be batched
+     * until the session is flushed, unless one is a urgent message.
      *
      * @param messages The messages
      */
@@ -718,30 +729,16 @@ public void send(Iterable<Message> messages) {
         checkNotNull(messages, "messages");
         final Iterator<Message> it = messages.iterator();
         checkArgument(it.hasNext(), "messages cannot be empty");
-        Message message = it.next();
-        // Don't bother checking if we are in the event loop,
-        // there is only one message.
-        final ChannelPromise voidPromise = this.channel.voidPromise();
+        if (!this.channel.isActive()) {
+            return;
+        }
+        final Message message = it.next();
+        // Don't bother creating a copy if there is only one message
         if (!it.hasNext()) {
-            this.channel.writeAndFlush(message, voidPromise);
+            send(message);
         } else {
-            final EventLoop eventLoop = this.channel.eventLoop();
-            if (eventLoop.inEventLoop()) {
-                for (Message message0 : messages) {
-                    this.channel.writeAndFlush(message0, voidPromise);
-                }
-            } else {
-                // If there are more then one message, combine them inside the
-                // event loop to reduce overhead of wakeup calls and object creation
-
-                // Create a copy of the list, to avoid concurrent modifications
-                final List<Message> messages0 = ImmutableList.copyOf(messages);
-                eventLoop.submit(() -> {
-                    for (Message message0 : messages0) {
-                        this.channel.writeAndFlush(message0, voidPromise);
-                    }
-                });
-            }
+            // Create a copy of the list, to avoid concurrent modifications
+            write(ImmutableList.copyOf(messages), this.channel.voidPromise(), false);
         }
     }
 
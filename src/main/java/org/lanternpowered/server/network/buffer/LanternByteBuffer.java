@@ -54,7 +54,7 @@ public class LanternByteBuffer implements ByteBuffer {
     @Nullable
     private LanternByteBuffer opposite;
 
-    LanternByteBuffer(ByteBuf buf) {
+    public LanternByteBuffer(ByteBuf buf) {
         this.buf = buf;
     }
 
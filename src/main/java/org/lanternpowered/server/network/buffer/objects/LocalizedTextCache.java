@@ -0,0 +1,130 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.network.buffer.objects;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.spongepowered.api.text.Text;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * A cache for the serialized (json, UTF-8 encoded) representation
+ * of {@link Text} objects for a specific {@link Locale}. This avoids
+ * that the same {@link Text} has to be rendered for every player that
+ * receives it, instead of once for every {@link Locale}.
+ * <p>
+ * The {@link Text} objects are compared by identity, they are immutable
+ * so a broadcast will always share the same instance.
+ */
+public final class LocalizedTextCache {
+
+    private final Cache<Key, byte[]> cache;
+    private final BiFunction<Text, Locale, byte[]> serializer;
+
+    /**
+     * Constructs a new {@link LocalizedTextCache}.
+     *
+     * @param maximumSize The maximum amount of entries that may be cached
+     * @param serializer The serializer that renders the text for a locale
+     */
+    public LocalizedTextCache(int maximumSize, BiFunction<Text, Locale, byte[]> serializer) {
+        this.serializer = serializer;
+        // Expire unused entries quickly, a cached entry keeps a strong
+        // reference to the text and most texts are only send once
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(30, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Gets the serialized bytes of the {@link Text} for the specified {@link Locale}. The
+     * returned array is shared and may not be modified.
+     *
+     * @param text The text
+     * @param locale The locale
+     * @return The UTF-8 encoded json bytes
+     */
+    public byte[] get(Text text, Locale locale) {
+        return this.cache.get(new Key(text, locale), key -> this.serializer.apply(key.text, key.locale));
+    }
+
+    /**
+     * Gets the {@link CacheStats} of this cache, this includes
+     * the hit rate and the amount of evicted entries.
+     *
+     * @return The cache stats
+     */
+    public CacheStats getStats() {
+        return this.cache.stats();
+    }
+
+    /**
+     * Gets the amount of cached entries.
+     *
+     * @return The size
+     */
+    public long size() {
+        return this.cache.estimatedSize();
+    }
+
+    /**
+     * Invalidates all the cached entries.
+     */
+    public void invalidateAll() {
+        this.cache.invalidateAll();
+    }
+
+    private static final class Key {
+
+        private final Text text;
+        private final Locale locale;
+
+        private Key(Text text, Locale locale) {
+            this.text = text;
+            this.locale = locale;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return this.text == other.text && this.locale.equals(other.locale);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(this.text) + this.locale.hashCode();
+        }
+    }
+}
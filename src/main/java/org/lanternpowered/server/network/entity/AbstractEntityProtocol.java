@@ -38,6 +38,7 @@
 import org.lanternpowered.server.entity.event.EntityEventType;
 import org.lanternpowered.server.entity.living.player.LanternPlayer;
 import org.lanternpowered.server.network.message.Message;
+import org.lanternpowered.server.network.message.PreEncodedMessage;
 import org.spongepowered.api.entity.Entity;
 import org.spongepowered.api.entity.living.player.Player;
 
@@ -124,7 +125,7 @@ public void sendToSelf(Supplier<Message> messageSupplier) {
 
         @Override
         public void sendToAll(Message message) {
-            this.trackers.forEach(tracker -> tracker.getConnection().send(message));
+            send(message, null);
         }
 
         @Override
@@ -136,11 +137,7 @@ public void sendToAll(Supplier<Message> message) {
 
         @Override
         public void sendToAllExceptSelf(Message message) {
-            this.trackers.forEach(tracker -> {
-                if (tracker != entity) {
-                    tracker.getConnection().send(message);
-                }
-            });
+            send(message, entity);
         }
 
         @Override
@@ -149,6 +146,29 @@ public void sendToAllExceptSelf(Supplier<Message> messageSupplier) {
                 sendToAllExceptSelf(messageSupplier.get());
             }
         }
+
+        private void send(Message message, @Nullable Entity except) {
+            final int size = this.trackers.size() - (except != null && this.trackers.contains(except) ? 1 : 0);
+            if (size <= 1) {
+                this.trackers.forEach(tracker -> {
+                    if (tracker != except) {
+                        tracker.getConnection().send(message);
+                    }
+                });
+                return;
+            }
+            // Encode the message only once for all the trackers
+            final PreEncodedMessage preEncodedMessage = PreEncodedMessage.of(message);
+            try {
+                this.trackers.forEach(tracker -> {
+                    if (tracker != except) {
+                        tracker.getConnection().send(preEncodedMessage);
+                    }
+                });
+            } finally {
+                preEncodedMessage.release();
+            }
+        }
     }
 
     public E getEntity() {
@@ -268,9 +288,7 @@ final class TrackerUpdateContextData {
     }
 
     @Nullable
-    TrackerUpdateContextData buildUpdateContextData(Set<LanternPlayer> players) {
-        players = new HashSet<>(players);
-
+    TrackerUpdateContextData buildUpdateContextData(Set<LanternPlayer> players, TrackerGrid<LanternPlayer> trackerGrid) {
         final Set<LanternPlayer> removed = new HashSet<>();
         final Set<LanternPlayer> added = new HashSet<>();
 
@@ -279,19 +297,20 @@ TrackerUpdateContextData buildUpdateContextData(Set<LanternPlayer> players) {
         final Iterator<LanternPlayer> trackerIt = this.trackers.iterator();
         while (trackerIt.hasNext()) {
             final LanternPlayer tracker = trackerIt.next();
-            final boolean flag = players.remove(tracker);
             if (tracker != this.entity &&
-                    (!flag || !isVisible(pos, tracker))) {
+                    (!players.contains(tracker) || !isVisible(pos, tracker))) {
                 trackerIt.remove();
                 removed.add(tracker);
             }
         }
 
-        for (LanternPlayer tracker : players) {
-            if (tracker == this.entity || isVisible(pos, tracker)) {
+        // Only the players in the cells within the tracking range can become trackers
+        trackerGrid.forEachInRange(pos.getX(), pos.getZ(), this.trackingRange, tracker -> {
+            if (!this.trackers.contains(tracker) && !removed.contains(tracker) &&
+                    (tracker == this.entity || isVisible(pos, tracker))) {
                 added.add(tracker);
             }
-        }
+        });
 
         boolean flag0 = this.tickCounter++ % this.tickRate == 0 && !this.trackers.isEmpty();
         boolean flag1 = !added.isEmpty();
@@ -39,7 +39,6 @@
 import org.spongepowered.api.entity.Entity;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -75,6 +74,12 @@ public static void releaseEntityId(int id) {
 
     private final Int2ObjectMap<AbstractEntityProtocol<?>> idToEntityProtocolMap = new Int2ObjectOpenHashMap<>();
 
+    /**
+     * The players indexed by their position, used to find
+     * the trackers that are in range of the entities.
+     */
+    private final TrackerGrid<LanternPlayer> trackerGrid = new TrackerGrid<>();
+
     // Start at 1, using 0 may cause some issues
     // on the client regarding elytra flying boost,
     // and maybe other related bugs.
@@ -313,11 +318,17 @@ public void updateTrackers(Set<LanternPlayer> players) {
             removed.destroy(new EntityProtocolInitContextImpl(removed));
         }
 
+        // Move the players to their current cells
+        this.trackerGrid.retainAll(players);
+        for (LanternPlayer player : players) {
+            final Vector3d position = player.getPosition();
+            this.trackerGrid.update(player, position.getX(), position.getZ());
+        }
+
         final List<AbstractEntityProtocol.TrackerUpdateContextData> updateContextDataList = new ArrayList<>();
 
-        final Set<AbstractEntityProtocol<?>> protocols = new HashSet<>(this.entityProtocols.values());
-        for (AbstractEntityProtocol<?> protocol : protocols) {
-            final AbstractEntityProtocol.TrackerUpdateContextData contextData = protocol.buildUpdateContextData(players);
+        for (AbstractEntityProtocol<?> protocol : this.entityProtocols.values()) {
+            final AbstractEntityProtocol.TrackerUpdateContextData contextData = protocol.buildUpdateContextData(players, this.trackerGrid);
             if (contextData != null) {
                 //noinspection unchecked
                 protocol.updateTrackers(contextData);
@@ -0,0 +1,163 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.network.entity;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * A grid that indexes objects (the trackers) by the cell they are located in,
+ * this allows the entity protocols to only check the trackers that are in the
+ * cells that are covered by their tracking range. The objects are moved between
+ * the cells when they are updated and their cell changed.
+ *
+ * @param <T> The type of the objects
+ */
+final class TrackerGrid<T> {
+
+    // The size of a cell is 64 blocks (4x4 chunks), with the default tracking
+    // range this means that only 3x3 cells have to be checked per entity
+    static final int CELL_SHIFT = 6;
+
+    private static final long NO_CELL = Long.MIN_VALUE;
+
+    private static long key(int x, int z) {
+        return ((long) x & 0xffffffffL) << 32 | ((long) z & 0xffffffffL);
+    }
+
+    private final Long2ObjectMap<List<T>> cells = new Long2ObjectOpenHashMap<>();
+    private final Object2LongMap<T> cellsByObject = new Object2LongOpenHashMap<>();
+
+    TrackerGrid() {
+        this.cellsByObject.defaultReturnValue(NO_CELL);
+    }
+
+    /**
+     * Updates the position of the object, the object will be
+     * added to the grid if it wasn't present before.
+     *
+     * @param object The object
+     * @param x The x coordinate
+     * @param z The z coordinate
+     */
+    void update(T object, double x, double z) {
+        final long cell = key((int) Math.floor(x) >> CELL_SHIFT, (int) Math.floor(z) >> CELL_SHIFT);
+        final long oldCell = this.cellsByObject.put(object, cell);
+        if (oldCell == cell) {
+            return;
+        }
+        if (oldCell != NO_CELL) {
+            removeFromCell(object, oldCell);
+        }
+        List<T> objects = this.cells.get(cell);
+        if (objects == null) {
+            objects = new ArrayList<>();
+            this.cells.put(cell, objects);
+        }
+        objects.add(object);
+    }
+
+    /**
+     * Removes all the objects that aren't present in the given set.
+     *
+     * @param objects The objects to retain
+     */
+    void retainAll(Set<T> objects) {
+        final ObjectIterator<Object2LongMap.Entry<T>> it = this.cellsByObject.object2LongEntrySet().iterator();
+        while (it.hasNext()) {
+            final Object2LongMap.Entry<T> entry = it.next();
+            if (!objects.contains(entry.getKey())) {
+                removeFromCell(entry.getKey(), entry.getLongValue());
+                it.remove();
+            }
+        }
+    }
+
+    private void removeFromCell(T object, long cell) {
+        final List<T> objects = this.cells.get(cell);
+        if (objects != null && objects.remove(object) && objects.isEmpty()) {
+            this.cells.remove(cell);
+        }
+    }
+
+    /**
+     * Gets the amount of objects in this grid.
+     *
+     * @return The size
+     */
+    int size() {
+        return this.cellsByObject.size();
+    }
+
+    /**
+     * Passes all the objects in the cells that overlap the square around the given
+     * position to the consumer. The consumer still needs to check the exact distance.
+     *
+     * @param x The x coordinate
+     * @param z The z coordinate
+     * @param range The range
+     * @param consumer The consumer
+     */
+    void forEachInRange(double x, double z, double range, Consumer<T> consumer) {
+        if (this.cells.isEmpty()) {
+            return;
+        }
+        final int minX = (int) Math.floor(x - range) >> CELL_SHIFT;
+        final int maxX = (int) Math.floor(x + range) >> CELL_SHIFT;
+        final int minZ = (int) Math.floor(z - range) >> CELL_SHIFT;
+        final int maxZ = (int) Math.floor(z + range) >> CELL_SHIFT;
+        final long area = ((long) maxX - minX + 1) * ((long) maxZ - minZ + 1);
+        if (area > this.cells.size()) {
+            // Less cells are occupied than covered by the range,
+            // just check all the occupied cells
+            for (Long2ObjectMap.Entry<List<T>> entry : this.cells.long2ObjectEntrySet()) {
+                final long key = entry.getLongKey();
+                final int cellX = (int) (key >> 32);
+                final int cellZ = (int) key;
+                if (cellX >= minX && cellX <= maxX && cellZ >= minZ && cellZ <= maxZ) {
+                    entry.getValue().forEach(consumer);
+                }
+            }
+            return;
+        }
+        for (int cellX = minX; cellX <= maxX; cellX++) {
+            for (int cellZ = minZ; cellZ <= maxZ; cellZ++) {
+                final List<T> objects = this.cells.get(key(cellX, cellZ));
+                if (objects != null) {
+                    objects.forEach(consumer);
+                }
+            }
+        }
+    }
+}
@@ -45,7 +45,6 @@
 import org.lanternpowered.server.network.entity.AbstractEntityProtocol;
 import org.lanternpowered.server.network.entity.EntityProtocolUpdateContext;
 import org.lanternpowered.server.network.entity.parameter.ByteBufParameterList;
-import org.lanternpowered.server.network.entity.parameter.EmptyParameterList;
 import org.lanternpowered.server.network.entity.parameter.ParameterList;
 import org.lanternpowered.server.network.vanilla.message.type.play.MessagePlayOutDestroyEntities;
 import org.lanternpowered.server.network.vanilla.message.type.play.MessagePlayOutEntityCollectItem;
@@ -100,6 +99,7 @@ private static class Holder {
 
     protected byte lastFlags;
     private boolean lastSilent;
+    private boolean lastHasNoGravity;
     private short lastAirLevel;
     private boolean lastCustomNameVisible;
 
@@ -109,6 +109,13 @@ private static class Holder {
 
     private final Int2ObjectMap<ItemStack> lastEquipment = new Int2ObjectOpenHashMap<>();
 
+    /**
+     * The {@link ParameterList} with the full state of the entity, this list
+     * is shared by all the trackers that start tracking the entity and will
+     * only be rebuilt once one of the parameters changes.
+     */
+    @Nullable private ParameterList spawnParameterList;
+
     public EntityProtocol(E entity) {
         super(entity);
     }
@@ -214,11 +221,16 @@ protected void update(EntityProtocolUpdateContext context) {
             this.lastVelY = vy;
             this.lastVelZ = vz;
         }
-        final ParameterList parameterList = context == EntityProtocolUpdateContext.empty() ?
-                fillParameters(false, EmptyParameterList.INSTANCE) : fillParameters(false);
+        // The dirty parameters are only serialized once, the same list
+        // is shared between all the trackers
+        final ParameterList parameterList = fillParameters(false);
         // There were parameters applied
         if (!parameterList.isEmpty()) {
-            context.sendToAll(() -> new MessagePlayOutEntityMetadata(entityId, parameterList));
+            // The cached full state is outdated
+            this.spawnParameterList = null;
+            if (context != EntityProtocolUpdateContext.empty()) {
+                context.sendToAll(() -> new MessagePlayOutEntityMetadata(entityId, parameterList));
+            }
         }
         if (hasEquipment() && this.entity instanceof Carrier) {
             final Inventory inventory = ((Carrier) this.entity).getInventory();
@@ -288,13 +300,17 @@ protected IntSet getPassengerIds(EntityProtocolUpdateContext context) {
      * @return The byte buffer
      */
     ParameterList fillParameters(boolean initial) {
-        return fillParameters(initial, new ByteBufParameterList(ByteBufferAllocator.unpooled()));
-    }
-
-    private ParameterList fillParameters(boolean initial, ParameterList parameterList) {
+        final ParameterList parameterList;
         if (initial) {
+            // Reuse the full state as long as none of the parameters changed
+            if (this.spawnParameterList != null) {
+                return this.spawnParameterList;
+            }
+            parameterList = new ByteBufParameterList(ByteBufferAllocator.unpooled());
             spawn(parameterList);
+            this.spawnParameterList = parameterList;
         } else {
+            parameterList = new ByteBufParameterList(ByteBufferAllocator.unpooled());
             update(parameterList);
         }
         return parameterList;
@@ -403,6 +419,11 @@ protected void update(ParameterList parameterList) {
             parameterList.add(EntityParameters.Base.AIR_LEVEL, airLevel);
             this.lastAirLevel = airLevel;
         }
+        final boolean hasNoGravity = hasNoGravity();
+        if (hasNoGravity != this.lastHasNoGravity) {
+            parameterList.add(EntityParameters.Base.NO_GRAVITY, hasNoGravity);
+            this.lastHasNoGravity = hasNoGravity;
+        }
     }
 
     /**
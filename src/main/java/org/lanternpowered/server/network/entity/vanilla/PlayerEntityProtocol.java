@@ -70,7 +70,7 @@
 
 public class PlayerEntityProtocol extends HumanoidEntityProtocol<LanternPlayer> {
 
-    private boolean lastHasNoGravity;
+    private int lastScore;
     private GameMode lastGameMode = GameModes.NOT_SET;
 
     private int elytraRocketId = INVALID_ENTITY_ID;
@@ -402,10 +402,10 @@ protected void spawn(ParameterList parameterList) {
     protected void update(ParameterList parameterList) {
         super.update(parameterList);
 
-        final boolean hasNoGravity = hasNoGravity();
-        if (hasNoGravity != this.lastHasNoGravity) {
-            parameterList.add(EntityParameters.Base.NO_GRAVITY, hasNoGravity);
-            this.lastHasNoGravity = hasNoGravity;
+        final int score = this.entity.get(LanternKeys.SCORE).orElse(0);
+        if (score != this.lastScore) {
+            parameterList.add(EntityParameters.Humanoid.SCORE, score);
+            this.lastScore = score;
         }
     }
 
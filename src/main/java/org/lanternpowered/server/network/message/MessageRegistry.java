@@ -38,11 +38,24 @@
 import java.util.Map;
 import java.util.Optional;
 
+import javax.annotation.Nullable;
+
 public final class MessageRegistry {
 
     private final Map<Class<? extends Message>, MessageRegistration<?>> registrationByMessageType = new HashMap<>();
     private final Int2ObjectMap<CodecRegistration<?, ?>> registrationByOpcode = new Int2ObjectOpenHashMap<>();
 
+    // A fast lookup for the codec registrations of message types, used
+    // while encoding every message. The registrations are expected to
+    // be complete before the first lookup.
+    private final ClassValue<CodecRegistration<?, ?>> codecRegistrationByMessageType = new ClassValue<CodecRegistration<?, ?>>() {
+        @Override
+        protected CodecRegistration<?, ?> computeValue(Class<?> type) {
+            final MessageRegistration<?> registration = registrationByMessageType.get(type);
+            return registration == null ? null : registration.getCodecRegistration().orElse(null);
+        }
+    };
+
     private int opcodeCounter;
 
     <M extends Message> MessageRegistration<M> checkCodecBinding(Class<M> messageType) {
@@ -270,6 +283,30 @@ public <M extends Message> Optional<MessageRegistration<M>> findByMessageType(Cl
         return Optional.ofNullable((MessageRegistration) this.registrationByMessageType.get(messageType));
     }
 
+    /**
+     * Gets the {@link CodecRegistration} for the specified opcode, without
+     * the overhead of a {@link Optional} allocation.
+     *
+     * @param opcode The opcode
+     * @return The codec registration, or {@code null} if not found
+     */
+    @Nullable
+    public CodecRegistration<?, ?> getCodecRegistration(int opcode) {
+        return this.registrationByOpcode.get(opcode);
+    }
+
+    /**
+     * Gets the {@link CodecRegistration} that is bound to the specified message type, without
+     * the overhead of a map lookup and {@link Optional} allocation.
+     *
+     * @param messageType The message type
+     * @return The codec registration, or {@code null} if not found
+     */
+    @Nullable
+    public CodecRegistration<?, ?> getCodecRegistration(Class<? extends Message> messageType) {
+        return this.codecRegistrationByMessageType.get(messageType);
+    }
+
     /**
      * Binds a {@link Message} type to this registry.
      *
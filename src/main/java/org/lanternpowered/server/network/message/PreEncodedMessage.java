@@ -0,0 +1,190 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.network.message;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.ReferenceCounted;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+/**
+ * A {@link Message} that wraps a other message which will only be encoded once,
+ * no matter to how many sessions it's send. Every session will write a retained
+ * duplicate of the encoded content, which flows through the compression and
+ * framing handlers of that session.
+ * <p>
+ * The compressed variant will also cache the compressed content per compression
+ * threshold, which can be reused by all the sessions that share the same threshold.
+ * <p>
+ * The pre-encoded message is reference counted, every session will retain it
+ * when it's send. The creator should release it after it's send to all the
+ * sessions.
+ */
+public final class PreEncodedMessage extends ReferenceCountedMessage {
+
+    /**
+     * Creates a new {@link PreEncodedMessage} for the given {@link Message}.
+     *
+     * @param message The message
+     * @return The pre-encoded message
+     */
+    public static PreEncodedMessage of(Message message) {
+        return new PreEncodedMessage(message, false);
+    }
+
+    /**
+     * Creates a new {@link PreEncodedMessage} for the given {@link Message}, the
+     * content will also be compressed once for sessions that share the same
+     * compression threshold.
+     *
+     * @param message The message
+     * @return The pre-encoded message
+     */
+    public static PreEncodedMessage ofCompressed(Message message) {
+        return new PreEncodedMessage(message, true);
+    }
+
+    private final Message message;
+    private final boolean compressed;
+
+    private final ReferenceCounted references = new AbstractReferenceCounted() {
+        @Override
+        protected void deallocate() {
+            synchronized (PreEncodedMessage.this) {
+                if (content != null) {
+                    content.release();
+                    content = null;
+                }
+                if (compressedContents != null) {
+                    compressedContents.values().forEach(ByteBuf::release);
+                    compressedContents = null;
+                }
+            }
+            ReferenceCountUtil.release(message);
+        }
+
+        @Override
+        public ReferenceCounted touch(Object hint) {
+            return this;
+        }
+    };
+
+    @Nullable private volatile ByteBuf content;
+    @Nullable private Int2ObjectMap<ByteBuf> compressedContents;
+
+    private PreEncodedMessage(Message message, boolean compressed) {
+        checkNotNull(message, "message");
+        this.compressed = compressed;
+        this.message = message;
+    }
+
+    /**
+     * Gets the {@link Message} that is wrapped.
+     *
+     * @return The message
+     */
+    public Message getMessage() {
+        return this.message;
+    }
+
+    /**
+     * Gets whether the compressed content should be cached.
+     *
+     * @return Is compressed
+     */
+    public boolean isCompressed() {
+        return this.compressed;
+    }
+
+    /**
+     * Gets the encoded content, the message will be encoded with
+     * the given encoder if this wasn't done before.
+     *
+     * @param encoder The encoder
+     * @return The encoded content
+     */
+    public ByteBuf getContent(Function<Message, ByteBuf> encoder) {
+        ByteBuf content = this.content;
+        if (content == null) {
+            synchronized (this) {
+                content = this.content;
+                if (content == null) {
+                    content = checkNotNull(encoder.apply(this.message), "content");
+                    this.content = content;
+                }
+            }
+        }
+        return content;
+    }
+
+    /**
+     * Gets the encoded content.
+     *
+     * @return The encoded content
+     * @throws IllegalStateException If the message isn't encoded yet
+     */
+    public ByteBuf getContent() {
+        final ByteBuf content = this.content;
+        checkState(content != null, "The message isn't encoded yet.");
+        return content;
+    }
+
+    /**
+     * Gets the compressed content for the given compression threshold, the
+     * content will be compressed with the given compressor if this wasn't
+     * done before for the compression threshold.
+     *
+     * @param compressionThreshold The compression threshold
+     * @param compressor The compressor
+     * @return The compressed content
+     */
+    public synchronized ByteBuf getCompressedContent(int compressionThreshold, Function<ByteBuf, ByteBuf> compressor) {
+        if (this.compressedContents == null) {
+            // Most of the time there will only be one threshold
+            this.compressedContents = new Int2ObjectOpenHashMap<>(2);
+        }
+        ByteBuf compressedContent = this.compressedContents.get(compressionThreshold);
+        if (compressedContent == null) {
+            compressedContent = checkNotNull(compressor.apply(getContent().duplicate()), "compressedContent");
+            this.compressedContents.put(compressionThreshold, compressedContent);
+        }
+        return compressedContent;
+    }
+
+    @Override
+    protected ReferenceCounted getReferenceCounted() {
+        return this.references;
+    }
+}
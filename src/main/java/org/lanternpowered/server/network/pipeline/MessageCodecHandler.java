@@ -28,6 +28,7 @@
 import static org.lanternpowered.server.network.buffer.LanternByteBuffer.readVarInt;
 import static org.lanternpowered.server.network.buffer.LanternByteBuffer.writeVarInt;
 
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
@@ -37,6 +38,7 @@
 import io.netty.handler.codec.MessageToMessageCodec;
 import io.netty.util.ReferenceCountUtil;
 import org.lanternpowered.server.game.Lantern;
+import org.lanternpowered.server.network.NetworkSession;
 import org.lanternpowered.server.network.buffer.ByteBuffer;
 import org.lanternpowered.server.network.buffer.LanternByteBuffer;
 import org.lanternpowered.server.network.message.BulkMessage;
@@ -45,14 +47,18 @@
 import org.lanternpowered.server.network.message.Message;
 import org.lanternpowered.server.network.message.MessageRegistration;
 import org.lanternpowered.server.network.message.NullMessage;
+import org.lanternpowered.server.network.message.PreEncodedMessage;
 import org.lanternpowered.server.network.message.codec.Codec;
 import org.lanternpowered.server.network.message.codec.CodecContext;
+import org.lanternpowered.server.network.message.codec.SimpleCodecContext;
+import org.lanternpowered.server.network.message.codec.SessionDependent;
 import org.lanternpowered.server.network.message.handler.Handler;
 import org.lanternpowered.server.network.message.processor.Processor;
 import org.lanternpowered.server.network.protocol.Protocol;
 import org.lanternpowered.server.network.protocol.ProtocolState;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @SuppressWarnings({ "rawtypes", "unchecked" })
@@ -60,23 +66,60 @@ public final class MessageCodecHandler extends MessageToMessageCodec<ByteBuf, Me
 
     private final CodecContext codecContext;
 
+    // The context that is used to encode messages, the first buffer that
+    // is allocated by a codec has space reserved for the opcode
+    private final CodecContext encoderContext;
+    private final OpcodeReservingByteBufferAllocator encoderAllocator;
+
     public MessageCodecHandler(CodecContext codecContext) {
         this.codecContext = codecContext;
+        this.encoderAllocator = new OpcodeReservingByteBufferAllocator(codecContext.byteBufAlloc());
+        this.encoderContext = new SimpleCodecContext(this.encoderAllocator, codecContext.getChannel(), codecContext.getSession());
     }
 
     @Override
     protected void encode(ChannelHandlerContext ctx, Message message, List<Object> output) throws Exception {
-        final Protocol protocol = this.codecContext.getSession().getProtocol();
-        final MessageRegistration<Message> registration = (MessageRegistration<Message>) protocol.outbound()
-                .findByMessageType(message.getClass()).orElse(null);
+        if (message instanceof PreEncodedMessage) {
+            encodePreEncoded(ctx, (PreEncodedMessage) message, output);
+            return;
+        }
+        try {
+            output.add(encode(ctx, message));
+        } finally {
+            ReferenceCountUtil.release(message);
+        }
+    }
 
-        if (registration == null) {
-            throw new EncoderException("Message type (" + message.getClass().getName() + ") is not registered!");
+    private void encodePreEncoded(ChannelHandlerContext ctx, PreEncodedMessage message, List<Object> output) {
+        final Message message0 = message.getMessage();
+        // The message cannot be shared if the output depends on the session
+        if (isSessionDependent(getCodecRegistration(message0).getCodec())) {
+            output.add(encode(ctx, message0));
+            return;
         }
-        CodecRegistration codecRegistration = registration.getCodecRegistration().orElse(null);
-        if (codecRegistration == null) {
-            throw new EncoderException("Message type (" + message.getClass().getName() + ") is not registered to allow encoding!");
+        final ByteBuf content = message.getContent(message1 -> encode(ctx, message1));
+        if (message.isCompressed() && ctx.pipeline().get(NetworkSession.COMPRESSION) instanceof MessageCompressionHandler) {
+            // Let the compression handler compress the content once for all the sessions
+            output.add(message.retain());
+        } else {
+            output.add(content.retainedDuplicate());
         }
+    }
+
+    private CodecRegistration getCodecRegistration(Message message) {
+        final Protocol protocol = this.codecContext.getSession().getProtocol();
+        final CodecRegistration codecRegistration = protocol.outbound().getCodecRegistration(message.getClass());
+        if (codecRegistration != null) {
+            return codecRegistration;
+        }
+        if (!protocol.outbound().findByMessageType(message.getClass()).isPresent()) {
+            throw new EncoderException("Message type (" + message.getClass().getName() + ") is not registered!");
+        }
+        throw new EncoderException("Message type (" + message.getClass().getName() + ") is not registered to allow encoding!");
+    }
+
+    private ByteBuf encode(ChannelHandlerContext ctx, Message message) {
+        final CodecRegistration codecRegistration = getCodecRegistration(message);
 
         /*
         if (message instanceof MessagePlayOutWorldTime ||
@@ -86,21 +129,32 @@ protected void encode(ChannelHandlerContext ctx, Message message, List<Object> o
         }
         */
 
-        final ByteBuf opcode = ctx.alloc().buffer();
+        final int opcode = codecRegistration.getOpcode();
+        final Codec codec = codecRegistration.getCodec();
 
-        // Write the opcode of the message
-        writeVarInt(opcode, codecRegistration.getOpcode());
+        this.encoderAllocator.reset();
+        final ByteBuf content = ((LanternByteBuffer) codec.encode(this.encoderContext, message)).getDelegate();
 
-        final Codec codec = codecRegistration.getCodec();
-        final ByteBuffer content;
-        try {
-            content = codec.encode(this.codecContext, message);
-        } finally {
-            ReferenceCountUtil.release(message);
+        // Try to write the opcode in front of the content, this is
+        // only possible if the codec returned the buffer with space
+        // reserved for the opcode
+        if (this.encoderAllocator.tryWriteOpcode(content, opcode)) {
+            return content;
         }
 
-        // Add the buffer to the output
-        output.add(Unpooled.wrappedBuffer(opcode, ((LanternByteBuffer) content).getDelegate()));
+        final ByteBuf opcodeBuf = ctx.alloc().buffer(OpcodeReservingByteBufferAllocator.getVarIntLength(opcode));
+        // Write the opcode of the message
+        writeVarInt(opcodeBuf, opcode);
+
+        // Combine the opcode and the content
+        return Unpooled.wrappedBuffer(opcodeBuf, content);
+    }
+
+    private static final Map<Class<?>, Boolean> sessionDependentCodecs = Maps.newConcurrentMap();
+
+    private static boolean isSessionDependent(Codec codec) {
+        return sessionDependentCodecs.computeIfAbsent(codec.getClass(),
+                type -> type.getAnnotation(SessionDependent.class) != null);
     }
 
     private static final Set<Integer> warnedMissingOpcodes = Sets.newConcurrentHashSet();
@@ -115,7 +169,7 @@ public void decode(ChannelHandlerContext ctx, ByteBuf input, List<Object> output
 
         final ProtocolState state = this.codecContext.getSession().getProtocolState();
         final Protocol protocol = state.getProtocol();
-        final CodecRegistration registration = protocol.inbound().find(opcode).orElse(null);
+        final CodecRegistration registration = protocol.inbound().getCodecRegistration(opcode);
 
         if (registration == null) {
             if (warnedMissingOpcodes.add(opcode)) {
@@ -125,21 +179,16 @@ public void decode(ChannelHandlerContext ctx, ByteBuf input, List<Object> output
             return;
         }
 
-        // Copy the remaining content of the buffer to a new buffer used by the
-        // message decoding
-        final ByteBuffer content = this.codecContext.byteBufAlloc().buffer(input.readableBytes());
-        input.readBytes(((LanternByteBuffer) content).getDelegate(), input.readableBytes());
+        // Decode directly from the remaining content of the input buffer, the
+        // input will be released once the decoding is finished
+        final ByteBuffer content = new LanternByteBuffer(input.slice());
+        input.skipBytes(input.readableBytes());
 
         // Read the content of the message
-        final Message message;
-        try {
-            message = registration.getCodec().decode(this.codecContext, content);
-            if (content.available() > 0) {
-                Lantern.getLogger().warn("Trailing bytes {}b after decoding with message codec {} with opcode 0x{} in state {}!\n{}",
-                        content.available(), registration.getCodec().getClass().getName(), Integer.toHexString(opcode), state, message);
-            }
-        } finally {
-            content.release();
+        final Message message = registration.getCodec().decode(this.codecContext, content);
+        if (content.available() > 0) {
+            Lantern.getLogger().warn("Trailing bytes {}b after decoding with message codec {} with opcode 0x{} in state {}!\n{}",
+                    content.available(), registration.getCodec().getClass().getName(), Integer.toHexString(opcode), state, message);
         }
 
         /*
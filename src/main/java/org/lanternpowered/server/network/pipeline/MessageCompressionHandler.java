@@ -56,64 +56,222 @@
 import io.netty.handler.codec.DecoderException;
 import io.netty.handler.codec.EncoderException;
 import io.netty.handler.codec.MessageToMessageCodec;
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import org.lanternpowered.server.network.message.CodecRegistration;
+import org.lanternpowered.server.network.message.PreEncodedMessage;
+import org.lanternpowered.server.network.protocol.Protocol;
 
+import java.nio.ByteBuffer;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
 import java.util.zip.Inflater;
 
-public final class MessageCompressionHandler extends MessageToMessageCodec<ByteBuf, ByteBuf> {
+import javax.annotation.Nullable;
+
+public final class MessageCompressionHandler extends MessageToMessageCodec<ByteBuf, Object> {
+
+    /**
+     * The maximum size of a uncompressed message that may be received.
+     */
+    private static final int MAX_UNCOMPRESSED_SIZE = 2097152;
+
+    /**
+     * The size of the buffer that is used to pass the contents of
+     * direct buffers to the {@link Deflater} and {@link Inflater}.
+     */
+    private static final int TRANSFER_BUFFER_SIZE = 8192;
 
     private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
     private final Inflater inflater = new Inflater();
 
     private final int compressionThreshold;
+    private final int compressionLevel;
+
+    private final Map<String, Integer> compressionLevels;
+    @Nullable private final Supplier<Protocol> protocolSupplier;
+
+    // The compression levels per opcode, for the last known protocol
+    private final Int2IntMap compressionLevelsByOpcode = new Int2IntOpenHashMap();
+    @Nullable private Protocol protocol;
+
+    @Nullable private byte[] transferBuffer;
 
     public MessageCompressionHandler(int compressionThreshold) {
+        this(compressionThreshold, Deflater.DEFAULT_COMPRESSION, Collections.emptyMap(), null);
+    }
+
+    /**
+     * Creates a new {@link MessageCompressionHandler}.
+     *
+     * @param compressionThreshold The compression threshold
+     * @param compressionLevel The default compression level
+     * @param compressionLevels The compression levels by the simple name of message types
+     * @param protocolSupplier The supplier of the current protocol, used to map opcodes to message types
+     */
+    public MessageCompressionHandler(int compressionThreshold, int compressionLevel,
+            Map<String, Integer> compressionLevels, @Nullable Supplier<Protocol> protocolSupplier) {
         this.compressionThreshold = compressionThreshold;
+        this.compressionLevel = compressionLevel;
+        this.compressionLevels = compressionLevels;
+        this.protocolSupplier = protocolSupplier;
+        this.compressionLevelsByOpcode.defaultReturnValue(Integer.MIN_VALUE);
     }
 
     @Override
-    protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
-        ByteBuf prefixBuf = ctx.alloc().buffer(5);
-        ByteBuf contentsBuf;
+    public boolean acceptOutboundMessage(Object msg) throws Exception {
+        return msg instanceof ByteBuf || msg instanceof PreEncodedMessage;
+    }
 
-        if (msg.readableBytes() >= this.compressionThreshold) {
-            // Message should be compressed
-            int index = msg.readerIndex();
-            int length = msg.readableBytes();
+    @Override
+    protected void encode(ChannelHandlerContext ctx, Object msg, List<Object> out) throws Exception {
+        if (msg instanceof PreEncodedMessage) {
+            final PreEncodedMessage message = (PreEncodedMessage) msg;
+            // Try to reuse the content that was compressed by a other session
+            final ByteBuf compressed = message.getCompressedContent(this.compressionThreshold, content -> compress(ctx, content));
+            out.add(compressed.retainedDuplicate());
+        } else {
+            out.add(compress(ctx, (ByteBuf) msg));
+        }
+    }
 
-            byte[] sourceData = new byte[length];
-            msg.readBytes(sourceData);
-            this.deflater.setInput(sourceData);
-            this.deflater.finish();
+    private ByteBuf compress(ChannelHandlerContext ctx, ByteBuf msg) {
+        final ByteBuf prefixBuf = ctx.alloc().buffer(5);
+        final int length = msg.readableBytes();
 
-            byte[] compressedData = new byte[length];
-            int compressedLength = this.deflater.deflate(compressedData);
-            this.deflater.reset();
+        if (length >= this.compressionThreshold) {
+            // Message should be compressed
+            final ByteBuf compressed = deflate(ctx, msg);
+            if (compressed != null) {
+                // All is well
+                writeVarInt(prefixBuf, length);
+                return Unpooled.wrappedBuffer(prefixBuf, compressed);
+            }
+            // Compression increased the size. threshold is probably too low
+            // Send as an uncompressed packet
+        }
 
-            if (compressedLength == 0) {
+        // Message should be sent through
+        writeVarInt(prefixBuf, 0);
+        return Unpooled.wrappedBuffer(prefixBuf, msg.retain());
+    }
+
+    /**
+     * Deflates the readable bytes of the given {@link ByteBuf} into a pooled
+     * heap buffer, without copying the content into intermediate arrays. The
+     * reader index of the source buffer won't be modified.
+     *
+     * @param ctx The channel handler context
+     * @param msg The buffer to deflate
+     * @return The deflated buffer, or null if the compression increased the size
+     */
+    @Nullable
+    private ByteBuf deflate(ChannelHandlerContext ctx, ByteBuf msg) {
+        final int length = msg.readableBytes();
+        // The compressed content may never be bigger than the uncompressed
+        // content, otherwise should it be send uncompressed
+        final ByteBuf output = ctx.alloc().heapBuffer(Math.min(length, Math.max(length >> 2, 256)), length);
+        boolean success = false;
+        try {
+            this.deflater.setLevel(getCompressionLevel(msg));
+            for (ByteBuffer input : msg.nioBuffers()) {
+                if (input.hasArray()) {
+                    this.deflater.setInput(input.array(), input.arrayOffset() + input.position(), input.remaining());
+                    if (!deflate(output, false)) {
+                        return null;
+                    }
+                } else {
+                    final byte[] transferBuffer = getTransferBuffer();
+                    while (input.hasRemaining()) {
+                        final int count = Math.min(input.remaining(), transferBuffer.length);
+                        input.get(transferBuffer, 0, count);
+                        this.deflater.setInput(transferBuffer, 0, count);
+                        if (!deflate(output, false)) {
+                            return null;
+                        }
+                    }
+                }
+            }
+            this.deflater.finish();
+            if (!deflate(output, true)) {
+                return null;
+            }
+            if (output.readableBytes() == 0) {
                 // Compression failed in some weird way
                 throw new EncoderException("Failed to compress message of size " + length);
-            } else if (compressedLength >= length) {
-                // Compression increased the size. threshold is probably too low
-                // Send as an uncompressed packet
-                writeVarInt(prefixBuf, 0);
-                msg.readerIndex(index);
-                msg.retain();
-                contentsBuf = msg;
-            } else {
-                // All is well
-                writeVarInt(prefixBuf, length);
-                contentsBuf = Unpooled.wrappedBuffer(compressedData, 0, compressedLength);
             }
-        } else {
-            // Message should be sent through
-            writeVarInt(prefixBuf, 0);
-            msg.retain();
-            contentsBuf = msg;
+            success = true;
+            return output;
+        } finally {
+            this.deflater.reset();
+            if (!success) {
+                output.release();
+            }
         }
+    }
 
-        out.add(Unpooled.wrappedBuffer(prefixBuf, contentsBuf));
+    /**
+     * Deflates the current input directly into the backing array of the output buffer
+     * until more input is needed or the deflater is finished.
+     *
+     * @param output The output buffer
+     * @param finish Whether all the input was passed and the deflater should be finished
+     * @return Whether the output buffer had enough space
+     */
+    private boolean deflate(ByteBuf output, boolean finish) {
+        while (finish ? !this.deflater.finished() : !this.deflater.needsInput()) {
+            if (!output.isWritable()) {
+                if (output.capacity() >= output.maxCapacity()) {
+                    return false;
+                }
+                output.ensureWritable(Math.min(output.capacity(), output.maxWritableBytes()));
+            }
+            final int count = this.deflater.deflate(output.array(), output.arrayOffset() + output.writerIndex(), output.writableBytes());
+            output.writerIndex(output.writerIndex() + count);
+        }
+        return true;
+    }
+
+    private int getCompressionLevel(ByteBuf msg) {
+        if (this.protocolSupplier == null || this.compressionLevels.isEmpty()) {
+            return this.compressionLevel;
+        }
+        final Protocol protocol = this.protocolSupplier.get();
+        if (protocol != this.protocol) {
+            // The opcodes are different for every protocol
+            this.compressionLevelsByOpcode.clear();
+            this.protocol = protocol;
+        }
+        final int index = msg.readerIndex();
+        final int opcode = readVarInt(msg);
+        msg.readerIndex(index);
+        int compressionLevel = this.compressionLevelsByOpcode.get(opcode);
+        if (compressionLevel == Integer.MIN_VALUE) {
+            compressionLevel = this.compressionLevel;
+            final CodecRegistration<?, ?> registration = protocol.outbound().find(opcode).orElse(null);
+            if (registration != null) {
+                for (Class<?> messageType : registration.getBoundMessageTypes()) {
+                    final Integer level = this.compressionLevels.get(messageType.getSimpleName());
+                    if (level != null) {
+                        compressionLevel = level;
+                        break;
+                    }
+                }
+            }
+            this.compressionLevelsByOpcode.put(opcode, compressionLevel);
+        }
+        return compressionLevel;
+    }
+
+    private byte[] getTransferBuffer() {
+        if (this.transferBuffer == null) {
+            this.transferBuffer = new byte[TRANSFER_BUFFER_SIZE];
+        }
+        return this.transferBuffer;
     }
 
     @Override
@@ -128,32 +286,67 @@ protected void decode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out)
                 throw new DecoderException("Received uncompressed message of size " + length + " greater than threshold "
                         + this.compressionThreshold);
             }
-
-            ByteBuf buf = ctx.alloc().buffer(length);
-            msg.readBytes(buf, length);
-            out.add(buf);
+            // Pass a slice of the message through, no need to copy it
+            out.add(msg.readRetainedSlice(length));
+        } else if (uncompressedSize > MAX_UNCOMPRESSED_SIZE) {
+            throw new DecoderException("Received compressed message claiming to be of size "
+                    + uncompressedSize + " which exceeds the maximum of " + MAX_UNCOMPRESSED_SIZE);
         } else {
             // Message is compressed
-            byte[] sourceData = new byte[msg.readableBytes()];
-            msg.readBytes(sourceData);
-            this.inflater.setInput(sourceData);
-
-            byte[] destData = new byte[uncompressedSize];
-            int resultLength = this.inflater.inflate(destData);
-            this.inflater.reset();
-
-            if (resultLength == 0) {
-                // Might be a leftover from before compression was enabled (no compression header)
-                // UncompressedSize is likely to be < threshold
-                msg.readerIndex(index);
-                msg.retain();
-                out.add(msg);
-            } else if (resultLength != uncompressedSize) {
-                throw new DecoderException("Received compressed message claiming to be of size "
-                        + uncompressedSize + " but actually " + resultLength);
-            } else {
-                out.add(Unpooled.wrappedBuffer(destData));
+            final ByteBuf output = ctx.alloc().heapBuffer(uncompressedSize, uncompressedSize);
+            boolean success = false;
+            try {
+                for (ByteBuffer input : msg.nioBuffers()) {
+                    if (input.hasArray()) {
+                        this.inflater.setInput(input.array(), input.arrayOffset() + input.position(), input.remaining());
+                        inflate(output);
+                    } else {
+                        final byte[] transferBuffer = getTransferBuffer();
+                        while (input.hasRemaining() && !this.inflater.finished()) {
+                            final int count = Math.min(input.remaining(), transferBuffer.length);
+                            input.get(transferBuffer, 0, count);
+                            this.inflater.setInput(transferBuffer, 0, count);
+                            inflate(output);
+                        }
+                    }
+                }
+                msg.skipBytes(msg.readableBytes());
+
+                final int resultLength = output.readableBytes();
+                if (resultLength == 0) {
+                    // Might be a leftover from before compression was enabled (no compression header)
+                    // UncompressedSize is likely to be < threshold
+                    msg.readerIndex(index);
+                    out.add(msg.retain());
+                } else if (resultLength != uncompressedSize || !this.inflater.finished()) {
+                    throw new DecoderException("Received compressed message claiming to be of size "
+                            + uncompressedSize + " but actually " + (this.inflater.finished() ? resultLength : "more"));
+                } else {
+                    out.add(output);
+                    success = true;
+                }
+            } finally {
+                this.inflater.reset();
+                if (!success) {
+                    output.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * Inflates the current input directly into the backing array of the output buffer
+     * until more input is needed, the output is full or the inflater is finished.
+     *
+     * @param output The output buffer
+     */
+    private void inflate(ByteBuf output) throws DataFormatException {
+        while (!this.inflater.finished() && !this.inflater.needsInput() && output.isWritable()) {
+            final int count = this.inflater.inflate(output.array(), output.arrayOffset() + output.writerIndex(), output.writableBytes());
+            if (count == 0 && this.inflater.needsDictionary()) {
+                throw new DecoderException("Received compressed message that requires a preset dictionary");
             }
+            output.writerIndex(output.writerIndex() + count);
         }
     }
 }
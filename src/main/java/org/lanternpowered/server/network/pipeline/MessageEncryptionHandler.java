@@ -48,12 +48,10 @@
 package org.lanternpowered.server.network.pipeline;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.MessageToMessageCodec;
+import io.netty.handler.codec.ByteToMessageCodec;
 import org.lanternpowered.server.game.Lantern;
 
-import java.nio.ByteBuffer;
 import java.security.GeneralSecurityException;
 import java.util.List;
 
@@ -62,7 +60,13 @@
 import javax.crypto.ShortBufferException;
 import javax.crypto.spec.IvParameterSpec;
 
-public final class MessageEncryptionHandler extends MessageToMessageCodec<ByteBuf, ByteBuf> {
+public final class MessageEncryptionHandler extends ByteToMessageCodec<ByteBuf> {
+
+    /**
+     * The size of the buffer that is used to pass the
+     * contents of direct buffers through the cipher.
+     */
+    private static final int TRANSFER_BUFFER_SIZE = 8192;
 
     private final CryptBuf encodeBuf;
     private final CryptBuf decodeBuf;
@@ -79,35 +83,82 @@ public MessageEncryptionHandler(SecretKey sharedSecret) {
     }
 
     @Override
-    protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
-        this.encodeBuf.crypt(msg, out);
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, ByteBuf msg, boolean preferDirect) throws Exception {
+        // The output has always the same size as the input
+        final int length = msg.readableBytes();
+        return preferDirect ? ctx.alloc().ioBuffer(length) : ctx.alloc().heapBuffer(length);
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ByteBuf msg, ByteBuf out) throws Exception {
+        // The content of outbound messages may be shared between
+        // sessions, so it can never be encrypted in place
+        final int length = msg.readableBytes();
+        out.ensureWritable(length);
+        this.encodeBuf.crypt(msg, msg.readerIndex(), out, out.writerIndex(), length);
+        msg.skipBytes(length);
+        out.writerIndex(out.writerIndex() + length);
     }
 
     @Override
-    protected void decode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
-        this.decodeBuf.crypt(msg, out);
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        // The received buffer is owned by this handler, decrypt it in place
+        final int length = in.readableBytes();
+        this.decodeBuf.crypt(in, in.readerIndex(), in, in.readerIndex(), length);
+        out.add(in.readRetainedSlice(length));
     }
 
     private static class CryptBuf {
 
         private final Cipher cipher;
+        private byte[] inputBuffer;
+        private byte[] outputBuffer;
 
         private CryptBuf(int mode, SecretKey sharedSecret) throws GeneralSecurityException {
             this.cipher = Cipher.getInstance("AES/CFB8/NoPadding");
             this.cipher.init(mode, sharedSecret, new IvParameterSpec(sharedSecret.getEncoded()));
         }
 
-        void crypt(ByteBuf msg, List<Object> out) {
-            final ByteBuffer outBuffer = ByteBuffer.allocate(msg.readableBytes());
-
+        /**
+         * Passes the bytes of the input buffer through the cipher into the
+         * output buffer, the input and output may be the same buffer. The
+         * reader and writer indexes of the buffers won't be modified.
+         *
+         * @param in The input buffer
+         * @param inIndex The index of the input buffer
+         * @param out The output buffer
+         * @param outIndex The index of the output buffer
+         * @param length The amount of bytes
+         */
+        void crypt(ByteBuf in, int inIndex, ByteBuf out, int outIndex, int length) {
             try {
-                this.cipher.update(msg.nioBuffer(), outBuffer);
+                // The cipher copies the input if the input and output arrays are the
+                // same, so only use the backing arrays directly if they are different
+                if (in != out && in.hasArray() && out.hasArray()) {
+                    this.cipher.update(in.array(), in.arrayOffset() + inIndex, length,
+                            out.array(), out.arrayOffset() + outIndex);
+                    return;
+                }
+                // Pass the content through reusable arrays, the ByteBuffer methods of
+                // the cipher would allocate a temporary array for every direct buffer
+                if (this.inputBuffer == null) {
+                    this.inputBuffer = new byte[TRANSFER_BUFFER_SIZE];
+                    this.outputBuffer = new byte[TRANSFER_BUFFER_SIZE];
+                }
+                final byte[] inputBuffer = this.inputBuffer;
+                final byte[] outputBuffer = this.outputBuffer;
+                while (length > 0) {
+                    final int count = Math.min(length, TRANSFER_BUFFER_SIZE);
+                    in.getBytes(inIndex, inputBuffer, 0, count);
+                    this.cipher.update(inputBuffer, 0, count, outputBuffer, 0);
+                    out.setBytes(outIndex, outputBuffer, 0, count);
+                    inIndex += count;
+                    outIndex += count;
+                    length -= count;
+                }
             } catch (ShortBufferException e) {
                 throw new AssertionError("Encryption buffer was too short", e);
             }
-
-            outBuffer.flip();
-            out.add(Unpooled.wrappedBuffer(outBuffer));
         }
     }
 
@@ -0,0 +1,73 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.network.pipeline;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+
+/**
+ * A handler that counts the bytes that were written to the socket since the
+ * last flush, the channel will be flushed as soon as the pending bytes cross
+ * the threshold. This allows writes to be batched until the end of the tick
+ * without buffering too much data.
+ */
+public final class MessageFlushHandler extends ChannelOutboundHandlerAdapter {
+
+    /**
+     * The default amount of bytes that may be pending before they are flushed.
+     */
+    public static final int DEFAULT_THRESHOLD = 32 * 1024;
+
+    private final int threshold;
+    private int pendingBytes;
+
+    public MessageFlushHandler() {
+        this(DEFAULT_THRESHOLD);
+    }
+
+    public MessageFlushHandler(int threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof ByteBuf) {
+            this.pendingBytes += ((ByteBuf) msg).readableBytes();
+        }
+        ctx.write(msg, promise);
+        if (this.pendingBytes >= this.threshold) {
+            flush(ctx);
+        }
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        this.pendingBytes = 0;
+        ctx.flush();
+    }
+}
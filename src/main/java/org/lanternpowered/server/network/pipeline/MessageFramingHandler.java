@@ -68,9 +68,8 @@ protected void encode(ChannelHandlerContext ctx, ByteBuf buf, ByteBuf output) th
     protected void decode(ChannelHandlerContext ctx, ByteBuf buf, List<Object> output) throws Exception {
         int length;
         while ((length = readableMessage(buf)) != -1) {
-            final ByteBuf msg = ctx.alloc().buffer(length);
-            buf.readBytes(msg, length);
-            output.add(msg);
+            // Slice the message instead of copying it
+            output.add(buf.readRetainedSlice(length));
         }
     }
 
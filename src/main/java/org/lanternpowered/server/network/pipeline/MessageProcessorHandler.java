@@ -28,10 +28,12 @@
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.EncoderException;
 import io.netty.handler.codec.MessageToMessageEncoder;
+import io.netty.util.ReferenceCountUtil;
 import io.netty.util.ReferenceCounted;
 import io.netty.util.concurrent.FastThreadLocal;
 import org.lanternpowered.server.network.message.Message;
 import org.lanternpowered.server.network.message.MessageRegistration;
+import org.lanternpowered.server.network.message.PreEncodedMessage;
 import org.lanternpowered.server.network.message.codec.CodecContext;
 import org.lanternpowered.server.network.message.processor.Processor;
 import org.lanternpowered.server.network.protocol.Protocol;
@@ -66,7 +68,13 @@ protected void encode(ChannelHandlerContext ctx, Message message, List<Object> o
 
     @Override
     public boolean acceptOutboundMessage(Object msg) throws Exception {
-        final Message message = (Message) msg;
+        Message message = (Message) msg;
+        // The wrapped message of pre-encoded messages still needs to be processed for
+        // every session, in that case will the message not be encoded only once
+        final boolean preEncoded = message instanceof PreEncodedMessage;
+        if (preEncoded) {
+            message = ((PreEncodedMessage) message).getMessage();
+        }
         final Protocol protocol = this.codecContext.getSession().getProtocol();
         final MessageRegistration registration = protocol.outbound().findByMessageType(message.getClass()).orElse(null);
 
@@ -84,7 +92,13 @@ public boolean acceptOutboundMessage(Object msg) throws Exception {
                 // The processor should handle the output messages
                 processor.process(this.codecContext, message, messages);
             }
-            if (message instanceof ReferenceCounted && !messages.contains(message)) {
+            if (preEncoded) {
+                // The wrapped message is owned by the pre-encoded message,
+                // which will be released after the processing
+                if (messages.contains(message)) {
+                    ReferenceCountUtil.retain(message);
+                }
+            } else if (message instanceof ReferenceCounted && !messages.contains(message)) {
                 ((ReferenceCounted) message).release();
             }
             if (!messages.isEmpty()) {
@@ -0,0 +1,154 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.network.pipeline;
+
+import static org.lanternpowered.server.network.buffer.LanternByteBuffer.writeVarInt;
+
+import io.netty.buffer.ByteBuf;
+import org.lanternpowered.server.network.buffer.ByteBuffer;
+import org.lanternpowered.server.network.buffer.ByteBufferAllocator;
+import org.lanternpowered.server.network.buffer.LanternByteBuffer;
+
+import javax.annotation.Nullable;
+
+/**
+ * A {@link ByteBufferAllocator} that is used by the codecs while encoding
+ * messages. The first buffer that is allocated after {@link #reset()} will
+ * have space reserved in front of the content, which allows the opcode to
+ * be written into the same buffer once the codec returns it.
+ */
+final class OpcodeReservingByteBufferAllocator implements ByteBufferAllocator {
+
+    /**
+     * The maximum length of a var int.
+     */
+    static final int RESERVED_BYTES = 5;
+
+    private final ByteBufferAllocator allocator;
+
+    private boolean reserve;
+    @Nullable private ByteBuf reserved;
+
+    OpcodeReservingByteBufferAllocator(ByteBufferAllocator allocator) {
+        this.allocator = allocator;
+    }
+
+    /**
+     * Resets the allocator, the next allocated buffer will
+     * have space reserved for the opcode.
+     */
+    void reset() {
+        this.reserve = true;
+        this.reserved = null;
+    }
+
+    /**
+     * Attempts to write the opcode in front of the content of the
+     * {@link ByteBuf}, this is only possible if the buffer was
+     * allocated with reserved space since the last {@link #reset()}.
+     *
+     * @param byteBuf The byte buf
+     * @param opcode The opcode
+     * @return Whether the opcode was written
+     */
+    boolean tryWriteOpcode(ByteBuf byteBuf, int opcode) {
+        final int length = getVarIntLength(opcode);
+        if (byteBuf != this.reserved || byteBuf.readerIndex() < length) {
+            return false;
+        }
+        final int readerIndex = byteBuf.readerIndex() - length;
+        final int writerIndex = byteBuf.writerIndex();
+        byteBuf.writerIndex(readerIndex);
+        writeVarInt(byteBuf, opcode);
+        byteBuf.setIndex(readerIndex, writerIndex);
+        return true;
+    }
+
+    /**
+     * Gets the amount of bytes that are needed to write the value as a var int.
+     *
+     * @param value The value
+     * @return The length
+     */
+    static int getVarIntLength(int value) {
+        int length = 1;
+        while ((value & 0xFFFFFF80) != 0) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    private int capacity(int initialCapacity) {
+        return this.reserve ? initialCapacity + RESERVED_BYTES : initialCapacity;
+    }
+
+    private ByteBuffer reserve(ByteBuffer byteBuffer) {
+        if (this.reserve) {
+            this.reserve = false;
+            final ByteBuf byteBuf = ((LanternByteBuffer) byteBuffer).getDelegate();
+            byteBuf.setIndex(RESERVED_BYTES, RESERVED_BYTES);
+            this.reserved = byteBuf;
+        }
+        return byteBuffer;
+    }
+
+    @Override
+    public ByteBuffer buffer() {
+        return reserve(this.allocator.buffer());
+    }
+
+    @Override
+    public ByteBuffer buffer(int initialCapacity) {
+        return reserve(this.allocator.buffer(capacity(initialCapacity)));
+    }
+
+    @Override
+    public ByteBuffer heapBuffer() {
+        return reserve(this.allocator.heapBuffer());
+    }
+
+    @Override
+    public ByteBuffer heapBuffer(int initialCapacity) {
+        return reserve(this.allocator.heapBuffer(capacity(initialCapacity)));
+    }
+
+    @Override
+    public ByteBuffer directBuffer() {
+        return reserve(this.allocator.directBuffer());
+    }
+
+    @Override
+    public ByteBuffer directBuffer(int initialCapacity) {
+        return reserve(this.allocator.directBuffer(capacity(initialCapacity)));
+    }
+
+    @Override
+    public ByteBuffer wrappedBuffer(byte[] byteArray) {
+        // Wrapped arrays cannot have reserved space
+        return this.allocator.wrappedBuffer(byteArray);
+    }
+}
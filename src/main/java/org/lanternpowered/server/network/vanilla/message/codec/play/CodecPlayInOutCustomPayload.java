@@ -33,6 +33,7 @@
 import io.netty.handler.codec.CodecException;
 import io.netty.handler.codec.EncoderException;
 import org.lanternpowered.server.network.buffer.ByteBuffer;
+import org.lanternpowered.server.network.buffer.ByteBufferAllocator;
 import org.lanternpowered.server.network.buffer.objects.Types;
 import org.lanternpowered.server.network.message.Message;
 import org.lanternpowered.server.network.message.NullMessage;
@@ -158,7 +159,11 @@ protected Message decode0(CodecContext context, String channel, ByteBuffer conte
         } else if (channel.startsWith("FML")) {
             // A unknown/ignored fml channel
         } else {
-            return new MessagePlayInOutChannelPayload(channel, content);
+            // The content is only valid while decoding, copy
+            // it because the message is handled later
+            final byte[] bytes = new byte[content.available()];
+            content.readBytes(bytes);
+            return new MessagePlayInOutChannelPayload(channel, ByteBufferAllocator.unpooled().wrappedBuffer(bytes));
         }
         return NullMessage.INSTANCE;
     }
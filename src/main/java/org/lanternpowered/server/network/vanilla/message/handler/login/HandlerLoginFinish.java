@@ -25,6 +25,8 @@
  */
 package org.lanternpowered.server.network.vanilla.message.handler.login;
 
+import com.google.common.collect.ImmutableMap;
+import org.lanternpowered.server.config.GlobalConfig;
 import org.lanternpowered.server.game.Lantern;
 import org.lanternpowered.server.network.NetworkContext;
 import org.lanternpowered.server.network.NetworkSession;
@@ -39,6 +41,7 @@
 import org.spongepowered.api.profile.GameProfileCache;
 
 import java.time.Instant;
+import java.util.Map;
 
 public final class HandlerLoginFinish implements Handler<MessageLoginInFinish> {
 
@@ -46,11 +49,14 @@ public final class HandlerLoginFinish implements Handler<MessageLoginInFinish> {
     public void handle(NetworkContext context, MessageLoginInFinish message) {
         final LanternGameProfile gameProfile = message.getGameProfile();
         final NetworkSession session = context.getSession();
-        int compressionThreshold = Lantern.getGame().getGlobalConfig().getNetworkCompressionThreshold();
+        final GlobalConfig globalConfig = Lantern.getGame().getGlobalConfig();
+        int compressionThreshold = globalConfig.getNetworkCompressionThreshold();
         if (compressionThreshold != -1) {
+            final int compressionLevel = globalConfig.getNetworkCompressionLevel();
+            final Map<String, Integer> compressionLevels = ImmutableMap.copyOf(globalConfig.getNetworkCompressionLevels());
             session.sendWithFuture(new MessageLoginOutSetCompression(compressionThreshold)).addListener(future ->
                     context.getChannel().pipeline().replace(NetworkSession.COMPRESSION, NetworkSession.COMPRESSION,
-                            new MessageCompressionHandler(compressionThreshold)));
+                            new MessageCompressionHandler(compressionThreshold, compressionLevel, compressionLevels, session::getProtocol)));
         } else {
             // Remove the compression handler placeholder
             context.getChannel().pipeline().remove(NetworkSession.COMPRESSION);
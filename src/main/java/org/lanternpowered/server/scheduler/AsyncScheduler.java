@@ -27,9 +27,7 @@
 
 import org.lanternpowered.server.game.Lantern;
 import org.lanternpowered.server.util.ThreadHelper;
-import org.spongepowered.api.scheduler.Task;
 
-import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -45,7 +43,6 @@ final class AsyncScheduler extends SchedulerBase {
 
     // Adjustable timeout for pending Tasks
     private long minimumTimeout = Long.MAX_VALUE;
-    private long lastProcessingTimestamp;
     // Locking mechanism
     private final Lock lock = new ReentrantLock();
     private final Condition condition = this.lock.newCondition();
@@ -87,7 +84,6 @@ void shutdown(long timeout, TimeUnit unit) {
     private void mainLoop() {
         this.executor = Executors.newCachedThreadPool(ThreadHelper.newFastThreadLocalThreadFactory(
                 () -> "async-" + this.counter.getAndIncrement()));
-        this.lastProcessingTimestamp = System.nanoTime();
         while (this.running) {
             recalibrateMinimumTimeout();
             runTick();
@@ -95,48 +91,20 @@ private void mainLoop() {
     }
 
     private void recalibrateMinimumTimeout() {
-        this.lock.lock();
-        try {
-            final Set<Task> tasks = getScheduledTasks();
-            this.minimumTimeout = Long.MAX_VALUE;
-            long now = System.nanoTime();
-            for (Task tmpTask : tasks) {
-                ScheduledTask task = (ScheduledTask) tmpTask;
-                // Recalibrate the wait delay for processing tasks before new
-                // tasks cause the scheduler to process pending tasks.
-                if (task.offset == 0 && task.period == 0) {
-                    this.minimumTimeout = 0;
-                }
-                // The time since the task last executed or was added to the map
-                long timeSinceLast = now - task.getTimestamp();
-
-                if (task.offset > 0 && task.getState() == ScheduledTask.ScheduledTaskState.WAITING) {
-                    // There is an offset and the task hasn't run yet
-                    this.minimumTimeout = Math.min(task.offset - timeSinceLast, this.minimumTimeout);
-                }
-                if (task.period > 0 && task.getState().isActive) {
-                    // The task repeats and has run after the initial delay
-                    this.minimumTimeout = Math.min(task.period - timeSinceLast, this.minimumTimeout);
-                }
-                if (this.minimumTimeout <= 0) {
-                    break;
-                }
-            }
-            if (!tasks.isEmpty()) {
-                long latency = System.nanoTime() - this.lastProcessingTimestamp;
-                this.minimumTimeout -= (latency <= 0) ? 0 : latency;
-                this.minimumTimeout = (this.minimumTimeout < 0) ? 0 : this.minimumTimeout;
-            }
-        } finally {
-            this.lock.unlock();
-        }
+        // The timing wheel knows when the next task is due,
+        // there is no need to check all the scheduled tasks
+        this.minimumTimeout = getNextTaskDelay();
     }
 
     @Override
     protected void preTick() {
         this.lock.lock();
         try {
-            this.condition.await(this.minimumTimeout, TimeUnit.NANOSECONDS);
+            // Tasks that were added after the timeout was calculated
+            // didn't wake up this thread, so don't wait for them
+            if (!hasAddedTasks()) {
+                this.condition.await(this.minimumTimeout, TimeUnit.NANOSECONDS);
+            }
         } catch (InterruptedException ignored) {
             // The taskMap has been modified; there is work to do.
             // Continue on without handling the Exception.
@@ -145,11 +113,6 @@ protected void preTick() {
         }
     }
 
-    @Override
-    protected void postTick() {
-        this.lastProcessingTimestamp = System.nanoTime();
-    }
-
     @Override
     protected void finallyPostTick() {
         this.lock.unlock();
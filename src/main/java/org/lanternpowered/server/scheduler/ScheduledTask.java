@@ -33,6 +33,8 @@
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
+import javax.annotation.Nullable;
+
 /**
  * An internal representation of a {@link Task} created by a plugin.
  */
@@ -51,6 +53,17 @@ public class ScheduledTask implements Task {
     final TaskSynchronicity syncType;
     private final String stringRepresentation;
 
+    // The scheduler this task was submitted to
+    @Nullable SchedulerBase scheduler;
+
+    // The state of the task within a timing wheel, only
+    // accessed by the thread of the scheduler
+    @Nullable TimingWheel wheel;
+    @Nullable ScheduledTask wheelPrev;
+    @Nullable ScheduledTask wheelNext;
+    long wheelDeadline;
+    int wheelIndex;
+
     // Internal Task state. Not for user-service use.
     public enum ScheduledTaskState {
         /**
@@ -131,6 +144,10 @@ public boolean cancel() {
             success = true;
         }
         this.setState(ScheduledTask.ScheduledTaskState.CANCELED);
+        final SchedulerBase scheduler = this.scheduler;
+        if (scheduler != null) {
+            scheduler.cancelTask(this);
+        }
         return success;
     }
 
@@ -34,13 +34,30 @@
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 
 abstract class SchedulerBase {
 
+    /**
+     * The duration of a unit of the timing wheel of the tasks that are based on
+     * real time. Deadlines are rounded up to a full unit, so tasks are never
+     * executed early.
+     */
+    private static final long TIME_RESOLUTION = TimeUnit.MILLISECONDS.toNanos(1);
+
     // The simple queue of all pending (and running) ScheduledTasks
     private final Map<UUID, ScheduledTask> taskMap = Maps.newConcurrentMap();
+    // The tasks that were added or cancelled since the last tick
+    private final Queue<ScheduledTask> addedTasks = new ConcurrentLinkedQueue<>();
+    private final Queue<ScheduledTask> cancelledTasks = new ConcurrentLinkedQueue<>();
+    // The timing wheels of the tasks that are waiting to be executed
+    private final TimingWheel tickWheel = new TimingWheel();
+    private final TimingWheel timeWheel = new TimingWheel();
+    private final long timeOrigin = System.nanoTime();
     private long sequenceNumber = 0L;
     private final String taskNameFmt;
 
@@ -68,6 +85,27 @@ protected long getTimestamp(ScheduledTask task) {
         return System.nanoTime();
     }
 
+    /**
+     * Gets whether the current timestamp of the task is based on ticks
+     * instead of real time, see {@link #getTimestamp(ScheduledTask)}.
+     *
+     * @param task The task
+     * @return Whether the timestamp is based on ticks
+     */
+    protected boolean isTickBased(ScheduledTask task) {
+        return false;
+    }
+
+    /**
+     * Gets the current tick of this scheduler, only
+     * used by tasks that are based on ticks.
+     *
+     * @return The current tick
+     */
+    protected long getCurrentTick() {
+        return 0L;
+    }
+
     /**
      * Adds the task to the task map, will attempt to process the task on the
      * next call to {@link #runTick}.
@@ -76,16 +114,60 @@ protected long getTimestamp(ScheduledTask task) {
      */
     protected void addTask(ScheduledTask task) {
         task.setTimestamp(this.getTimestamp(task));
+        task.scheduler = this;
         this.taskMap.put(task.getUniqueId(), task);
+        this.addedTasks.add(task);
     }
 
     /**
-     * Removes the task from the task map.
+     * Marks the task as cancelled, the task will be removed from the
+     * task map and the timing wheels on the next call to {@link #runTick}.
+     *
+     * @param task The task that was cancelled
+     */
+    void cancelTask(ScheduledTask task) {
+        this.cancelledTasks.add(task);
+    }
+
+    /**
+     * Removes the task from the task map and the timing wheels, may only
+     * be called from the thread that calls {@link #runTick}.
      *
      * @param task The task to remove
      */
     protected void removeTask(ScheduledTask task) {
         this.taskMap.remove(task.getUniqueId());
+        if (task.wheel != null) {
+            task.wheel.remove(task);
+        }
+    }
+
+    /**
+     * Gets whether there are tasks that were added
+     * since the last call to {@link #runTick}.
+     *
+     * @return Whether there are added tasks
+     */
+    protected boolean hasAddedTasks() {
+        return !this.addedTasks.isEmpty();
+    }
+
+    /**
+     * Gets the time in nanoseconds until the next task that is based on real
+     * time should be executed, {@link Long#MAX_VALUE} if there is no such task.
+     * May only be called from the thread that calls {@link #runTick}.
+     *
+     * @return The time until the next task
+     */
+    protected long getNextTaskDelay() {
+        if (!this.addedTasks.isEmpty()) {
+            return 0;
+        }
+        final long next = this.timeWheel.getNextTime();
+        if (next == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, this.timeOrigin + next * TIME_RESOLUTION - System.nanoTime());
     }
 
     protected Optional<Task> getTask(UUID id) {
@@ -99,18 +181,52 @@ protected Set<Task> getScheduledTasks() {
     }
 
     /**
-     * Process all tasks in the map.
+     * Process all the tasks that are due.
      */
     protected final void runTick() {
         preTick();
         try {
-            this.taskMap.values().forEach(this::processTask);
+            ScheduledTask task;
+            while ((task = this.addedTasks.poll()) != null) {
+                scheduleTask(task);
+            }
+            while ((task = this.cancelledTasks.poll()) != null) {
+                removeTask(task);
+            }
+            this.tickWheel.advance(getCurrentTick(), this::processTask);
+            this.timeWheel.advance((System.nanoTime() - this.timeOrigin) / TIME_RESOLUTION, this::processTask);
             postTick();
         } finally {
             finallyPostTick();
         }
     }
 
+    /**
+     * Puts the task in the timing wheel that matches its current timestamp.
+     *
+     * @param task The task to schedule
+     */
+    private void scheduleTask(ScheduledTask task) {
+        // Figure out if we start a delayed Task after threshold ticks or, start
+        // it after the interval (period) of the repeating task parameter.
+        final long threshold = task.getState() == ScheduledTask.ScheduledTaskState.WAITING ? task.offset : task.period;
+        long deadline = task.getTimestamp() + threshold;
+        if (deadline < task.getTimestamp()) {
+            deadline = Long.MAX_VALUE;
+        }
+        scheduleTask(task, deadline);
+    }
+
+    private void scheduleTask(ScheduledTask task, long deadline) {
+        if (isTickBased(task)) {
+            this.tickWheel.add(task, deadline);
+        } else {
+            // Round up to a full unit, the task may not be executed early
+            final long time = deadline - this.timeOrigin;
+            this.timeWheel.add(task, time <= 0 ? 0 : (time - 1) / TIME_RESOLUTION + 1);
+        }
+    }
+
     /**
      * Fired when the scheduler begins to tick, before any tasks are processed.
      */
@@ -131,17 +247,19 @@ protected void finallyPostTick() {
     }
 
     /**
-     * Processes the task.
+     * Processes a task that was taken from a timing wheel.
      *
      * @param task The task to process
      */
-    protected void processTask(ScheduledTask task) {
+    private void processTask(ScheduledTask task) {
         // If the task is now slated to be cancelled, we just remove it as if it
         // no longer exists.
         if (task.getState() == ScheduledTask.ScheduledTaskState.CANCELED) {
             removeTask(task);
             return;
         }
+        // This moment is 'now'
+        long now = getTimestamp(task);
         long threshold = Long.MAX_VALUE;
         // Figure out if we start a delayed Task after threshold ticks or, start
         // it after the interval (period) of the repeating task parameter.
@@ -149,9 +267,11 @@ protected void processTask(ScheduledTask task) {
             threshold = task.offset;
         } else if (task.getState() == ScheduledTask.ScheduledTaskState.RUNNING) {
             threshold = task.period;
+        } else {
+            // The previous execution didn't start yet, check again on the next tick
+            scheduleTask(task, now);
+            return;
         }
-        // This moment is 'now'
-        long now = getTimestamp(task);
         // So, if the current time minus the timestamp of the task is greater
         // than the delay to wait before starting the task, then start the task.
         // Repeating tasks get a reset-timestamp each time they are set RUNNING
@@ -164,8 +284,15 @@ protected void processTask(ScheduledTask task) {
             // If task is one time shot, remove it from the map.
             if (task.period == 0L) {
                 removeTask(task);
+                return;
             }
         }
+        // The task may be cancelled while it was running
+        if (task.getState() == ScheduledTask.ScheduledTaskState.CANCELED) {
+            removeTask(task);
+        } else {
+            scheduleTask(task);
+        }
     }
 
     /**
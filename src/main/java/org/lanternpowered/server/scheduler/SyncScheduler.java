@@ -42,6 +42,16 @@ void tick() {
         runTick();
     }
 
+    @Override
+    protected long getCurrentTick() {
+        return this.counter;
+    }
+
+    @Override
+    protected boolean isTickBased(ScheduledTask task) {
+        return task.getState() == ScheduledTask.ScheduledTaskState.WAITING ? task.delayIsTicks : task.intervalIsTicks;
+    }
+
     @Override
     protected long getTimestamp(ScheduledTask task) {
         if (task.getState() == ScheduledTask.ScheduledTaskState.WAITING) {
@@ -0,0 +1,244 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.scheduler;
+
+import java.util.function.Consumer;
+
+import javax.annotation.Nullable;
+
+/**
+ * A hierarchical timing wheel of {@link ScheduledTask}s. The time is expressed
+ * in abstract units, ticks or a fixed amount of nanoseconds, depending on the
+ * clock that is used by the tasks.
+ * <p>
+ * Every level of the wheel has {@link #SLOTS} slots, a slot of a level spans
+ * all the slots of the level below it. Tasks are put in the lowest level that
+ * still covers their deadline and move down a level every time the wheel reaches
+ * the slot they're in, so adding, removing and collecting due tasks are O(1)
+ * amortized instead of scanning all the pending tasks.
+ * <p>
+ * The tasks are linked directly into the slots, so a task can only be added to
+ * one wheel at a time. The wheel isn't thread safe and may only be accessed by
+ * the thread of the scheduler.
+ */
+final class TimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 7;
+
+    /**
+     * The mask of all the units that are covered by the levels, deadlines that are
+     * further away are put in the last slot of the wheel and will be added again
+     * once that slot is reached.
+     */
+    private static final long RANGE_MASK = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    private final ScheduledTask[] heads = new ScheduledTask[LEVELS * SLOTS];
+    private final ScheduledTask[] tails = new ScheduledTask[LEVELS * SLOTS];
+    private final long[] occupied = new long[LEVELS];
+
+    // The next unit of time that will be processed
+    private long time;
+    private int size;
+
+    /**
+     * Gets the amount of tasks in this wheel.
+     *
+     * @return The size
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Adds the task to this wheel. If the deadline already passed
+     * then the task will be due the next time the wheel advances.
+     *
+     * @param task The task
+     * @param deadline The deadline of the task
+     */
+    void add(ScheduledTask task, long deadline) {
+        task.wheel = this;
+        task.wheelDeadline = deadline;
+        place(task);
+        this.size++;
+    }
+
+    /**
+     * Removes the task from this wheel, if present.
+     *
+     * @param task The task
+     */
+    void remove(ScheduledTask task) {
+        if (task.wheel != this) {
+            return;
+        }
+        final int index = task.wheelIndex;
+        final ScheduledTask prev = task.wheelPrev;
+        final ScheduledTask next = task.wheelNext;
+        if (prev == null) {
+            this.heads[index] = next;
+        } else {
+            prev.wheelNext = next;
+        }
+        if (next == null) {
+            this.tails[index] = prev;
+        } else {
+            next.wheelPrev = prev;
+        }
+        if (this.heads[index] == null) {
+            this.occupied[index >> SLOT_BITS] &= ~(1L << (index & SLOT_MASK));
+        }
+        task.wheel = null;
+        task.wheelPrev = null;
+        task.wheelNext = null;
+        this.size--;
+    }
+
+    private void place(ScheduledTask task) {
+        // Keep the deadline within the range of the wheel, the task
+        // will be added again once the clamped deadline is reached
+        final long deadline = Math.min(Math.max(task.wheelDeadline, this.time), this.time | RANGE_MASK);
+        // The lowest level in which the deadline and the current time share
+        // the same slot in the levels above, the slot of the deadline in that
+        // level will be reached before the deadline itself
+        final long diff = deadline ^ this.time;
+        final int level = diff < SLOTS ? 0 : (63 - Long.numberOfLeadingZeros(diff)) / SLOT_BITS;
+        final int slot = (int) (deadline >>> (level * SLOT_BITS)) & SLOT_MASK;
+        final int index = (level << SLOT_BITS) | slot;
+        final ScheduledTask tail = this.tails[index];
+        task.wheelIndex = index;
+        task.wheelPrev = tail;
+        task.wheelNext = null;
+        if (tail == null) {
+            this.heads[index] = task;
+            this.occupied[level] |= 1L << slot;
+        } else {
+            tail.wheelNext = task;
+        }
+        this.tails[index] = task;
+    }
+
+    @Nullable
+    private ScheduledTask detach(int level, int slot) {
+        final int index = (level << SLOT_BITS) | slot;
+        final ScheduledTask head = this.heads[index];
+        this.heads[index] = null;
+        this.tails[index] = null;
+        this.occupied[level] &= ~(1L << slot);
+        return head;
+    }
+
+    /**
+     * Gets the lower bound of the time at which the next task
+     * will be due, {@link Long#MAX_VALUE} if the wheel is empty.
+     *
+     * @return The time of the next task
+     */
+    long getNextTime() {
+        if (this.size == 0) {
+            return Long.MAX_VALUE;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            final int shift = level * SLOT_BITS;
+            final int current = (int) (this.time >>> shift) & SLOT_MASK;
+            final long occupied = this.occupied[level] & (-1L << current);
+            if (occupied != 0) {
+                // The start of the slot, the slots of the current time
+                // in the higher levels are always processed first
+                final long base = this.time & ~((1L << (shift + SLOT_BITS)) - 1);
+                return Math.max(this.time, base + ((long) Long.numberOfTrailingZeros(occupied) << shift));
+            }
+        }
+        // The slots are never behind the current time
+        throw new IllegalStateException("The timing wheel is corrupted");
+    }
+
+    /**
+     * Advances the wheel up to and including the target time, all the
+     * tasks that are due will be passed to the consumer in the order
+     * of their deadline. The consumer may add tasks to the wheel.
+     *
+     * @param target The target time
+     * @param consumer The consumer of the due tasks
+     */
+    void advance(long target, Consumer<ScheduledTask> consumer) {
+        while (this.size > 0) {
+            final long next = getNextTime();
+            if (next > target) {
+                break;
+            }
+            this.time = next;
+            cascade();
+            ScheduledTask task = detach(0, (int) this.time & SLOT_MASK);
+            // Move the time before the tasks are processed, tasks that are
+            // added by the consumer may not end up in the detached slot
+            this.time++;
+            cascade();
+            while (task != null) {
+                final ScheduledTask nextTask = task.wheelNext;
+                task.wheelPrev = null;
+                task.wheelNext = null;
+                if (task.wheelDeadline >= this.time) {
+                    // The deadline was clamped, it isn't due yet
+                    place(task);
+                } else {
+                    task.wheel = null;
+                    this.size--;
+                    consumer.accept(task);
+                }
+                task = nextTask;
+            }
+        }
+        if (this.time <= target) {
+            this.time = target + 1;
+        }
+        // The slots of the current time in the higher levels must always be
+        // empty, otherwise the lower levels no longer hold the earliest tasks
+        cascade();
+    }
+
+    /**
+     * Moves the tasks of the slots that start at the current time down, starting
+     * from the highest level so that they can cascade further.
+     */
+    private void cascade() {
+        for (int level = LEVELS - 1; level > 0; level--) {
+            final int shift = level * SLOT_BITS;
+            if ((this.time & ((1L << shift) - 1)) != 0) {
+                continue;
+            }
+            ScheduledTask task = detach(level, (int) (this.time >>> shift) & SLOT_MASK);
+            while (task != null) {
+                final ScheduledTask nextTask = task.wheelNext;
+                place(task);
+                task = nextTask;
+            }
+        }
+    }
+}
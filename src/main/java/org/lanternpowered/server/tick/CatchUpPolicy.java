@@ -0,0 +1,72 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.tick;
+
+/**
+ * The policy that the {@link TickLoop} uses to recover
+ * from ticks that took longer than the tick interval.
+ */
+public enum CatchUpPolicy {
+    /**
+     * All the missed ticks are dropped, the next tick
+     * will be scheduled one interval after the current one.
+     */
+    SKIP {
+        @Override
+        long getSkippedTicks(long missedTicks, int maxCatchUpTicks) {
+            return missedTicks;
+        }
+    },
+    /**
+     * At most the configured amount of missed ticks will be
+     * executed back-to-back, the remaining ones are dropped.
+     */
+    LIMITED {
+        @Override
+        long getSkippedTicks(long missedTicks, int maxCatchUpTicks) {
+            return Math.max(0, missedTicks - maxCatchUpTicks);
+        }
+    },
+    /**
+     * All the missed ticks will be executed back-to-back
+     * until the loop is back on schedule.
+     */
+    FULL {
+        @Override
+        long getSkippedTicks(long missedTicks, int maxCatchUpTicks) {
+            return 0;
+        }
+    };
+
+    /**
+     * Gets the amount of ticks that should be dropped.
+     *
+     * @param missedTicks The amount of ticks the loop is behind
+     * @param maxCatchUpTicks The maximum amount of ticks to catch up
+     * @return The amount of ticks to drop
+     */
+    abstract long getSkippedTicks(long missedTicks, int maxCatchUpTicks);
+}
@@ -0,0 +1,185 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.tick;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations in nanoseconds with log-linear buckets, similar
+ * to a HDR histogram. Every power of two is split into {@link #SUB_BUCKET_HALF}
+ * linear buckets, which keeps the relative error of every recorded value
+ * below {@code 1 / SUB_BUCKET_HALF} (about 1.6%) with a fixed memory footprint.
+ * <p>
+ * Recording is lock free and meant to be done by a single thread, the
+ * values can be read by any thread.
+ */
+public final class TickHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT >> 1;
+
+    /**
+     * The highest value that can be tracked, about 18 minutes. Larger values
+     * are counted in the highest bucket.
+     */
+    private static final long MAX_VALUE = (1L << 40) - 1;
+    private static final int BUCKET_COUNT = getIndex(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalValue = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    private static int getIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        final int magnitude = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return magnitude * SUB_BUCKET_HALF + (int) (value >>> magnitude);
+    }
+
+    private static long getLowestValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int magnitude = index / SUB_BUCKET_HALF - 1;
+        return (long) (index % SUB_BUCKET_HALF + SUB_BUCKET_HALF) << magnitude;
+    }
+
+    private static long getMedianValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int magnitude = index / SUB_BUCKET_HALF - 1;
+        return getLowestValue(index) + ((1L << magnitude) >> 1);
+    }
+
+    /**
+     * Records the duration.
+     *
+     * @param nanos The duration in nanoseconds
+     */
+    public void record(long nanos) {
+        final long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        this.counts.incrementAndGet(getIndex(value));
+        this.totalCount.incrementAndGet();
+        this.totalValue.addAndGet(value);
+        if (value > this.maxValue.get()) {
+            this.maxValue.set(value);
+        }
+    }
+
+    /**
+     * Adds all the values of the other histogram to this histogram.
+     *
+     * @param other The other histogram
+     */
+    public void add(TickHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            final long count = other.counts.get(i);
+            if (count != 0) {
+                this.counts.addAndGet(i, count);
+            }
+        }
+        this.totalCount.addAndGet(other.totalCount.get());
+        this.totalValue.addAndGet(other.totalValue.get());
+        final long max = other.maxValue.get();
+        if (max > this.maxValue.get()) {
+            this.maxValue.set(max);
+        }
+    }
+
+    /**
+     * Clears all the recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            this.counts.set(i, 0);
+        }
+        this.totalCount.set(0);
+        this.totalValue.set(0);
+        this.maxValue.set(0);
+    }
+
+    /**
+     * Gets the amount of recorded values.
+     *
+     * @return The count
+     */
+    public long getCount() {
+        return this.totalCount.get();
+    }
+
+    /**
+     * Gets the highest recorded value in nanoseconds.
+     *
+     * @return The max value
+     */
+    public long getMax() {
+        return this.maxValue.get();
+    }
+
+    /**
+     * Gets the mean of the recorded values in nanoseconds.
+     *
+     * @return The mean value
+     */
+    public double getMean() {
+        final long count = this.totalCount.get();
+        return count == 0 ? 0 : (double) this.totalValue.get() / count;
+    }
+
+    /**
+     * Gets the value at the given percentile in nanoseconds, {@code 0} if
+     * there are no values recorded.
+     *
+     * @param percentile The percentile, between 0 and 100
+     * @return The value
+     */
+    public long getValueAtPercentile(double percentile) {
+        checkArgument(percentile >= 0 && percentile <= 100, "percentile must be between 0 and 100");
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += this.counts.get(i);
+        }
+        if (count == 0) {
+            return 0;
+        }
+        final long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += this.counts.get(i);
+            if (total >= target) {
+                return Math.min(getMedianValue(i), this.maxValue.get());
+            }
+        }
+        return this.maxValue.get();
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.tick;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A loop that runs the server ticks at a fixed interval. Every tick is scheduled
+ * at an absolute deadline, so the duration of the ticks and the inaccuracy of
+ * sleeping don't cause the loop to drift. When the loop falls behind, the
+ * {@link CatchUpPolicy} determines how many of the missed ticks are executed.
+ */
+public final class TickLoop implements Runnable {
+
+    /**
+     * The amount of time the loop should be behind before a warning is logged.
+     */
+    private static final long WARNING_THRESHOLD = TimeUnit.SECONDS.toNanos(2);
+
+    /**
+     * The minimum amount of time between two warnings.
+     */
+    private static final long WARNING_INTERVAL = TimeUnit.SECONDS.toNanos(15);
+
+    private final Logger logger;
+    private final Runnable tick;
+    private final long interval;
+    private final CatchUpPolicy catchUpPolicy;
+    private final int maxCatchUpTicks;
+
+    private volatile boolean running = true;
+    private volatile Thread thread;
+
+    /**
+     * Constructs a new tick loop.
+     *
+     * @param logger The logger
+     * @param tick The tick that should be executed
+     * @param interval The interval between two ticks in nanoseconds
+     * @param catchUpPolicy The catch up policy
+     * @param maxCatchUpTicks The maximum amount of ticks to catch up, only used by {@link CatchUpPolicy#LIMITED}
+     */
+    public TickLoop(Logger logger, Runnable tick, long interval, CatchUpPolicy catchUpPolicy, int maxCatchUpTicks) {
+        checkArgument(interval > 0, "interval must be greater than 0");
+        checkArgument(maxCatchUpTicks >= 0, "maxCatchUpTicks may not be negative");
+        this.logger = checkNotNull(logger, "logger");
+        this.tick = checkNotNull(tick, "tick");
+        this.catchUpPolicy = checkNotNull(catchUpPolicy, "catchUpPolicy");
+        this.maxCatchUpTicks = maxCatchUpTicks;
+        this.interval = interval;
+    }
+
+    /**
+     * Stops this loop, the tick that is currently
+     * being executed will still be completed.
+     */
+    public void stop() {
+        this.running = false;
+        final Thread thread = this.thread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    @Override
+    public void run() {
+        this.thread = Thread.currentThread();
+        long nextTick = System.nanoTime();
+        long lastWarning = nextTick - WARNING_INTERVAL;
+        while (this.running) {
+            final long now = System.nanoTime();
+            final long behind = now - nextTick;
+            if (behind < 0) {
+                LockSupport.parkNanos(this, -behind);
+                continue;
+            }
+            final long missedTicks = behind / this.interval;
+            if (missedTicks > 0) {
+                final long skippedTicks = this.catchUpPolicy.getSkippedTicks(missedTicks, this.maxCatchUpTicks);
+                nextTick += skippedTicks * this.interval;
+                if (behind >= WARNING_THRESHOLD && now - lastWarning >= WARNING_INTERVAL) {
+                    this.logger.warn("Can't keep up! Is the server overloaded? Running {}ms or {} ticks behind, skipping {} ticks",
+                            TimeUnit.NANOSECONDS.toMillis(behind), missedTicks, skippedTicks);
+                    lastWarning = now;
+                }
+            }
+            this.tick.run();
+            nextTick += this.interval;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.tick;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the durations of the server ticks and their {@link TickPhase}s.
+ * <p>
+ * The values are recorded in windows, every time a window is completed
+ * it replaces the previous one. All the statistics cover the previous
+ * and the current window, so they always represent at least the last
+ * {@link #WINDOW_DURATION} nanoseconds of the server.
+ */
+public final class TickTimings {
+
+    /**
+     * The duration of a single window in nanoseconds.
+     */
+    public static final long WINDOW_DURATION = TimeUnit.SECONDS.toNanos(60);
+
+    private final double ticksPerSecond;
+
+    private volatile Window current;
+    private volatile Window previous;
+
+    /**
+     * Constructs new tick timings.
+     *
+     * @param ticksPerSecond The target amount of ticks per second
+     */
+    public TickTimings(double ticksPerSecond) {
+        this.ticksPerSecond = ticksPerSecond;
+        this.current = new Window(System.nanoTime());
+        this.previous = this.current;
+    }
+
+    private static final class Window {
+
+        private final long start;
+        private final TickHistogram ticks = new TickHistogram();
+        private final Map<TickPhase, TickHistogram> phases = new EnumMap<>(TickPhase.class);
+
+        private Window(long start) {
+            this.start = start;
+            for (TickPhase phase : TickPhase.values()) {
+                this.phases.put(phase, new TickHistogram());
+            }
+        }
+    }
+
+    /**
+     * Records the duration of the given {@link TickPhase}.
+     *
+     * @param phase The phase
+     * @param nanos The duration in nanoseconds
+     */
+    public void record(TickPhase phase, long nanos) {
+        this.current.phases.get(phase).record(nanos);
+    }
+
+    /**
+     * Records the duration of a complete tick, starting a
+     * new window if the current one is completed.
+     *
+     * @param start The start time of the tick in nanoseconds
+     * @param end The end time of the tick in nanoseconds
+     */
+    public void recordTick(long start, long end) {
+        final Window current = this.current;
+        current.ticks.record(end - start);
+        if (end - current.start >= WINDOW_DURATION) {
+            this.previous = current;
+            this.current = new Window(end);
+        }
+    }
+
+    /**
+     * Gets the histogram of the durations of the complete ticks.
+     *
+     * @return The histogram
+     */
+    public TickHistogram getTickHistogram() {
+        final Window previous = this.previous;
+        final Window current = this.current;
+        final TickHistogram histogram = new TickHistogram();
+        if (previous != current) {
+            histogram.add(previous.ticks);
+        }
+        histogram.add(current.ticks);
+        return histogram;
+    }
+
+    /**
+     * Gets the histogram of the durations of the given {@link TickPhase}.
+     *
+     * @param phase The phase
+     * @return The histogram
+     */
+    public TickHistogram getHistogram(TickPhase phase) {
+        final Window previous = this.previous;
+        final Window current = this.current;
+        final TickHistogram histogram = new TickHistogram();
+        if (previous != current) {
+            histogram.add(previous.phases.get(phase));
+        }
+        histogram.add(current.phases.get(phase));
+        return histogram;
+    }
+
+    /**
+     * Gets the amount of ticks that were executed per second, this
+     * value will never exceed the target ticks per second.
+     *
+     * @return The ticks per second
+     */
+    public double getTicksPerSecond() {
+        final Window previous = this.previous;
+        final Window current = this.current;
+        long ticks = current.ticks.getCount();
+        if (previous != current) {
+            ticks += previous.ticks.getCount();
+        }
+        final long duration = System.nanoTime() - previous.start;
+        if (ticks == 0 || duration <= 0) {
+            return this.ticksPerSecond;
+        }
+        return Math.min(this.ticksPerSecond, ticks / (duration / 1e9));
+    }
+
+    /**
+     * Gets the time that is covered by the statistics in nanoseconds.
+     *
+     * @return The covered time
+     */
+    public long getDuration() {
+        return System.nanoTime() - this.previous.start;
+    }
+}
@@ -25,6 +25,7 @@
  */
 package org.lanternpowered.server.util;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static org.lanternpowered.server.util.Conditions.checkArrayRange;
 
 import org.spongepowered.api.util.annotation.NonnullByDefault;
@@ -93,6 +94,20 @@ public NibbleArray(int length, byte[] initialContent, boolean packed) {
         }
     }
 
+    /**
+     * Creates a new {@link NibbleArray} that is backed by the given packed
+     * content array, the content will not be copied.
+     *
+     * @param length the length of the array
+     * @param packedContent the packed content
+     * @return the nibble array
+     */
+    public static NibbleArray wrap(int length, byte[] packedContent) {
+        checkArgument(packedContent.length == (length + 1) / 2, "Packed content length mismatch: Got "
+                + packedContent.length + ", but expected " + (length + 1) / 2);
+        return new NibbleArray(packedContent, length);
+    }
+
     private NibbleArray(byte[] content, int length) {
         this.backingArraySize = content.length;
         this.backingArray = content;
@@ -0,0 +1,446 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.util.concurrent;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import org.lanternpowered.server.util.functions.Long2ObjectFunction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+import javax.annotation.Nullable;
+
+/**
+ * A concurrent map with primitive {@code long} keys, this avoids the boxing of
+ * the keys and the allocation of entry nodes that a {@link java.util.concurrent.ConcurrentHashMap}
+ * would require. The map is split into segments which are each guarded by their
+ * own {@link StampedLock}, the segment is selected by the high bits of the mixed
+ * key so that the low bits are still distributed within the segment.
+ * <p>
+ * Functions that are passed to this map are never called while a segment is
+ * locked, so they may modify this map. Functions that compute values may be
+ * called more than once when the entry is modified concurrently, only the
+ * value that ends up in the map is returned.
+ *
+ * @param <V> The value type
+ */
+public final class ConcurrentLong2ObjectMap<V> {
+
+    /**
+     * A function that computes a new value for a key.
+     *
+     * @param <V> The value type
+     */
+    @FunctionalInterface
+    public interface Remapper<V> {
+
+        /**
+         * Computes the new value.
+         *
+         * @param key The key
+         * @param value The current value, or null if not present
+         * @return The new value, or null to remove the entry
+         */
+        @Nullable
+        V apply(long key, @Nullable V value);
+    }
+
+    /**
+     * A consumer of the entries of the map.
+     *
+     * @param <V> The value type
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+
+        /**
+         * Accepts the entry.
+         *
+         * @param key The key
+         * @param value The value
+         */
+        void accept(long key, V value);
+    }
+
+    private static final int DEFAULT_SEGMENT_BITS = 4;
+
+    private final StampedLock[] locks;
+    private final Long2ObjectOpenHashMap<V>[] segments;
+    private final int segmentShift;
+
+    /**
+     * Constructs a new {@link ConcurrentLong2ObjectMap}
+     * with the default amount of segments.
+     */
+    public ConcurrentLong2ObjectMap() {
+        this(DEFAULT_SEGMENT_BITS);
+    }
+
+    /**
+     * Constructs a new {@link ConcurrentLong2ObjectMap}
+     * with {@code 1 << segmentBits} segments.
+     *
+     * @param segmentBits The amount of segment bits
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentLong2ObjectMap(int segmentBits) {
+        checkArgument(segmentBits > 0 && segmentBits <= 16, "segmentBits must be between 1 and 16");
+        final int segments = 1 << segmentBits;
+        this.segmentShift = Long.SIZE - segmentBits;
+        this.locks = new StampedLock[segments];
+        this.segments = new Long2ObjectOpenHashMap[segments];
+        for (int i = 0; i < segments; i++) {
+            this.locks[i] = new StampedLock();
+            this.segments[i] = new Long2ObjectOpenHashMap<>();
+        }
+    }
+
+    private int segment(long key) {
+        return (int) (HashCommon.mix(key) >>> this.segmentShift);
+    }
+
+    /**
+     * Gets the value for the given key.
+     *
+     * @param key The key
+     * @return The value, or null if not present
+     */
+    @Nullable
+    public V get(long key) {
+        final int index = segment(key);
+        final StampedLock lock = this.locks[index];
+        final long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                final V value = this.segments[index].get(key);
+                if (lock.validate(stamp)) {
+                    return value;
+                }
+            } catch (RuntimeException ignored) {
+                // The segment was modified while it was being read,
+                // this may result in an inconsistent view of its arrays
+            }
+        }
+        return getLocked(lock, this.segments[index], key);
+    }
+
+    @Nullable
+    private static <V> V getLocked(StampedLock lock, Long2ObjectMap<V> segment, long key) {
+        final long stamp = lock.readLock();
+        try {
+            return segment.get(key);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Gets whether the given key is present.
+     *
+     * @param key The key
+     * @return Whether the key is present
+     */
+    public boolean containsKey(long key) {
+        final int index = segment(key);
+        final StampedLock lock = this.locks[index];
+        final long stamp = lock.readLock();
+        try {
+            return this.segments[index].containsKey(key);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Puts the value for the given key.
+     *
+     * @param key The key
+     * @param value The value
+     * @return The previous value, or null if not present
+     */
+    @Nullable
+    public V put(long key, V value) {
+        checkNotNull(value, "value");
+        final int index = segment(key);
+        final StampedLock lock = this.locks[index];
+        final long stamp = lock.writeLock();
+        try {
+            return this.segments[index].put(key, value);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes the value for the given key.
+     *
+     * @param key The key
+     * @return The removed value, or null if not present
+     */
+    @Nullable
+    public V remove(long key) {
+        final int index = segment(key);
+        final StampedLock lock = this.locks[index];
+        final long stamp = lock.writeLock();
+        try {
+            return this.segments[index].remove(key);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes the entry for the given key only if it's
+     * currently mapped to the given value.
+     *
+     * @param key The key
+     * @param value The expected value
+     * @return Whether the entry was removed
+     */
+    public boolean remove(long key, Object value) {
+        final int index = segment(key);
+        final StampedLock lock = this.locks[index];
+        final long stamp = lock.writeLock();
+        try {
+            final Long2ObjectMap<V> segment = this.segments[index];
+            if (value.equals(segment.get(key))) {
+                segment.remove(key);
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Puts the value for the given key if the key isn't present.
+     *
+     * @param key The key
+     * @param value The value
+     * @return The current value, or null if the given value was put
+     */
+    @Nullable
+    public V putIfAbsent(long key, V value) {
+        checkNotNull(value, "value");
+        final int index = segment(key);
+        final StampedLock lock = this.locks[index];
+        final long stamp = lock.writeLock();
+        try {
+            final Long2ObjectMap<V> segment = this.segments[index];
+            final V oldValue = segment.get(key);
+            if (oldValue == null) {
+                segment.put(key, value);
+            }
+            return oldValue;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Gets the value for the given key, a new value will be computed
+     * and put into the map if the key isn't present. The value is computed
+     * without holding the lock, if another value was put in the meantime
+     * then that value will be returned instead.
+     *
+     * @param key The key
+     * @param function The function to compute the value
+     * @return The current or computed value
+     */
+    public V computeIfAbsent(long key, Long2ObjectFunction<? extends V> function) {
+        final V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        final V newValue = checkNotNull(function.apply(key), "value");
+        final V oldValue = putIfAbsent(key, newValue);
+        return oldValue == null ? newValue : oldValue;
+    }
+
+    /**
+     * Computes a new value for the given key. The remapper is called without
+     * holding the lock, if the entry was modified in the meantime then the
+     * new value will be computed again.
+     *
+     * @param key The key
+     * @param remapper The remapper
+     * @return The new value, or null if the entry was removed
+     */
+    @Nullable
+    public V compute(long key, Remapper<V> remapper) {
+        final int index = segment(key);
+        final StampedLock lock = this.locks[index];
+        final Long2ObjectMap<V> segment = this.segments[index];
+        while (true) {
+            final V oldValue = get(key);
+            final V value = remapper.apply(key, oldValue);
+            final long stamp = lock.writeLock();
+            try {
+                // Only apply the value if the entry wasn't modified
+                if (segment.get(key) == oldValue) {
+                    if (value == null) {
+                        segment.remove(key);
+                    } else {
+                        segment.put(key, value);
+                    }
+                    return value;
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Gets the amount of entries in this map.
+     *
+     * @return The size
+     */
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < this.segments.length; i++) {
+            final StampedLock lock = this.locks[i];
+            final long stamp = lock.readLock();
+            try {
+                size += this.segments[i].size();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Gets whether this map is empty.
+     *
+     * @return Is empty
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Removes all the entries from this map.
+     */
+    public void clear() {
+        for (int i = 0; i < this.segments.length; i++) {
+            final StampedLock lock = this.locks[i];
+            final long stamp = lock.writeLock();
+            try {
+                this.segments[i].clear();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Creates a snapshot of all the values in this map, the
+     * returned list can be modified without affecting this map.
+     *
+     * @return The values
+     */
+    public List<V> values() {
+        final List<V> values = new ArrayList<>();
+        for (int i = 0; i < this.segments.length; i++) {
+            final StampedLock lock = this.locks[i];
+            final long stamp = lock.readLock();
+            try {
+                values.addAll(this.segments[i].values());
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Performs the given action for each value in this map, the consumer
+     * is called for a snapshot of each segment after it's unlocked.
+     *
+     * @param consumer The consumer
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> consumer) {
+        checkNotNull(consumer, "consumer");
+        for (int i = 0; i < this.segments.length; i++) {
+            final Object[] values;
+            final StampedLock lock = this.locks[i];
+            final long stamp = lock.readLock();
+            try {
+                values = this.segments[i].values().toArray();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+            for (Object value : values) {
+                consumer.accept((V) value);
+            }
+        }
+    }
+
+    /**
+     * Performs the given action for each entry in this map, the consumer
+     * is called for a snapshot of each segment after it's unlocked.
+     *
+     * @param consumer The consumer
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> consumer) {
+        checkNotNull(consumer, "consumer");
+        for (int i = 0; i < this.segments.length; i++) {
+            final long[] keys;
+            final Object[] values;
+            final StampedLock lock = this.locks[i];
+            final long stamp = lock.readLock();
+            try {
+                final Long2ObjectOpenHashMap<V> segment = this.segments[i];
+                keys = new long[segment.size()];
+                values = new Object[keys.length];
+                int j = 0;
+                final ObjectIterator<Long2ObjectMap.Entry<V>> it = segment.long2ObjectEntrySet().fastIterator();
+                while (it.hasNext()) {
+                    final Long2ObjectMap.Entry<V> entry = it.next();
+                    keys[j] = entry.getLongKey();
+                    values[j++] = entry.getValue();
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+            for (int j = 0; j < keys.length; j++) {
+                consumer.accept(keys[j], (V) values[j]);
+            }
+        }
+    }
+}
@@ -62,6 +62,7 @@
 import org.lanternpowered.server.network.entity.EntityProtocolManager;
 import org.lanternpowered.server.network.entity.EntityProtocolType;
 import org.lanternpowered.server.network.message.Message;
+import org.lanternpowered.server.network.message.PreEncodedMessage;
 import org.lanternpowered.server.network.vanilla.message.type.play.MessagePlayOutParticleEffect;
 import org.lanternpowered.server.text.chat.LanternChatType;
 import org.lanternpowered.server.text.title.LanternTitles;
@@ -76,6 +77,7 @@
 import org.lanternpowered.server.world.extent.worker.LanternMutableBiomeVolumeWorker;
 import org.lanternpowered.server.world.extent.worker.LanternMutableBlockVolumeWorker;
 import org.lanternpowered.server.world.gen.IGeneratorType;
+import org.lanternpowered.server.world.light.LanternLightEngine;
 import org.lanternpowered.server.world.pregen.LanternChunkPreGenerateTask;
 import org.lanternpowered.server.world.rules.Rule;
 import org.lanternpowered.server.world.rules.RuleHolder;
@@ -148,9 +150,11 @@
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -198,12 +202,39 @@ public class LanternWorld implements AbstractExtent, org.lanternpowered.api.worl
      */
     private final Map<UUID, LanternEntity> entitiesByUniqueId = new ConcurrentHashMap<>();
 
+    /**
+     * The entities that are being ticked, the index of an entity in this list is
+     * stored in the entity. This list may only be modified by the world thread,
+     * other threads queue the entities of which the state changed.
+     */
+    private final List<LanternEntity> tickedEntities = new ArrayList<>();
+    private final Queue<LanternEntity> tickedEntityChanges = new ConcurrentLinkedQueue<>();
+
+    // Reused between the ticks
+    private final List<LanternEntity> removedEntities = new ArrayList<>();
+    private final List<LanternEntity> movedEntities = new ArrayList<>();
+
+    // The duration of the last tick in nanoseconds
+    private volatile long tickDuration;
+    private volatile boolean hibernating;
+
+    /**
+     * The scheduler that ticks the regions of this world in
+     * parallel, {@code null} if region ticking is disabled.
+     */
+    @Nullable private final RegionTickScheduler regionTickScheduler;
+
     /**
      * The chunk manager that will allows observers to track
      * changes in chunks.
      */
     private final ObservedChunkManager observedChunkManager = new ObservedChunkManager(this);
 
+    /**
+     * The light engine of this world.
+     */
+    private final LanternLightEngine lightEngine = new LanternLightEngine(this);
+
     /**
      * The {@link Scoreboard} that is attached to this {@link World}.
      */
@@ -246,6 +277,8 @@ public LanternWorld(LanternGame game, WorldConfig worldConfig, Path directory,
         this.logger = LoggerFactory.getLogger("world/" + properties.getWorldName());
         this.directory = directory;
         this.worldConfig = worldConfig;
+        this.regionTickScheduler = worldConfig.isRegionTickingEnabled() ?
+                new RegionTickScheduler(worldConfig.getRegionTickingSize()) : null;
         this.scoreboard = scoreboard;
         this.properties = properties;
         this.game = game;
@@ -273,6 +306,7 @@ public LanternWorld(LanternGame game, WorldConfig worldConfig, Path directory,
                 chunkIOService, worldGenerator, directory);
         this.worldContext = new Context(Context.WORLD_KEY, getName());
         this.worldEventListener.add(this.observedChunkManager);
+        this.worldEventListener.add(this.lightEngine);
         getWorldBorder().updateCurrentTime();
     }
 
@@ -285,6 +319,10 @@ public ObservedChunkManager getObservedChunkManager() {
         return this.observedChunkManager;
     }
 
+    public LanternLightEngine getLightEngine() {
+        return this.lightEngine;
+    }
+
     public void initialize() {
         // Initialize the world if needed
         if (this.properties.isInitialized()) {
@@ -379,6 +417,7 @@ public void addPlayer(LanternPlayer player) {
     public void removePlayer(LanternPlayer player) {
         this.players.remove(player);
         this.entitiesByUniqueId.remove(player.getUniqueId());
+        this.tickedEntityChanges.add(player);
         final Vector3i lastChunkSection = player.getLastChunkSectionCoords();
         LanternChunk chunk;
         if (lastChunkSection != null && (chunk = this.chunkManager.getChunkIfLoaded(
@@ -559,22 +598,22 @@ public Set<EntityHit> getIntersectingEntities(Vector3d start, Vector3d direction
 
     @Override
     public Optional<UUID> getCreator(int x, int y, int z) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).getCreator(x, y, z);
+        return getChunkWithinReach(x >> 4, z >> 4).getCreator(x, y, z);
     }
 
     @Override
     public Optional<UUID> getNotifier(int x, int y, int z) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).getNotifier(x, y, z);
+        return getChunkWithinReach(x >> 4, z >> 4).getNotifier(x, y, z);
     }
 
     @Override
     public void setCreator(int x, int y, int z, @Nullable UUID uuid) {
-        this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).setCreator(x, y, z, uuid);
+        runInteraction(x >> 4, z >> 4, () -> this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).setCreator(x, y, z, uuid));
     }
 
     @Override
     public void setNotifier(int x, int y, int z, @Nullable UUID uuid) {
-        this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).setNotifier(x, y, z, uuid);
+        runInteraction(x >> 4, z >> 4, () -> this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).setNotifier(x, y, z, uuid));
     }
 
     @Override
@@ -658,7 +697,7 @@ public Collection<TileEntity> getTileEntities(Predicate<TileEntity> filter) {
 
     @Override
     public Optional<TileEntity> getTileEntity(int x, int y, int z) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).getTileEntity(x, y, z);
+        return getChunkWithinReach(x >> 4, z >> 4).getTileEntity(x, y, z);
     }
 
     @Override
@@ -668,7 +707,7 @@ public boolean containsBlock(int x, int y, int z) {
 
     @Override
     public BlockState getBlock(int x, int y, int z) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).getBlock(x, y, z);
+        return getChunkWithinReach(x >> 4, z >> 4).getBlock(x, y, z);
     }
 
     @Override
@@ -678,7 +717,7 @@ public BlockType getBlockType(int x, int y, int z) {
 
     @Override
     public void setBiome(int x, int y, int z, BiomeType biome) {
-        this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).setBiome(x, y, z, biome);
+        runInteraction(x >> 4, z >> 4, () -> this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).setBiome(x, y, z, biome));
     }
 
     @Override
@@ -718,181 +757,181 @@ public boolean containsBiome(int x, int y, int z) {
 
     @Override
     public BiomeType getBiome(int x, int y, int z) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).getBiome(x, y, z);
+        return getChunkWithinReach(x >> 4, z >> 4).getBiome(x, y, z);
     }
 
     @Override
     public boolean setBlock(int x, int y, int z, BlockState blockState, Cause cause) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).setBlock(x, y, z, blockState, cause);
+        return getChunkWithinReach(x >> 4, z >> 4).setBlock(x, y, z, blockState, cause);
     }
 
     @Override
     public boolean setBlock(int x, int y, int z, BlockState blockState, BlockChangeFlag flag, Cause cause) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).setBlock(x, y, z, blockState, flag, cause);
+        return getChunkWithinReach(x >> 4, z >> 4).setBlock(x, y, z, blockState, flag, cause);
     }
 
     @Override
     public BlockSnapshot createSnapshot(int x, int y, int z) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).createSnapshot(x, y, z);
+        return getChunkWithinReach(x >> 4, z >> 4).createSnapshot(x, y, z);
     }
 
     @Override
     public boolean restoreSnapshot(int x, int y, int z, BlockSnapshot snapshot, boolean force,
             BlockChangeFlag flag, Cause cause) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4)
+        return getChunkWithinReach(x >> 4, z >> 4)
                 .restoreSnapshot(x, y, z, snapshot, force, flag, cause);
     }
 
     @Override
     public boolean restoreSnapshot(BlockSnapshot snapshot, boolean force, BlockChangeFlag flag, Cause cause) {
         final Vector3i pos = checkNotNull(snapshot, "snapshot").getPosition();
-        return this.chunkManager.getOrLoadChunk(pos.getX() >> 4, pos.getZ() >> 4)
+        return getChunkWithinReach(pos.getX() >> 4, pos.getZ() >> 4)
                 .restoreSnapshot(pos.getX(), pos.getY(), pos.getZ(), snapshot, force, flag, cause);
     }
 
     @Override
     public <T extends Property<?, ?>> Optional<T> getProperty(int x, int y, int z, Direction direction, Class<T> propertyClass) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).getProperty(new Vector3i(x, y, z), direction, propertyClass);
+        return getChunkWithinReach(x >> 4, z >> 4).getProperty(new Vector3i(x, y, z), direction, propertyClass);
     }
 
     @Override
     public Collection<Direction> getFacesWithProperty(int x, int y, int z, Class<? extends Property<?, ?>> propertyClass) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).getFacesWithProperty(x, y, z, propertyClass);
+        return getChunkWithinReach(x >> 4, z >> 4).getFacesWithProperty(x, y, z, propertyClass);
     }
 
     @Override
     public <T extends Property<?, ?>> Optional<T> getProperty(int x, int y, int z, Class<T> propertyClass) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).getProperty(x, y, z, propertyClass);
+        return getChunkWithinReach(x >> 4, z >> 4).getProperty(x, y, z, propertyClass);
     }
 
     @Override
     public Collection<Property<?, ?>> getProperties(int x, int y, int z) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).getProperties(x, y, z);
+        return getChunkWithinReach(x >> 4, z >> 4).getProperties(x, y, z);
     }
 
     @Override
     public <E> Optional<E> get(int x, int y, int z, Key<? extends BaseValue<E>> key) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).get(x, y, z, key);
+        return getChunkWithinReach(x >> 4, z >> 4).get(x, y, z, key);
     }
 
     @Override
     public <T extends DataManipulator<?, ?>> Optional<T> get(int x, int y, int z, Class<T> manipulatorClass) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).get(x, y, z, manipulatorClass);
+        return getChunkWithinReach(x >> 4, z >> 4).get(x, y, z, manipulatorClass);
     }
 
     @Override
     public <T extends DataManipulator<?, ?>> Optional<T> getOrCreate(int x, int y, int z, Class<T> manipulatorClass) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).getOrCreate(x, y, z, manipulatorClass);
+        return getChunkWithinReach(x >> 4, z >> 4).getOrCreate(x, y, z, manipulatorClass);
     }
 
     @Override
     public <E> E getOrNull(int x, int y, int z, Key<? extends BaseValue<E>> key) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).getOrNull(x, y, z, key);
+        return getChunkWithinReach(x >> 4, z >> 4).getOrNull(x, y, z, key);
     }
 
     @Override
     public <E> E getOrElse(int x, int y, int z, Key<? extends BaseValue<E>> key, E defaultValue) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).getOrElse(x, y, z, key, defaultValue);
+        return getChunkWithinReach(x >> 4, z >> 4).getOrElse(x, y, z, key, defaultValue);
     }
 
     @Override
     public <E, V extends BaseValue<E>> Optional<V> getValue(int x, int y, int z, Key<V> key) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).getValue(x, y, z, key);
+        return getChunkWithinReach(x >> 4, z >> 4).getValue(x, y, z, key);
     }
 
     @Override
     public boolean supports(int x, int y, int z, Key<?> key) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).supports(x, y, z, key);
+        return getChunkWithinReach(x >> 4, z >> 4).supports(x, y, z, key);
     }
 
     @Override
     public boolean supports(int x, int y, int z, BaseValue<?> value) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).supports(x, y, z, value);
+        return getChunkWithinReach(x >> 4, z >> 4).supports(x, y, z, value);
     }
 
     @Override
     public boolean supports(int x, int y, int z, Class<? extends DataManipulator<?, ?>> manipulatorClass) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).supports(x, y, z, manipulatorClass);
+        return getChunkWithinReach(x >> 4, z >> 4).supports(x, y, z, manipulatorClass);
     }
 
     @Override
     public boolean supports(int x, int y, int z, DataManipulator<?, ?> manipulator) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).supports(x, y, z, manipulator);
+        return getChunkWithinReach(x >> 4, z >> 4).supports(x, y, z, manipulator);
     }
 
     @Override
     public ImmutableSet<Key<?>> getKeys(int x, int y, int z) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).getKeys(x, y, z);
+        return getChunkWithinReach(x >> 4, z >> 4).getKeys(x, y, z);
     }
 
     @Override
     public ImmutableSet<ImmutableValue<?>> getValues(int x, int y, int z) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).getValues(x, y, z);
+        return getChunkWithinReach(x >> 4, z >> 4).getValues(x, y, z);
     }
 
     @Override
     public <E> DataTransactionResult transform(int x, int y, int z, Key<? extends BaseValue<E>> key, Function<E, E> function) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).transform(x, y, z, key, function);
+        return getChunkWithinReach(x >> 4, z >> 4).transform(x, y, z, key, function);
     }
 
     @Override
     public <E> DataTransactionResult offer(int x, int y, int z, Key<? extends BaseValue<E>> key, E value) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).offer(x, y, z, key, value);
+        return getChunkWithinReach(x >> 4, z >> 4).offer(x, y, z, key, value);
     }
 
     @Override
     public <E> DataTransactionResult offer(int x, int y, int z, Key<? extends BaseValue<E>> key, E value, Cause cause) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).offer(x, y, z, key, value, cause);
+        return getChunkWithinReach(x >> 4, z >> 4).offer(x, y, z, key, value, cause);
     }
 
     @Override
     public <E> DataTransactionResult offer(int x, int y, int z, BaseValue<E> value) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).offer(x, y, z, value);
+        return getChunkWithinReach(x >> 4, z >> 4).offer(x, y, z, value);
     }
 
     @Override
     public DataTransactionResult offer(int x, int y, int z, DataManipulator<?, ?> manipulator) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).offer(x, y, z, manipulator);
+        return getChunkWithinReach(x >> 4, z >> 4).offer(x, y, z, manipulator);
     }
 
     @Override
     public DataTransactionResult offer(int x, int y, int z, DataManipulator<?, ?> manipulator, MergeFunction function) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).offer(x, y, z, manipulator, function);
+        return getChunkWithinReach(x >> 4, z >> 4).offer(x, y, z, manipulator, function);
     }
 
     @Override
     public DataTransactionResult offer(int x, int y, int z, DataManipulator<?, ?> manipulator, MergeFunction function, Cause cause) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).offer(x, y, z, manipulator, function, cause);
+        return getChunkWithinReach(x >> 4, z >> 4).offer(x, y, z, manipulator, function, cause);
     }
 
     @Override
     public DataTransactionResult offer(int x, int y, int z, Iterable<DataManipulator<?, ?>> manipulators) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).offer(x, y, z, manipulators);
+        return getChunkWithinReach(x >> 4, z >> 4).offer(x, y, z, manipulators);
     }
 
     @Override
     public DataTransactionResult offer(Vector3i coords, Iterable<DataManipulator<?, ?>> values, MergeFunction function) {
-        return this.chunkManager.getOrLoadChunk(coords.getX() >> 4, coords.getZ() >> 4).offer(coords, values, function);
+        return getChunkWithinReach(coords.getX() >> 4, coords.getZ() >> 4).offer(coords, values, function);
     }
 
     @Override
     public DataTransactionResult remove(int x, int y, int z, Class<? extends DataManipulator<?, ?>> manipulatorClass) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).remove(x, y, z, manipulatorClass);
+        return getChunkWithinReach(x >> 4, z >> 4).remove(x, y, z, manipulatorClass);
     }
 
     @Override
     public DataTransactionResult remove(int x, int y, int z, Key<?> key) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).remove(x, y, z, key);
+        return getChunkWithinReach(x >> 4, z >> 4).remove(x, y, z, key);
     }
 
     @Override
     public DataTransactionResult undo(int x, int y, int z, DataTransactionResult result) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).undo(x, y, z, result);
+        return getChunkWithinReach(x >> 4, z >> 4).undo(x, y, z, result);
     }
 
     @Override
     public DataTransactionResult copyFrom(int x, int y, int z, DataHolder from) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).copyFrom(x, y, z, from);
+        return getChunkWithinReach(x >> 4, z >> 4).copyFrom(x, y, z, from);
     }
 
     @Override
@@ -903,7 +942,7 @@ public DataTransactionResult copyFrom(int xTo, int yTo, int zTo, int xFrom, int
 
     @Override
     public DataTransactionResult copyFrom(int x, int y, int z, DataHolder from, MergeFunction function) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).copyFrom(x, y, z, from, function);
+        return getChunkWithinReach(x >> 4, z >> 4).copyFrom(x, y, z, from, function);
     }
 
     @Override
@@ -914,17 +953,17 @@ public DataTransactionResult copyFrom(int xTo, int yTo, int zTo, int xFrom, int
 
     @Override
     public Collection<DataManipulator<?, ?>> getManipulators(int x, int y, int z) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).getManipulators(x, y, z);
+        return getChunkWithinReach(x >> 4, z >> 4).getManipulators(x, y, z);
     }
 
     @Override
     public boolean validateRawData(int x, int y, int z, DataView container) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).validateRawData(x, y, z, container);
+        return getChunkWithinReach(x >> 4, z >> 4).validateRawData(x, y, z, container);
     }
 
     @Override
     public void setRawData(int x, int y, int z, DataView container) throws InvalidDataException {
-        this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).setRawData(x, y, z, container);
+        runInteraction(x >> 4, z >> 4, () -> this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).setRawData(x, y, z, container));
     }
 
     @Override
@@ -976,16 +1015,16 @@ public void setWeather(Weather weather, long duration) {
     public void spawnParticles(ParticleEffect particleEffect, Vector3d position) {
         checkNotNull(particleEffect, "particleEffect");
         checkNotNull(position, "position");
-        this.spawnParticles(this.players.iterator(), particleEffect, position);
+        runWorldInteraction(() -> this.spawnParticles(this.players.iterator(), particleEffect, position));
     }
 
     @Override
     public void spawnParticles(ParticleEffect particleEffect, Vector3d position, int radius) {
         checkNotNull(particleEffect, "particleEffect");
         checkNotNull(position, "position");
-        this.spawnParticles(this.players.stream().filter(
+        runWorldInteraction(() -> this.spawnParticles(this.players.stream().filter(
                 player -> player.getLocation().getPosition().distanceSquared(position) < radius * radius).iterator(),
-                particleEffect, position);
+                particleEffect, position));
     }
 
     @Override
@@ -1026,6 +1065,10 @@ public void setMessageChannel(MessageChannel channel) {
     public void sendMessage(ChatType type, Text message) {
         checkNotNull(type, "chatType");
         checkNotNull(message, "message");
+        runWorldInteraction(() -> sendMessage0(type, message));
+    }
+
+    private void sendMessage0(ChatType type, Text message) {
         if (!this.players.isEmpty()) {
             final Map<Locale, Message> networkMessages = new HashMap<>();
             for (LanternPlayer player : this.players) {
@@ -1077,7 +1120,7 @@ public Location<World> getLocation(double x, double y, double z) {
 
     @Override
     public int getHighestYAt(int x, int z) {
-        return this.chunkManager.getOrLoadChunk(x >> 4, z >> 4).getHighestYAt(x, z);
+        return getChunkWithinReach(x >> 4, z >> 4).getHighestYAt(x, z);
     }
 
     @Override
@@ -1106,6 +1149,7 @@ public Optional<Chunk> loadChunk(int x, int y, int z, boolean generate) {
             return Optional.empty();
         }
         if (generate) {
+            checkWithinReach(x, z);
             return Optional.of(this.chunkManager.getOrCreateChunk(new Vector2i(x, z),
                     () -> Cause.source(this.game.getMinecraftPlugin()).owner(this).build(), true));
         } else {
@@ -1145,8 +1189,11 @@ public boolean spawnEntity(Entity entity, Cause cause) {
         final LanternEntity entity2 = (LanternEntity) entity;
         final Vector3i position = entity2.getPosition().toInt();
         final Vector3i chunkPos = new Vector3i(position.getX() >> 4, fixEntityYSection(position.getY() >> 4), position.getZ() >> 4);
-        final LanternChunk chunk = (LanternChunk) loadChunk(chunkPos.getX(), 0, chunkPos.getZ(), true).get();
-        chunk.addEntity(entity2, chunkPos.getY());
+        // The chunk may be out of reach of the region that is being ticked
+        runInteraction(chunkPos.getX(), chunkPos.getZ(), () -> {
+            final LanternChunk chunk = (LanternChunk) loadChunk(chunkPos.getX(), 0, chunkPos.getZ(), true).get();
+            chunk.addEntity(entity2, chunkPos.getY());
+        });
         return true;
     }
 
@@ -1168,39 +1215,152 @@ private LanternEntity addEntity(LanternEntity entity) {
             this.entityProtocolManager.add(entity, entityProtocolType);
         }
         entity.setPositionAndWorld(this, entity.getPosition());
+        this.tickedEntityChanges.add(entity);
         return null;
     }
 
     private void pulseEntities() {
-        // Pulse the entities
-        for (LanternEntity entity : new ArrayList<>(this.entitiesByUniqueId.values())) {
+        applyTickedEntityChanges();
+
+        // Pulse the entities, entities that are added
+        // during this tick will be pulsed the next one
+        final int size = this.tickedEntities.size();
+        if (this.regionTickScheduler != null) {
+            this.regionTickScheduler.tick(this.tickedEntities,
+                    entity -> entity.getPosition().getFloorX() >> 4,
+                    entity -> entity.getPosition().getFloorZ() >> 4, entity -> {
+                        if (!entity.isRemoved()) {
+                            entity.pulse();
+                        }
+                    });
+        } else {
+            for (int i = 0; i < size; i++) {
+                final LanternEntity entity = this.tickedEntities.get(i);
+                if (!entity.isRemoved()) {
+                    entity.pulse();
+                }
+            }
+        }
+
+        // Collect the removed entities and the entities that changed their chunk section,
+        // this is done after the entities were pulsed so that it happens serially
+        for (int i = 0; i < size; i++) {
+            final LanternEntity entity = this.tickedEntities.get(i);
             if (entity.isRemoved()) {
-                final Vector3i lastChunk = entity.getLastChunkSectionCoords();
-                if (lastChunk != null && entity.getRemoveState() == LanternEntity.RemoveState.DESTROYED) {
-                    final LanternChunk chunk = this.chunkManager.getChunkIfLoaded(lastChunk.getX(), lastChunk.getZ());
+                if (entity.hasLastChunkSection() && entity.getRemoveState() == LanternEntity.RemoveState.DESTROYED) {
+                    final LanternChunk chunk = this.chunkManager.getChunkIfLoaded(
+                            entity.getLastChunkSectionX(), entity.getLastChunkSectionZ());
                     if (chunk != null) {
-                        chunk.removeEntity(entity, lastChunk.getY());
+                        chunk.removeEntity(entity, entity.getLastChunkSectionY());
                     }
                 }
                 this.entityProtocolManager.remove(entity);
-                this.entitiesByUniqueId.remove(entity.getUniqueId());
+                this.entitiesByUniqueId.remove(entity.getUniqueId(), entity);
+                this.removedEntities.add(entity);
             } else {
-                final Vector3i lastChunkSection = entity.getLastChunkSectionCoords();
-                entity.pulse();
-                final Vector3i pos = entity.getPosition().toInt();
-                final Vector3i newChunk = new Vector3i(pos.getX() >> 4, fixEntityYSection(pos.getY() >> 4), pos.getZ() >> 4);
-                if (lastChunkSection == null || !lastChunkSection.equals(newChunk)) {
-                    LanternChunk chunk;
-                    if (lastChunkSection != null && (chunk = this.chunkManager.getChunkIfLoaded(
-                            lastChunkSection.getX(), lastChunkSection.getZ())) != null) {
-                        chunk.removeEntity(entity, lastChunkSection.getY());
+                // Changes to players are saved separately
+                if (entity.pollChanged() && entity.hasLastChunkSection() && !(entity instanceof Player)) {
+                    final LanternChunk chunk = this.chunkManager.getChunkIfLoaded(
+                            entity.getLastChunkSectionX(), entity.getLastChunkSectionZ());
+                    if (chunk != null) {
+                        chunk.markDirty();
                     }
-                    chunk = this.chunkManager.getOrLoadChunk(newChunk.getX(), newChunk.getZ());
-                    chunk.addEntity(entity, newChunk.getY());
-                    entity.setLastChunkCoords(newChunk);
+                }
+                final Vector3d pos = entity.getPosition();
+                if (!entity.hasLastChunkSection() ||
+                        entity.getLastChunkSectionX() != pos.getFloorX() >> 4 ||
+                        entity.getLastChunkSectionY() != fixEntityYSection(pos.getFloorY() >> 4) ||
+                        entity.getLastChunkSectionZ() != pos.getFloorZ() >> 4) {
+                    this.movedEntities.add(entity);
                 }
             }
         }
+
+        // Remove the entities at the end of the tick, this
+        // keeps the indexes stable while ticking
+        for (LanternEntity entity : this.removedEntities) {
+            final int index = getTickIndex(entity);
+            if (index != -1) {
+                removeTickedEntity(index);
+            }
+        }
+        this.removedEntities.clear();
+
+        // Move the entities to their new chunk sections
+        LanternChunk chunk = null;
+        for (LanternEntity entity : this.movedEntities) {
+            final Vector3d pos = entity.getPosition();
+            final int x = pos.getFloorX() >> 4;
+            final int y = fixEntityYSection(pos.getFloorY() >> 4);
+            final int z = pos.getFloorZ() >> 4;
+            if (entity.hasLastChunkSection()) {
+                final int lastX = entity.getLastChunkSectionX();
+                final int lastZ = entity.getLastChunkSectionZ();
+                if (lastX == x && entity.getLastChunkSectionY() == y && lastZ == z) {
+                    continue;
+                }
+                if (chunk == null || chunk.getX() != lastX || chunk.getZ() != lastZ) {
+                    chunk = this.chunkManager.getChunkIfLoaded(lastX, lastZ);
+                }
+                if (chunk != null) {
+                    chunk.removeEntity(entity, entity.getLastChunkSectionY());
+                }
+            }
+            if (chunk == null || chunk.getX() != x || chunk.getZ() != z) {
+                chunk = this.chunkManager.getOrLoadChunk(x, z);
+            }
+            chunk.addEntity(entity, y);
+            entity.setLastChunkSection(x, y, z);
+        }
+        this.movedEntities.clear();
+    }
+
+    /**
+     * Applies all the queued entity changes to the ticked entities. An entity
+     * will be ticked as long as it's registered in this world.
+     */
+    private void applyTickedEntityChanges() {
+        LanternEntity entity;
+        while ((entity = this.tickedEntityChanges.poll()) != null) {
+            final int index = getTickIndex(entity);
+            if (this.entitiesByUniqueId.get(entity.getUniqueId()) == entity) {
+                if (index == -1) {
+                    entity.setTickIndex(this.tickedEntities.size());
+                    this.tickedEntities.add(entity);
+                }
+            } else if (index != -1) {
+                removeTickedEntity(index);
+            }
+        }
+    }
+
+    private int getTickIndex(LanternEntity entity) {
+        final int index = entity.getTickIndex();
+        if (index == -1) {
+            return -1;
+        }
+        if (index < this.tickedEntities.size() && this.tickedEntities.get(index) == entity) {
+            return index;
+        }
+        // The index belongs to the tick list of another world,
+        // this can only happen if the entity switched worlds
+        return this.tickedEntities.indexOf(entity);
+    }
+
+    private void removeTickedEntity(int index) {
+        final LanternEntity entity = this.tickedEntities.get(index);
+        final int lastIndex = this.tickedEntities.size() - 1;
+        // Swap the last entity into the removed slot
+        final LanternEntity lastEntity = this.tickedEntities.remove(lastIndex);
+        if (index != lastIndex) {
+            this.tickedEntities.set(index, lastEntity);
+            if (lastEntity.getTickIndex() == lastIndex) {
+                lastEntity.setTickIndex(index);
+            }
+        }
+        if (entity.getTickIndex() == index) {
+            entity.setTickIndex(-1);
+        }
     }
 
     @Override
@@ -1281,8 +1441,15 @@ public Location<World> getSpawnLocation() {
 
     @Override
     public void triggerExplosion(Explosion explosion, Cause cause) {
+        checkNotNull(explosion, "explosion");
+        final Vector3i position = explosion.getLocation().getBlockPosition();
+        // Explosions affect the blocks and entities around them, so
+        // they have to be deferred if they are out of reach
+        runInteraction(position.getX() >> 4, position.getZ() >> 4, () -> triggerExplosion0(explosion, cause));
+    }
+
+    private void triggerExplosion0(Explosion explosion, Cause cause) {
         // TODO Auto-generated method stub
-        
     }
 
     @Override
@@ -1301,6 +1468,45 @@ public int getSeaLevel() {
         return IGeneratorType.getSeaLevel(getProperties().getGeneratorType(), getProperties().getGeneratorSettings());
     }
 
+    /**
+     * Gets whether this world can hibernate, a hibernating world isn't ticked. This
+     * is only possible if there are no players and no loaded (or forced) chunks.
+     *
+     * @return Can hibernate
+     */
+    public boolean canHibernate() {
+        return this.worldConfig.hibernateWhenIdle() && this.players.isEmpty() && !this.chunkManager.hasLoadedChunks();
+    }
+
+    /**
+     * Gets whether this world is currently hibernating.
+     *
+     * @return Is hibernating
+     */
+    public boolean isHibernating() {
+        return this.hibernating;
+    }
+
+    void setHibernating(boolean hibernating) {
+        this.hibernating = hibernating;
+        if (hibernating) {
+            this.tickDuration = 0;
+        }
+    }
+
+    /**
+     * Gets the duration of the last tick of this world in nanoseconds.
+     *
+     * @return The tick duration
+     */
+    public long getTickDuration() {
+        return this.tickDuration;
+    }
+
+    void setTickDuration(long tickDuration) {
+        this.tickDuration = tickDuration;
+    }
+
     public void pulse() {
         this.chunkManager.pulse();
         this.timeUniverse.pulse();
@@ -1312,9 +1518,19 @@ public void pulse() {
         pulseEntities();
 
         // Pulse the tile entities
-        getLoadedChunks().forEach(chunk -> ((LanternChunk) chunk).pulse());
+        if (this.regionTickScheduler != null) {
+            this.regionTickScheduler.tick(this.chunkManager.getLoadedChunks(),
+                    chunk -> ((LanternChunk) chunk).getX(), chunk -> ((LanternChunk) chunk).getZ(),
+                    chunk -> ((LanternChunk) chunk).pulse());
+        } else {
+            getLoadedChunks().forEach(chunk -> ((LanternChunk) chunk).pulse());
+        }
+
+        // Process all the light changes of this tick
+        this.lightEngine.pulse();
 
-        // TODO: Maybe async?
+        // Stream the chunk changes, the chunk data messages
+        // will be built by the chunk message executor
         this.observedChunkManager.pulse();
         this.entityProtocolManager.updateTrackers(this.players);
     }
@@ -1324,6 +1540,85 @@ public void broadcast(Supplier<Message> message) {
     }
 
     public void broadcast(Supplier<Message> message, @Nullable Predicate<LanternPlayer> filter) {
+        runWorldInteraction(() -> broadcast0(message, filter));
+    }
+
+    /**
+     * Runs an interaction that affects the given chunk. If the regions of this world
+     * are being ticked in parallel and the chunk is out of reach of the region that
+     * is ticked by the current thread, the interaction will be deferred until all
+     * the regions are ticked.
+     *
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     * @param interaction The interaction
+     */
+    public void runInteraction(int chunkX, int chunkZ, Runnable interaction) {
+        if (this.regionTickScheduler != null) {
+            this.regionTickScheduler.defer(chunkX, chunkZ, interaction);
+        } else {
+            interaction.run();
+        }
+    }
+
+    /**
+     * Runs an interaction that moves something from the given chunk to an other
+     * chunk. If the regions of this world are being ticked in parallel and one
+     * of the chunks is out of reach of the region that is ticked by the current
+     * thread, the interaction will be deferred until all the regions are ticked.
+     *
+     * @param fromChunkX The chunk x coordinate of the origin
+     * @param fromChunkZ The chunk z coordinate of the origin
+     * @param toChunkX The chunk x coordinate of the destination
+     * @param toChunkZ The chunk z coordinate of the destination
+     * @param interaction The interaction
+     */
+    public void runInteraction(int fromChunkX, int fromChunkZ, int toChunkX, int toChunkZ, Runnable interaction) {
+        if (this.regionTickScheduler != null) {
+            this.regionTickScheduler.defer(fromChunkX, fromChunkZ, toChunkX, toChunkZ, interaction);
+        } else {
+            interaction.run();
+        }
+    }
+
+    /**
+     * Checks whether the given chunk can be accessed directly. If the regions
+     * of this world are being ticked in parallel, only the chunks within reach
+     * of the region that is ticked by the current thread can be accessed.
+     * Interactions with chunks further away should be deferred through
+     * {@link #runInteraction(int, int, Runnable)}.
+     *
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     * @throws IllegalStateException If the chunk is out of reach
+     */
+    public void checkWithinReach(int chunkX, int chunkZ) {
+        if (this.regionTickScheduler != null) {
+            this.regionTickScheduler.checkWithinReach(chunkX, chunkZ);
+        }
+    }
+
+    private LanternChunk getChunkWithinReach(int chunkX, int chunkZ) {
+        checkWithinReach(chunkX, chunkZ);
+        return this.chunkManager.getOrLoadChunk(chunkX, chunkZ);
+    }
+
+    /**
+     * Runs an interaction that affects the whole world, for example all
+     * the players. If the regions of this world are being ticked in parallel,
+     * the interaction will be deferred until all the regions are ticked.
+     *
+     * @param interaction The interaction
+     */
+    public void runWorldInteraction(Runnable interaction) {
+        if (this.regionTickScheduler != null) {
+            this.regionTickScheduler.defer(interaction);
+        } else {
+            interaction.run();
+        }
+    }
+
+    private void broadcast0(Supplier<Message> message, @Nullable Predicate<LanternPlayer> filter) {
         Set<LanternPlayer> players = this.players;
         if (filter != null) {
             players = players.stream().filter(filter).collect(Collectors.toSet());
@@ -1332,7 +1627,17 @@ public void broadcast(Supplier<Message> message, @Nullable Predicate<LanternPlay
             return;
         }
         final Message message0 = message.get();
-        players.forEach(player -> player.getConnection().send(message0));
+        if (players.size() == 1) {
+            players.iterator().next().getConnection().send(message0);
+            return;
+        }
+        // Encode the message only once for all the players
+        final PreEncodedMessage preEncodedMessage = PreEncodedMessage.of(message0);
+        try {
+            players.forEach(player -> player.getConnection().send(preEncodedMessage));
+        } finally {
+            preEncodedMessage.release();
+        }
     }
 
     @Override
@@ -75,9 +75,9 @@
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Phaser;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
@@ -121,8 +121,20 @@ private static class WorldLookupEntry {
         }
     }
 
-    // A map with all the world threads
-    private final Map<LanternWorld, Thread> worldThreads = new ConcurrentHashMap<>();
+    // The counter that is used to name the world tick threads
+    private final AtomicInteger tickThreadCounter = new AtomicInteger();
+
+    // The pool that is shared by all the worlds to tick them, the threads
+    // are FastThreadLocalThreads so that the fast thread locals can be used
+    private final ExecutorService tickPool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+            ThreadHelper.newFastThreadLocalThreadFactory(() -> "world-tick-" + this.tickThreadCounter.getAndIncrement(),
+                    thread -> thread.setDaemon(true)));
+
+    // All the worlds that should be ticked
+    private final Set<LanternWorld> tickedWorlds = ConcurrentHashMap.newKeySet();
+
+    // The task of the tick that is currently executing
+    @Nullable private volatile CompletableFuture<Void> tickTask;
 
     // The world entries indexed by the name
     private final Map<LanternWorldProperties, WorldLookupEntry> worldByProperties = new ConcurrentHashMap<>();
@@ -150,10 +162,6 @@ private static class WorldLookupEntry {
     // The directory of the root world
     @Inject @Named(DirectoryKeys.ROOT_WORLD) private Provider<Path> rootWorldDirectory;
 
-    // The phasers to synchronize the world threads
-    private final Phaser tickBegin = new Phaser(1);
-    private final Phaser tickEnd = new Phaser(1);
-
     @Inject
     private LanternWorldManager() {
     }
@@ -694,70 +702,70 @@ private WorldConfigResult getOrCreateWorldConfig(String worldName) throws IOExce
      * Adds the task for the world to tick it.
      */
     private void addWorldTask(LanternWorld world) {
-        if (this.worldThreads.containsKey(world)) {
-            return;
-        }
-        final Thread thread = ThreadHelper.newFastThreadLocalThread(thread0 -> {
-            try {
-                while (!thread0.isInterrupted() && !this.tickEnd.isTerminated()) {
-                    this.tickBegin.arriveAndAwaitAdvance();
-                    try {
-                        world.pulse();
-                    } catch (Exception e) {
-                        this.logger.error("Error occurred while pulsing the world {}", world.getName(), e);
-                    } finally {
-                        this.tickEnd.arriveAndAwaitAdvance();
-                    }
-                }
-            } finally {
-                this.tickBegin.arriveAndDeregister();
-                this.tickEnd.arriveAndDeregister();
-            }
-        }, "world-" + world.getName());
-        this.worldThreads.put(world, thread);
-        this.tickBegin.register();
-        this.tickEnd.register();
-        thread.start();
+        this.tickedWorlds.add(world);
     }
 
     /**
      * Removes the task for the world to tick it.
      */
     private void removeWorldTask(LanternWorld world) {
-        if (!this.worldThreads.containsKey(world)) {
-            return;
-        }
-        this.worldThreads.remove(world).interrupt();
+        this.tickedWorlds.remove(world);
     }
 
-    // The current tick that is executing
-    private volatile int currentTick = -1;
-
-    private void tickEnd() {
-        int nextTick = this.currentTick + 1;
-        // Mark ourselves as arrived so world threads automatically trigger advance once done
-        int endPhase = this.tickEnd.arriveAndAwaitAdvance();
-        if (endPhase != nextTick) {
-            this.logger.warn("Tick end barrier {} has advanced differently from tick begin barrier: {}",
-                    endPhase, nextTick);
+    private void pulseWorld(LanternWorld world) {
+        final long start = System.nanoTime();
+        try {
+            world.pulse();
+        } catch (Exception e) {
+            this.logger.error("Error occurred while pulsing the world {}", world.getName(), e);
+        } finally {
+            world.setTickDuration(System.nanoTime() - start);
         }
     }
 
     /**
-     * Pulses the world for the next tick.
+     * Pulses the worlds for the next tick, the worlds are ticked in
+     * parallel. {@link #awaitPulse()} should be called to wait for
+     * all the worlds to complete the tick.
      */
     public void pulse() {
+        final List<CompletableFuture<Void>> tasks = new ArrayList<>();
         try {
-            this.tickEnd.awaitAdvanceInterruptibly(this.currentTick);
-            this.currentTick = this.tickBegin.arrive();
-
-            try {
-                this.executor.submit(this::tickEnd);
-            } catch (RejectedExecutionException ex) {
-                this.shutdown();
+            for (LanternWorld world : this.tickedWorlds) {
+                // Idle worlds don't need to be ticked
+                final boolean hibernate = world.canHibernate();
+                if (hibernate != world.isHibernating()) {
+                    world.setHibernating(hibernate);
+                    this.logger.debug("The world {} {} hibernating", world.getName(), hibernate ? "started" : "stopped");
+                }
+                if (!hibernate) {
+                    tasks.add(CompletableFuture.runAsync(() -> pulseWorld(world), this.tickPool));
+                }
             }
+        } catch (RejectedExecutionException ex) {
+            this.shutdown();
+            return;
+        }
+        this.tickTask = CompletableFuture.allOf(tasks.toArray(new CompletableFuture[tasks.size()]));
+    }
+
+    /**
+     * Waits for all the worlds to complete the tick that was
+     * started by the last {@link #pulse()}. This guarantees that
+     * all the worlds are always in the same tick.
+     */
+    public void awaitPulse() {
+        final CompletableFuture<Void> tickTask = this.tickTask;
+        if (tickTask == null) {
+            return;
+        }
+        this.tickTask = null;
+        try {
+            tickTask.get();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            this.logger.error("Error occurred while pulsing the worlds", e.getCause());
         }
     }
 
@@ -768,9 +776,8 @@ public void pulse() {
     public void shutdown() {
         // Unload all the active worlds
         this.worldByProperties.values().stream().filter(entry -> entry.world != null).forEach(entry -> unloadWorld(entry.world));
-        this.tickBegin.forceTermination();
-        this.tickEnd.forceTermination();
-        this.worldThreads.clear();
+        this.tickedWorlds.clear();
+        this.tickPool.shutdown();
         this.executor.shutdown();
     }
 
@@ -67,4 +67,9 @@ public void onBlockChange(int x, int y, int z, BlockState oldBlockState, BlockSt
     public void onBlockAction(int x, int y, int z, BlockType blockType, BlockAction blockAction) {
         this.listeners.forEach(listener -> listener.onBlockAction(x, y, z, blockType, blockAction));
     }
+
+    @Override
+    public void onLightChange(LanternChunk chunk, int sectionBitMask) {
+        this.listeners.forEach(listener -> listener.onLightChange(chunk, sectionBitMask));
+    }
 }
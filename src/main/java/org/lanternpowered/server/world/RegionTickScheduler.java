@@ -0,0 +1,299 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+import javax.annotation.Nullable;
+
+/**
+ * Ticks objects in parallel based on the region they are located in. A
+ * region is a square of chunks, the regions are ticked in four phases
+ * based on the parity of their coordinates. Regions within the same phase
+ * are never adjacent, there is always one region between them. Both of
+ * them can reach into that region, so they can only be ticked in parallel
+ * as long as the objects don't affect anything further away than half
+ * the size of a region.
+ * <p>
+ * The phases and the objects within a region are always processed in the
+ * same order, the result is the same as ticking all the objects on a single
+ * thread in that order.
+ * <p>
+ * Interactions that reach further can be deferred through {@link #defer(int, int, Runnable)},
+ * these will be executed serially once all the phases are done. The deferred
+ * actions are executed in the same order as the regions were ticked.
+ */
+final class RegionTickScheduler {
+
+    /**
+     * The amount of phases, one for each parity combination of the x and z coordinates.
+     */
+    private static final int PHASES = 4;
+
+    /**
+     * The pool that is shared by all the worlds that use region ticking,
+     * only created once a world needs it.
+     */
+    private static final class PoolHolder {
+
+        private static final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), forkJoinPool -> {
+            final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("region-ticking-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * A region and the objects that are located in it.
+     */
+    private static final class Region<T> {
+
+        private final int x;
+        private final int z;
+        private final List<T> objects = new ArrayList<>();
+
+        // The actions that are deferred to the serial merge
+        @Nullable private List<Runnable> deferred;
+
+        private Region(int x, int z) {
+            this.x = x;
+            this.z = z;
+        }
+    }
+
+    private final int regionShift;
+    @Nullable private final ForkJoinPool pool;
+
+    /**
+     * The region that is being ticked by the current thread.
+     */
+    private final ThreadLocal<Region<?>> currentRegion = new ThreadLocal<>();
+
+    /**
+     * Constructs a new {@link RegionTickScheduler} which
+     * uses the shared region ticking pool.
+     *
+     * @param regionSize The size of a region in chunks
+     */
+    RegionTickScheduler(int regionSize) {
+        this(regionSize, PoolHolder.pool);
+    }
+
+    /**
+     * Constructs a new {@link RegionTickScheduler}.
+     *
+     * @param regionSize The size of a region in chunks, will be rounded up to a power of two
+     * @param pool The pool to tick the regions with, or {@code null} to tick them on the current thread
+     */
+    RegionTickScheduler(int regionSize, @Nullable ForkJoinPool pool) {
+        checkArgument(regionSize > 0, "The region size must be greater than zero");
+        this.regionShift = 32 - Integer.numberOfLeadingZeros(regionSize - 1);
+        this.pool = pool;
+    }
+
+    /**
+     * Gets the size of a region in chunks.
+     *
+     * @return The region size
+     */
+    int getRegionSize() {
+        return 1 << this.regionShift;
+    }
+
+    /**
+     * Gets whether the given chunk can be safely accessed from the region that is
+     * being ticked by the current thread, this is the case if it's within half the
+     * size of a region of it. Every chunk can be accessed outside region ticks.
+     *
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     * @return Whether the chunk is within reach
+     */
+    boolean isWithinReach(int chunkX, int chunkZ) {
+        final Region<?> region = this.currentRegion.get();
+        if (region == null) {
+            return true;
+        }
+        final int regionSize = 1 << this.regionShift;
+        final int margin = regionSize >> 1;
+        final int minX = (region.x << this.regionShift) - margin;
+        final int minZ = (region.z << this.regionShift) - margin;
+        return chunkX >= minX && chunkX < minX + regionSize + margin * 2 &&
+                chunkZ >= minZ && chunkZ < minZ + regionSize + margin * 2;
+    }
+
+    /**
+     * Checks whether the given chunk can be safely accessed from the region that
+     * is being ticked by the current thread.
+     *
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     * @throws IllegalStateException If the chunk isn't within reach
+     * @see #isWithinReach(int, int)
+     */
+    void checkWithinReach(int chunkX, int chunkZ) {
+        if (!isWithinReach(chunkX, chunkZ)) {
+            throw new IllegalStateException("The chunk (" + chunkX + ", " + chunkZ + ") is out of reach of the region that is "
+                    + "being ticked, the interaction should be deferred to the serial merge.");
+        }
+    }
+
+    /**
+     * Executes the action that moves something between the given chunks. The action
+     * will be deferred to the serial merge if one of the chunks isn't within reach of
+     * the region that is being ticked by the current thread, otherwise it's executed
+     * directly.
+     *
+     * @param fromChunkX The chunk x coordinate of the origin
+     * @param fromChunkZ The chunk z coordinate of the origin
+     * @param toChunkX The chunk x coordinate of the destination
+     * @param toChunkZ The chunk z coordinate of the destination
+     * @param action The action
+     */
+    void defer(int fromChunkX, int fromChunkZ, int toChunkX, int toChunkZ, Runnable action) {
+        if (isWithinReach(fromChunkX, fromChunkZ) && isWithinReach(toChunkX, toChunkZ)) {
+            action.run();
+        } else {
+            defer(action);
+        }
+    }
+
+    /**
+     * Executes the action that affects the given chunk. The action will be deferred
+     * to the serial merge if the chunk isn't within reach of the region that is
+     * being ticked by the current thread, otherwise it's executed directly.
+     *
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     * @param action The action
+     */
+    void defer(int chunkX, int chunkZ, Runnable action) {
+        if (isWithinReach(chunkX, chunkZ)) {
+            action.run();
+        } else {
+            defer(action);
+        }
+    }
+
+    /**
+     * Defers the action to the serial merge if a region is being ticked by
+     * the current thread, otherwise it's executed directly.
+     *
+     * @param action The action
+     */
+    void defer(Runnable action) {
+        final Region<?> region = this.currentRegion.get();
+        if (region == null) {
+            action.run();
+            return;
+        }
+        if (region.deferred == null) {
+            region.deferred = new ArrayList<>();
+        }
+        region.deferred.add(action);
+    }
+
+    private <T> void tick(Region<T> region, Consumer<T> action) {
+        this.currentRegion.set(region);
+        try {
+            region.objects.forEach(action);
+        } finally {
+            this.currentRegion.remove();
+        }
+    }
+
+    /**
+     * Ticks all the objects, objects in regions that aren't adjacent may be ticked in parallel.
+     *
+     * @param objects The objects to tick
+     * @param chunkX The function to get the chunk x coordinate of an object
+     * @param chunkZ The function to get the chunk z coordinate of an object
+     * @param action The action that ticks an object
+     * @param <T> The type of the objects
+     */
+    <T> void tick(Iterable<T> objects, ToIntFunction<T> chunkX, ToIntFunction<T> chunkZ, Consumer<T> action) {
+        // Partition the objects into the phases and regions, the order
+        // of the objects within a region is kept
+        final List<List<Region<T>>> phases = new ArrayList<>(PHASES);
+        for (int i = 0; i < PHASES; i++) {
+            phases.add(new ArrayList<>());
+        }
+        final Long2ObjectMap<Region<T>> regions = new Long2ObjectOpenHashMap<>();
+        for (T object : objects) {
+            final int regionX = chunkX.applyAsInt(object) >> this.regionShift;
+            final int regionZ = chunkZ.applyAsInt(object) >> this.regionShift;
+            final long key = ((long) regionX << 32) | (regionZ & 0xffffffffL);
+            Region<T> region = regions.get(key);
+            if (region == null) {
+                region = new Region<>(regionX, regionZ);
+                regions.put(key, region);
+                phases.get((regionX & 0x1) | ((regionZ & 0x1) << 1)).add(region);
+            }
+            region.objects.add(object);
+        }
+        for (List<Region<T>> phase : phases) {
+            if (this.pool == null || phase.size() <= 1) {
+                for (Region<T> region : phase) {
+                    tick(region, action);
+                }
+            } else {
+                final List<ForkJoinTask<?>> tasks = new ArrayList<>(phase.size());
+                for (Region<T> region : phase) {
+                    tasks.add(ForkJoinTask.adapt(() -> tick(region, action)));
+                }
+                // Wait for all the regions of this phase to complete before
+                // the next phase starts, this throws the first failure
+                this.pool.invoke(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        invokeAll(tasks);
+                    }
+                });
+            }
+        }
+        // The serial merge, execute all the deferred actions in the order of the regions
+        for (List<Region<T>> phase : phases) {
+            for (Region<T> region : phase) {
+                if (region.deferred != null) {
+                    region.deferred.forEach(Runnable::run);
+                }
+            }
+        }
+    }
+}
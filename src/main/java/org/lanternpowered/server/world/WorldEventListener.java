@@ -76,4 +76,13 @@ public interface WorldEventListener {
      * @param blockAction The block action
      */
     void onBlockAction(int x, int y, int z, BlockType blockType, BlockAction blockAction);
+
+    /**
+     * Is called when the light in the specified chunk
+     * sections of the {@link LanternChunk} is changed.
+     *
+     * @param chunk The chunk
+     * @param sectionBitMask The bit mask of the modified chunk sections
+     */
+    void onLightChange(LanternChunk chunk, int sectionBitMask);
 }
@@ -0,0 +1,363 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.chunk;
+
+import it.unimi.dsi.fastutil.shorts.Short2ShortMap;
+import it.unimi.dsi.fastutil.shorts.Short2ShortOpenHashMap;
+import org.lanternpowered.server.util.VariableValueArray;
+
+import java.util.Arrays;
+
+import javax.annotation.Nullable;
+
+/**
+ * A palette based array that stores block state (type) values.
+ * <p>
+ * As long as there are not too many different block states, a local
+ * palette will be used and every value in the array will only take
+ * the amount of bits that are needed to represent a palette index. Once
+ * the palette grows too large, the array will be promoted to the global
+ * palette and will the internal block state ids be stored directly.
+ * <p>
+ * The layout matches the one that is expected by the client, so the
+ * backing arrays can be send directly without having to re-pack them.
+ * <p>
+ * This class isn't thread safe, all the modifications should be performed
+ * while holding a write lock. Reads without a lock (optimistic reads) will
+ * never fail, but may result in a invalid value if there are concurrent
+ * modifications.
+ */
+public final class ChunkBlockStateArray {
+
+    /**
+     * The minimum amount of bits per value, the client will
+     * round up smaller values to this size.
+     */
+    public static final int MIN_BITS_PER_VALUE = 4;
+
+    /**
+     * The maximum amount of bits per value before the
+     * global palette will be used.
+     */
+    public static final int MAX_LOCAL_BITS_PER_VALUE = 8;
+
+    /**
+     * The amount of bits per value that the client expects
+     * when the global palette is used.
+     */
+    public static final int GLOBAL_BITS_PER_VALUE = 13;
+
+    private static final class Storage {
+
+        // The values, these are palette indexes or global ids if there is no palette
+        private final VariableValueArray values;
+
+        // The local palette, the length of this array always matches
+        // the amount of values that can be stored in the values array,
+        // this way will a optimistic read never result in a out of bounds
+        @Nullable private final int[] palette;
+
+        // The amount of times that every palette entry is used
+        @Nullable private final short[] usages;
+
+        // The amount of palette entries that are in use
+        private int paletteSize;
+
+        private Storage(VariableValueArray values, @Nullable int[] palette, @Nullable short[] usages, int paletteSize) {
+            this.paletteSize = paletteSize;
+            this.palette = palette;
+            this.values = values;
+            this.usages = usages;
+        }
+    }
+
+    private final int capacity;
+
+    // All the data will be swapped at once when
+    // the amount of bits per value changes
+    private Storage storage;
+
+    /**
+     * Creates a new {@link ChunkBlockStateArray} with the given
+     * capacity, all the values will be initialized as {@code 0}.
+     *
+     * @param capacity The capacity
+     */
+    public ChunkBlockStateArray(int capacity) {
+        final int[] palette = new int[1 << MIN_BITS_PER_VALUE];
+        final short[] usages = new short[palette.length];
+        usages[0] = (short) capacity;
+        this.storage = new Storage(new VariableValueArray(MIN_BITS_PER_VALUE, capacity), palette, usages, 1);
+        this.capacity = capacity;
+    }
+
+    /**
+     * Creates a new {@link ChunkBlockStateArray} that
+     * contains all the given block state values.
+     *
+     * @param types The block state values
+     */
+    public ChunkBlockStateArray(short[] types) {
+        this.capacity = types.length;
+
+        // Collect all the different block states and count them
+        final Short2ShortMap counts = new Short2ShortOpenHashMap();
+        int maxType = 0;
+        for (short type : types) {
+            counts.put(type, (short) (counts.get(type) + 1));
+            maxType = Math.max(maxType, type & 0xffff);
+        }
+
+        final int bits = Math.max(MIN_BITS_PER_VALUE, bitsFor(counts.size() - 1));
+        if (bits > MAX_LOCAL_BITS_PER_VALUE) {
+            final VariableValueArray values = new VariableValueArray(globalBitsFor(maxType), this.capacity);
+            for (int i = 0; i < types.length; i++) {
+                values.set(i, types[i] & 0xffff);
+            }
+            this.storage = new Storage(values, null, null, 0);
+        } else {
+            final int[] palette = new int[1 << bits];
+            final short[] usages = new short[palette.length];
+            final Short2ShortMap globalToLocal = new Short2ShortOpenHashMap(counts.size());
+            short localId = 0;
+            for (Short2ShortMap.Entry entry : counts.short2ShortEntrySet()) {
+                globalToLocal.put(entry.getShortKey(), localId);
+                palette[localId] = entry.getShortKey() & 0xffff;
+                usages[localId] = entry.getShortValue();
+                localId++;
+            }
+            final VariableValueArray values = new VariableValueArray(bits, this.capacity);
+            for (int i = 0; i < types.length; i++) {
+                values.set(i, globalToLocal.get(types[i]));
+            }
+            this.storage = new Storage(values, palette, usages, localId);
+        }
+    }
+
+    private ChunkBlockStateArray(ChunkBlockStateArray other) {
+        final Storage storage = other.storage;
+        this.storage = new Storage(storage.values.copy(), storage.palette == null ? null : storage.palette.clone(),
+                storage.usages == null ? null : storage.usages.clone(), storage.paletteSize);
+        this.capacity = other.capacity;
+    }
+
+    private static int bitsFor(int value) {
+        return value == 0 ? 1 : 32 - Integer.numberOfLeadingZeros(value);
+    }
+
+    private static int globalBitsFor(int type) {
+        return Math.max(GLOBAL_BITS_PER_VALUE, bitsFor(type));
+    }
+
+    /**
+     * Gets the capacity of this array.
+     *
+     * @return The capacity
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Gets the block state value at the given index.
+     *
+     * @param index The index
+     * @return The block state value
+     */
+    public short get(int index) {
+        final Storage storage = this.storage;
+        final int value = storage.values.get(index);
+        return (short) (storage.palette == null ? value : storage.palette[value]);
+    }
+
+    /**
+     * Sets the block state value at the given index.
+     *
+     * @param index The index
+     * @param type The new block state value
+     * @return The old block state value
+     */
+    public short set(int index, short type) {
+        Storage storage = this.storage;
+        final int type0 = type & 0xffff;
+        if (storage.palette == null) {
+            final short oldType = (short) storage.values.get(index);
+            if (type0 > (1 << storage.values.getBitsPerValue()) - 1) {
+                this.storage = storage = promoteToGlobal(storage, type0);
+            }
+            storage.values.set(index, type0);
+            return oldType;
+        }
+        final int oldLocalId = storage.values.get(index);
+        final short oldType = (short) storage.palette[oldLocalId];
+        if (oldType == type) {
+            return oldType;
+        }
+        int localId = getOrAllocateLocalId(storage, type0);
+        if (localId == -1) {
+            final int bits = storage.values.getBitsPerValue() + 1;
+            if (bits > MAX_LOCAL_BITS_PER_VALUE) {
+                this.storage = storage = promoteToGlobal(storage, type0);
+                storage.values.set(index, type0);
+                return oldType;
+            }
+            this.storage = storage = resize(storage, bits);
+            localId = getOrAllocateLocalId(storage, type0);
+        }
+        //noinspection ConstantConditions
+        storage.usages[oldLocalId]--;
+        storage.usages[localId]++;
+        storage.values.set(index, localId);
+        return oldType;
+    }
+
+    private static int getOrAllocateLocalId(Storage storage, int type) {
+        final int[] palette = storage.palette;
+        final short[] usages = storage.usages;
+        //noinspection ConstantConditions
+        for (int i = 0; i < storage.paletteSize; i++) {
+            if (palette[i] == type) {
+                return i;
+            }
+        }
+        // Try to append the type to the palette
+        if (storage.paletteSize < palette.length) {
+            final int localId = storage.paletteSize++;
+            palette[localId] = type;
+            return localId;
+        }
+        // Try to reuse a palette entry that isn't used anymore
+        //noinspection ConstantConditions
+        for (int i = 0; i < storage.paletteSize; i++) {
+            if (usages[i] == 0) {
+                palette[i] = type;
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private Storage resize(Storage storage, int bits) {
+        final VariableValueArray values = new VariableValueArray(bits, this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            values.set(i, storage.values.get(i));
+        }
+        //noinspection ConstantConditions
+        return new Storage(values, Arrays.copyOf(storage.palette, 1 << bits),
+                Arrays.copyOf(storage.usages, 1 << bits), storage.paletteSize);
+    }
+
+    private Storage promoteToGlobal(Storage storage, int type) {
+        int maxType = type;
+        final int[] palette = storage.palette;
+        if (palette != null) {
+            for (int i = 0; i < storage.paletteSize; i++) {
+                maxType = Math.max(maxType, palette[i]);
+            }
+        } else {
+            maxType = Math.max(maxType, (1 << storage.values.getBitsPerValue()) - 1);
+        }
+        final VariableValueArray values = new VariableValueArray(globalBitsFor(maxType), this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            final int value = storage.values.get(i);
+            values.set(i, palette == null ? value : palette[value]);
+        }
+        return new Storage(values, null, null, 0);
+    }
+
+    /**
+     * Counts the amount of values that are not {@code 0} (air).
+     *
+     * @return The non air count
+     */
+    public int countNonAir() {
+        final Storage storage = this.storage;
+        int count = 0;
+        if (storage.palette != null) {
+            //noinspection ConstantConditions
+            for (int i = 0; i < storage.paletteSize; i++) {
+                if (storage.palette[i] != 0) {
+                    count += storage.usages[i];
+                }
+            }
+        } else {
+            for (int i = 0; i < this.capacity; i++) {
+                if (storage.values.get(i) != 0) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the {@link VariableValueArray} that holds the palette
+     * indexes, or the global ids if there is no local palette.
+     * <p>
+     * The returned array is the backing array of this object,
+     * and should only be used on a copy.
+     *
+     * @return The values array
+     */
+    public VariableValueArray getValues() {
+        return this.storage.values;
+    }
+
+    /**
+     * Gets a copy of the local palette. {@code null} will
+     * be returned if the global palette is used.
+     *
+     * @return The palette
+     */
+    @Nullable
+    public int[] getPalette() {
+        final Storage storage = this.storage;
+        return storage.palette == null ? null : Arrays.copyOf(storage.palette, storage.paletteSize);
+    }
+
+    /**
+     * Expands all the values into a new short array.
+     *
+     * @return The block state values
+     */
+    public short[] getStates() {
+        final short[] types = new short[this.capacity];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = get(i);
+        }
+        return types;
+    }
+
+    /**
+     * Creates a copy of this {@link ChunkBlockStateArray}.
+     *
+     * @return The copy
+     */
+    public ChunkBlockStateArray copy() {
+        return new ChunkBlockStateArray(this);
+    }
+
+}
@@ -0,0 +1,289 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.chunk;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.flowpowered.math.vector.Vector2i;
+import com.flowpowered.math.vector.Vector3d;
+import org.lanternpowered.server.util.ThreadHelper;
+import org.slf4j.Logger;
+import org.spongepowered.api.entity.Entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A queue for the chunk load tasks of a world. The tasks are executed in
+ * the order of the distance between the chunk and the nearest observer,
+ * the priorities are re-evaluated when the observers move to a different
+ * chunk. Tasks that are cancelled before they are started are skipped
+ * without being removed from the queue.
+ */
+public final class ChunkLoadQueue {
+
+    // The amount of threads that can load chunks asynchronously
+    private static final int THREADS = 4;
+
+    // The priority of chunks that are not near any observer
+    private static final int NO_OBSERVER_PRIORITY = Integer.MAX_VALUE;
+
+    private static final int STATE_QUEUED = 0;
+    private static final int STATE_RUNNING = 1;
+    private static final int STATE_CANCELLED = 2;
+
+    private final Logger logger;
+
+    private final PriorityBlockingQueue<Runnable> queue = new PriorityBlockingQueue<>();
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS, 60L, TimeUnit.SECONDS,
+            this.queue, ThreadHelper.newFastThreadLocalThreadFactory());
+
+    // The sequence that is used to keep the insertion order for tasks with the same priority
+    private final AtomicLong sequence = new AtomicLong();
+
+    // The chunk coordinates of all the observers, packed as x, z pairs
+    private volatile int[] observers = new int[0];
+
+    // Whether the observers changed since the last time the priorities were updated
+    private final AtomicBoolean prioritiesDirty = new AtomicBoolean();
+
+    // Metrics
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final LongAdder startedTasks = new LongAdder();
+    private final LongAdder cancelledTasks = new LongAdder();
+    private final LongAdder totalWaitTime = new LongAdder();
+    private final AtomicLong maxWaitTime = new AtomicLong();
+
+    final class Task implements Runnable, Comparable<Task> {
+
+        final Vector2i coords;
+        // The runnable that should be executed
+        final Runnable runnable;
+
+        private final long sequence;
+        private final long queueTime;
+        private final AtomicInteger state = new AtomicInteger(STATE_QUEUED);
+
+        // The priority, lower values will be executed first, this
+        // may only be modified while the task isn't in the queue
+        private int priority;
+
+        private Task(Vector2i coords, Runnable runnable) {
+            this.sequence = ChunkLoadQueue.this.sequence.getAndIncrement();
+            this.priority = computePriority(coords);
+            this.queueTime = System.nanoTime();
+            this.runnable = runnable;
+            this.coords = coords;
+        }
+
+        @Override
+        public void run() {
+            if (!this.state.compareAndSet(STATE_QUEUED, STATE_RUNNING)) {
+                return;
+            }
+            final long waitTime = System.nanoTime() - this.queueTime;
+            queueDepth.decrementAndGet();
+            startedTasks.increment();
+            totalWaitTime.add(waitTime);
+            maxWaitTime.accumulateAndGet(waitTime, Math::max);
+            try {
+                this.runnable.run();
+            } catch (Throwable t) {
+                logger.error("Error while executing a task for the chunk ({};{})", this.coords.getX(), this.coords.getY(), t);
+            }
+        }
+
+        /**
+         * Attempts to cancel this task, this will only
+         * succeed if the task isn't started yet.
+         *
+         * @return Whether the task was cancelled
+         */
+        boolean cancel() {
+            if (this.state.compareAndSet(STATE_QUEUED, STATE_CANCELLED)) {
+                queueDepth.decrementAndGet();
+                cancelledTasks.increment();
+                return true;
+            }
+            return false;
+        }
+
+        boolean isCancelled() {
+            return this.state.get() == STATE_CANCELLED;
+        }
+
+        @Override
+        public int compareTo(Task o) {
+            final int c = Integer.compare(this.priority, o.priority);
+            return c != 0 ? c : Long.compare(this.sequence, o.sequence);
+        }
+    }
+
+    ChunkLoadQueue(Logger logger) {
+        this.logger = checkNotNull(logger, "logger");
+    }
+
+    private int computePriority(Vector2i coords) {
+        final int[] observers = this.observers;
+        int priority = NO_OBSERVER_PRIORITY;
+        for (int i = 0; i < observers.length; i += 2) {
+            final long dx = observers[i] - coords.getX();
+            final long dz = observers[i + 1] - coords.getY();
+            priority = (int) Math.min(priority, dx * dx + dz * dz);
+        }
+        return priority;
+    }
+
+    /**
+     * Creates a task for the chunk at the given coordinates
+     * without queueing it, see {@link #submit(Task)}.
+     *
+     * @param coords The chunk coordinates
+     * @param runnable The runnable
+     * @return The created task
+     */
+    Task create(Vector2i coords, Runnable runnable) {
+        return new Task(coords, runnable);
+    }
+
+    /**
+     * Queues a task that was created through {@link #create(Vector2i, Runnable)}.
+     * The task is created separately so that it can be published before it runs.
+     *
+     * @param task The task
+     */
+    void submit(Task task) {
+        this.queueDepth.incrementAndGet();
+        this.executor.execute(task);
+    }
+
+    /**
+     * Updates the positions of the observers that determine the priorities
+     * of the tasks. The queued tasks will be reordered the next time that
+     * {@link #updatePriorities()} is called.
+     *
+     * @param observers The observers
+     */
+    void updateObservers(Collection<? extends Entity> observers) {
+        final int[] positions = new int[observers.size() * 2];
+        int index = 0;
+        for (Entity observer : observers) {
+            if (index == positions.length) {
+                break;
+            }
+            final Vector3d position = observer.getLocation().getPosition();
+            positions[index++] = position.getFloorX() >> 4;
+            positions[index++] = position.getFloorZ() >> 4;
+        }
+        this.observers = index == positions.length ? positions : Arrays.copyOf(positions, index);
+        this.prioritiesDirty.set(true);
+    }
+
+    /**
+     * Re-evaluates the priorities of all the queued tasks
+     * if the observers changed since the last update.
+     */
+    void updatePriorities() {
+        if (!this.prioritiesDirty.compareAndSet(true, false)) {
+            return;
+        }
+        final List<Runnable> tasks = new ArrayList<>(this.queue.size());
+        this.queue.drainTo(tasks);
+        for (Runnable runnable : tasks) {
+            final Task task = (Task) runnable;
+            // Cancelled tasks can be dropped here
+            if (task.isCancelled()) {
+                continue;
+            }
+            task.priority = computePriority(task.coords);
+            this.queue.offer(task);
+        }
+    }
+
+    /**
+     * Gets the amount of tasks that are waiting to be executed.
+     *
+     * @return The queue depth
+     */
+    public int getQueueDepth() {
+        return this.queueDepth.get();
+    }
+
+    /**
+     * Gets the amount of tasks that were started.
+     *
+     * @return The started tasks
+     */
+    public long getStartedTaskCount() {
+        return this.startedTasks.sum();
+    }
+
+    /**
+     * Gets the amount of tasks that were cancelled before they were started.
+     *
+     * @return The cancelled tasks
+     */
+    public long getCancelledTaskCount() {
+        return this.cancelledTasks.sum();
+    }
+
+    /**
+     * Gets the average time that the started tasks were waiting in the queue.
+     *
+     * @param unit The time unit
+     * @return The average wait time
+     */
+    public long getAverageWaitTime(TimeUnit unit) {
+        final long started = this.startedTasks.sum();
+        return started == 0 ? 0 : unit.convert(this.totalWaitTime.sum() / started, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the maximum time that a started task was waiting in the queue.
+     *
+     * @param unit The time unit
+     * @return The maximum wait time
+     */
+    public long getMaxWaitTime(TimeUnit unit) {
+        return unit.convert(this.maxWaitTime.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Shuts the queue down, the queued tasks will still be executed.
+     */
+    void shutdown() {
+        this.executor.shutdown();
+    }
+}
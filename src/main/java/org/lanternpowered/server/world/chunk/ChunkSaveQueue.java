@@ -0,0 +1,282 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.chunk;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.lanternpowered.server.world.chunk.LanternChunk.CHUNK_SECTIONS;
+import static org.lanternpowered.server.world.chunk.LanternChunk.CHUNK_SECTION_VOLUME;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import org.lanternpowered.server.data.io.ChunkIOService;
+import org.lanternpowered.server.util.ThreadHelper;
+import org.slf4j.Logger;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.Nullable;
+
+/**
+ * A write-behind queue for chunk saves. The snapshots of the chunks are
+ * created by the caller, the serialization, compression and the actual
+ * writing are performed by a dedicated i/o pool.
+ * <p>
+ * Multiple saves of the same chunk that are still waiting to be written
+ * will be coalesced into a single write of the most recent snapshot, and
+ * the amount of snapshot data that can be in flight is bounded.
+ */
+final class ChunkSaveQueue {
+
+    // The amount of threads that will serialize and write the chunks
+    private static final int THREADS = 2;
+
+    // The maximum amount of bytes (estimated) of snapshots that can be in flight
+    private static final long MAX_IN_FLIGHT_BYTES = 32L * 1024L * 1024L;
+
+    // The estimated size of the snapshot data of a single chunk section,
+    // block types, data and the two light arrays
+    private static final int SECTION_SIZE = CHUNK_SECTION_VOLUME * 2 + (CHUNK_SECTION_VOLUME / 2) * 2;
+
+    // The estimated size of all the other data of a chunk
+    private static final int BASE_SIZE = 4096;
+
+    private final ChunkIOService chunkIOService;
+    private final Logger logger;
+
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), ThreadHelper.newFastThreadLocalThreadFactory());
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition condition = this.lock.newCondition();
+
+    // All the saves that are queued or being written, mapped by chunk key
+    private final Long2ObjectMap<PendingSave> pendingSaves = new Long2ObjectOpenHashMap<>();
+
+    // The estimated amount of bytes that is currently in flight
+    private long inFlightBytes;
+
+    private final class PendingSave implements Runnable {
+
+        private final LanternChunk chunk;
+
+        private ChunkIOService.Snapshot snapshot;
+        private int modificationCount;
+        private long size;
+
+        // Whether the snapshot of this save is being written
+        private boolean writing;
+
+        // The save that should be performed after this one, this
+        // is used when a chunk is saved while it's being written
+        @Nullable private PendingSave next;
+
+        private PendingSave(LanternChunk chunk, ChunkIOService.Snapshot snapshot, int modificationCount, long size) {
+            this.modificationCount = modificationCount;
+            this.snapshot = snapshot;
+            this.chunk = chunk;
+            this.size = size;
+        }
+
+        @Override
+        public void run() {
+            final ChunkIOService.Snapshot snapshot;
+            final int modificationCount;
+            lock.lock();
+            try {
+                this.writing = true;
+                snapshot = this.snapshot;
+                modificationCount = this.modificationCount;
+            } finally {
+                lock.unlock();
+            }
+            boolean success = false;
+            try {
+                chunkIOService.write(this.chunk.getX(), this.chunk.getZ(), snapshot);
+                success = true;
+            } catch (Exception e) {
+                logger.error("Error while saving chunk ({};{})", this.chunk.getX(), this.chunk.getZ(), e);
+            }
+            lock.lock();
+            try {
+                if (success) {
+                    this.chunk.markSaved(modificationCount);
+                }
+                inFlightBytes -= this.size;
+                final long key = this.chunk.getKey();
+                if (this.next != null) {
+                    pendingSaves.put(key, this.next);
+                    executor.execute(this.next);
+                } else {
+                    pendingSaves.remove(key);
+                }
+                condition.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    ChunkSaveQueue(ChunkIOService chunkIOService, Logger logger) {
+        this.chunkIOService = checkNotNull(chunkIOService, "chunkIOService");
+        this.logger = checkNotNull(logger, "logger");
+    }
+
+    private static long estimateSize(LanternChunk chunk) {
+        long size = BASE_SIZE;
+        for (int i = 0; i < CHUNK_SECTIONS; i++) {
+            if (chunk.getRawSection(i) != null) {
+                size += SECTION_SIZE;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Creates a snapshot of the given {@link LanternChunk} and queues it to
+     * be written. The chunk shouldn't be modified while this method is
+     * being executed.
+     * <p>
+     * If the chunk isn't forced, it will be skipped if there is already
+     * too much data in flight, in that case the chunk will remain dirty
+     * and should be tried again later. Forced saves will wait until there
+     * is enough room.
+     *
+     * @param chunk The chunk to save
+     * @param force Whether the save should be forced
+     * @return Whether the chunk was queued
+     */
+    boolean queue(LanternChunk chunk, boolean force) {
+        final long size = estimateSize(chunk);
+        this.lock.lock();
+        try {
+            // Wait for or fail on a full queue, it's always possible
+            // to queue a chunk if there is nothing in flight
+            while (this.inFlightBytes > 0 && this.inFlightBytes + size > MAX_IN_FLIGHT_BYTES) {
+                if (!force) {
+                    return false;
+                }
+                this.condition.awaitUninterruptibly();
+            }
+            // Reserve the space for the snapshot
+            this.inFlightBytes += size;
+        } finally {
+            this.lock.unlock();
+        }
+        final int modificationCount = chunk.getModificationCount();
+        final ChunkIOService.Snapshot snapshot;
+        try {
+            snapshot = this.chunkIOService.createSnapshot(chunk);
+        } catch (RuntimeException e) {
+            release(size);
+            throw e;
+        }
+        final long key = chunk.getKey();
+        this.lock.lock();
+        try {
+            final PendingSave pendingSave = this.pendingSaves.get(key);
+            if (pendingSave == null) {
+                final PendingSave newSave = new PendingSave(chunk, snapshot, modificationCount, size);
+                this.pendingSaves.put(key, newSave);
+                this.executor.execute(newSave);
+            } else if (!pendingSave.writing) {
+                // The previous snapshot didn't get written yet, just replace it
+                replace(pendingSave, snapshot, modificationCount, size);
+            } else if (pendingSave.next != null) {
+                replace(pendingSave.next, snapshot, modificationCount, size);
+            } else {
+                // Write the new snapshot once the current one is done
+                pendingSave.next = new PendingSave(chunk, snapshot, modificationCount, size);
+            }
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void replace(PendingSave pendingSave, ChunkIOService.Snapshot snapshot, int modificationCount, long size) {
+        this.inFlightBytes -= pendingSave.size;
+        this.condition.signalAll();
+        pendingSave.modificationCount = modificationCount;
+        pendingSave.snapshot = snapshot;
+        pendingSave.size = size;
+    }
+
+    private void release(long size) {
+        this.lock.lock();
+        try {
+            this.inFlightBytes -= size;
+            this.condition.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for all the pending saves of the
+     * chunk at the given coordinates to complete.
+     *
+     * @param x The x coordinate
+     * @param z The z coordinate
+     */
+    void awaitPending(int x, int z) {
+        final long key = LanternChunk.key(x, z);
+        this.lock.lock();
+        try {
+            while (this.pendingSaves.containsKey(key)) {
+                this.condition.awaitUninterruptibly();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for all the pending saves to complete.
+     */
+    void flush() {
+        this.lock.lock();
+        try {
+            while (!this.pendingSaves.isEmpty()) {
+                this.condition.awaitUninterruptibly();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for all the pending saves to complete
+     * and shuts the i/o pool down.
+     */
+    void shutdown() {
+        flush();
+        this.executor.shutdown();
+    }
+}
@@ -31,8 +31,68 @@
 import java.util.function.Consumer;
 import java.util.function.Function;
 
+import javax.annotation.Nullable;
+
 public final class ConcurrentObjectArray<O> {
 
+    /**
+     * Reads a short value from a object, the reader should be stateless so
+     * that no instance has to be allocated every time it's being used.
+     *
+     * @param <O> The object type
+     */
+    @FunctionalInterface
+    public interface ShortReader<O> {
+
+        /**
+         * Reads the value at the given index.
+         *
+         * @param object The object, may be null
+         * @param index The index of the value
+         * @return The value
+         */
+        short read(@Nullable O object, int index);
+    }
+
+    /**
+     * Reads a byte value from a object, the reader should be stateless so
+     * that no instance has to be allocated every time it's being used.
+     *
+     * @param <O> The object type
+     */
+    @FunctionalInterface
+    public interface ByteReader<O> {
+
+        /**
+         * Reads the value at the given index.
+         *
+         * @param object The object, may be null
+         * @param index The index of the value
+         * @return The value
+         */
+        byte read(@Nullable O object, int index);
+    }
+
+    /**
+     * Reads a value from a object, the reader should be stateless so
+     * that no instance has to be allocated every time it's being used.
+     *
+     * @param <O> The object type
+     * @param <T> The value type
+     */
+    @FunctionalInterface
+    public interface ObjectReader<O, T> {
+
+        /**
+         * Reads the value at the given index.
+         *
+         * @param object The object, may be null
+         * @param index The index of the value
+         * @return The value
+         */
+        T read(@Nullable O object, int index);
+    }
+
     // The locks we will use to lock each section
     private final StampedLock[] locks;
 
@@ -67,6 +127,82 @@ public void set(int index, O object) {
         }
     }
 
+    /**
+     * Reads a short value from the object at the given index. A optimistic
+     * read will be attempted first, the read lock is only acquired if that
+     * read was invalidated by a concurrent modification.
+     *
+     * @param index The index of the object
+     * @param valueIndex The index of the value within the object
+     * @param reader The reader
+     * @return The value
+     */
+    public short getShort(int index, int valueIndex, ShortReader<O> reader) {
+        final StampedLock lock = this.locks[index];
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            final short value = reader.read(this.objects[index], valueIndex);
+            if (lock.validate(stamp)) {
+                return value;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return reader.read(this.objects[index], valueIndex);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Reads a byte value from the object at the given index. A optimistic
+     * read will be attempted first, the read lock is only acquired if that
+     * read was invalidated by a concurrent modification.
+     *
+     * @param index The index of the object
+     * @param valueIndex The index of the value within the object
+     * @param reader The reader
+     * @return The value
+     */
+    public byte getByte(int index, int valueIndex, ByteReader<O> reader) {
+        final StampedLock lock = this.locks[index];
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            final byte value = reader.read(this.objects[index], valueIndex);
+            if (lock.validate(stamp)) {
+                return value;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return reader.read(this.objects[index], valueIndex);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Reads a value from the object at the given index while holding the
+     * read lock. Optimistic reads aren't used for these values, because
+     * the reader may access structures that can't handle concurrent
+     * modifications, for example hash maps.
+     *
+     * @param index The index of the object
+     * @param valueIndex The index of the value within the object
+     * @param reader The reader
+     * @param <T> The value type
+     * @return The value
+     */
+    public <T> T get(int index, int valueIndex, ObjectReader<O, T> reader) {
+        final StampedLock lock = this.locks[index];
+        final long stamp = lock.readLock();
+        try {
+            return reader.read(this.objects[index], valueIndex);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
     public void work(int index, Consumer<O> consumer, boolean write) {
         work(index, consumer, write, false);
     }
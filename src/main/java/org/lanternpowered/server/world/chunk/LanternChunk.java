@@ -41,8 +41,6 @@
 import it.unimi.dsi.fastutil.objects.ObjectIterator;
 import it.unimi.dsi.fastutil.shorts.Short2ObjectMap;
 import it.unimi.dsi.fastutil.shorts.Short2ObjectOpenHashMap;
-import it.unimi.dsi.fastutil.shorts.Short2ShortMap;
-import it.unimi.dsi.fastutil.shorts.Short2ShortOpenHashMap;
 import org.lanternpowered.server.block.provider.CachedSimpleObjectProvider;
 import org.lanternpowered.server.block.provider.ConstantObjectProvider;
 import org.lanternpowered.server.block.LanternBlockSnapshot;
@@ -69,6 +67,8 @@
 import org.lanternpowered.server.world.extent.ExtentViewDownsize;
 import org.lanternpowered.server.world.extent.worker.LanternMutableBiomeVolumeWorker;
 import org.lanternpowered.server.world.extent.worker.LanternMutableBlockVolumeWorker;
+import org.lanternpowered.server.world.light.LanternLightEngine;
+import org.lanternpowered.server.world.light.LightPropagator;
 import org.spongepowered.api.block.BlockSnapshot;
 import org.spongepowered.api.block.BlockState;
 import org.spongepowered.api.block.BlockType;
@@ -90,6 +90,7 @@
 import org.spongepowered.api.entity.Entity;
 import org.spongepowered.api.entity.EntitySnapshot;
 import org.spongepowered.api.entity.EntityType;
+import org.spongepowered.api.entity.living.player.Player;
 import org.spongepowered.api.event.cause.Cause;
 import org.spongepowered.api.item.inventory.ItemStack;
 import org.spongepowered.api.util.AABB;
@@ -131,6 +132,14 @@ public static long key(int cx, int cz) {
         return ((long) cx & 0x3ffffff) << 38 | ((long) cz & 0x3ffffff);
     }
 
+    public static int keyX(long key) {
+        return (int) (key >> 38);
+    }
+
+    public static int keyZ(long key) {
+        return (int) (key << 38 >> 38);
+    }
+
     // The size of a chunk section in the x, y and z directions
     public static final int CHUNK_SECTION_SIZE = 16;
     // The volume of a chunk and a chunk section (xz plane)
@@ -146,6 +155,21 @@ public static long key(int cx, int cz) {
     // A bit mask that can be used to get ALL the chunk sections
     public static final int ALL_SECTIONS_BIT_MASK = (1 << CHUNK_SECTIONS) - 1;
 
+    // The readers that are used to access the chunk sections, these are
+    // stateless so that no lambdas have to be allocated for every read
+
+    private static final ConcurrentObjectArray.ShortReader<ChunkSection> TYPE_READER =
+            (section, index) -> section == null ? 0 : section.types.get(index);
+
+    private static final ConcurrentObjectArray.ByteReader<ChunkSection> BLOCK_LIGHT_READER =
+            (section, index) -> section == null ? 0 : section.lightFromBlock.get(index);
+
+    private static final ConcurrentObjectArray.ByteReader<ChunkSection> SKY_LIGHT_READER =
+            (section, index) -> section == null ? 15 : section.lightFromSky.get(index);
+
+    private static final ConcurrentObjectArray.ObjectReader<ChunkSection, LanternTileEntity> TILE_ENTITY_READER =
+            (section, index) -> section == null ? null : section.tileEntities.get((short) index);
+
     public static final class TrackerData {
 
         private int notifierId;
@@ -174,13 +198,7 @@ public static class ChunkSection {
         /**
          * The block types array.
          */
-        final short[] types;
-
-        /**
-         * The amount of blocks per block type/state in
-         * this chunk section.
-         */
-        final Short2ShortMap typesCountMap = new Short2ShortOpenHashMap();
+        final ChunkBlockStateArray types;
 
         /**
          * The light level arrays.
@@ -196,31 +214,22 @@ public static class ChunkSection {
         int nonAirCount;
 
         ChunkSection() {
-            this(null, null);
+            this.types = new ChunkBlockStateArray(CHUNK_SECTION_VOLUME);
+            this.tileEntities = new Short2ObjectOpenHashMap<>();
+            this.lightFromBlock = new NibbleArray(CHUNK_SECTION_VOLUME);
+            this.lightFromSky = new NibbleArray(CHUNK_SECTION_VOLUME);
         }
 
         ChunkSection(short[] types) {
-            this(checkNotNull(types, "types"), null);
+            this(checkNotNull(types, "types"), -1);
         }
 
         ChunkSection(short[] types, int nonAirCount) {
-            this(checkNotNull(types, "types"), (Integer) nonAirCount);
-        }
-
-        private ChunkSection(@Nullable short[] types, @Nullable Integer nonAirCount) {
-            if (types != null) {
-                checkArgument(types.length == CHUNK_SECTION_VOLUME, "Type array length mismatch: Got "
-                        + types.length + ", but expected " + CHUNK_SECTION_VOLUME);
-                this.types = new short[CHUNK_SECTION_VOLUME];
-                System.arraycopy(types, 0, this.types, 0, CHUNK_SECTION_VOLUME);
-                if (nonAirCount == null) {
-                    this.recountTypes();
-                } else {
-                    this.nonAirCount = nonAirCount;
-                }
-            } else {
-                this.types = new short[CHUNK_SECTION_VOLUME];
-            }
+            checkNotNull(types, "types");
+            checkArgument(types.length == CHUNK_SECTION_VOLUME, "Type array length mismatch: Got "
+                    + types.length + ", but expected " + CHUNK_SECTION_VOLUME);
+            this.types = new ChunkBlockStateArray(types);
+            this.nonAirCount = nonAirCount == -1 ? this.types.countNonAir() : nonAirCount;
             this.tileEntities = new Short2ObjectOpenHashMap<>();
             this.lightFromBlock = new NibbleArray(CHUNK_SECTION_VOLUME);
             this.lightFromSky = new NibbleArray(CHUNK_SECTION_VOLUME);
@@ -228,8 +237,13 @@ private ChunkSection(@Nullable short[] types, @Nullable Integer nonAirCount) {
 
         public ChunkSection(short[] types, NibbleArray lightFromSky, NibbleArray lightFromBlock,
                 Short2ObjectMap<LanternTileEntity> tileEntities) {
-            checkArgument(types.length == CHUNK_SECTION_VOLUME, "Type array length mismatch: Got "
-                    + types.length + ", but expected " + CHUNK_SECTION_VOLUME);
+            this(new ChunkBlockStateArray(checkTypesLength(types)), lightFromSky, lightFromBlock, tileEntities);
+        }
+
+        public ChunkSection(ChunkBlockStateArray types, NibbleArray lightFromSky, NibbleArray lightFromBlock,
+                Short2ObjectMap<LanternTileEntity> tileEntities) {
+            checkArgument(types.getCapacity() == CHUNK_SECTION_VOLUME, "Type array length mismatch: Got "
+                    + types.getCapacity() + ", but expected " + CHUNK_SECTION_VOLUME);
             checkArgument(lightFromSky.length() == CHUNK_SECTION_VOLUME, "Sky light nibble array length mismatch: Got "
                     + lightFromSky.length() + ", but expected " + CHUNK_SECTION_VOLUME);
             checkArgument(lightFromSky.length() == CHUNK_SECTION_VOLUME, "Block light nibble array length mismatch: Got "
@@ -240,7 +254,13 @@ public ChunkSection(short[] types, NibbleArray lightFromSky, NibbleArray lightFr
             this.types = types;
 
             // Count the non air blocks.
-            recountTypes();
+            this.nonAirCount = types.countNonAir();
+        }
+
+        private static short[] checkTypesLength(short[] types) {
+            checkArgument(types.length == CHUNK_SECTION_VOLUME, "Type array length mismatch: Got "
+                    + types.length + ", but expected " + CHUNK_SECTION_VOLUME);
+            return types;
         }
 
         /**
@@ -256,36 +276,44 @@ public static int index(int x, int y, int z) {
         }
 
         /**
-         * Recounts the amount of non air blocks.
+         * Gets the block type at the given index.
+         *
+         * @param index The index
+         * @return The block type
          */
-        private void recountTypes() {
-            this.nonAirCount = 0;
-            this.typesCountMap.clear();
-            for (short type : this.types) {
-                if (type != 0) {
-                    this.nonAirCount++;
-                    this.typesCountMap.put(type, (short) (this.typesCountMap.get(type) + 1));
-                }
-            }
+        public short getType(int index) {
+            return this.types.get(index);
+        }
+
+        /**
+         * Gets the sky light array.
+         *
+         * @return The sky light
+         */
+        public NibbleArray getLightFromSky() {
+            return this.lightFromSky;
+        }
+
+        /**
+         * Gets the block light array.
+         *
+         * @return The block light
+         */
+        public NibbleArray getLightFromBlock() {
+            return this.lightFromBlock;
         }
 
         private ChunkSectionSnapshot asSnapshot(boolean skylight) {
-            final Short2ShortMap typeCounts = new Short2ShortOpenHashMap(this.typesCountMap);
-            final int count = this.types.length - this.nonAirCount;
-            if (count > 0) {
-                typeCounts.put((short) 0, (short) count);
-            }
-            return new ChunkSectionSnapshot(this.types.clone(), typeCounts, new Short2ObjectOpenHashMap<>(this.tileEntities),
+            return new ChunkSectionSnapshot(this.types.copy(), new Short2ObjectOpenHashMap<>(this.tileEntities),
                     this.lightFromBlock.getPackedArray(), skylight ? this.lightFromSky.getPackedArray() : null);
         }
     }
 
     public static class ChunkSectionSnapshot {
 
-        // The block types array.
-        public final short[] types;
-        // The types count map.
-        public final Short2ShortMap typesCountMap;
+        // The block types array, this is a copy
+        // and can be streamed directly to the client
+        public final ChunkBlockStateArray types;
         // The tile entities
         public final Short2ObjectMap<LanternTileEntity> tileEntities;
 
@@ -293,11 +321,10 @@ public static class ChunkSectionSnapshot {
         @Nullable public final byte[] lightFromSky;
         public final byte[] lightFromBlock;
 
-        private ChunkSectionSnapshot(short[] types, Short2ShortMap typesCountMap, Short2ObjectMap<LanternTileEntity> tileEntities,
+        private ChunkSectionSnapshot(ChunkBlockStateArray types, Short2ObjectMap<LanternTileEntity> tileEntities,
                 byte[] lightFromBlock, @Nullable byte[] lightFromSky) {
             this.tileEntities = tileEntities;
             this.lightFromBlock = lightFromBlock;
-            this.typesCountMap = typesCountMap;
             this.lightFromSky = lightFromSky;
             this.types = types;
         }
@@ -379,6 +406,12 @@ private ChunkSectionSnapshot(short[] types, Short2ShortMap typesCountMap, Short2
     // The state of the lock
     volatile LockState lockState = LockState.NONE;
 
+    // The amount of modifications that were made to this chunk
+    private final AtomicInteger modificationCount = new AtomicInteger();
+
+    // The modification count at the moment of the last save
+    private volatile int savedModificationCount;
+
     private boolean dirtyBlockActions;
 
     // Whether the light in this chunk is populated
@@ -512,18 +545,168 @@ public void initializeLight() {
         if (this.lightPopulated) { // Fast fail
             return;
         }
-        for (int y = 0; y < CHUNK_SECTIONS; y++) {
-            ChunkSection section = this.chunkSections.getRawObjects()[y];
-            if (section != null) {
-                // Just fill the light array for now
-                this.chunkSections.getRawObjects()[y].lightFromSky.fill((byte) 15);
+        LanternLightEngine.relightChunk(this, this.world.getDimension().hasSky());
+        this.lightPopulated = true;
+    }
+
+    /**
+     * Gets the {@link ChunkSection} at the given index without acquiring
+     * any locks. This should only be used by the light engine, which only
+     * modifies the light arrays.
+     *
+     * @param index The section index
+     * @return The chunk section, or {@code null} if the section is empty
+     */
+    @Nullable
+    public ChunkSection getRawSection(int index) {
+        return this.chunkSections == null ? null : this.chunkSections.getRawObjects()[index];
+    }
+
+    /**
+     * Gets the {@link ChunkSection} at the given index, a empty section will be
+     * created if it doesn't exist yet. This allows the light to be stored in
+     * sections that don't contain any blocks.
+     *
+     * @param index The section index
+     * @return The chunk section, or {@code null} if the chunk isn't initialized
+     */
+    @Nullable
+    public ChunkSection getOrCreateRawSection(int index) {
+        final ConcurrentObjectArray<ChunkSection> chunkSections = this.chunkSections;
+        if (chunkSections == null) {
+            return null;
+        }
+        ChunkSection section = chunkSections.getRawObjects()[index];
+        if (section == null) {
+            chunkSections.work(index, section1 -> section1 == null ? newSection(index) : section1);
+            section = chunkSections.getRawObjects()[index];
+        }
+        return section;
+    }
+
+    /**
+     * Creates a new empty {@link ChunkSection} for the given index. The sky light
+     * is initialized from the nearest section above, as if it traveled down
+     * through the air, so that the section doesn't start without any sky light.
+     *
+     * @param index The section index
+     * @return The chunk section
+     */
+    private ChunkSection newSection(int index) {
+        final ChunkSection section = new ChunkSection();
+        if (!this.world.getDimension().hasSky()) {
+            return section;
+        }
+        final ChunkSection[] sections = this.chunkSections.getRawObjects();
+        int aboveIndex = index + 1;
+        while (aboveIndex < sections.length && sections[aboveIndex] == null) {
+            aboveIndex++;
+        }
+        final ChunkSection above = aboveIndex < sections.length ? sections[aboveIndex] : null;
+        // The amount of air blocks between the section above and the bottom of the new section
+        final int skipped = (aboveIndex - index - 1) * 16;
+        for (int z = 0; z < 16; z++) {
+            for (int x = 0; x < 16; x++) {
+                int light = above == null ? LightPropagator.MAX_LIGHT :
+                        above.lightFromSky.get(ChunkSection.index(x, 0, z));
+                // Full sky light travels downwards through air without any loss
+                if (light != LightPropagator.MAX_LIGHT) {
+                    light = Math.max(0, light - skipped);
+                }
+                for (int y = 15; y >= 0 && light > 0; y--) {
+                    if (light != LightPropagator.MAX_LIGHT) {
+                        light--;
+                    }
+                    section.lightFromSky.set(ChunkSection.index(x, y, z), (byte) light);
+                }
             }
         }
-        this.lightPopulated = true;
+        return section;
     }
 
     public void setLightPopulated(boolean lightPopulated) {
-        this.lightPopulated = lightPopulated;
+        if (this.lightPopulated != lightPopulated) {
+            this.lightPopulated = lightPopulated;
+            markDirty();
+        }
+    }
+
+    /**
+     * Marks this chunk as modified, it will be
+     * written the next time that it's saved.
+     */
+    public void markDirty() {
+        this.modificationCount.incrementAndGet();
+    }
+
+    /**
+     * Gets the amount of modifications that were made to this chunk.
+     *
+     * @return The modification count
+     */
+    public int getModificationCount() {
+        return this.modificationCount.get();
+    }
+
+    /**
+     * Marks this chunk as saved up to the given modification
+     * count, see {@link #getModificationCount()}.
+     *
+     * @param modificationCount The modification count of the saved data
+     */
+    public void markSaved(int modificationCount) {
+        this.savedModificationCount = modificationCount;
+    }
+
+    /**
+     * Gets whether this chunk should be saved. Changes to the entities
+     * and tile entities are tracked through {@link LanternEntity#markChanged()}
+     * and {@link LanternTileEntity#markChanged()}, but not every state change
+     * is covered yet, so chunks that contain tile entities or non player
+     * entities are always considered dirty.
+     *
+     * @return Whether the chunk is dirty
+     */
+    public boolean isDirty() {
+        if (this.modificationCount.get() != this.savedModificationCount) {
+            return true;
+        }
+        for (Set<LanternEntity> entities : this.entities) {
+            for (LanternEntity entity : entities) {
+                if (!(entity instanceof Player)) {
+                    return true;
+                }
+            }
+        }
+        final ConcurrentObjectArray<ChunkSection> chunkSections = this.chunkSections;
+        if (chunkSections != null) {
+            for (ChunkSection section : chunkSections.getRawObjects()) {
+                if (section != null && !section.tileEntities.isEmpty()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Resets the changed states of the entities and
+     * tile entities, called once the chunk is loaded.
+     */
+    void resetChangedStates() {
+        for (Set<LanternEntity> entities : this.entities) {
+            for (LanternEntity entity : entities) {
+                entity.pollChanged();
+            }
+        }
+        final ConcurrentObjectArray<ChunkSection> chunkSections = this.chunkSections;
+        if (chunkSections != null) {
+            for (ChunkSection section : chunkSections.getRawObjects()) {
+                if (section != null) {
+                    section.tileEntities.values().forEach(LanternTileEntity::pollChanged);
+                }
+            }
+        }
     }
 
     public boolean isLightPopulated() {
@@ -613,7 +796,7 @@ public int getHighestYAt(int x, int z) {
                         // Loop down in the section until we may find a
                         // non empty block
                         while (--y >= 0) {
-                            if (section.types[(y << 8) | index] != 0) {
+                            if (section.types.get((y << 8) | index) != 0) {
                                 values0[0] = j << 4 | y;
                                 values1[0] = true;
                                 break;
@@ -681,7 +864,7 @@ private void automaticHeightMap() {
                         // Loop down in the section until we may find a
                         // non empty block
                         while (--y >= 0) {
-                            if (section.types[(y << 8) | index] != 0) {
+                            if (section.types.get((y << 8) | index) != 0) {
                                 finished[index] = true;
                                 heightMap[index] = (byte) y;
                                 if (++values0[0] >= CHUNK_AREA) {
@@ -714,7 +897,10 @@ private void automaticHeightMap() {
     }
 
     public void setPopulated(boolean populated) {
-        this.populated = populated;
+        if (this.populated != populated) {
+            this.populated = populated;
+            markDirty();
+        }
     }
 
     /**
@@ -778,6 +964,7 @@ public void setBiomes(short[] biomes) {
         } finally {
             this.biomesLock.unlockWrite(stamp);
         }
+        markDirty();
     }
 
     /**
@@ -825,6 +1012,7 @@ public void setBiomeId(int x, int y, int z, short biome) {
         } finally {
             this.biomesLock.unlockWrite(stamp);
         }
+        markDirty();
     }
 
     public short getType(Vector3i coordinates) {
@@ -844,12 +1032,7 @@ public short getType(int x, int y, int z) {
         if (!this.loaded) {
             return 0;
         }
-        return this.chunkSections.work(y >> 4, section -> {
-            if (section != null) {
-                return section.types[ChunkSection.index(x & 0xf, y & 0xf, z & 0xf)];
-            }
-            return (short) 0;
-        }, false);
+        return this.chunkSections.getShort(y >> 4, ChunkSection.index(x & 0xf, y & 0xf, z & 0xf), TYPE_READER);
     }
 
     @Override
@@ -888,25 +1071,14 @@ public boolean setBlock(int x, int y, int z, BlockState block, BlockChangeFlag f
                     return section;
                 }
                 // Create a new section
-                section = new ChunkSection();
+                section = newSection(y >> 4);
             }
             final int index = ChunkSection.index(rx, y & 0xf, rz);
-            final short oldType = section.types[index];
+            final short oldType = section.types.get(index);
             if (oldType == type1) {
                 return section;
             }
-            if (oldType != 0) {
-                short count = section.typesCountMap.get(oldType);
-                if (count > 0) {
-                    if (--count <= 0) {
-                        section.typesCountMap.remove(oldType);
-                    } else {
-                        section.typesCountMap.put(oldType, count);
-                    }
-                }
-            }
             if (type1 != 0) {
-                section.typesCountMap.put(type1, (short) (section.typesCountMap.get(type1) + 1));
                 if (oldType == 0) {
                     section.nonAirCount++;
                 }
@@ -951,7 +1123,7 @@ public boolean setBlock(int x, int y, int z, BlockState block, BlockChangeFlag f
             } else if (remove) {
                 section.tileEntities.remove((short) index);
             }
-            section.types[index] = type1;
+            section.types.set(index, type1);
             return section;
         });
 
@@ -970,6 +1142,7 @@ public boolean setBlock(int x, int y, int z, BlockState block, BlockChangeFlag f
         }
 
         if (changeData[0] != null) {
+            markDirty();
             this.world.getEventListener().onBlockChange(x, y, z, changeData[0], block);
         }
 
@@ -999,8 +1172,7 @@ public byte getBlockLight(int x, int y, int z) {
         if (!this.loaded) {
             return 0;
         }
-        return this.chunkSections.work(y >> 4, section -> section == null ? 0 :
-                section.lightFromBlock.get(ChunkSection.index(x & 0xf, y & 0xf, z & 0xf)), false);
+        return this.chunkSections.getByte(y >> 4, ChunkSection.index(x & 0xf, y & 0xf, z & 0xf), BLOCK_LIGHT_READER);
     }
 
     /**
@@ -1016,8 +1188,7 @@ public byte getSkyLight(int x, int y, int z) {
         if (!this.loaded) {
             return 15;
         }
-        return this.chunkSections.work(y >> 4, section -> section == null ? 15 :
-                section.lightFromSky.get(ChunkSection.index(x & 0xf, y & 0xf, z & 0xf)), false);
+        return this.chunkSections.getByte(y >> 4, ChunkSection.index(x & 0xf, y & 0xf, z & 0xf), SKY_LIGHT_READER);
     }
 
     @Override
@@ -1112,7 +1283,13 @@ public void pulse() {
             // TODO: Update
         }
 
-        getTileEntities().forEach(tileEntity -> ((LanternTileEntity) tileEntity).pulse());
+        getTileEntities().forEach(tileEntity -> {
+            final LanternTileEntity tileEntity1 = (LanternTileEntity) tileEntity;
+            tileEntity1.pulse();
+            if (tileEntity1.pollChanged()) {
+                markDirty();
+            }
+        });
     }
 
     @Override
@@ -1178,6 +1355,7 @@ public void setCreator(int x, int y, int z, @Nullable UUID uuid) {
             }
             trackerData.creatorId = index;
         }, true);
+        markDirty();
     }
 
     @Override
@@ -1201,6 +1379,7 @@ public void setNotifier(int x, int y, int z, @Nullable UUID uuid) {
             }
             trackerData.notifierId = index;
         }, true);
+        markDirty();
     }
 
     @Override
@@ -1367,11 +1546,15 @@ void buryEntities() {
     }
 
     public void addEntity(LanternEntity entity, int section) {
-        this.entities[section].add(entity);
+        if (this.entities[section].add(entity)) {
+            markDirty();
+        }
     }
 
     public void removeEntity(LanternEntity entity, int section) {
-        this.entities[section].remove(entity);
+        if (this.entities[section].remove(entity)) {
+            markDirty();
+        }
     }
 
     @Override
@@ -1466,18 +1649,20 @@ public Collection<TileEntity> getTileEntities(Predicate<TileEntity> filter) {
     public Optional<TileEntity> getTileEntity(int x, int y, int z) {
         checkVolumeBounds(x, y, z);
         final short index = (short) ChunkSection.index(x & 0xf, y & 0xf, z & 0xf);
-        return this.chunkSections.work(y >> 4, chunkSection -> {
-            if (chunkSection == null) {
-                return Optional.empty();
-            }
-            final LanternTileEntity tileEntity = chunkSection.tileEntities.get(index);
-            // Remove invalid tile entities
-            if (tileEntity != null && !tileEntity.isValid()) {
+        final LanternTileEntity tileEntity = this.chunkSections.get(y >> 4, index, TILE_ENTITY_READER);
+        if (tileEntity == null) {
+            return Optional.empty();
+        } else if (tileEntity.isValid()) {
+            return Optional.of(tileEntity);
+        }
+        // Remove invalid tile entities, only lock for writing in this case
+        this.chunkSections.work(y >> 4, chunkSection -> {
+            if (chunkSection != null && chunkSection.tileEntities.get(index) == tileEntity) {
                 chunkSection.tileEntities.remove(index);
-                return Optional.empty();
+                markDirty();
             }
-            return Optional.ofNullable(tileEntity);
         }, true);
+        return Optional.empty();
     }
 
     private void checkAreaBounds(int x, int z) {
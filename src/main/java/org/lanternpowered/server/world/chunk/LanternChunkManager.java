@@ -41,7 +41,6 @@
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.ListMultimap;
-import com.google.common.collect.MapMaker;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import com.google.inject.Inject;
@@ -54,7 +53,7 @@
 import org.lanternpowered.server.game.registry.type.block.BlockRegistryModule;
 import org.lanternpowered.server.plugin.InternalPluginsInfo;
 import org.lanternpowered.server.util.FastSoftThreadLocal;
-import org.lanternpowered.server.util.ThreadHelper;
+import org.lanternpowered.server.util.concurrent.ConcurrentLong2ObjectMap;
 import org.lanternpowered.server.util.gen.biome.ObjectArrayImmutableBiomeBuffer;
 import org.lanternpowered.server.util.gen.biome.ShortArrayMutableBiomeBuffer;
 import org.lanternpowered.server.util.gen.block.AbstractMutableBlockBuffer;
@@ -94,6 +93,8 @@
 import org.spongepowered.api.world.gen.WorldGenerator;
 
 import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -101,19 +102,13 @@
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -122,28 +117,36 @@
 
 public final class LanternChunkManager {
 
-    // The maximum amount of threads that can load chunks asynchronously
-    private static final int CHUNK_LOADING_MAX_POOL_SIZE = 10;
-
-    // The core amount of threads that can load chunks asynchronously
-    private static final int CHUNK_LOADING_CORE_POOL_SIZE = 4;
-
     // The delay to unload chunks that are not forced,
     // loaded through loadChunk methods
     private static final long UNLOAD_DELAY = TimeUnit.SECONDS.toMillis(1);
 
-    // All the attached tickets mapped by the forced chunk coordinates
-    private final Map<Vector2i, Set<ChunkLoadingTicket>> ticketsByPos = new ConcurrentHashMap<>();
+    // All the attached tickets mapped by the forced chunk keys
+    private final ConcurrentLong2ObjectMap<Set<ChunkLoadingTicket>> ticketsByPos = new ConcurrentLong2ObjectMap<>();
 
     // All the loading tickets that are still usable
     private final Set<LanternLoadingTicket> tickets = Sets.newConcurrentHashSet();
 
-    // All the chunks that are loaded into the server
-    private final Map<Vector2i, LanternChunk> loadedChunks = new ConcurrentHashMap<>();
+    // All the chunks that are loaded into the server mapped by the chunk keys
+    private final ConcurrentLong2ObjectMap<LanternChunk> loadedChunks = new ConcurrentLong2ObjectMap<>();
 
     // A cache that can be used to get chunks that weren't unloaded
     // so much after all, because of active references to the chunk
-    private final Map<Vector2i, LanternChunk> reusableChunks = new MapMaker().weakValues().makeMap();
+    private final ConcurrentLong2ObjectMap<ReusableChunkReference> reusableChunks = new ConcurrentLong2ObjectMap<>();
+
+    // The queue that collects the references of reusable chunks that were
+    // garbage collected, they will be removed from the cache on every pulse
+    private final ReferenceQueue<LanternChunk> reusableChunksQueue = new ReferenceQueue<>();
+
+    private static final class ReusableChunkReference extends WeakReference<LanternChunk> {
+
+        private final long key;
+
+        private ReusableChunkReference(LanternChunk chunk, ReferenceQueue<LanternChunk> queue) {
+            super(chunk, queue);
+            this.key = chunk.getKey();
+        }
+    }
 
     // A set which contains chunks that are pending for removal,
     // chunks loaded by loadChunk may not have been locked in the process,
@@ -154,33 +157,32 @@ public final class LanternChunkManager {
 
     private class UnloadingChunkEntry {
 
-        final Vector2i coords;
+        final int x;
+        final int z;
+        final long key;
         final long time;
 
-        private UnloadingChunkEntry(Vector2i coords) {
+        private UnloadingChunkEntry(int x, int z) {
             this.time = System.currentTimeMillis();
-            this.coords = coords;
+            this.key = LanternChunk.key(x, z);
+            this.x = x;
+            this.z = z;
         }
 
         @Override
         public boolean equals(Object obj) {
-            return obj instanceof UnloadingChunkEntry && ((UnloadingChunkEntry) obj).coords.equals(this.coords);
+            return obj instanceof UnloadingChunkEntry && ((UnloadingChunkEntry) obj).key == this.key;
         }
 
         @Override
         public int hashCode() {
-            return this.coords.hashCode();
+            return Long.hashCode(this.key);
         }
     }
 
-    // All the futures that will cause chunk loading/unloading, they are stored
+    // All the tasks that will cause chunk loading/unloading, they are stored
     // here to allow them to be cancelled
-    private final Map<Vector2i, LanternChunkQueueTask> chunkQueueTasks = new ConcurrentHashMap<>();
-
-    // The chunk load executor
-    private final ThreadPoolExecutor chunkTaskExecutor = new ThreadPoolExecutor(
-            CHUNK_LOADING_CORE_POOL_SIZE, CHUNK_LOADING_MAX_POOL_SIZE, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
-            ThreadHelper.newFastThreadLocalThreadFactory());
+    private final ConcurrentLong2ObjectMap<ChunkLoadQueue.Task> chunkQueueTasks = new ConcurrentLong2ObjectMap<>();
 
     // Some objects that can be used in {@link Chunk} population.
     private class PopulationData {
@@ -189,84 +191,18 @@ private class PopulationData {
         private final ChunkLoadingTicket lockTicket = new InternalLoadingTicket();
     }
 
-    private LanternChunkQueueTask queueTask(Vector2i coords, Runnable runnable) {
-        final LanternChunkQueueTask task = new LanternChunkQueueTask(coords, runnable);
-        task.setFuture(this.chunkTaskExecutor.submit(task));
-        return task;
-    }
-
-    private class LanternChunkQueueTask implements Callable<Void> {
+    private class LanternChunkUnloadTask implements Runnable {
 
+        // The coordinates of the chunk
         private final Vector2i coords;
-        // The runnable that should be executed
-        private final Runnable runnable;
-        // The future attached to this callable
-        @Nullable private Future<Void> future;
 
-        LanternChunkQueueTask(Vector2i coords, Runnable runnable) {
-            this.runnable = runnable;
+        private LanternChunkUnloadTask(Vector2i coords) {
             this.coords = coords;
         }
 
-        public void setFuture(Future<Void> future) {
-            this.future = future;
-            synchronized (this) {
-                notifyAll();
-            }
-        }
-
-        @Override
-        public Void call() throws Exception {
-            // Wait for the future to be set, in case it's getting directly executed
-            synchronized (this) {
-                while (this.future == null) {
-                    try {
-                        wait();
-                    } catch (InterruptedException ignored) {
-                    }
-                }
-            }
-            this.runnable.run();
-            return null;
-        }
-
-        boolean cancel() {
-            // We have to wait for the future to be set before we
-            // can cancel it, shouldn't be long
-            synchronized (this) {
-                while (this.future == null) {
-                    try {
-                        wait();
-                    } catch (InterruptedException ignored) {
-                    }
-                }
-            }
-            return this.future.cancel(false);
-        }
-
-        @Override
-        public boolean equals(Object other) {
-            return other instanceof LanternChunkQueueTask && ((LanternChunkQueueTask) other).coords.equals(this.coords);
-        }
-
-        @Override
-        public int hashCode() {
-            return this.coords.hashCode();
-        }
-    }
-
-    private class LanternChunkUnloadTask implements Runnable {
-
-        // The callable that is bound to the unloading task
-        private final LanternChunkQueueTask callable;
-
-        private LanternChunkUnloadTask(LanternChunkQueueTask callable) {
-            this.callable = callable;
-        }
-
         @Override
         public void run() {
-            unload0(this.callable.coords, () -> Cause.source(world).build(), false);
+            unload0(this.coords, () -> Cause.source(world).build(), false);
         }
     }
 
@@ -286,12 +222,12 @@ public void run() {
     }
 
     private void doChunkLoad(Vector2i coords) {
-        final Set<ChunkLoadingTicket> tickets = this.ticketsByPos.get(coords);
+        final Set<ChunkLoadingTicket> tickets = this.ticketsByPos.get(key(coords));
         if (tickets == null) {
             return;
         }
         // Chunk may be null if's already being loaded by a different thread.
-        getOrCreateChunk(coords, () -> {
+        getOrCreateChunk(coords.getX(), coords.getY(), () -> {
             // Build the cause only if the chunk isn't already loaded
             return Cause.source(this.world).named("tickets", tickets.toArray(new Object[tickets.size()])).build();
         }, true, false);
@@ -330,6 +266,15 @@ private class GenerationBuffers {
     // The world generator
     private volatile WorldGenerator worldGenerator;
 
+    // The queue that will write the chunks asynchronously
+    private final ChunkSaveQueue saveQueue;
+
+    // The queue that will load the chunks asynchronously
+    private final ChunkLoadQueue loadQueue;
+
+    // The cause that is used if none is provided
+    private final Supplier<Cause> defaultCause = () -> Cause.source(this.world).build();
+
     @Inject
     public LanternChunkManager(
             @Named(InternalPluginsInfo.Minecraft.IDENTIFIER) PluginContainer minecraftPluginContainer,
@@ -345,6 +290,12 @@ public LanternChunkManager(
         this.worldConfig = worldConfig;
         this.world = world;
         this.game = game;
+        this.saveQueue = new ChunkSaveQueue(chunkIOService, game.getLogger());
+        this.loadQueue = new ChunkLoadQueue(game.getLogger());
+    }
+
+    private static long key(Vector2i coords) {
+        return LanternChunk.key(coords.getX(), coords.getY());
     }
 
     public LanternWorld getWorld() {
@@ -355,6 +306,24 @@ public ChunkIOService getChunkIOService() {
         return this.chunkIOService;
     }
 
+    /**
+     * Gets the {@link ChunkLoadQueue} of this chunk manager,
+     * which provides the chunk loading metrics.
+     *
+     * @return The chunk load queue
+     */
+    public ChunkLoadQueue getLoadQueue() {
+        return this.loadQueue;
+    }
+
+    /**
+     * Updates the priorities of the queued chunk loads, this should
+     * be called when a player moves to a different chunk.
+     */
+    public void updateLoadPriorities() {
+        this.loadQueue.updateObservers(this.world.getPlayers());
+    }
+
     /**
      * Sets the generator of the world (chunk manager).
      * 
@@ -381,7 +350,7 @@ public WorldGenerator getWorldGenerator() {
      * @return has ticket
      */
     public boolean hasTicket(Vector2i coords) {
-        return this.ticketsByPos.containsKey(checkNotNull(coords, "coords"));
+        return this.ticketsByPos.containsKey(key(checkNotNull(coords, "coords")));
     }
 
     /**
@@ -393,7 +362,7 @@ public boolean hasTicket(Vector2i coords) {
      * @return has ticket
      */
     public boolean hasTicket(int x, int z) {
-        return this.ticketsByPos.containsKey(new Vector2i(x, z));
+        return this.ticketsByPos.containsKey(LanternChunk.key(x, z));
     }
 
     /**
@@ -404,13 +373,12 @@ public boolean hasTicket(int x, int z) {
     public ImmutableSetMultimap<Vector3i, LoadingTicket> getForced() {
         final ImmutableSetMultimap.Builder<Vector3i, LoadingTicket> builder =
                 ImmutableSetMultimap.builder();
-        for (Entry<Vector2i, Set<ChunkLoadingTicket>> en : this.ticketsByPos.entrySet()) {
-            final Vector2i pos0 = en.getKey();
-            final Vector3i pos = new Vector3i(pos0.getX(), 0, pos0.getY());
-            for (ChunkLoadingTicket ticket : en.getValue()) {
+        this.ticketsByPos.forEach((key, tickets) -> {
+            final Vector3i pos = new Vector3i(LanternChunk.keyX(key), 0, LanternChunk.keyZ(key));
+            for (ChunkLoadingTicket ticket : tickets) {
                 builder.put(pos, ticket);
             }
-        }
+        });
         return builder.build();
     }
 
@@ -564,6 +532,16 @@ public Optional<PlayerEntityLoadingTicket> createPlayerEntityTicket(Object plugi
         return Optional.of(ticket);
     }
 
+    /**
+     * Gets whether there are chunks loaded or being
+     * loaded, this includes the forced chunks.
+     *
+     * @return Has loaded chunks
+     */
+    public boolean hasLoadedChunks() {
+        return !this.loadedChunks.isEmpty();
+    }
+
     /**
      * Gets a immutable set with all the loaded chunks.
      * 
@@ -582,26 +560,27 @@ public ImmutableSet<Chunk> getLoadedChunks() {
      */
     @Nullable
     public LanternChunk getChunk(Vector2i coords) {
-        return getChunk(coords, true);
+        return getChunk(key(checkNotNull(coords, "coords")), true);
     }
 
     @Nullable
     public LanternChunk getChunkIfLoaded(Vector2i coords) {
-        final LanternChunk chunk = this.loadedChunks.get(checkNotNull(coords, "coords"));
-        if (chunk != null && !chunk.loaded) {
-            return null;
-        }
-        return chunk;
+        checkNotNull(coords, "coords");
+        return getChunkIfLoaded(coords.getX(), coords.getY());
     }
 
     @Nullable
     public LanternChunk getChunkIfLoaded(int x, int z) {
-        return getChunkIfLoaded(new Vector2i(x, z));
+        final LanternChunk chunk = this.loadedChunks.get(LanternChunk.key(x, z));
+        if (chunk != null && !chunk.loaded) {
+            return null;
+        }
+        return chunk;
     }
 
     @Nullable
-    private LanternChunk getChunk(Vector2i coords, boolean wait) {
-        final LanternChunk chunk = this.loadedChunks.get(checkNotNull(coords, "coords"));
+    private LanternChunk getChunk(long key, boolean wait) {
+        final LanternChunk chunk = this.loadedChunks.get(key);
         if (wait && chunk != null && !chunk.loaded &&
                 chunk.lockState == LanternChunk.LockState.LOADING) {
             // Wait for the chunk to finish loading
@@ -619,7 +598,7 @@ private LanternChunk getChunk(Vector2i coords, boolean wait) {
      */
     @Nullable
     public LanternChunk getChunk(int x, int z) {
-        return getChunk(new Vector2i(x, z));
+        return getChunk(LanternChunk.key(x, z), true);
     }
 
     /**
@@ -645,7 +624,7 @@ public LanternChunk getOrLoadChunk(int x, int z) {
      * @return the chunk
      */
     public LanternChunk getOrCreateChunk(int x, int z, boolean generate) {
-        return getOrCreateChunk(x, z, () -> Cause.source(this.world).build(), generate);
+        return getOrCreateChunk(x, z, this.defaultCause, generate);
     }
 
     /**
@@ -657,7 +636,7 @@ public LanternChunk getOrCreateChunk(int x, int z, boolean generate) {
      * @return the chunk
      */
     public LanternChunk getOrCreateChunk(int x, int z, Supplier<Cause> cause, boolean generate) {
-        return getOrCreateChunk(new Vector2i(x, z), cause, generate);
+        return getOrCreateChunk(x, z, cause, generate, true);
     }
 
     /**
@@ -670,36 +649,39 @@ public LanternChunk getOrCreateChunk(int x, int z, Supplier<Cause> cause, boolea
      * @return the chunk
      */
     public LanternChunk getOrCreateChunk(Vector2i coords, Supplier<Cause> cause, boolean generate) {
-        return getOrCreateChunk(coords, cause, generate, true);
+        checkNotNull(coords, "coords");
+        return getOrCreateChunk(coords.getX(), coords.getY(), cause, generate, true);
     }
 
     /**
      *
-     * @param coords the coordinates of the chunk to load
+     * @param x the x coordinate of the chunk to load
+     * @param z the z coordinate of the chunk to load
      * @param cause a supplier of the cause that triggered the chunk load
      * @param generate whether the chunk should be generated if not found
      * @param wait whether the current thread should wait for the loading to finish, this should only
      *             be internally used inside the chunk manager
      * @return the chunk
      */
-    private LanternChunk getOrCreateChunk(Vector2i coords, Supplier<Cause> cause, boolean generate, boolean wait) {
+    private LanternChunk getOrCreateChunk(int x, int z, Supplier<Cause> cause, boolean generate, boolean wait) {
         checkNotNull(cause, "cause");
-        LanternChunk chunk = this.loadedChunks.get(checkNotNull(coords, "coords"));
+        final long key = LanternChunk.key(x, z);
+        LanternChunk chunk = this.loadedChunks.get(key);
         // Chunk is already loaded
         if (chunk != null) {
-            if (!this.ticketsByPos.containsKey(coords)) {
-                this.pendingForUnload.add(new UnloadingChunkEntry(coords));
+            if (!this.ticketsByPos.containsKey(key)) {
+                this.pendingForUnload.add(new UnloadingChunkEntry(x, z));
             }
             return chunk;
         }
         // Lets try to visit the graveyard, try to retrieve chunks that where
         // not gc yet, allowing us to reuse them to avoid loading a new chunk
-        chunk = this.reusableChunks.get(coords);
+        final ReusableChunkReference reference = this.reusableChunks.remove(key);
+        chunk = reference == null ? null : reference.get();
         if (chunk != null) {
-            this.loadedChunks.put(coords, chunk);
-            this.reusableChunks.remove(coords);
-            if (!this.ticketsByPos.containsKey(coords)) {
-                this.pendingForUnload.add(new UnloadingChunkEntry(coords));
+            this.loadedChunks.put(key, chunk);
+            if (!this.ticketsByPos.containsKey(key)) {
+                this.pendingForUnload.add(new UnloadingChunkEntry(x, z));
             }
             this.game.getEventManager().post(SpongeEventFactory.createLoadChunkEvent(cause.get(), chunk));
             this.world.getEventListener().onLoadChunk(chunk);
@@ -708,14 +690,11 @@ private LanternChunk getOrCreateChunk(Vector2i coords, Supplier<Cause> cause, bo
             this.world.addEntities(chunk.getEntities());
             return chunk;
         }
-        boolean[] newChunk = new boolean[1];
+        final LanternChunk[] newChunk = new LanternChunk[1];
         // Finally, create a new chunk if needed
-        chunk = this.loadedChunks.computeIfAbsent(coords, coords0 -> {
-            newChunk[0] = true;
-            return new LanternChunk(this.world, coords0.getX(), coords0.getY());
-        });
+        chunk = this.loadedChunks.computeIfAbsent(key, key0 -> newChunk[0] = new LanternChunk(this.world, x, z));
         // This method call was too late
-        if (!newChunk[0]) {
+        if (chunk != newChunk[0]) {
             // If the chunk is already loaded, just return it
             if (chunk.loaded) {
                 return chunk;
@@ -734,8 +713,8 @@ private LanternChunk getOrCreateChunk(Vector2i coords, Supplier<Cause> cause, bo
         // Try to load the chunk
         load(chunk, cause, generate);
         this.world.addEntities(chunk.getEntities());
-        if (!this.ticketsByPos.containsKey(coords)) {
-            this.pendingForUnload.add(new UnloadingChunkEntry(coords));
+        if (!this.ticketsByPos.containsKey(key)) {
+            this.pendingForUnload.add(new UnloadingChunkEntry(x, z));
         }
         return chunk;
     }
@@ -787,7 +766,7 @@ private void tryPopulateSurroundingChunks(LanternChunk chunk, Cause cause) {
         final Random random = populationData.random;
         // TODO: Populating must be done in the sync thread???
         for (Vector2i side : sides) {
-            lockInternally(side, populationData.lockTicket);
+            lockInternally(key(side), populationData.lockTicket);
         }
         LanternChunk up = isChunkLoaded(sides[UP]);
         LanternChunk right = isChunkLoaded(sides[RIGHT]);
@@ -830,7 +809,7 @@ private void tryPopulateSurroundingChunks(LanternChunk chunk, Cause cause) {
             }
         }
         for (Vector2i side : sides) {
-            unlockInternally(side, populationData.lockTicket);
+            unlockInternally(key(side), populationData.lockTicket);
         }
     }
 
@@ -898,7 +877,7 @@ private void populateChunk(LanternChunk chunk, Cause cause, Random random) {
 
     @Nullable
     private LanternChunk isChunkLoaded(Vector2i pos) {
-        final LanternChunk chunk = getChunk(pos, false);
+        final LanternChunk chunk = getChunk(key(pos), false);
         return chunk != null && chunk.loaded ? chunk : null;
     }
 
@@ -944,15 +923,21 @@ private boolean load0(LanternChunk chunk, Supplier<Cause> cause, boolean generat
         boolean success = true;
         try {
             chunk.lockState = LanternChunk.LockState.LOADING;
-            final LanternChunkQueueTask task = this.chunkQueueTasks.remove(chunk.getCoords());
+            final ChunkLoadQueue.Task task = this.chunkQueueTasks.remove(chunk.getKey());
             // Try to cancel the task, the task will probably be ignored
             // because we are already locked
             if (task != null) {
                 task.cancel();
             }
             try {
+                // Wait for the chunk data to be written if the chunk was saved
+                // recently, otherwise could old data be read
+                this.saveQueue.awaitPending(chunk.getX(), chunk.getZ());
                 // Try to load the chunk
                 if (this.chunkIOService.read(chunk)) {
+                    // The chunk matches the data on the disk
+                    chunk.resetChangedStates();
+                    chunk.markSaved(chunk.getModificationCount());
                     this.game.getEventManager().post(SpongeEventFactory.createLoadChunkEvent(cause.get(), chunk));
                     this.world.getEventListener().onLoadChunk(chunk);
                     return true;
@@ -977,6 +962,8 @@ private boolean load0(LanternChunk chunk, Supplier<Cause> cause, boolean generat
                 this.game.getLogger().error("Error while generating chunk ({};{})", chunk.getX(), chunk.getZ(), e);
                 return success = false;
             }
+            // The generated chunk should always be saved
+            chunk.markDirty();
             // Try to populate the chunk
             tryPopulateSurroundingChunks(chunk, cause0);
             this.game.getEventManager().post(SpongeEventFactory.createLoadChunkEvent(cause0, chunk));
@@ -1170,17 +1157,26 @@ public ImmutableBlockVolume getImmutableBlockCopy() {
     }
 
     /**
-     * Attempts to save the specified chunk.
+     * Attempts to save the specified chunk. The chunk will only be
+     * saved if it's modified, the data will be written asynchronously.
      * 
      * @param chunk the chunk
      * @return true if it was successful
      */
     public boolean save(LanternChunk chunk) {
         checkNotNull(chunk, "chunk");
+        return save(chunk, true);
+    }
+
+    private boolean save(LanternChunk chunk, boolean force) {
+        // Unchanged chunks don't have to be written again
+        if (!chunk.isDirty()) {
+            return true;
+        }
         chunk.lock.lock();
         try {
             chunk.lockState = LanternChunk.LockState.SAVING;
-            return save0(chunk);
+            return save0(chunk, force);
         } finally {
             chunk.lockState = LanternChunk.LockState.NONE;
             chunk.lockCondition.signalAll();
@@ -1188,11 +1184,10 @@ public boolean save(LanternChunk chunk) {
         }
     }
 
-    private boolean save0(LanternChunk chunk) {
+    private boolean save0(LanternChunk chunk, boolean force) {
         try {
-            this.chunkIOService.write(chunk);
-            return true;
-        } catch (IOException e) {
+            return this.saveQueue.queue(chunk, force);
+        } catch (Exception e) {
             this.game.getLogger().error("Error while saving " + chunk, e);
         }
         return false;
@@ -1207,7 +1202,7 @@ private boolean save0(LanternChunk chunk) {
      * @return true if it was successful
      */
     public boolean unload(int x, int z, Supplier<Cause> cause) {
-        return unload(new Vector2i(x, z), cause);
+        return unload0(LanternChunk.key(x, z), cause, true);
     }
 
     /**
@@ -1218,12 +1213,12 @@ public boolean unload(int x, int z, Supplier<Cause> cause) {
      * @return true if it was successful
      */
     public boolean unload(Vector2i coords, Supplier<Cause> cause) {
-        return unload0(coords, cause, true);
+        return unload0(key(checkNotNull(coords, "coords")), cause, true);
     }
 
-    private boolean unload0(Vector2i coords, Supplier<Cause> cause, boolean wait) {
+    private boolean unload0(long key, Supplier<Cause> cause, boolean wait) {
         checkNotNull(cause, "cause");
-        final LanternChunk chunk = getChunk(checkNotNull(coords, "coords"));
+        final LanternChunk chunk = getChunk(key, true);
         if (chunk != null) {
             return unload0(chunk, cause, wait);
         }
@@ -1244,9 +1239,9 @@ public boolean unload(LanternChunk chunk, Supplier<Cause> cause) {
     }
 
     private boolean unload0(LanternChunk chunk, Supplier<Cause> cause, boolean wait) {
-        final Vector2i coords = chunk.getCoords();
+        final long key = chunk.getKey();
         // Forced chunks cannot be unloaded
-        if (this.ticketsByPos.containsKey(coords)) {
+        if (this.ticketsByPos.containsKey(key)) {
             chunk.unloadingSuccess = false;
             return false;
         }
@@ -1271,7 +1266,7 @@ private boolean unload0(LanternChunk chunk, Supplier<Cause> cause, boolean wait)
             if (!chunk.loaded) {
                 return true;
             }
-            final LanternChunkQueueTask task = this.chunkQueueTasks.remove(coords);
+            final ChunkLoadQueue.Task task = this.chunkQueueTasks.remove(key);
             // Try to cancel all the current tasks
             if (task != null) {
                 task.cancel();
@@ -1280,12 +1275,14 @@ private boolean unload0(LanternChunk chunk, Supplier<Cause> cause, boolean wait)
             this.game.getEventManager().post(SpongeEventFactory.createUnloadChunkEvent(cause.get(), chunk));
             this.world.getEventListener().onUnloadChunk(chunk);
             // Remove from the loaded chunks
-            this.loadedChunks.remove(coords);
+            this.loadedChunks.remove(key);
             // Move the chunk to the graveyard
-            this.reusableChunks.put(coords, chunk);
+            this.reusableChunks.put(key, new ReusableChunkReference(chunk, this.reusableChunksQueue));
             // Bury the entities
             chunk.buryEntities();
-            save0(chunk);
+            if (chunk.isDirty()) {
+                save0(chunk, true);
+            }
             return true;
         } finally {
             chunk.lockState = LanternChunk.LockState.NONE;
@@ -1300,23 +1297,21 @@ private boolean unload0(LanternChunk chunk, Supplier<Cause> cause, boolean wait)
      * method does not trigger the loading of a chunk but locks the chunk from
      * unloading.
      *
-     * @param coords the coordinates
+     * @param key the chunk key
      * @return whether it was previously empty
      */
-    private boolean lockInternally(Vector2i coords, ChunkLoadingTicket ticket) {
-        final boolean[] empty = new boolean[1];
-        this.ticketsByPos.computeIfAbsent(coords, coords0 -> {
-            empty[0] = true;
-            return Sets.newConcurrentHashSet();
-        }).add(ticket);
-        return empty[0];
+    private boolean lockInternally(long key, ChunkLoadingTicket ticket) {
+        final Set<ChunkLoadingTicket> newSet = Sets.newConcurrentHashSet();
+        final Set<ChunkLoadingTicket> set = this.ticketsByPos.computeIfAbsent(key, key0 -> newSet);
+        set.add(ticket);
+        return set == newSet;
     }
 
-    private boolean unlockInternally(Vector2i coords, ChunkLoadingTicket ticket) {
-        final Set<ChunkLoadingTicket> set = this.ticketsByPos.get(coords);
+    private boolean unlockInternally(long key, ChunkLoadingTicket ticket) {
+        final Set<ChunkLoadingTicket> set = this.ticketsByPos.get(key);
         if (set != null && set.remove(ticket)) {
             if (set.isEmpty()) {
-                this.ticketsByPos.remove(coords);
+                this.ticketsByPos.remove(key, set);
             }
             return true;
         }
@@ -1341,12 +1336,13 @@ void force(LanternLoadingTicket ticket, Vector2i coords) {
      * @param callEvents whether the force chunk events should be called
      */
     void force(LanternLoadingTicket ticket, Vector2i coords, boolean callEvents) {
-        final LanternChunk chunk = getChunk(coords, false);
+        final long key = key(coords);
+        final LanternChunk chunk = getChunk(key, false);
         // The chunk at this coords is already loaded,
         // wa can call the event directly
-        lockInternally(coords, ticket);
+        lockInternally(key, ticket);
         // Remove from unload through loadChunk
-        this.pendingForUnload.removeIf(e -> e.coords.equals(coords));
+        this.pendingForUnload.removeIf(e -> e.key == key);
         // Whether the chunk should be queued for loading
         boolean queueLoad = false;
         if (chunk != null) {
@@ -1358,10 +1354,15 @@ void force(LanternLoadingTicket ticket, Vector2i coords, boolean callEvents) {
             queueLoad = true;
         }
         if (queueLoad) {
-            LanternChunkQueueTask task = this.chunkQueueTasks.get(coords);
-            if (task == null || !(task.runnable instanceof LanternChunkLoadTask)) {
-                this.chunkQueueTasks.computeIfAbsent(coords, coords1 ->
-                        queueTask(coords1, new LanternChunkLoadTask(coords1)));
+            final ChunkLoadQueue.Task task = this.chunkQueueTasks.get(key);
+            if (task == null || task.isCancelled() || !(task.runnable instanceof LanternChunkLoadTask)) {
+                // The task is only submitted once it's published, the
+                // remapper may be called more than once
+                final ChunkLoadQueue.Task newTask = this.loadQueue.create(coords, new LanternChunkLoadTask(coords));
+                if (this.chunkQueueTasks.compute(key, (key1, task1) ->
+                        task1 == null || task1.isCancelled() ? newTask : task1) == newTask) {
+                    this.loadQueue.submit(newTask);
+                }
             }
         }
         if  (callEvents) {
@@ -1378,17 +1379,19 @@ void force(LanternLoadingTicket ticket, Vector2i coords, boolean callEvents) {
      * @param coords the coordinates
      */
     void unforce(LanternLoadingTicket ticket, Vector2i coords, boolean callEvents) {
-        if (unlockInternally(coords, ticket)) {
-            final LanternChunk chunk = getChunk(coords, false);
+        // The chunk doesn't need to be unloaded if the load task never started
+        final long key = key(coords);
+        if (unlockInternally(key, ticket) && !cancelQueuedLoad(key)) {
+            final LanternChunk chunk = getChunk(key, false);
             // Try to cancel any queued chunk loadings
             if (chunk != null && chunk.lock.isLocked() && chunk.lockState == LanternChunk.LockState.LOADING) {
-                final LanternChunkQueueTask task = this.chunkQueueTasks.get(coords);
+                final ChunkLoadQueue.Task task = this.chunkQueueTasks.get(key);
                 if (task != null && task.runnable instanceof LanternChunkLoadTask) {
                     task.cancel();
                 }
             // Queue the chunk for unload, will be some ticks later
             } else {
-                final UnloadingChunkEntry entry = new UnloadingChunkEntry(coords);
+                final UnloadingChunkEntry entry = new UnloadingChunkEntry(coords.getX(), coords.getY());
                 if (!this.pendingForUnload.contains(entry)) {
                     this.pendingForUnload.offer(entry);
                 }
@@ -1401,6 +1404,25 @@ void unforce(LanternLoadingTicket ticket, Vector2i coords, boolean callEvents) {
         }
     }
 
+    /**
+     * Cancels the queued load task of the chunk at the given coordinates
+     * if there are no tickets left and the task didn't start yet.
+     *
+     * @param key The chunk key
+     * @return Whether the load task was cancelled
+     */
+    private boolean cancelQueuedLoad(long key) {
+        if (this.ticketsByPos.containsKey(key)) {
+            return false;
+        }
+        final ChunkLoadQueue.Task task = this.chunkQueueTasks.get(key);
+        if (task != null && task.runnable instanceof LanternChunkLoadTask && task.cancel()) {
+            this.chunkQueueTasks.remove(key, task);
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Releases the ticket.
      * 
@@ -1420,9 +1442,10 @@ public void save() {
         } catch (IOException e) {
             this.game.getLogger().warn("An error occurred while saving the chunk loading tickets", e);
         }
-        for (Entry<Vector2i, LanternChunk> entry : this.loadedChunks.entrySet()) {
-            // Save the chunk
-            save(entry.getValue());
+        for (LanternChunk chunk : this.loadedChunks.values()) {
+            // Save the chunk, chunks that can't be queued because
+            // there is too much data in flight will be saved the next time
+            save(chunk, false);
         }
     }
 
@@ -1436,8 +1459,7 @@ public void shutdown() {
         } catch (IOException e) {
             this.game.getLogger().warn("An error occurred while saving the chunk loading tickets", e);
         }
-        for (Entry<Vector2i, LanternChunk> entry : this.loadedChunks.entrySet()) {
-            final LanternChunk chunk = entry.getValue();
+        for (LanternChunk chunk : this.loadedChunks.values()) {
             // Post the chunk unload event
             this.game.getEventManager().post(SpongeEventFactory.createUnloadChunkEvent(
                     Cause.source(this.game.getMinecraftPlugin()).owner(this.world).build(), chunk));
@@ -1447,7 +1469,9 @@ public void shutdown() {
         // Cleanup
         this.loadedChunks.clear();
         this.reusableChunks.clear();
-        this.chunkTaskExecutor.shutdown();
+        this.loadQueue.shutdown();
+        // Wait for all the chunks to be written
+        this.saveQueue.shutdown();
         try {
             this.chunkIOService.unload();
         } catch (IOException e) {
@@ -1459,13 +1483,19 @@ public void shutdown() {
      * Pulses the chunk manager.
      */
     public void pulse() {
+        this.loadQueue.updatePriorities();
+        // Cleanup the references of reusable chunks that were garbage collected
+        ReusableChunkReference reference;
+        while ((reference = (ReusableChunkReference) this.reusableChunksQueue.poll()) != null) {
+            this.reusableChunks.remove(reference.key, reference);
+        }
         UnloadingChunkEntry entry;
         while ((entry = this.pendingForUnload.peek()) != null &&
                 (System.currentTimeMillis() - entry.time) > UNLOAD_DELAY) {
             this.pendingForUnload.poll();
-            if (!this.ticketsByPos.containsKey(entry.coords)) {
+            if (!this.ticketsByPos.containsKey(entry.key)) {
                 // TODO: Create unload tasks
-                unload(entry.coords, () -> Cause.source(this.world).build());
+                unload(entry.x, entry.z, this.defaultCause);
             }
         }
     }
@@ -1479,7 +1509,8 @@ public void loadTickets() throws IOException {
                 final LanternEntityLoadingTicket ticket0 = (LanternEntityLoadingTicket) ticket;
                 final EntityReference ref = ticket0.getEntityReference().orElse(null);
                 if (ref != null) {
-                    final LanternChunk chunk = getOrCreateChunk(ref.getChunkCoords(),
+                    final Vector2i chunkCoords = ref.getChunkCoords();
+                    final LanternChunk chunk = getOrCreateChunk(chunkCoords.getX(), chunkCoords.getY(),
                             () -> Cause.source(ticket0).owner(this.world).build(), true, true);
                     final Entity entity = chunk.getEntity(ref.getUniqueId()).orElse(null);
                     if (entity != null) {
@@ -0,0 +1,132 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.light;
+
+import org.lanternpowered.server.block.LanternBlockType;
+import org.lanternpowered.server.block.provider.property.PropertyProvider;
+import org.lanternpowered.server.game.registry.type.block.BlockRegistryModule;
+import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.data.Property;
+import org.spongepowered.api.data.property.block.LightEmissionProperty;
+import org.spongepowered.api.data.property.block.MatterProperty;
+import org.spongepowered.api.data.property.block.SolidCubeProperty;
+
+import java.util.Optional;
+
+import javax.annotation.Nullable;
+
+/**
+ * A lookup table for the light emission and opacity of every
+ * block type (internal id and data). This avoids that properties
+ * need to be looked up while propagating light.
+ */
+public final class BlockLightTable {
+
+    // The amount of different block types that can be represented
+    private static final int SIZE = 1 << 16;
+
+    // The opacity of liquids, this matches water
+    private static final int LIQUID_OPACITY = 2;
+
+    @Nullable private static BlockLightTable instance;
+
+    /**
+     * Gets the {@link BlockLightTable}, the table will be
+     * created the first time that this method is called.
+     *
+     * @return The block light table
+     */
+    public static BlockLightTable get() {
+        BlockLightTable table = instance;
+        if (table == null) {
+            synchronized (BlockLightTable.class) {
+                table = instance;
+                if (table == null) {
+                    instance = table = new BlockLightTable();
+                }
+            }
+        }
+        return table;
+    }
+
+    private final byte[] emission = new byte[SIZE];
+    private final byte[] opacity = new byte[SIZE];
+
+    private BlockLightTable() {
+        final BlockRegistryModule registry = BlockRegistryModule.get();
+        for (int type = 0; type < SIZE; type++) {
+            final Optional<BlockState> optBlockState = registry.getStateByInternalIdAndData(type);
+            if (!optBlockState.isPresent()) {
+                continue;
+            }
+            final BlockState blockState = optBlockState.get();
+            final Integer emission = getPropertyValue(blockState, LightEmissionProperty.class);
+            if (emission != null) {
+                this.emission[type] = (byte) Math.max(0, Math.min(LightPropagator.MAX_LIGHT, emission));
+            }
+            final Boolean solidCube = getPropertyValue(blockState, SolidCubeProperty.class);
+            if (solidCube != null && solidCube) {
+                this.opacity[type] = (byte) LightPropagator.MAX_LIGHT;
+            } else if (getPropertyValue(blockState, MatterProperty.class) == MatterProperty.Matter.LIQUID) {
+                this.opacity[type] = LIQUID_OPACITY;
+            }
+        }
+    }
+
+    @Nullable
+    private static <V, T extends Property<?, V>> V getPropertyValue(BlockState blockState, Class<T> propertyType) {
+        final Optional<PropertyProvider<T>> provider = ((LanternBlockType) blockState.getType())
+                .getPropertyProviderCollection().get(propertyType);
+        if (!provider.isPresent()) {
+            return null;
+        }
+        try {
+            final T property = provider.get().get(blockState, null, null);
+            return property == null ? null : property.getValue();
+        } catch (RuntimeException e) {
+            // The provider depends on the location, fall back to the defaults
+            return null;
+        }
+    }
+
+    /**
+     * Gets the light emission table.
+     *
+     * @return The light emission table
+     */
+    public byte[] getEmission() {
+        return this.emission;
+    }
+
+    /**
+     * Gets the light opacity table.
+     *
+     * @return The light opacity table
+     */
+    public byte[] getOpacity() {
+        return this.opacity;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.light;
+
+import org.lanternpowered.server.world.chunk.LanternChunk;
+import org.lanternpowered.server.world.chunk.LanternChunk.ChunkSection;
+
+import javax.annotation.Nullable;
+
+/**
+ * A {@link LightAccess} that only provides access to
+ * the contents of a single {@link LanternChunk}.
+ */
+final class ChunkLightAccess implements LightAccess {
+
+    @Nullable private LanternChunk chunk;
+
+    void setChunk(@Nullable LanternChunk chunk) {
+        this.chunk = chunk;
+    }
+
+    @Nullable
+    private ChunkSection getSection(int y) {
+        //noinspection ConstantConditions
+        return this.chunk.getRawSection(y >> 4);
+    }
+
+    @Override
+    public int getType(int x, int y, int z) {
+        final LanternChunk chunk = this.chunk;
+        if (chunk == null || (x >> 4) != chunk.getX() || (z >> 4) != chunk.getZ()) {
+            return UNAVAILABLE;
+        }
+        final ChunkSection section = chunk.getRawSection(y >> 4);
+        return section == null ? VIRTUAL : section.getType(ChunkSection.index(x & 0xf, y & 0xf, z & 0xf)) & 0xffff;
+    }
+
+    @Override
+    public int getLight(int x, int y, int z, boolean sky) {
+        final ChunkSection section = getSection(y);
+        //noinspection ConstantConditions
+        return (sky ? section.getLightFromSky() : section.getLightFromBlock())
+                .get(ChunkSection.index(x & 0xf, y & 0xf, z & 0xf));
+    }
+
+    @Override
+    public void setLight(int x, int y, int z, boolean sky, int light) {
+        final ChunkSection section = getSection(y);
+        //noinspection ConstantConditions
+        (sky ? section.getLightFromSky() : section.getLightFromBlock())
+                .set(ChunkSection.index(x & 0xf, y & 0xf, z & 0xf), (byte) light);
+    }
+
+    @Override
+    public int createSection(int x, int y, int z) {
+        final LanternChunk chunk = this.chunk;
+        if (chunk == null) {
+            return UNAVAILABLE;
+        }
+        final ChunkSection section = chunk.getOrCreateRawSection(y >> 4);
+        return section == null ? VIRTUAL : section.getType(ChunkSection.index(x & 0xf, y & 0xf, z & 0xf)) & 0xffff;
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.light;
+
+import io.netty.util.concurrent.FastThreadLocal;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.lanternpowered.server.block.action.BlockAction;
+import org.lanternpowered.server.game.registry.type.block.BlockRegistryModule;
+import org.lanternpowered.server.util.FastThreadLocals;
+import org.lanternpowered.server.world.LanternWorld;
+import org.lanternpowered.server.world.WorldEventListener;
+import org.lanternpowered.server.world.chunk.LanternChunk;
+import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.block.BlockType;
+
+import javax.annotation.Nullable;
+
+/**
+ * The light engine of a {@link LanternWorld}. All the block changes that
+ * affect the light will be queued and processed in one batch at the end
+ * of every world tick, after which the modified chunk sections will be
+ * reported through {@link WorldEventListener#onLightChange(LanternChunk, int)}.
+ */
+public final class LanternLightEngine implements WorldEventListener {
+
+    /**
+     * The propagators that are used to relight chunks, these are only
+     * used for chunks that aren't loaded yet, so one per thread.
+     */
+    private static final FastThreadLocal<LightPropagator> chunkPropagators = FastThreadLocals.withInitial(() -> {
+        final BlockLightTable table = BlockLightTable.get();
+        return new LightPropagator(new ChunkLightAccess(), table.getEmission(), table.getOpacity());
+    });
+
+    /**
+     * Recalculates all the light of the given {@link LanternChunk}, the
+     * light will only be spread within the chunk itself. This is intended
+     * to be used on chunks that are still being loaded or generated and
+     * can safely be called from the chunk loading threads.
+     *
+     * @param chunk The chunk
+     * @param skyLight Whether sky light should be calculated
+     */
+    public static void relightChunk(LanternChunk chunk, boolean skyLight) {
+        final LightPropagator propagator = chunkPropagators.get();
+        final ChunkLightAccess access = (ChunkLightAccess) propagator.getAccess();
+        access.setChunk(chunk);
+        try {
+            propagator.relightColumn(chunk.getX(), chunk.getZ(), skyLight);
+        } finally {
+            access.setChunk(null);
+        }
+    }
+
+    private final LanternWorld world;
+    private final WorldLightAccess access;
+
+    /**
+     * All the positions that should be checked the next pulse,
+     * the positions can be added from any thread.
+     */
+    private final LongArrayFIFOQueue pendingChecks = new LongArrayFIFOQueue();
+
+    /**
+     * The positions that are being checked this pulse.
+     */
+    private final LongArrayList checks = new LongArrayList();
+
+    @Nullable private LightPropagator propagator;
+
+    public LanternLightEngine(LanternWorld world) {
+        this.access = new WorldLightAccess(world);
+        this.world = world;
+    }
+
+    /**
+     * Queues a light check at the given position.
+     *
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     */
+    public void queueCheck(int x, int y, int z) {
+        final long packed = LightPropagator.pack(x, y, z, 0);
+        synchronized (this.pendingChecks) {
+            this.pendingChecks.enqueue(packed);
+        }
+    }
+
+    /**
+     * Processes all the queued light changes.
+     */
+    public void pulse() {
+        synchronized (this.pendingChecks) {
+            while (!this.pendingChecks.isEmpty()) {
+                this.checks.add(this.pendingChecks.dequeueLong());
+            }
+        }
+        if (this.checks.isEmpty()) {
+            return;
+        }
+        LightPropagator propagator = this.propagator;
+        if (propagator == null) {
+            final BlockLightTable table = BlockLightTable.get();
+            this.propagator = propagator = new LightPropagator(this.access, table.getEmission(), table.getOpacity());
+        }
+        this.access.reset();
+        propagate(propagator, false);
+        if (this.world.getDimension().hasSky()) {
+            propagate(propagator, true);
+        }
+        this.checks.clear();
+
+        final Long2IntMap dirtySections = this.access.getDirtySections();
+        for (Long2IntMap.Entry entry : dirtySections.long2IntEntrySet()) {
+            final long key = entry.getLongKey();
+            final LanternChunk chunk = this.world.getChunkManager().getChunkIfLoaded(LanternChunk.keyX(key), LanternChunk.keyZ(key));
+            if (chunk != null) {
+                chunk.markDirty();
+                this.world.getEventListener().onLightChange(chunk, entry.getIntValue());
+            }
+        }
+        dirtySections.clear();
+        // Don't hold on to the chunks
+        this.access.reset();
+    }
+
+    private void propagate(LightPropagator propagator, boolean sky) {
+        for (int i = 0; i < this.checks.size(); i++) {
+            final long packed = this.checks.getLong(i);
+            propagator.check(LightPropagator.unpackX(packed), LightPropagator.unpackY(packed), LightPropagator.unpackZ(packed), sky);
+        }
+        propagator.propagate(sky);
+    }
+
+    @Override
+    public void onBlockChange(int x, int y, int z, BlockState oldBlockState, BlockState newBlockState) {
+        final BlockRegistryModule registry = BlockRegistryModule.get();
+        final int oldType = registry.getStateInternalIdAndData(oldBlockState) & 0xffff;
+        final int newType = registry.getStateInternalIdAndData(newBlockState) & 0xffff;
+        final BlockLightTable table = BlockLightTable.get();
+        // Only check the light if it's affected by the change
+        if (table.getEmission()[oldType] != table.getEmission()[newType] ||
+                table.getOpacity()[oldType] != table.getOpacity()[newType]) {
+            queueCheck(x, y, z);
+        }
+    }
+
+    @Override
+    public void onLoadChunk(LanternChunk chunk) {
+    }
+
+    @Override
+    public void onUnloadChunk(LanternChunk chunk) {
+    }
+
+    @Override
+    public void onPopulateChunk(LanternChunk chunk) {
+    }
+
+    @Override
+    public void onBlockAction(int x, int y, int z, BlockType blockType, BlockAction blockAction) {
+    }
+
+    @Override
+    public void onLightChange(LanternChunk chunk, int sectionBitMask) {
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.light;
+
+/**
+ * Provides access to the block types and light
+ * levels for the {@link LightPropagator}.
+ */
+public interface LightAccess {
+
+    /**
+     * The type that is returned when the position isn't
+     * available, for example when the chunk isn't loaded.
+     */
+    int UNAVAILABLE = -1;
+
+    /**
+     * The type that is returned when the position is available
+     * but cannot hold light values, for example when there is
+     * no chunk section present. These positions are considered
+     * to be air with full sky light and no block light, unless
+     * they are created through {@link #createSection(int, int, int)}.
+     */
+    int VIRTUAL = -2;
+
+    /**
+     * Gets the block type (internal id and data) at the given
+     * position or {@link #UNAVAILABLE} or {@link #VIRTUAL}.
+     *
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @return The block type
+     */
+    int getType(int x, int y, int z);
+
+    /**
+     * Gets the light level at the given position. This method will
+     * only be called for positions that aren't unavailable or virtual.
+     *
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @param sky Whether the sky light should be retrieved, otherwise block light
+     * @return The light level
+     */
+    int getLight(int x, int y, int z, boolean sky);
+
+    /**
+     * Sets the light level at the given position. This method will
+     * only be called for positions that aren't unavailable or virtual.
+     *
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @param sky Whether the sky light should be set, otherwise block light
+     * @param light The light level
+     */
+    void setLight(int x, int y, int z, boolean sky, int light);
+
+    /**
+     * Creates the storage for the virtual position, so that the light
+     * can spread into it. The whole chunk section will be created and
+     * its sky light will be initialized from the sections above.
+     *
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @return The block type, or {@link #VIRTUAL} if it couldn't be created
+     */
+    default int createSection(int x, int y, int z) {
+        return VIRTUAL;
+    }
+}
@@ -0,0 +1,398 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.light;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+
+/**
+ * A breadth first light propagator, all the queued nodes are
+ * packed into primitive longs so that no objects have to be
+ * allocated while propagating the light.
+ * <p>
+ * Sky light that travels downwards with the max light level
+ * through a fully transparent block will not lose any strength,
+ * this matches the vanilla behavior.
+ * <p>
+ * A instance can only be used by one thread at the same time.
+ */
+public final class LightPropagator {
+
+    /**
+     * The maximum light level.
+     */
+    public static final int MAX_LIGHT = 15;
+
+    // The maximum y coordinate that can hold light values
+    private static final int MAX_Y = 255;
+
+    // The offsets of all the directions, the index of the
+    // direction that points upwards is 2 and downwards 3
+    private static final int[] OFFSETS_X = { 1, -1, 0, 0, 0, 0 };
+    private static final int[] OFFSETS_Y = { 0, 0, 1, -1, 0, 0 };
+    private static final int[] OFFSETS_Z = { 0, 0, 0, 0, 1, -1 };
+
+    private static final int UP = 2;
+    private static final int DOWN = 3;
+
+    private final LongArrayFIFOQueue increaseQueue = new LongArrayFIFOQueue();
+    private final LongArrayFIFOQueue decreaseQueue = new LongArrayFIFOQueue();
+
+    private final byte[] emission;
+    private final byte[] opacity;
+
+    private LightAccess access;
+
+    /**
+     * Creates a new {@link LightPropagator}.
+     *
+     * @param access The light access
+     * @param emission The light emission of every block type
+     * @param opacity The light opacity of every block type
+     */
+    public LightPropagator(LightAccess access, byte[] emission, byte[] opacity) {
+        this.access = checkNotNull(access, "access");
+        this.emission = checkNotNull(emission, "emission");
+        this.opacity = checkNotNull(opacity, "opacity");
+    }
+
+    /**
+     * Gets the {@link LightAccess} that is being used.
+     *
+     * @return The light access
+     */
+    public LightAccess getAccess() {
+        return this.access;
+    }
+
+    /**
+     * Sets the {@link LightAccess} that should be used.
+     *
+     * @param access The light access
+     */
+    public void setAccess(LightAccess access) {
+        this.access = checkNotNull(access, "access");
+    }
+
+    static long pack(int x, int y, int z, int light) {
+        return ((long) (x & 0x3ffffff) << 38) | ((long) (z & 0x3ffffff) << 12) | ((y & 0xff) << 4) | light;
+    }
+
+    static int unpackX(long packed) {
+        return (int) (packed >> 38);
+    }
+
+    static int unpackY(long packed) {
+        return (int) (packed >> 4) & 0xff;
+    }
+
+    static int unpackZ(long packed) {
+        return (int) (packed << 26 >> 38);
+    }
+
+    static int unpackLight(long packed) {
+        return (int) packed & 0xf;
+    }
+
+    /**
+     * Checks whether the light at the given position is still valid
+     * and queues the changes if needed. The changes will be applied
+     * once {@link #propagate(boolean)} is called.
+     *
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @param sky Whether the sky light should be checked, otherwise block light
+     */
+    public void check(int x, int y, int z, boolean sky) {
+        if (y < 0 || y > MAX_Y) {
+            return;
+        }
+        final int type = this.access.getType(x, y, z);
+        if (type < 0) {
+            return;
+        }
+        final int current = this.access.getLight(x, y, z, sky);
+        final int expected = computeLight(x, y, z, type, sky);
+        if (expected > current) {
+            this.access.setLight(x, y, z, sky, expected);
+            this.increaseQueue.enqueue(pack(x, y, z, expected));
+        } else if (expected < current) {
+            this.access.setLight(x, y, z, sky, 0);
+            this.decreaseQueue.enqueue(pack(x, y, z, current));
+            final int emission = sky ? 0 : this.emission[type];
+            if (emission > 0) {
+                this.access.setLight(x, y, z, false, emission);
+                this.increaseQueue.enqueue(pack(x, y, z, emission));
+            }
+        }
+    }
+
+    /**
+     * Computes the light level that the block at the given position
+     * should have based on its surroundings.
+     */
+    private int computeLight(int x, int y, int z, int type, boolean sky) {
+        final int opacity = this.opacity[type];
+        int light = sky ? 0 : this.emission[type];
+        if (opacity >= MAX_LIGHT) {
+            return light;
+        }
+        final int decrement = Math.max(1, opacity);
+        for (int i = 0; i < 6 && light < MAX_LIGHT; i++) {
+            final int nx = x + OFFSETS_X[i];
+            final int ny = y + OFFSETS_Y[i];
+            final int nz = z + OFFSETS_Z[i];
+            final int neighborLight;
+            if (ny > MAX_Y) {
+                neighborLight = sky ? MAX_LIGHT : 0;
+            } else if (ny < 0) {
+                continue;
+            } else {
+                final int neighborType = this.access.getType(nx, ny, nz);
+                if (neighborType == LightAccess.UNAVAILABLE) {
+                    continue;
+                }
+                neighborLight = neighborType == LightAccess.VIRTUAL ? (sky ? MAX_LIGHT : 0) :
+                        this.access.getLight(nx, ny, nz, sky);
+            }
+            // Full sky light travels downwards without any loss
+            final int value = sky && i == UP && neighborLight == MAX_LIGHT && opacity == 0 ?
+                    MAX_LIGHT : neighborLight - decrement;
+            if (value > light) {
+                light = value;
+            }
+        }
+        return light;
+    }
+
+    /**
+     * Propagates all the queued light changes.
+     *
+     * @param sky Whether sky light is being propagated, otherwise block light
+     */
+    public void propagate(boolean sky) {
+        propagateDecrease(sky);
+        propagateIncrease(sky);
+    }
+
+    private void propagateDecrease(boolean sky) {
+        final LightAccess access = this.access;
+        while (!this.decreaseQueue.isEmpty()) {
+            final long entry = this.decreaseQueue.dequeueLong();
+            final int x = unpackX(entry);
+            final int y = unpackY(entry);
+            final int z = unpackZ(entry);
+            final int light = unpackLight(entry);
+            // The light that this position can directly retrieve from virtual positions
+            int virtualLight = 0;
+            for (int i = 0; i < 6; i++) {
+                final int nx = x + OFFSETS_X[i];
+                final int ny = y + OFFSETS_Y[i];
+                final int nz = z + OFFSETS_Z[i];
+                if (ny < 0) {
+                    continue;
+                }
+                final int neighborType = ny > MAX_Y ? LightAccess.VIRTUAL : access.getType(nx, ny, nz);
+                if (neighborType == LightAccess.UNAVAILABLE) {
+                    continue;
+                } else if (neighborType == LightAccess.VIRTUAL) {
+                    if (sky) {
+                        virtualLight = Math.max(virtualLight, i == UP ? MAX_LIGHT : MAX_LIGHT - 1);
+                    }
+                    continue;
+                }
+                final int neighborLight = access.getLight(nx, ny, nz, sky);
+                if (neighborLight == 0) {
+                    continue;
+                }
+                if (neighborLight < light || (sky && i == DOWN && light == MAX_LIGHT && neighborLight == MAX_LIGHT)) {
+                    // The neighbor was lit by this position, remove it
+                    access.setLight(nx, ny, nz, sky, 0);
+                    this.decreaseQueue.enqueue(pack(nx, ny, nz, neighborLight));
+                    final int emission = sky ? 0 : this.emission[neighborType];
+                    if (emission > 0) {
+                        access.setLight(nx, ny, nz, false, emission);
+                        this.increaseQueue.enqueue(pack(nx, ny, nz, emission));
+                    }
+                } else {
+                    // The neighbor is lit by a different source, use it
+                    // to fill up the space that was removed
+                    this.increaseQueue.enqueue(pack(nx, ny, nz, neighborLight));
+                }
+            }
+            if (virtualLight > 0) {
+                final int opacity = this.opacity[access.getType(x, y, z)];
+                if (opacity < MAX_LIGHT) {
+                    if (opacity != 0 || virtualLight != MAX_LIGHT) {
+                        virtualLight = Math.max(0, MAX_LIGHT - Math.max(1, opacity));
+                    }
+                    if (virtualLight > access.getLight(x, y, z, true)) {
+                        access.setLight(x, y, z, true, virtualLight);
+                        this.increaseQueue.enqueue(pack(x, y, z, virtualLight));
+                    }
+                }
+            }
+        }
+    }
+
+    private void propagateIncrease(boolean sky) {
+        final LightAccess access = this.access;
+        while (!this.increaseQueue.isEmpty()) {
+            final long entry = this.increaseQueue.dequeueLong();
+            final int x = unpackX(entry);
+            final int y = unpackY(entry);
+            final int z = unpackZ(entry);
+            final int light = unpackLight(entry);
+            // The entry is outdated, another change modified the light
+            if (access.getLight(x, y, z, sky) != light) {
+                continue;
+            }
+            for (int i = 0; i < 6; i++) {
+                final int ny = y + OFFSETS_Y[i];
+                if (ny < 0 || ny > MAX_Y) {
+                    continue;
+                }
+                final int nx = x + OFFSETS_X[i];
+                final int nz = z + OFFSETS_Z[i];
+                int neighborType = access.getType(nx, ny, nz);
+                // Block light can't be stored in virtual positions, so create the
+                // section, virtual positions already have full sky light
+                if (neighborType == LightAccess.VIRTUAL && !sky) {
+                    neighborType = access.createSection(nx, ny, nz);
+                }
+                if (neighborType < 0) {
+                    continue;
+                }
+                final int opacity = this.opacity[neighborType];
+                if (opacity >= MAX_LIGHT) {
+                    continue;
+                }
+                final int neighborLight = sky && i == DOWN && light == MAX_LIGHT && opacity == 0 ?
+                        MAX_LIGHT : light - Math.max(1, opacity);
+                if (neighborLight > access.getLight(nx, ny, nz, sky)) {
+                    access.setLight(nx, ny, nz, sky, neighborLight);
+                    if (neighborLight > 1) {
+                        this.increaseQueue.enqueue(pack(nx, ny, nz, neighborLight));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Recalculates all the light within the chunk column at the given chunk
+     * coordinates. Light will only spread to positions that are available
+     * through the {@link LightAccess}.
+     *
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     * @param skyLight Whether sky light should be calculated
+     */
+    public void relightColumn(int chunkX, int chunkZ, boolean skyLight) {
+        final LightAccess access = this.access;
+        final int minX = chunkX << 4;
+        final int minZ = chunkZ << 4;
+        final int maxX = minX + 15;
+        final int maxZ = minZ + 15;
+
+        // Reset the block light and queue all the light sources
+        for (int y = 0; y <= MAX_Y; y++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int x = minX; x <= maxX; x++) {
+                    final int type = access.getType(x, y, z);
+                    if (type < 0) {
+                        continue;
+                    }
+                    final int emission = this.emission[type];
+                    access.setLight(x, y, z, false, emission);
+                    if (emission > 1) {
+                        this.increaseQueue.enqueue(pack(x, y, z, emission));
+                    }
+                }
+            }
+        }
+        propagateIncrease(false);
+
+        if (!skyLight) {
+            return;
+        }
+
+        // Fill the columns from the top to the bottom
+        for (int z = minZ; z <= maxZ; z++) {
+            for (int x = minX; x <= maxX; x++) {
+                int light = MAX_LIGHT;
+                for (int y = MAX_Y; y >= 0; y--) {
+                    final int type = access.getType(x, y, z);
+                    if (type < 0) {
+                        continue;
+                    }
+                    final int opacity = this.opacity[type];
+                    if (light != MAX_LIGHT || opacity != 0) {
+                        light = Math.max(0, light - Math.max(1, opacity));
+                    }
+                    access.setLight(x, y, z, true, light);
+                }
+            }
+        }
+
+        // Queue all the positions that can spread their light sideways
+        for (int y = 0; y <= MAX_Y; y++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int x = minX; x <= maxX; x++) {
+                    if (access.getType(x, y, z) < 0) {
+                        continue;
+                    }
+                    final int light = access.getLight(x, y, z, true);
+                    if (light > 1 && canSpreadSideways(x, y, z, light)) {
+                        this.increaseQueue.enqueue(pack(x, y, z, light));
+                    }
+                }
+            }
+        }
+        propagateIncrease(true);
+    }
+
+    private boolean canSpreadSideways(int x, int y, int z, int light) {
+        for (int i = 0; i < 6; i++) {
+            if (i == UP || i == DOWN) {
+                continue;
+            }
+            final int nx = x + OFFSETS_X[i];
+            final int nz = z + OFFSETS_Z[i];
+            final int neighborType = this.access.getType(nx, y, nz);
+            if (neighborType < 0) {
+                continue;
+            }
+            final int opacity = this.opacity[neighborType];
+            if (opacity < MAX_LIGHT && this.access.getLight(nx, y, nz, true) < light - Math.max(1, opacity)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
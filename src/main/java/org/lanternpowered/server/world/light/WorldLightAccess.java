@@ -0,0 +1,128 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.light;
+
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import org.lanternpowered.server.world.LanternWorld;
+import org.lanternpowered.server.world.chunk.LanternChunk;
+import org.lanternpowered.server.world.chunk.LanternChunk.ChunkSection;
+
+import javax.annotation.Nullable;
+
+/**
+ * A {@link LightAccess} that provides access to all the loaded
+ * chunks of a {@link LanternWorld}, all the modified chunk
+ * sections will be tracked.
+ */
+final class WorldLightAccess implements LightAccess {
+
+    private final LanternWorld world;
+
+    /**
+     * All the chunk sections that were modified, mapped by the chunk key.
+     */
+    private final Long2IntMap dirtySections = new Long2IntOpenHashMap();
+
+    // The last chunk that was accessed, most of the
+    // positions will be within the same chunk
+    @Nullable private LanternChunk lastChunk;
+    private long lastKey;
+
+    WorldLightAccess(LanternWorld world) {
+        this.world = world;
+    }
+
+    /**
+     * Clears the cached chunk, should be called
+     * before the light propagation starts.
+     */
+    void reset() {
+        this.lastChunk = null;
+    }
+
+    Long2IntMap getDirtySections() {
+        return this.dirtySections;
+    }
+
+    @Nullable
+    private LanternChunk getChunk(int x, int z) {
+        final int chunkX = x >> 4;
+        final int chunkZ = z >> 4;
+        final long key = LanternChunk.key(chunkX, chunkZ);
+        if (this.lastChunk != null && this.lastKey == key) {
+            return this.lastChunk;
+        }
+        final LanternChunk chunk = this.world.getChunkManager().getChunkIfLoaded(chunkX, chunkZ);
+        if (chunk != null && chunk.isLoaded()) {
+            this.lastChunk = chunk;
+            this.lastKey = key;
+            return chunk;
+        }
+        return null;
+    }
+
+    @Override
+    public int getType(int x, int y, int z) {
+        final LanternChunk chunk = getChunk(x, z);
+        if (chunk == null) {
+            return UNAVAILABLE;
+        }
+        final ChunkSection section = chunk.getRawSection(y >> 4);
+        return section == null ? VIRTUAL : section.getType(ChunkSection.index(x & 0xf, y & 0xf, z & 0xf)) & 0xffff;
+    }
+
+    @Override
+    public int getLight(int x, int y, int z, boolean sky) {
+        //noinspection ConstantConditions
+        final ChunkSection section = getChunk(x, z).getRawSection(y >> 4);
+        //noinspection ConstantConditions
+        return (sky ? section.getLightFromSky() : section.getLightFromBlock())
+                .get(ChunkSection.index(x & 0xf, y & 0xf, z & 0xf));
+    }
+
+    @Override
+    public void setLight(int x, int y, int z, boolean sky, int light) {
+        final LanternChunk chunk = getChunk(x, z);
+        //noinspection ConstantConditions
+        final ChunkSection section = chunk.getRawSection(y >> 4);
+        //noinspection ConstantConditions
+        (sky ? section.getLightFromSky() : section.getLightFromBlock())
+                .set(ChunkSection.index(x & 0xf, y & 0xf, z & 0xf), (byte) light);
+        final long key = chunk.getKey();
+        this.dirtySections.put(key, this.dirtySections.get(key) | 1 << (y >> 4));
+    }
+
+    @Override
+    public int createSection(int x, int y, int z) {
+        final LanternChunk chunk = getChunk(x, z);
+        if (chunk == null) {
+            return UNAVAILABLE;
+        }
+        final ChunkSection section = chunk.getOrCreateRawSection(y >> 4);
+        return section == null ? VIRTUAL : section.getType(ChunkSection.index(x & 0xf, y & 0xf, z & 0xf)) & 0xffff;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.data.io.anvil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import it.unimi.dsi.fastutil.shorts.Short2ObjectOpenHashMap;
+import org.junit.Test;
+import org.lanternpowered.server.data.persistence.nbt.NbtDataContainerInputStream;
+import org.lanternpowered.server.data.persistence.nbt.NbtStreamReader;
+import org.lanternpowered.server.util.NibbleArray;
+import org.lanternpowered.server.world.chunk.LanternChunk;
+import org.spongepowered.api.data.DataQuery;
+import org.spongepowered.api.data.DataView;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.Random;
+
+public class AnvilChunkReaderPerformanceTests {
+
+    private final static String MESSAGE = "%s for %s chunks took: %s ms (%s chunks/s), allocated %s bytes per chunk";
+    private final static int CHUNKS = 5000;
+    private final static int SECTIONS = 8;
+
+    // Prevent the JIT from removing the reads
+    private static volatile int sink;
+
+    private static byte[] createChunkData() throws IOException {
+        final Random random = new Random(4231);
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final DataOutputStream dos = new DataOutputStream(baos);
+        dos.writeByte(10); // Root compound
+        dos.writeUTF("");
+        dos.writeByte(10);
+        dos.writeUTF("Level");
+        dos.writeByte(3);
+        dos.writeUTF("xPos");
+        dos.writeInt(0);
+        dos.writeByte(3);
+        dos.writeUTF("zPos");
+        dos.writeInt(0);
+        dos.writeByte(1);
+        dos.writeUTF("TerrainPopulated");
+        dos.writeByte(1);
+        dos.writeByte(9);
+        dos.writeUTF("Sections");
+        dos.writeByte(10);
+        dos.writeInt(SECTIONS);
+        for (int i = 0; i < SECTIONS; i++) {
+            dos.writeByte(1);
+            dos.writeUTF("Y");
+            dos.writeByte(i);
+            writeByteArray(dos, "Blocks", random, LanternChunk.CHUNK_SECTION_VOLUME);
+            writeByteArray(dos, "Data", random, LanternChunk.CHUNK_SECTION_VOLUME / 2);
+            writeByteArray(dos, "BlockLight", random, LanternChunk.CHUNK_SECTION_VOLUME / 2);
+            writeByteArray(dos, "SkyLight", random, LanternChunk.CHUNK_SECTION_VOLUME / 2);
+            dos.writeByte(0);
+        }
+        writeByteArray(dos, "Biomes", random, 256);
+        dos.writeByte(11);
+        dos.writeUTF("HeightMap");
+        dos.writeInt(256);
+        for (int i = 0; i < 256; i++) {
+            dos.writeInt(random.nextInt(256));
+        }
+        dos.writeByte(9);
+        dos.writeUTF("Entities");
+        dos.writeByte(0);
+        dos.writeInt(0);
+        dos.writeByte(0); // End of level
+        dos.writeByte(0); // End of root
+        dos.flush();
+        return baos.toByteArray();
+    }
+
+    private static void writeByteArray(DataOutputStream dos, String name, Random random, int length) throws IOException {
+        final byte[] array = new byte[length];
+        random.nextBytes(array);
+        dos.writeByte(7);
+        dos.writeUTF(name);
+        dos.writeInt(length);
+        dos.write(array);
+    }
+
+    /**
+     * The decoding as it was done before the {@link AnvilChunkReader}, by
+     * building the full data view tree and copying the section arrays.
+     */
+    private static int readWithDataView(byte[] chunkData) throws IOException {
+        final DataView levelDataView;
+        try (NbtDataContainerInputStream nbt = new NbtDataContainerInputStream(new ByteArrayInputStream(chunkData))) {
+            levelDataView = nbt.read().getView(DataQuery.of("Level")).get();
+        }
+        int result = 0;
+        final List<DataView> sectionList = levelDataView.getViewList(DataQuery.of("Sections")).get();
+        for (DataView sectionTag : sectionList) {
+            final byte[] rawTypes = (byte[]) sectionTag.get(DataQuery.of("Blocks")).get();
+            final byte[] data = (byte[]) sectionTag.get(DataQuery.of("Data")).get();
+            final byte[] blockLight = (byte[]) sectionTag.get(DataQuery.of("BlockLight")).get();
+            final byte[] skyLight = (byte[]) sectionTag.get(DataQuery.of("SkyLight")).get();
+
+            final NibbleArray dataArray = new NibbleArray(rawTypes.length, data, true);
+            final short[] types = new short[rawTypes.length];
+            for (int i = 0; i < rawTypes.length; i++) {
+                types[i] = (short) (((rawTypes[i] & 0xff) << 4) | dataArray.get(i));
+            }
+            final LanternChunk.ChunkSection section = new LanternChunk.ChunkSection(types,
+                    new NibbleArray(rawTypes.length, skyLight, true), new NibbleArray(rawTypes.length, blockLight, true),
+                    new Short2ObjectOpenHashMap<>());
+            result += section.hashCode();
+        }
+        return result;
+    }
+
+    private static int readStreaming(byte[] chunkData) throws IOException {
+        final AnvilChunkReader chunkReader;
+        try (NbtStreamReader reader = new NbtStreamReader(new ByteArrayInputStream(chunkData))) {
+            chunkReader = AnvilChunkReader.read(reader);
+        }
+        int result = 0;
+        for (LanternChunk.ChunkSection section : chunkReader.sections) {
+            if (section != null) {
+                result += section.hashCode();
+            }
+        }
+        return result;
+    }
+
+    private interface ChunkRead {
+
+        int read(byte[] chunkData) throws IOException;
+    }
+
+    private static long getAllocatedBytes() {
+        final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private static void test(String name, byte[] chunkData, ChunkRead read) throws IOException {
+        final long allocated = getAllocatedBytes();
+        final long time = System.nanoTime();
+        int result = 0;
+        for (int i = 0; i < CHUNKS; i++) {
+            result += read.read(chunkData);
+        }
+        final long duration = Math.max(1, (System.nanoTime() - time) / 1000000L);
+        final long allocatedPerChunk = (getAllocatedBytes() - allocated) / CHUNKS;
+        sink = result;
+        System.out.println(String.format(MESSAGE, name, CHUNKS, duration, CHUNKS * 1000L / duration, allocatedPerChunk));
+    }
+
+    @Test
+    public void testDecoding() throws IOException {
+        final byte[] chunkData = createChunkData();
+        final AnvilChunkReader chunkReader;
+        try (NbtStreamReader reader = new NbtStreamReader(new ByteArrayInputStream(chunkData))) {
+            chunkReader = AnvilChunkReader.read(reader);
+        }
+        assertEquals(true, chunkReader.populated);
+        assertNotNull(chunkReader.biomes);
+        assertNotNull(chunkReader.heightMap);
+        for (int i = 0; i < LanternChunk.CHUNK_SECTIONS; i++) {
+            assertEquals(i < SECTIONS, chunkReader.sections[i] != null);
+        }
+    }
+
+    @Test
+    public void testReadPerformance() throws IOException {
+        final byte[] chunkData = createChunkData();
+        for (int i = 0; i < 3; i++) {
+            test("DataView", chunkData, AnvilChunkReaderPerformanceTests::readWithDataView);
+            test("Streaming", chunkData, AnvilChunkReaderPerformanceTests::readStreaming);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.data.io.anvil;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.lanternpowered.server.data.persistence.nbt.NbtDataContainerOutputStream;
+import org.lanternpowered.server.data.persistence.nbt.NbtStreamReader;
+import org.lanternpowered.server.data.persistence.nbt.NbtStreamWriter;
+import org.lanternpowered.server.util.NibbleArray;
+import org.lanternpowered.server.world.chunk.ChunkBlockStateArray;
+import org.lanternpowered.server.world.chunk.LanternChunk;
+import org.spongepowered.api.data.DataContainer;
+import org.spongepowered.api.data.DataQuery;
+import org.spongepowered.api.data.DataView;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+public class AnvilChunkWriterPerformanceTests {
+
+    private final static String MESSAGE = "%s for %s chunks took: %s ms (%s saves/s)";
+    private final static int CHUNKS = 10000;
+    private final static int DISTINCT_CHUNKS = 16;
+    private final static int SECTIONS = 8;
+
+    private static final OutputStream NULL_OUTPUT_STREAM = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    private static AnvilChunkSnapshot createSnapshot(Random random, int x, int z) {
+        final AnvilChunkSnapshot snapshot = new AnvilChunkSnapshot(x, z);
+        snapshot.sections = new AnvilChunkSnapshot.Section[SECTIONS];
+        for (int i = 0; i < SECTIONS; i++) {
+            final ChunkBlockStateArray types = new ChunkBlockStateArray(LanternChunk.CHUNK_SECTION_VOLUME);
+            for (int j = 0; j < LanternChunk.CHUNK_SECTION_VOLUME; j++) {
+                types.set(j, (short) (random.nextInt(20) << 4 | random.nextInt(16)));
+            }
+            final byte[] blockLight = new byte[LanternChunk.CHUNK_SECTION_VOLUME / 2];
+            final byte[] skyLight = new byte[LanternChunk.CHUNK_SECTION_VOLUME / 2];
+            random.nextBytes(blockLight);
+            random.nextBytes(skyLight);
+            snapshot.sections[i] = new AnvilChunkSnapshot.Section(i, types, blockLight, skyLight);
+        }
+        snapshot.biomes = new short[256];
+        snapshot.heightMap = new int[256];
+        for (int i = 0; i < 256; i++) {
+            snapshot.biomes[i] = (short) random.nextInt(40);
+            snapshot.heightMap[i] = random.nextInt(128);
+        }
+        snapshot.populated = true;
+        snapshot.lightPopulated = true;
+        return snapshot;
+    }
+
+    /**
+     * The encoding as it was done before the {@link AnvilChunkWriter}, by
+     * building a data container with all the split section arrays.
+     */
+    private static void writeWithDataView(AnvilChunkSnapshot snapshot, OutputStream os) throws IOException {
+        final DataContainer rootView = DataContainer.createNew(DataView.SafetyMode.NO_DATA_CLONED);
+        final DataView levelDataView = rootView.createView(DataQuery.of("Level"));
+        levelDataView.set(DataQuery.of("V"), (byte) 1);
+        levelDataView.set(DataQuery.of("xPos"), snapshot.x);
+        levelDataView.set(DataQuery.of("zPos"), snapshot.z);
+        levelDataView.set(DataQuery.of("TerrainPopulated"), (byte) (snapshot.populated ? 1 : 0));
+        levelDataView.set(DataQuery.of("LightPopulated"), (byte) (snapshot.lightPopulated ? 1 : 0));
+        levelDataView.set(DataQuery.of("LastUpdate"), 0L);
+        levelDataView.set(DataQuery.of("InhabitedTime"), snapshot.inhabitedTime);
+
+        final List<DataView> sectionDataViews = new ArrayList<>();
+        for (AnvilChunkSnapshot.Section section : snapshot.sections) {
+            final DataContainer sectionDataView = DataContainer.createNew(DataView.SafetyMode.NO_DATA_CLONED);
+            sectionDataView.set(DataQuery.of("Y"), (byte) section.y);
+            final short[] types = section.types.getStates();
+            final byte[] rawTypes = new byte[types.length];
+            NibbleArray extTypes = null;
+            final NibbleArray data = new NibbleArray(rawTypes.length);
+            for (int j = 0; j < rawTypes.length; j++) {
+                rawTypes[j] = (byte) ((types[j] >> 4) & 0xff);
+                final byte extType = (byte) (types[j] >> 12);
+                if (extType != 0) {
+                    if (extTypes == null) {
+                        extTypes = new NibbleArray(rawTypes.length);
+                    }
+                    extTypes.set(j, extType);
+                }
+                data.set(j, (byte) (types[j] & 0xf));
+            }
+            sectionDataView.set(DataQuery.of("Blocks"), rawTypes);
+            if (extTypes != null) {
+                sectionDataView.set(DataQuery.of("Add"), extTypes.getPackedArray());
+            }
+            sectionDataView.set(DataQuery.of("Data"), data.getPackedArray());
+            sectionDataView.set(DataQuery.of("BlockLight"), section.blockLight);
+            if (section.skyLight != null) {
+                sectionDataView.set(DataQuery.of("SkyLight"), section.skyLight);
+            }
+            sectionDataViews.add(sectionDataView);
+        }
+        levelDataView.set(DataQuery.of("TileEntities"), snapshot.tileEntities);
+        levelDataView.set(DataQuery.of("Sections"), sectionDataViews);
+        levelDataView.set(DataQuery.of("HeightMap"), snapshot.heightMap);
+
+        final byte[] biomes = new byte[snapshot.biomes.length];
+        for (int i = 0; i < biomes.length; i++) {
+            biomes[i] = (byte) (snapshot.biomes[i] & 0xff);
+        }
+        levelDataView.set(DataQuery.of("Biomes"), biomes);
+        levelDataView.set(DataQuery.of("Entities"), snapshot.entities);
+
+        try (NbtDataContainerOutputStream nbt = new NbtDataContainerOutputStream(os)) {
+            nbt.write(rootView);
+            nbt.flush();
+        }
+    }
+
+    private static void writeStreaming(AnvilChunkSnapshot snapshot, OutputStream os) throws IOException {
+        try (NbtStreamWriter writer = new NbtStreamWriter(os)) {
+            AnvilChunkWriter.write(writer, snapshot);
+            writer.flush();
+        }
+    }
+
+    private interface ChunkWrite {
+
+        void write(AnvilChunkSnapshot snapshot, OutputStream os) throws IOException;
+    }
+
+    private static void test(String name, AnvilChunkSnapshot[] snapshots, ChunkWrite write) throws IOException {
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            final long time = System.nanoTime();
+            for (int i = 0; i < CHUNKS; i++) {
+                deflater.reset();
+                write.write(snapshots[i % snapshots.length], new DeflaterOutputStream(NULL_OUTPUT_STREAM, deflater, 8192));
+            }
+            final long duration = Math.max(1, (System.nanoTime() - time) / 1000000L);
+            System.out.println(String.format(MESSAGE, name, CHUNKS, duration, CHUNKS * 1000L / duration));
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        final AnvilChunkSnapshot snapshot = createSnapshot(new Random(5842), 3, -7);
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        writeStreaming(snapshot, baos);
+
+        final AnvilChunkReader chunkReader;
+        try (NbtStreamReader reader = new NbtStreamReader(new ByteArrayInputStream(baos.toByteArray()))) {
+            chunkReader = AnvilChunkReader.read(reader);
+        }
+        assertEquals(snapshot.populated, chunkReader.populated);
+        for (AnvilChunkSnapshot.Section section : snapshot.sections) {
+            final LanternChunk.ChunkSection chunkSection = chunkReader.sections[section.y];
+            for (int i = 0; i < LanternChunk.CHUNK_SECTION_VOLUME; i++) {
+                assertEquals(section.types.get(i), chunkSection.getType(i));
+            }
+        }
+    }
+
+    @Test
+    public void testWritePerformance() throws IOException {
+        final Random random = new Random(5842);
+        final AnvilChunkSnapshot[] snapshots = new AnvilChunkSnapshot[DISTINCT_CHUNKS];
+        for (int i = 0; i < snapshots.length; i++) {
+            snapshots[i] = createSnapshot(random, i, 0);
+        }
+        for (int i = 0; i < 3; i++) {
+            test("DataView", snapshots, AnvilChunkWriterPerformanceTests::writeWithDataView);
+            test("Streaming", snapshots, AnvilChunkWriterPerformanceTests::writeStreaming);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.data.io.anvil;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class RegionFileTest {
+
+    private static byte[] createData(Random random, int length) {
+        // Use a limited set of values, this way will the data be compressible
+        final byte[] data = new byte[length];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) random.nextInt(4);
+        }
+        return data;
+    }
+
+    private static void write(RegionFile regionFile, int x, int z, byte[] data) throws IOException {
+        try (DataOutputStream os = regionFile.getChunkDataOutputStream(x, z)) {
+            os.write(data);
+        }
+    }
+
+    private static byte[] read(RegionFile regionFile, int x, int z) throws IOException {
+        final DataInputStream is = regionFile.getChunkDataInputStream(x, z);
+        assertNotNull(is);
+        try {
+            final ByteArrayOutputStream os = new ByteArrayOutputStream();
+            final byte[] buf = new byte[4096];
+            int read;
+            while ((read = is.read(buf)) != -1) {
+                os.write(buf, 0, read);
+            }
+            return os.toByteArray();
+        } finally {
+            is.close();
+        }
+    }
+
+    private static Path createFile() throws IOException {
+        final Path path = Files.createTempFile("region", ".mca");
+        Files.delete(path);
+        path.toFile().deleteOnExit();
+        return path;
+    }
+
+    @Test
+    public void testWriteRead() throws IOException {
+        final Path path = createFile();
+        final Random random = new Random(1234L);
+        final byte[] data0 = createData(random, 10000);
+        final byte[] data1 = createData(random, 100);
+
+        RegionFile regionFile = new RegionFile(path, 0, 0);
+        assertFalse(regionFile.hasChunk(0, 0));
+        assertNull(regionFile.getChunkDataInputStream(0, 0));
+        write(regionFile, 0, 0, data0);
+        write(regionFile, 31, 31, data1);
+        assertTrue(regionFile.hasChunk(0, 0));
+        assertTrue(regionFile.hasChunk(31, 31));
+        assertFalse(regionFile.hasChunk(1, 1));
+        assertArrayEquals(data0, read(regionFile, 0, 0));
+        assertArrayEquals(data1, read(regionFile, 31, 31));
+        regionFile.close();
+
+        // Read the data again after reopening the file
+        regionFile = new RegionFile(path, 0, 0);
+        assertArrayEquals(data0, read(regionFile, 0, 0));
+        assertArrayEquals(data1, read(regionFile, 31, 31));
+        regionFile.close();
+    }
+
+    @Test
+    public void testRelocate() throws IOException {
+        final Path path = createFile();
+        final Random random = new Random(5678L);
+        final RegionFile regionFile = new RegionFile(path, 0, 0);
+        final byte[] data0 = createData(random, 100);
+        final byte[] data1 = createData(random, 100);
+        write(regionFile, 0, 0, data0);
+        write(regionFile, 1, 0, data1);
+        // The chunk will need more sectors, so it has to be moved
+        final byte[] data2 = createData(random, 50000);
+        write(regionFile, 0, 0, data2);
+        final byte[] data3 = createData(random, 100);
+        write(regionFile, 2, 0, data3);
+        assertArrayEquals(data2, read(regionFile, 0, 0));
+        assertArrayEquals(data1, read(regionFile, 1, 0));
+        assertArrayEquals(data3, read(regionFile, 2, 0));
+        regionFile.close();
+    }
+
+    @Test
+    public void testBestFit() throws IOException {
+        final Path path = createFile();
+        final Random random = new Random(91011L);
+        final RegionFile regionFile = new RegionFile(path, 0, 0);
+        // Use random data, so that the sizes are predictable
+        final byte[] data0 = new byte[3 * 4096];
+        random.nextBytes(data0);
+        write(regionFile, 0, 0, data0);
+        write(regionFile, 1, 0, createData(random, 100));
+        final byte[] data2 = new byte[4096];
+        random.nextBytes(data2);
+        write(regionFile, 2, 0, data2);
+        write(regionFile, 3, 0, createData(random, 100));
+        final int sectors = regionFile.getStats().getUsedSectors();
+        // Free both the large and the small run of sectors
+        write(regionFile, 0, 0, createData(random, 100));
+        write(regionFile, 2, 0, createData(random, 100));
+        // The small run should be used instead of growing the file
+        final byte[] data4 = new byte[4096];
+        random.nextBytes(data4);
+        final long fileSize = regionFile.getStats().getFileSize();
+        write(regionFile, 4, 0, data4);
+        assertEquals(fileSize, regionFile.getStats().getFileSize());
+        assertArrayEquals(data4, read(regionFile, 4, 0));
+        assertEquals(sectors - 4 + 2, regionFile.getStats().getUsedSectors());
+        regionFile.close();
+    }
+
+    @Test
+    public void testCompact() throws IOException {
+        final Path path = createFile();
+        final Random random = new Random(121314L);
+        RegionFile regionFile = new RegionFile(path, 0, 0);
+        final byte[][] data = new byte[32][];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = new byte[random.nextInt(20000)];
+            random.nextBytes(data[i]);
+            write(regionFile, i, 0, data[i]);
+        }
+        // Shrink every other chunk, this will leave holes in the file
+        for (int i = 0; i < data.length; i += 2) {
+            data[i] = createData(random, 100);
+            write(regionFile, i, 0, data[i]);
+        }
+        final RegionFile.Stats before = regionFile.getStats();
+        assertTrue(before.getFreeSectors() > 0);
+        regionFile.compact();
+        final RegionFile.Stats after = regionFile.getStats();
+        assertEquals(0, after.getFreeSectors());
+        assertEquals(before.getUsedSectors(), after.getUsedSectors());
+        assertEquals(Files.size(path), after.getFileSize());
+        assertTrue(after.getSectorsPerChunk() < before.getSectorsPerChunk());
+        for (int i = 0; i < data.length; i++) {
+            assertArrayEquals(data[i], read(regionFile, i, 0));
+        }
+        regionFile.close();
+
+        regionFile = new RegionFile(path, 0, 0);
+        for (int i = 0; i < data.length; i++) {
+            assertArrayEquals(data[i], read(regionFile, i, 0));
+        }
+        regionFile.close();
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final Path path = createFile();
+        final RegionFile regionFile = new RegionFile(path, 0, 0);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                final int x = i;
+                futures.add(executor.submit(() -> {
+                    final Random random = new Random(x);
+                    for (int j = 0; j < 50; j++) {
+                        final int z = random.nextInt(32);
+                        final byte[] data = createData(random, 100 + random.nextInt(40000));
+                        write(regionFile, x, z, data);
+                        assertArrayEquals(data, read(regionFile, x, z));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            regionFile.close();
+        }
+    }
+
+    @Test
+    public void testReferences() throws IOException {
+        final Path path = createFile();
+        final Random random = new Random(1213L);
+        final RegionFile regionFile = new RegionFile(path, 0, 0);
+        // A operation retains the file, the owner releases it
+        assertTrue(regionFile.retain());
+        assertFalse(regionFile.release());
+        // The file may not be closed while the operation is running
+        final byte[] data = createData(random, 1000);
+        write(regionFile, 0, 0, data);
+        assertArrayEquals(data, read(regionFile, 0, 0));
+        // The last reference closes the file
+        assertTrue(regionFile.release());
+        assertFalse(regionFile.retain());
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.network.entity;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compares finding the players within the tracking range of every
+ * entity by checking all the players against using a {@link TrackerGrid}.
+ */
+public class TrackerGridPerformanceTests {
+
+    private final static String MESSAGE = "%s for %s entities and %s players (%s rounds) took: %s ms, %s distance checks per round";
+
+    private final static int ENTITIES = 5000;
+    private final static int PLAYERS = 200;
+    private final static int ROUNDS = 100;
+    private final static double RANGE = 64;
+    private final static int SPREAD = 2000;
+
+    private static final class Position {
+
+        private double x;
+        private double y;
+        private double z;
+
+        private Position(Random random) {
+            this.x = random.nextDouble() * SPREAD;
+            this.y = random.nextDouble() * 256;
+            this.z = random.nextDouble() * SPREAD;
+        }
+
+        private void move(Random random) {
+            this.x += random.nextDouble() * 2 - 1;
+            this.z += random.nextDouble() * 2 - 1;
+        }
+
+        private boolean isInRange(Position other) {
+            final double dx = this.x - other.x;
+            final double dy = this.y - other.y;
+            final double dz = this.z - other.z;
+            return dx * dx + dy * dy + dz * dz < RANGE * RANGE;
+        }
+    }
+
+    private static Position[] createPositions(Random random, int count) {
+        final Position[] positions = new Position[count];
+        for (int i = 0; i < count; i++) {
+            positions[i] = new Position(random);
+        }
+        return positions;
+    }
+
+    @Test
+    public void testTrackerLookups() {
+        for (int i = 0; i < 3; i++) {
+            final long found = testAllPlayers();
+            assertEquals(found, testTrackerGrid());
+        }
+    }
+
+    private static long testAllPlayers() {
+        final Random random = new Random(1L);
+        final Position[] entities = createPositions(random, ENTITIES);
+        final Position[] players = createPositions(random, PLAYERS);
+        final Set<Position> playerSet = new HashSet<>();
+        for (Position player : players) {
+            playerSet.add(player);
+        }
+        long found = 0;
+        final long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            for (Position player : players) {
+                player.move(random);
+            }
+            for (Position entity : entities) {
+                // Every entity protocol copied the players before
+                for (Position player : new HashSet<>(playerSet)) {
+                    if (entity.isInRange(player)) {
+                        found++;
+                    }
+                }
+            }
+        }
+        print("All players", start, (long) ENTITIES * PLAYERS);
+        return found;
+    }
+
+    private static long testTrackerGrid() {
+        final Random random = new Random(1L);
+        final Position[] entities = createPositions(random, ENTITIES);
+        final Position[] players = createPositions(random, PLAYERS);
+        final TrackerGrid<Position> grid = new TrackerGrid<>();
+        final Set<Position> playerSet = new HashSet<>();
+        for (Position player : players) {
+            playerSet.add(player);
+        }
+        final long[] found = new long[1];
+        final long[] checks = new long[1];
+        final long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            grid.retainAll(playerSet);
+            for (Position player : players) {
+                player.move(random);
+                grid.update(player, player.x, player.z);
+            }
+            for (Position entity : entities) {
+                grid.forEachInRange(entity.x, entity.z, RANGE, player -> {
+                    checks[0]++;
+                    if (entity.isInRange(player)) {
+                        found[0]++;
+                    }
+                });
+            }
+        }
+        print("Tracker grid", start, checks[0] / ROUNDS);
+        return found[0];
+    }
+
+    private static void print(String name, long start, long checks) {
+        final long time = System.nanoTime() - start;
+        System.out.println(String.format(MESSAGE, name, ENTITIES, PLAYERS, ROUNDS, time / 1000000L, checks));
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.network.pipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.lanternpowered.server.network.buffer.LanternByteBuffer.readVarInt;
+import static org.lanternpowered.server.network.buffer.LanternByteBuffer.writeVarInt;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+import org.lanternpowered.server.network.buffer.ByteBuffer;
+import org.lanternpowered.server.network.buffer.LanternByteBuffer;
+import org.lanternpowered.server.network.buffer.LanternByteBufferAllocator;
+
+import java.util.Random;
+
+/**
+ * Compares the encoding and decoding of messages between the previous
+ * implementation, which combined a separate opcode buffer with the content
+ * and copied every inbound frame twice, and the current implementation.
+ */
+public class MessageCodecHandlerPerformanceTests {
+
+    private final static String MESSAGE = "%s for %s messages of %s bytes took: %s ms";
+
+    private final static int BYTES = 64 * 1024 * 1024;
+    private final static int OPCODE = 0x20;
+
+    @Test
+    public void testEncode32B() {
+        testEncode(32);
+    }
+
+    @Test
+    public void testEncode4KB() {
+        testEncode(4096);
+    }
+
+    @Test
+    public void testDecode32B() {
+        testDecode(32);
+    }
+
+    @Test
+    public void testDecode4KB() {
+        testDecode(4096);
+    }
+
+    private static void testEncode(int messageSize) {
+        final byte[] content = new byte[messageSize];
+        new Random(1L).nextBytes(content);
+        final int messages = BYTES / messageSize;
+        final LanternByteBufferAllocator allocator = new LanternByteBufferAllocator(PooledByteBufAllocator.DEFAULT);
+        final OpcodeReservingByteBufferAllocator reservingAllocator = new OpcodeReservingByteBufferAllocator(allocator);
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            for (int j = 0; j < messages; j++) {
+                final ByteBuf opcode = PooledByteBufAllocator.DEFAULT.buffer();
+                writeVarInt(opcode, OPCODE);
+                final ByteBuffer buf = allocator.buffer();
+                buf.writeBytes(content);
+                frame(Unpooled.wrappedBuffer(opcode, ((LanternByteBuffer) buf).getDelegate()), messageSize);
+            }
+            print("Composite", start, messages, messageSize);
+            start = System.nanoTime();
+            for (int j = 0; j < messages; j++) {
+                reservingAllocator.reset();
+                final ByteBuffer buf = reservingAllocator.buffer();
+                buf.writeBytes(content);
+                final ByteBuf byteBuf = ((LanternByteBuffer) buf).getDelegate();
+                assertTrue(reservingAllocator.tryWriteOpcode(byteBuf, OPCODE));
+                frame(byteBuf, messageSize);
+            }
+            print("Reserved", start, messages, messageSize);
+        }
+    }
+
+    /**
+     * Writes the message like the {@link MessageFramingHandler} would do.
+     */
+    private static void frame(ByteBuf message, int messageSize) {
+        final ByteBuf output = PooledByteBufAllocator.DEFAULT.buffer(message.readableBytes() + 5);
+        writeVarInt(output, message.readableBytes());
+        output.writeBytes(message);
+        message.release();
+        assertEquals(messageSize + 1, readVarInt(output));
+        assertEquals(OPCODE, readVarInt(output));
+        assertEquals(messageSize, output.readableBytes());
+        output.release();
+    }
+
+    private static void testDecode(int messageSize) {
+        final byte[] content = new byte[messageSize];
+        new Random(1L).nextBytes(content);
+        final int messages = BYTES / messageSize;
+        // Build a stream of framed messages which will be fed in chunks
+        final ByteBuf stream = Unpooled.buffer();
+        for (int i = 0; i < Math.min(messages, 1024); i++) {
+            writeVarInt(stream, messageSize + 1);
+            writeVarInt(stream, OPCODE);
+            stream.writeBytes(content);
+        }
+        final int framesPerStream = Math.min(messages, 1024);
+        final int streams = messages / framesPerStream;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            for (int j = 0; j < streams; j++) {
+                final ByteBuf input = stream.retainedDuplicate();
+                while (input.isReadable()) {
+                    final int length = readVarInt(input);
+                    // The framing handler copied the frame
+                    final ByteBuf frame = PooledByteBufAllocator.DEFAULT.buffer(length);
+                    input.readBytes(frame, length);
+                    readVarInt(frame);
+                    // And the codec handler copied the content again
+                    final ByteBuf copy = PooledByteBufAllocator.DEFAULT.buffer(frame.readableBytes());
+                    frame.readBytes(copy, frame.readableBytes());
+                    assertEquals(messageSize, copy.readableBytes());
+                    copy.release();
+                    frame.release();
+                }
+                input.release();
+            }
+            print("Copied", start, messages, messageSize);
+            final EmbeddedChannel channel = new EmbeddedChannel(new MessageFramingHandler());
+            start = System.nanoTime();
+            for (int j = 0; j < streams; j++) {
+                channel.writeInbound(stream.retainedDuplicate());
+                ByteBuf frame;
+                while ((frame = channel.readInbound()) != null) {
+                    readVarInt(frame);
+                    final ByteBuf slice = frame.slice();
+                    assertEquals(messageSize, slice.readableBytes());
+                    frame.release();
+                }
+            }
+            print("Sliced", start, messages, messageSize);
+            channel.finishAndReleaseAll();
+        }
+        stream.release();
+    }
+
+    private static void print(String name, long start, int messages, int messageSize) {
+        final long time = System.nanoTime() - start;
+        System.out.println(String.format(MESSAGE, name, messages, messageSize, time / 1000000L));
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.network.pipeline;
+
+import static org.junit.Assert.assertNotNull;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+/**
+ * Compares the compression of chunk sized messages between the previous
+ * array based implementation and the {@link MessageCompressionHandler}.
+ */
+public class MessageCompressionHandlerPerformanceTests {
+
+    private final static String MESSAGE = "%s for %s chunks took: %s ms, allocated %s bytes per chunk, %s gc runs (%s ms)";
+
+    private final static int CHUNKS = 2000;
+    private final static int CHUNK_SIZE = 48 * 1024;
+    private final static int THRESHOLD = 256;
+
+    private static long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static long[] getGcStats() {
+        long count = 0;
+        long time = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += bean.getCollectionCount();
+            time += bean.getCollectionTime();
+        }
+        return new long[] { count, time };
+    }
+
+    /**
+     * Creates the content of a chunk data message, a few palette
+     * entries spread over a lot of blocks compress similar to
+     * the real chunk data.
+     *
+     * @return The content
+     */
+    private static byte[] createChunkData() {
+        final Random random = new Random(1L);
+        final byte[] data = new byte[CHUNK_SIZE];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i < 16 * 1024 ? random.nextInt(4) : random.nextInt(16) == 0 ? random.nextInt(256) : 0);
+        }
+        return data;
+    }
+
+    @Test
+    public void testChunkCompression() {
+        final byte[] chunkData = createChunkData();
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        final EmbeddedChannel channel = new EmbeddedChannel(new MessageCompressionHandler(THRESHOLD));
+        for (int i = 0; i < 3; i++) {
+            testArrays(deflater, chunkData);
+            testHandler(channel, chunkData);
+        }
+        channel.finishAndReleaseAll();
+    }
+
+    private static void testArrays(Deflater deflater, byte[] chunkData) {
+        final long[] gcStats = getGcStats();
+        final long allocated = getAllocatedBytes();
+        final long start = System.nanoTime();
+        for (int i = 0; i < CHUNKS; i++) {
+            final ByteBuf msg = PooledByteBufAllocator.DEFAULT.directBuffer(chunkData.length);
+            msg.writeBytes(chunkData);
+            // The previous implementation
+            final byte[] sourceData = new byte[msg.readableBytes()];
+            msg.readBytes(sourceData);
+            deflater.setInput(sourceData);
+            deflater.finish();
+            final byte[] compressedData = new byte[sourceData.length];
+            final int compressedLength = deflater.deflate(compressedData);
+            deflater.reset();
+            final ByteBuf output = Unpooled.wrappedBuffer(compressedData, 0, compressedLength);
+            output.release();
+            msg.release();
+        }
+        print("Arrays", start, allocated, gcStats);
+    }
+
+    private static void testHandler(EmbeddedChannel channel, byte[] chunkData) {
+        final long[] gcStats = getGcStats();
+        final long allocated = getAllocatedBytes();
+        final long start = System.nanoTime();
+        for (int i = 0; i < CHUNKS; i++) {
+            final ByteBuf msg = PooledByteBufAllocator.DEFAULT.directBuffer(chunkData.length);
+            msg.writeBytes(chunkData);
+            channel.writeOutbound(msg);
+            final ByteBuf output = channel.readOutbound();
+            assertNotNull(output);
+            output.release();
+        }
+        print("Handler", start, allocated, gcStats);
+    }
+
+    private static void print(String name, long start, long allocated, long[] gcStats) {
+        final long time = System.nanoTime() - start;
+        final long[] gcStats1 = getGcStats();
+        System.out.println(String.format(MESSAGE, name, CHUNKS, time / 1000000L, (getAllocatedBytes() - allocated) / CHUNKS,
+                gcStats1[0] - gcStats[0], gcStats1[1] - gcStats[1]));
+    }
+}
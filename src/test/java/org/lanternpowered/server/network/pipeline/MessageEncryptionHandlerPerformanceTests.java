@@ -0,0 +1,123 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.network.pipeline;
+
+import static org.junit.Assert.assertNotNull;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Compares the encryption of frames between the previous implementation,
+ * which allocated a new heap buffer for every frame, and the
+ * {@link MessageEncryptionHandler}.
+ */
+public class MessageEncryptionHandlerPerformanceTests {
+
+    private final static String MESSAGE = "%s for %s frames of %s bytes took: %s ms, allocated %s bytes per frame";
+
+    private final static int BYTES = 64 * 1024 * 1024;
+
+    private static long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    @Test
+    public void testEncryption1KB() throws Exception {
+        testEncryption(1024);
+    }
+
+    @Test
+    public void testEncryption64KB() throws Exception {
+        testEncryption(64 * 1024);
+    }
+
+    private static void testEncryption(int frameSize) throws Exception {
+        final byte[] key = new byte[16];
+        new Random(1L).nextBytes(key);
+        final SecretKey secretKey = new SecretKeySpec(key, "AES");
+        final Cipher cipher = Cipher.getInstance("AES/CFB8/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, secretKey, new IvParameterSpec(key));
+        final EmbeddedChannel channel = new EmbeddedChannel(new MessageEncryptionHandler(secretKey));
+        final byte[] frame = new byte[frameSize];
+        new Random(2L).nextBytes(frame);
+        final int frames = BYTES / frameSize;
+        for (int i = 0; i < 3; i++) {
+            testByteBuffers(cipher, frame, frames);
+            testHandler(channel, frame, frames);
+        }
+        channel.finishAndReleaseAll();
+    }
+
+    private static void testByteBuffers(Cipher cipher, byte[] frame, int frames) throws Exception {
+        final long allocated = getAllocatedBytes();
+        final long start = System.nanoTime();
+        for (int i = 0; i < frames; i++) {
+            final ByteBuf msg = PooledByteBufAllocator.DEFAULT.directBuffer(frame.length);
+            msg.writeBytes(frame);
+            // The previous implementation
+            final ByteBuffer outBuffer = ByteBuffer.allocate(msg.readableBytes());
+            cipher.update(msg.nioBuffer(), outBuffer);
+            outBuffer.flip();
+            Unpooled.wrappedBuffer(outBuffer).release();
+            msg.release();
+        }
+        print("ByteBuffers", start, allocated, frames, frame.length);
+    }
+
+    private static void testHandler(EmbeddedChannel channel, byte[] frame, int frames) {
+        final long allocated = getAllocatedBytes();
+        final long start = System.nanoTime();
+        for (int i = 0; i < frames; i++) {
+            final ByteBuf msg = PooledByteBufAllocator.DEFAULT.directBuffer(frame.length);
+            msg.writeBytes(frame);
+            channel.writeOutbound(msg);
+            final ByteBuf output = channel.readOutbound();
+            assertNotNull(output);
+            output.release();
+        }
+        print("Handler", start, allocated, frames, frame.length);
+    }
+
+    private static void print(String name, long start, long allocated, int frames, int frameSize) {
+        final long time = System.nanoTime() - start;
+        System.out.println(String.format(MESSAGE, name, frames, frameSize, time / 1000000L,
+                (getAllocatedBytes() - allocated) / frames));
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.scheduler;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.Maps;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares checking all the pending tasks every tick, like the schedulers
+ * did before, against the timing wheels of the {@link SchedulerBase}.
+ */
+public class SchedulerPerformanceTests {
+
+    private final static String MESSAGE = "%s for %s pending tasks (%s rounds) took: %s ms, %s";
+
+    private final static int TASKS = 100000;
+    private final static int TICKS = 200;
+    private final static int LOOKUPS = 50;
+    // The maximum delay of the tasks in ticks, 100 seconds
+    private final static int MAX_DELAY = 2000;
+
+    private static Map<UUID, ScheduledTask> createTasks(AtomicLong executed, boolean ticks) {
+        final Random random = new Random(1L);
+        final Map<UUID, ScheduledTask> tasks = Maps.newConcurrentMap();
+        for (int i = 0; i < TASKS; i++) {
+            final long delay = 1 + random.nextInt(MAX_DELAY);
+            // Every tenth task repeats
+            final long interval = i % 10 == 0 ? 1 + random.nextInt(100) : 0;
+            final ScheduledTask task = new ScheduledTask(ScheduledTask.TaskSynchronicity.SYNCHRONOUS,
+                    task0 -> executed.incrementAndGet(), "task-" + i,
+                    ticks ? delay : TimeUnit.MILLISECONDS.toNanos(delay * 50), ticks,
+                    ticks ? interval : TimeUnit.MILLISECONDS.toNanos(interval * 50), ticks, null);
+            tasks.put(task.getUniqueId(), task);
+        }
+        return tasks;
+    }
+
+    @Test
+    public void testTickDispatch() {
+        for (int i = 0; i < 3; i++) {
+            final long executed = testScanTicks();
+            assertEquals(executed, testTimingWheelTicks());
+        }
+    }
+
+    @Test
+    public void testNextTaskLookup() {
+        for (int i = 0; i < 3; i++) {
+            testScanNextTask();
+            testTimingWheelNextTask();
+        }
+    }
+
+    private static long testScanTicks() {
+        final AtomicLong executed = new AtomicLong();
+        final Map<UUID, ScheduledTask> tasks = createTasks(executed, true);
+        long counter = 0;
+        for (ScheduledTask task : tasks.values()) {
+            task.setTimestamp(counter);
+        }
+        final long start = System.nanoTime();
+        for (int i = 0; i < TICKS; i++) {
+            counter++;
+            // The previous SchedulerBase#runTick
+            for (ScheduledTask task : tasks.values()) {
+                final long threshold = task.getState() == ScheduledTask.ScheduledTaskState.WAITING ? task.offset : task.period;
+                if (threshold <= counter - task.getTimestamp()) {
+                    task.setState(ScheduledTask.ScheduledTaskState.RUNNING);
+                    task.setTimestamp(counter);
+                    task.getConsumer().accept(task);
+                    if (task.period == 0L) {
+                        tasks.remove(task.getUniqueId());
+                    }
+                }
+            }
+        }
+        print("Scanning all tasks", start, TICKS, executed.get() + " tasks executed");
+        return executed.get();
+    }
+
+    private static long testTimingWheelTicks() {
+        final AtomicLong executed = new AtomicLong();
+        final SyncScheduler scheduler = new SyncScheduler();
+        createTasks(executed, true).values().forEach(scheduler::addTask);
+        final long start = System.nanoTime();
+        for (int i = 0; i < TICKS; i++) {
+            scheduler.tick();
+        }
+        print("Timing wheel", start, TICKS, executed.get() + " tasks executed");
+        return executed.get();
+    }
+
+    private static void testScanNextTask() {
+        final Map<UUID, ScheduledTask> tasks = createTasks(new AtomicLong(), false);
+        final long now = System.nanoTime();
+        for (ScheduledTask task : tasks.values()) {
+            task.setTimestamp(now);
+        }
+        long timeout = 0;
+        final long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            // The previous AsyncScheduler#recalibrateMinimumTimeout
+            final Set<ScheduledTask> copy = new HashSet<>(tasks.values());
+            timeout = Long.MAX_VALUE;
+            for (ScheduledTask task : copy) {
+                timeout = Math.min(task.offset - (System.nanoTime() - task.getTimestamp()), timeout);
+            }
+        }
+        print("Scanning next task", start, LOOKUPS, "next task in " + TimeUnit.NANOSECONDS.toMillis(Math.max(0, timeout)) + " ms");
+    }
+
+    private static void testTimingWheelNextTask() {
+        final SyncScheduler scheduler = new SyncScheduler();
+        createTasks(new AtomicLong(), false).values().forEach(scheduler::addTask);
+        // Move the added tasks into the timing wheel
+        scheduler.tick();
+        long timeout = 0;
+        final long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            timeout = scheduler.getNextTaskDelay();
+        }
+        print("Timing wheel next task", start, LOOKUPS, "next task in " + TimeUnit.NANOSECONDS.toMillis(timeout) + " ms");
+    }
+
+    private static void print(String name, long start, int rounds, String result) {
+        final long time = System.nanoTime() - start;
+        System.out.println(String.format(MESSAGE, name, TASKS, rounds, time / 1000000L, result));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Verifies that the {@link TimingWheel} releases every task on
+ * the first advance that reaches its deadline, in order.
+ */
+public class TimingWheelTest {
+
+    private static ScheduledTask createTask() {
+        return new ScheduledTask(ScheduledTask.TaskSynchronicity.SYNCHRONOUS, task -> {}, "test", 0, true, 0, true, null);
+    }
+
+    @Test
+    public void testRandomDeadlines() {
+        final Random random = new Random(0L);
+        final TimingWheel wheel = new TimingWheel();
+        // The deadlines of the pending tasks, deadlines that already
+        // passed are moved to the time at which the task was added
+        final Map<ScheduledTask, Long> pending = new HashMap<>();
+        long time = 0;
+        for (int round = 0; round < 20000; round++) {
+            // Add tasks with deadlines at different scales, including past ones
+            for (int i = random.nextInt(8); i > 0; i--) {
+                final long range = 1L << (random.nextInt(7) * 4);
+                final long deadline = time + (long) (random.nextDouble() * range) - random.nextInt(2);
+                final ScheduledTask task = createTask();
+                wheel.add(task, deadline);
+                pending.put(task, Math.max(deadline, time));
+            }
+            // Remove some random tasks
+            if (!pending.isEmpty() && random.nextInt(4) == 0) {
+                final ScheduledTask task = new ArrayList<>(pending.keySet()).get(random.nextInt(pending.size()));
+                wheel.remove(task);
+                pending.remove(task);
+            }
+            final long target = time + (random.nextInt(16) == 0 ? random.nextInt(100000) : random.nextInt(4));
+            final long[] last = { Long.MIN_VALUE };
+            wheel.advance(target, task -> {
+                final long deadline = pending.remove(task);
+                assertTrue("Task released too early", deadline <= target);
+                assertTrue("Tasks released out of order", deadline >= last[0]);
+                last[0] = deadline;
+                // Repeat some of the tasks, like the scheduler does
+                if (random.nextBoolean()) {
+                    final long next = deadline + 1 + random.nextInt(100);
+                    wheel.add(task, next);
+                    pending.put(task, next);
+                }
+            });
+            for (long deadline : pending.values()) {
+                assertTrue("Task not released", deadline > target);
+            }
+            assertEquals(pending.size(), wheel.size());
+            time = target + 1;
+        }
+    }
+
+    @Test
+    public void testFarDeadline() {
+        final TimingWheel wheel = new TimingWheel();
+        final ScheduledTask task = createTask();
+        // Further away than the range of the wheel
+        final long deadline = 1L << 50;
+        wheel.add(task, deadline);
+        final List<ScheduledTask> due = new ArrayList<>();
+        wheel.advance(1L << 40, due::add);
+        assertTrue(due.isEmpty());
+        assertEquals(1, wheel.size());
+        wheel.advance(deadline - 1, due::add);
+        assertTrue(due.isEmpty());
+        wheel.advance(deadline, due::add);
+        assertEquals(1, due.size());
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.tick;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class TickHistogramTest {
+
+    private static final double MAX_RELATIVE_ERROR = 1.0 / 64.0;
+
+    @Test
+    public void testEmpty() {
+        final TickHistogram histogram = new TickHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void testPercentiles() {
+        final Random random = new Random(0);
+        final long[] values = new long[100000];
+        final TickHistogram histogram = new TickHistogram();
+        for (int i = 0; i < values.length; i++) {
+            // Durations between 0.1ms and 1s, with a long tail
+            values[i] = (long) (100000.0 * Math.pow(10000.0, random.nextDouble() * random.nextDouble()));
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        assertEquals(values.length, histogram.getCount());
+        assertEquals(values[values.length - 1], histogram.getMax());
+        for (double percentile : new double[] { 1, 50, 90, 95, 99, 99.9, 100 }) {
+            final long expected = values[(int) Math.ceil(percentile / 100.0 * values.length) - 1];
+            final long actual = histogram.getValueAtPercentile(percentile);
+            assertTrue("p" + percentile + ": expected " + expected + ", but got " + actual,
+                    Math.abs(actual - expected) <= expected * MAX_RELATIVE_ERROR);
+        }
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        final TickHistogram histogram = new TickHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        assertEquals(50, histogram.getValueAtPercentile(50));
+        assertEquals(99, histogram.getValueAtPercentile(99));
+        assertEquals(100, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testAddAndReset() {
+        final TickHistogram first = new TickHistogram();
+        final TickHistogram second = new TickHistogram();
+        first.record(1000);
+        second.record(3000);
+        first.add(second);
+        assertEquals(2, first.getCount());
+        assertEquals(3000, first.getMax());
+        assertEquals(2000.0, first.getMean(), 0.0);
+        first.reset();
+        assertEquals(0, first.getCount());
+        assertEquals(0, first.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void testCatchUpPolicies() {
+        assertEquals(10, CatchUpPolicy.SKIP.getSkippedTicks(10, 4));
+        assertEquals(6, CatchUpPolicy.LIMITED.getSkippedTicks(10, 4));
+        assertEquals(0, CatchUpPolicy.LIMITED.getSkippedTicks(3, 4));
+        assertEquals(0, CatchUpPolicy.FULL.getSkippedTicks(10, 4));
+    }
+}
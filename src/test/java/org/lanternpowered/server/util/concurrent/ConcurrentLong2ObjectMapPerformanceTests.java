@@ -0,0 +1,124 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.util.concurrent;
+
+import com.flowpowered.math.vector.Vector2i;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compares the allocations of chunk lookups between a {@link ConcurrentHashMap}
+ * with {@link Vector2i} keys and a {@link ConcurrentLong2ObjectMap}. Every tick
+ * all the chunks within the view distance of every player are looked up, which
+ * is what the observed chunk manager and the entity pulses do.
+ */
+public class ConcurrentLong2ObjectMapPerformanceTests {
+
+    private final static String MESSAGE = "%s for %s ticks with %s players (%s lookups) took: %s ms, allocated %s bytes per tick";
+
+    private final static int PLAYERS = 100;
+    private final static int VIEW_DISTANCE = 10;
+    private final static int TICKS = 20;
+    private final static int SPREAD = 64;
+
+    private static long key(int cx, int cz) {
+        return ((long) cx & 0x3ffffff) << 38 | ((long) cz & 0x3ffffff);
+    }
+
+    private static long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    @Test
+    public void testLookupAllocations() {
+        final Random random = new Random(1L);
+        final int[] players = new int[PLAYERS * 2];
+        for (int i = 0; i < players.length; i++) {
+            players[i] = random.nextInt(SPREAD * 2) - SPREAD;
+        }
+        final Map<Vector2i, Object> vectorMap = new ConcurrentHashMap<>();
+        final ConcurrentLong2ObjectMap<Object> longMap = new ConcurrentLong2ObjectMap<>();
+        final int range = SPREAD + VIEW_DISTANCE;
+        for (int x = -range; x <= range; x++) {
+            for (int z = -range; z <= range; z++) {
+                final Object chunk = new Object();
+                vectorMap.put(new Vector2i(x, z), chunk);
+                longMap.put(key(x, z), chunk);
+            }
+        }
+        for (int i = 0; i < 3; i++) {
+            testVectorMap(vectorMap, players);
+            testLongMap(longMap, players);
+        }
+    }
+
+    private static void testVectorMap(Map<Vector2i, Object> map, int[] players) {
+        final long time = System.currentTimeMillis();
+        final long bytes = getAllocatedBytes();
+        int found = 0;
+        for (int tick = 0; tick < TICKS; tick++) {
+            for (int i = 0; i < players.length; i += 2) {
+                for (int x = -VIEW_DISTANCE; x <= VIEW_DISTANCE; x++) {
+                    for (int z = -VIEW_DISTANCE; z <= VIEW_DISTANCE; z++) {
+                        if (map.get(new Vector2i(players[i] + x, players[i + 1] + z)) != null) {
+                            found++;
+                        }
+                    }
+                }
+            }
+        }
+        print("ConcurrentHashMap<Vector2i>", time, bytes, found);
+    }
+
+    private static void testLongMap(ConcurrentLong2ObjectMap<Object> map, int[] players) {
+        final long time = System.currentTimeMillis();
+        final long bytes = getAllocatedBytes();
+        int found = 0;
+        for (int tick = 0; tick < TICKS; tick++) {
+            for (int i = 0; i < players.length; i += 2) {
+                for (int x = -VIEW_DISTANCE; x <= VIEW_DISTANCE; x++) {
+                    for (int z = -VIEW_DISTANCE; z <= VIEW_DISTANCE; z++) {
+                        if (map.get(key(players[i] + x, players[i + 1] + z)) != null) {
+                            found++;
+                        }
+                    }
+                }
+            }
+        }
+        print("ConcurrentLong2ObjectMap", time, bytes, found);
+    }
+
+    private static void print(String name, long time, long bytes, int found) {
+        final long allocated = (getAllocatedBytes() - bytes) / TICKS;
+        System.out.println(String.format(MESSAGE, name, TICKS, PLAYERS, found,
+                System.currentTimeMillis() - time, allocated));
+    }
+}
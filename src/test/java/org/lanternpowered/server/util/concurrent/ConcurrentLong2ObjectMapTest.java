@@ -0,0 +1,105 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.util.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class ConcurrentLong2ObjectMapTest {
+
+    private static final long A = Long.MIN_VALUE;
+    private static final long B = 0L;
+    private static final long C = 0x3ffffffL << 38;
+
+    @Test
+    public void testPutAndRemove() {
+        final ConcurrentLong2ObjectMap<String> map = new ConcurrentLong2ObjectMap<>();
+        assertNull(map.put(A, "a"));
+        assertNull(map.put(B, "b"));
+        assertEquals("a", map.put(A, "c"));
+        assertEquals("c", map.get(A));
+        assertTrue(map.containsKey(B));
+        assertFalse(map.containsKey(C));
+        assertEquals(2, map.size());
+        assertFalse(map.remove(B, "a"));
+        assertTrue(map.remove(B, "b"));
+        assertEquals("c", map.remove(A));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testCompute() {
+        final ConcurrentLong2ObjectMap<String> map = new ConcurrentLong2ObjectMap<>();
+        final String value = map.computeIfAbsent(C, key -> "c");
+        assertSame(value, map.computeIfAbsent(C, key -> "d"));
+        assertEquals("cc", map.compute(C, (key, value1) -> value1 + value1));
+        assertNull(map.compute(C, (key, value1) -> null));
+        assertFalse(map.containsKey(C));
+    }
+
+    @Test
+    public void testForEach() {
+        final ConcurrentLong2ObjectMap<Long> map = new ConcurrentLong2ObjectMap<>();
+        final Map<Long, Long> expected = new HashMap<>();
+        for (long i = -500; i < 500; i++) {
+            map.put(i * 31, i);
+            expected.put(i * 31, i);
+        }
+        final Map<Long, Long> entries = new HashMap<>();
+        map.forEach(entries::put);
+        assertEquals(expected, entries);
+        assertEquals(expected.size(), map.values().size());
+        map.clear();
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void testReentrantModification() {
+        final ConcurrentLong2ObjectMap<String> map = new ConcurrentLong2ObjectMap<>();
+        // The functions may modify the map, the same key may not
+        // deadlock and the value that was put first is kept
+        assertEquals("b", map.computeIfAbsent(A, key -> {
+            map.put(A, "b");
+            return "a";
+        }));
+        assertEquals("cc", map.compute(B, (key, value) -> {
+            if (value == null) {
+                map.put(B, "c");
+            }
+            return value + value;
+        }));
+        map.forEach((key, value) -> map.remove(key));
+        assertTrue(map.isEmpty());
+    }
+}
@@ -0,0 +1,376 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Verifies that ticking regions in parallel gives the same result as
+ * ticking them on a single thread, as long as the objects only affect
+ * other objects within half the range of a region. Interactions that
+ * reach further are deferred to the serial merge.
+ */
+public class RegionTickSchedulerTest {
+
+    private static final int REGION_SIZE = 4;
+    private static final int AGENTS = 20000;
+    private static final int TICKS = 20;
+    // The range of the interactions in blocks, must be smaller than half the region size
+    private static final int RANGE = REGION_SIZE * 8 - 1;
+    // The range of the deferred interactions in blocks, these can reach into other regions
+    private static final int FAR_RANGE = REGION_SIZE * 16 * 2;
+
+    private static final class Agent {
+
+        private final int x;
+        private final int z;
+        private final List<Agent> neighbors = new ArrayList<>();
+        private final List<Agent> farNeighbors = new ArrayList<>();
+        private long state;
+
+        private Agent(int x, int z, long state) {
+            this.x = x;
+            this.z = z;
+            this.state = state;
+        }
+
+        private void tick(RegionTickScheduler scheduler) {
+            long state = this.state;
+            for (Agent neighbor : this.neighbors) {
+                state = state * 31 + neighbor.state;
+                // Modify the neighbors, these are unsynchronized writes
+                // that would give different results if regions overlap
+                neighbor.state ^= state >>> 7;
+            }
+            this.state = state;
+            for (Agent neighbor : this.farNeighbors) {
+                final long value = state >>> 11;
+                scheduler.defer(neighbor.x >> 4, neighbor.z >> 4, () -> neighbor.state = neighbor.state * 17 + value);
+            }
+        }
+    }
+
+    private static List<Agent> createAgents() {
+        final Random random = new Random(1L);
+        final List<Agent> agents = new ArrayList<>();
+        // Spread the agents over 64x64 chunks, centered around the origin
+        for (int i = 0; i < AGENTS; i++) {
+            agents.add(new Agent(random.nextInt(1024) - 512, random.nextInt(1024) - 512, random.nextLong()));
+        }
+        // Bucket the agents per chunk to find the neighbors
+        final List<List<Agent>> chunks = new ArrayList<>();
+        for (int i = 0; i < 64 * 64; i++) {
+            chunks.add(new ArrayList<>());
+        }
+        for (Agent agent : agents) {
+            chunks.get(((agent.x >> 4) + 32) * 64 + (agent.z >> 4) + 32).add(agent);
+        }
+        for (Agent agent : agents) {
+            final int chunkRange = (RANGE >> 4) + 1;
+            for (int cx = (agent.x >> 4) - chunkRange; cx <= (agent.x >> 4) + chunkRange; cx++) {
+                for (int cz = (agent.z >> 4) - chunkRange; cz <= (agent.z >> 4) + chunkRange; cz++) {
+                    if (cx < -32 || cx >= 32 || cz < -32 || cz >= 32) {
+                        continue;
+                    }
+                    for (Agent other : chunks.get((cx + 32) * 64 + cz + 32)) {
+                        if (other != agent && Math.abs(other.x - agent.x) <= RANGE &&
+                                Math.abs(other.z - agent.z) <= RANGE && agent.neighbors.size() < 8) {
+                            agent.neighbors.add(other);
+                        }
+                    }
+                }
+            }
+            // Pick a few agents that can be further away
+            final int farChunkRange = FAR_RANGE >> 4;
+            for (int cx = (agent.x >> 4) - farChunkRange; cx <= (agent.x >> 4) + farChunkRange; cx += farChunkRange) {
+                for (int cz = (agent.z >> 4) - farChunkRange; cz <= (agent.z >> 4) + farChunkRange; cz += farChunkRange) {
+                    if (cx < -32 || cx >= 32 || cz < -32 || cz >= 32) {
+                        continue;
+                    }
+                    final List<Agent> chunk = chunks.get((cx + 32) * 64 + cz + 32);
+                    if (!chunk.isEmpty() && chunk.get(0) != agent) {
+                        agent.farNeighbors.add(chunk.get(0));
+                    }
+                }
+            }
+        }
+        return agents;
+    }
+
+    /**
+     * A chunk of the {@link TestWorld}, stores a block per column and the entities.
+     */
+    private static final class TestChunk {
+
+        private final int[] blocks = new int[16 * 16];
+        private final List<TestEntity> entities = new ArrayList<>();
+    }
+
+    /**
+     * A world that accesses its chunks in the same way as {@link LanternWorld}, values
+     * are only returned for chunks within reach and mutations are deferred if needed.
+     */
+    private static final class TestWorld {
+
+        private static final int SIZE = 32;
+
+        private final RegionTickScheduler scheduler;
+        private final Long2ObjectMap<TestChunk> chunks = new Long2ObjectOpenHashMap<>();
+        private final List<TestEntity> entities = new ArrayList<>();
+
+        private TestWorld(RegionTickScheduler scheduler) {
+            this.scheduler = scheduler;
+            // All the chunks are loaded upfront, the map may not be modified while ticking
+            for (int x = -SIZE / 2; x < SIZE / 2; x++) {
+                for (int z = -SIZE / 2; z < SIZE / 2; z++) {
+                    this.chunks.put(key(x, z), new TestChunk());
+                }
+            }
+        }
+
+        private static long key(int x, int z) {
+            return ((long) x << 32) | (z & 0xffffffffL);
+        }
+
+        private TestChunk getChunk(int x, int z) {
+            return this.chunks.get(key(x >> 4, z >> 4));
+        }
+
+        private TestChunk getChunkWithinReach(int x, int z) {
+            this.scheduler.checkWithinReach(x >> 4, z >> 4);
+            return getChunk(x, z);
+        }
+
+        private int getBlock(int x, int z) {
+            return getChunkWithinReach(x, z).blocks[(x & 0xf) << 4 | (z & 0xf)];
+        }
+
+        private void setBlock(int x, int z, int block) {
+            this.scheduler.defer(x >> 4, z >> 4, () -> getChunk(x, z).blocks[(x & 0xf) << 4 | (z & 0xf)] = block);
+        }
+
+        private void spawnEntity(TestEntity entity) {
+            this.entities.add(entity);
+            getChunk(entity.x, entity.z).entities.add(entity);
+        }
+
+        private void moveEntity(TestEntity entity, int x, int z) {
+            this.scheduler.defer(entity.x >> 4, entity.z >> 4, x >> 4, z >> 4, () -> {
+                getChunk(entity.x, entity.z).entities.remove(entity);
+                entity.x = x;
+                entity.z = z;
+                getChunk(x, z).entities.add(entity);
+            });
+        }
+
+        private void damageEntity(TestEntity entity, int damage) {
+            this.scheduler.checkWithinReach(entity.x >> 4, entity.z >> 4);
+            entity.health -= damage;
+        }
+
+        private void tick() {
+            this.scheduler.tick(this.entities, entity -> entity.x >> 4, entity -> entity.z >> 4, entity -> entity.tick(this));
+        }
+
+        private long hash() {
+            long hash = 0;
+            for (TestEntity entity : this.entities) {
+                hash = ((hash * 31 + entity.x) * 31 + entity.z) * 31 + entity.health;
+            }
+            for (int x = -SIZE / 2; x < SIZE / 2; x++) {
+                for (int z = -SIZE / 2; z < SIZE / 2; z++) {
+                    final TestChunk chunk = this.chunks.get(key(x, z));
+                    for (int block : chunk.blocks) {
+                        hash = hash * 31 + block;
+                    }
+                    for (TestEntity entity : chunk.entities) {
+                        hash = hash * 31 + entity.id;
+                    }
+                }
+            }
+            return hash;
+        }
+    }
+
+    private static final class TestEntity {
+
+        private final int id;
+        private final Random random;
+        private int x;
+        private int z;
+        private int health = 1000;
+
+        private TestEntity(int id, int x, int z) {
+            this.id = id;
+            this.random = new Random(id);
+            this.x = x;
+            this.z = z;
+        }
+
+        private void tick(TestWorld world) {
+            // Read and write the blocks around the entity
+            final int nearX = clamp(this.x + this.random.nextInt(RANGE * 2 + 1) - RANGE);
+            final int nearZ = clamp(this.z + this.random.nextInt(RANGE * 2 + 1) - RANGE);
+            final int block = world.getBlock(nearX, nearZ);
+            world.setBlock(nearX, nearZ, block * 31 + this.id);
+            // Damage the entities in the same chunk
+            for (TestEntity entity : world.getChunk(this.x, this.z).entities) {
+                if (entity != this) {
+                    world.damageEntity(entity, 1 + (block & 0x3));
+                }
+            }
+            final int bound = TestWorld.SIZE * 16;
+            // Place a block anywhere in the world, this will be deferred if it's too far away
+            world.setBlock(this.random.nextInt(bound) - bound / 2, this.random.nextInt(bound) - bound / 2, this.id);
+            // Walk around or teleport to a random location
+            if (this.random.nextInt(10) == 0) {
+                world.moveEntity(this, this.random.nextInt(bound) - bound / 2, this.random.nextInt(bound) - bound / 2);
+            } else {
+                world.moveEntity(this, clamp(this.x + this.random.nextInt(9) - 4), clamp(this.z + this.random.nextInt(9) - 4));
+            }
+        }
+
+        private static int clamp(int coordinate) {
+            final int bound = TestWorld.SIZE * 16;
+            return Math.max(-bound / 2, Math.min(bound / 2 - 1, coordinate));
+        }
+    }
+
+    private static long runWorld(RegionTickScheduler scheduler) {
+        final TestWorld world = new TestWorld(scheduler);
+        final Random random = new Random(2L);
+        final int bound = TestWorld.SIZE * 16;
+        for (int i = 0; i < 4000; i++) {
+            world.spawnEntity(new TestEntity(i, random.nextInt(bound) - bound / 2, random.nextInt(bound) - bound / 2));
+        }
+        for (int i = 0; i < TICKS; i++) {
+            world.tick();
+        }
+        return world.hash();
+    }
+
+    private static long run(RegionTickScheduler scheduler) {
+        final List<Agent> agents = createAgents();
+        for (int i = 0; i < TICKS; i++) {
+            scheduler.tick(agents, agent -> agent.x >> 4, agent -> agent.z >> 4, agent -> agent.tick(scheduler));
+        }
+        long hash = 0;
+        for (Agent agent : agents) {
+            hash = hash * 31 + agent.state;
+        }
+        return hash;
+    }
+
+    @Test
+    public void testRegionSize() {
+        assertEquals(1, new RegionTickScheduler(1, null).getRegionSize());
+        assertEquals(8, new RegionTickScheduler(6, null).getRegionSize());
+        assertEquals(8, new RegionTickScheduler(8, null).getRegionSize());
+    }
+
+    @Test
+    public void testReach() {
+        final RegionTickScheduler scheduler = new RegionTickScheduler(REGION_SIZE, null);
+        final List<Agent> agents = new ArrayList<>();
+        agents.add(new Agent(0, 0, 0L));
+        final List<Boolean> results = new ArrayList<>();
+        final List<Boolean> deferred = new ArrayList<>();
+        scheduler.tick(agents, agent -> agent.x >> 4, agent -> agent.z >> 4, agent -> {
+            results.add(scheduler.isWithinReach(-REGION_SIZE / 2, REGION_SIZE + REGION_SIZE / 2 - 1));
+            results.add(scheduler.isWithinReach(-REGION_SIZE / 2 - 1, 0));
+            results.add(scheduler.isWithinReach(0, REGION_SIZE + REGION_SIZE / 2));
+            scheduler.defer(0, REGION_SIZE * 2, () -> deferred.add(true));
+            deferred.add(false);
+        });
+        assertEquals(Arrays.asList(true, false, false), results);
+        // The deferred action runs after the region
+        assertEquals(Arrays.asList(false, true), deferred);
+        assertTrue(scheduler.isWithinReach(1000, 1000));
+    }
+
+    @Test
+    public void testCheckWithinReach() {
+        final RegionTickScheduler scheduler = new RegionTickScheduler(REGION_SIZE, null);
+        final TestWorld world = new TestWorld(scheduler);
+        final List<Boolean> results = new ArrayList<>();
+        scheduler.tick(Arrays.asList(new Agent(0, 0, 0L)), agent -> agent.x >> 4, agent -> agent.z >> 4, agent -> {
+            world.getBlock(0, 0);
+            try {
+                world.getBlock(REGION_SIZE * 16 * 2, 0);
+                results.add(false);
+            } catch (IllegalStateException e) {
+                results.add(true);
+            }
+            // Moves are deferred if the destination is out of reach
+            final TestEntity entity = new TestEntity(0, 0, 0);
+            world.spawnEntity(entity);
+            world.moveEntity(entity, REGION_SIZE * 16 * 2, 0);
+            results.add(entity.x == 0);
+        });
+        assertEquals(Arrays.asList(true, true), results);
+        // Every chunk can be accessed outside region ticks
+        world.getBlock(REGION_SIZE * 16 * 2, 0);
+        assertEquals(REGION_SIZE * 16 * 2, world.entities.get(0).x);
+        assertTrue(world.getChunk(REGION_SIZE * 16 * 2, 0).entities.contains(world.entities.get(0)));
+    }
+
+    @Test
+    public void testDeterminism() {
+        final long expected = run(new RegionTickScheduler(REGION_SIZE, null));
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int i = 0; i < 5; i++) {
+                assertEquals(expected, run(new RegionTickScheduler(REGION_SIZE, pool)));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testWorldDeterminism() {
+        final long expected = runWorld(new RegionTickScheduler(REGION_SIZE, null));
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int i = 0; i < 5; i++) {
+                assertEquals(expected, runWorld(new RegionTickScheduler(REGION_SIZE, pool)));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.chunk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class ChunkBlockStateArrayTest {
+
+    private static final int CAPACITY = 4096;
+
+    @Test
+    public void testEmpty() {
+        final ChunkBlockStateArray array = new ChunkBlockStateArray(CAPACITY);
+        assertEquals(0, array.countNonAir());
+        assertEquals(ChunkBlockStateArray.MIN_BITS_PER_VALUE, array.getValues().getBitsPerValue());
+        for (int i = 0; i < CAPACITY; i++) {
+            assertEquals(0, array.get(i));
+        }
+    }
+
+    @Test
+    public void testPaletteResize() {
+        final ChunkBlockStateArray array = new ChunkBlockStateArray(CAPACITY);
+        for (int i = 0; i < 200; i++) {
+            assertEquals(0, array.set(i, (short) ((i + 1) << 4)));
+            assertEquals((short) ((i + 1) << 4), array.get(i));
+        }
+        assertEquals(ChunkBlockStateArray.MAX_LOCAL_BITS_PER_VALUE, array.getValues().getBitsPerValue());
+        assertNotNull(array.getPalette());
+        assertEquals(200, array.countNonAir());
+        for (int i = 0; i < 200; i++) {
+            assertEquals((short) ((i + 1) << 4), array.get(i));
+        }
+    }
+
+    @Test
+    public void testPromoteToGlobal() {
+        final ChunkBlockStateArray array = new ChunkBlockStateArray(CAPACITY);
+        for (int i = 0; i < 300; i++) {
+            array.set(i, (short) (i + 1));
+        }
+        assertNull(array.getPalette());
+        assertEquals(ChunkBlockStateArray.GLOBAL_BITS_PER_VALUE, array.getValues().getBitsPerValue());
+        for (int i = 0; i < 300; i++) {
+            assertEquals(i + 1, array.get(i));
+        }
+        assertEquals(0, array.get(300));
+        assertEquals(300, array.countNonAir());
+    }
+
+    @Test
+    public void testPaletteReuse() {
+        final ChunkBlockStateArray array = new ChunkBlockStateArray(CAPACITY);
+        for (int i = 0; i < 1000; i++) {
+            array.set(0, (short) ((i + 1) << 4));
+        }
+        // Unused palette entries should be reused
+        assertEquals(ChunkBlockStateArray.MIN_BITS_PER_VALUE, array.getValues().getBitsPerValue());
+        assertEquals((short) (1000 << 4), array.get(0));
+        assertEquals(1, array.countNonAir());
+    }
+
+    @Test
+    public void testGlobalPalette() {
+        final short[] types = new short[CAPACITY];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = (short) (i % 400);
+        }
+        final ChunkBlockStateArray array = new ChunkBlockStateArray(types);
+        assertNull(array.getPalette());
+        assertEquals(ChunkBlockStateArray.GLOBAL_BITS_PER_VALUE, array.getValues().getBitsPerValue());
+        for (int i = 0; i < types.length; i++) {
+            assertEquals(types[i], array.get(i));
+        }
+        assertEquals(CAPACITY - CAPACITY / 400 - 1, array.countNonAir());
+    }
+
+    @Test
+    public void testCopy() {
+        final ChunkBlockStateArray array = new ChunkBlockStateArray(CAPACITY);
+        array.set(5, (short) 16);
+        final ChunkBlockStateArray copy = array.copy();
+        array.set(5, (short) 32);
+        assertEquals(16, copy.get(5));
+        assertEquals(32, array.get(5));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.chunk;
+
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntUnaryOperator;
+
+public class ConcurrentObjectArrayPerformanceTests {
+
+    private final static String MESSAGE = "%s for %s tests on %s threads took: %s ms";
+    private final static int TESTS = 10000000;
+    private final static int THREADS = 4;
+
+    private static final ConcurrentObjectArray.ShortReader<ChunkBlockStateArray> TYPE_READER =
+            (array, index) -> array == null ? 0 : array.get(index);
+
+    // Prevent the JIT from removing the reads
+    private static volatile int sink;
+
+    private static ConcurrentObjectArray<ChunkBlockStateArray> createArray() {
+        final ChunkBlockStateArray[] sections = new ChunkBlockStateArray[LanternChunk.CHUNK_SECTIONS];
+        for (int i = 0; i < sections.length; i++) {
+            final ChunkBlockStateArray section = new ChunkBlockStateArray(LanternChunk.CHUNK_SECTION_VOLUME);
+            for (int j = 0; j < LanternChunk.CHUNK_SECTION_VOLUME; j++) {
+                section.set(j, (short) ((j % 7) << 4));
+            }
+            sections[i] = section;
+        }
+        return new ConcurrentObjectArray<>(sections);
+    }
+
+    private static int readWithWork(ConcurrentObjectArray<ChunkBlockStateArray> array, int offset) {
+        int result = 0;
+        for (int i = 0; i < TESTS; i++) {
+            final int index = (i + offset) & (LanternChunk.CHUNK_VOLUME - 1);
+            result += array.work(index >> 12, section -> section == null ? 0 : section.get(index & 0xfff), false);
+        }
+        return result;
+    }
+
+    private static int readWithGetShort(ConcurrentObjectArray<ChunkBlockStateArray> array, int offset) {
+        int result = 0;
+        for (int i = 0; i < TESTS; i++) {
+            final int index = (i + offset) & (LanternChunk.CHUNK_VOLUME - 1);
+            result += array.getShort(index >> 12, index & 0xfff, TYPE_READER);
+        }
+        return result;
+    }
+
+    private static void test(String name, int threads, IntUnaryOperator reads) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final Future<?>[] futures = new Future<?>[threads];
+            final long time = System.currentTimeMillis();
+            for (int i = 0; i < threads; i++) {
+                final int offset = i * 997;
+                futures[i] = executor.submit(() -> sink += reads.applyAsInt(offset));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            System.out.println(String.format(MESSAGE, name, TESTS, threads, System.currentTimeMillis() - time));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testReadPerformance() throws Exception {
+        final ConcurrentObjectArray<ChunkBlockStateArray> array = createArray();
+        for (int i = 0; i < 3; i++) {
+            test("work", 1, offset -> readWithWork(array, offset));
+            test("getShort", 1, offset -> readWithGetShort(array, offset));
+            test("work", THREADS, offset -> readWithWork(array, offset));
+            test("getShort", THREADS, offset -> readWithGetShort(array, offset));
+        }
+    }
+}
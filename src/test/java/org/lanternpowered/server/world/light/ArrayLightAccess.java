@@ -0,0 +1,112 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.light;
+
+/**
+ * A simple array based {@link LightAccess} that covers a
+ * square area of chunk columns, starting at the origin.
+ * Section layers can be marked as virtual.
+ */
+final class ArrayLightAccess implements LightAccess {
+
+    static final int AIR = 0;
+    static final int STONE = 1 << 4;
+    static final int WATER = 9 << 4;
+    static final int TORCH = 50 << 4;
+
+    static final byte[] EMISSION = new byte[1 << 16];
+    static final byte[] OPACITY = new byte[1 << 16];
+
+    static {
+        OPACITY[STONE] = 15;
+        OPACITY[WATER] = 2;
+        EMISSION[TORCH] = 14;
+    }
+
+    private final int size;
+    private final short[] types;
+    private final byte[] skyLight;
+    private final byte[] blockLight;
+
+    // The section layers that are virtual
+    private int virtualSections;
+
+    ArrayLightAccess(int chunks) {
+        this.size = chunks * 16;
+        final int volume = this.size * this.size * 256;
+        this.types = new short[volume];
+        this.skyLight = new byte[volume];
+        this.blockLight = new byte[volume];
+    }
+
+    private int index(int x, int y, int z) {
+        if (x < 0 || x >= this.size || z < 0 || z >= this.size) {
+            return -1;
+        }
+        return (y * this.size + z) * this.size + x;
+    }
+
+    void setVirtual(int sectionY, boolean virtual) {
+        if (virtual) {
+            this.virtualSections |= 1 << sectionY;
+        } else {
+            this.virtualSections &= ~(1 << sectionY);
+        }
+    }
+
+    boolean isVirtual(int sectionY) {
+        return (this.virtualSections & 1 << sectionY) != 0;
+    }
+
+    void setType(int x, int y, int z, int type) {
+        this.types[index(x, y, z)] = (short) type;
+    }
+
+    @Override
+    public int getType(int x, int y, int z) {
+        final int index = index(x, y, z);
+        if (index == -1) {
+            return UNAVAILABLE;
+        }
+        return isVirtual(y >> 4) ? VIRTUAL : this.types[index] & 0xffff;
+    }
+
+    @Override
+    public int createSection(int x, int y, int z) {
+        setVirtual(y >> 4, false);
+        return getType(x, y, z);
+    }
+
+    @Override
+    public int getLight(int x, int y, int z, boolean sky) {
+        return (sky ? this.skyLight : this.blockLight)[index(x, y, z)];
+    }
+
+    @Override
+    public void setLight(int x, int y, int z, boolean sky, int light) {
+        (sky ? this.skyLight : this.blockLight)[index(x, y, z)] = (byte) light;
+    }
+}
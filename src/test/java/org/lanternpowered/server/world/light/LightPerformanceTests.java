@@ -0,0 +1,104 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.light;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class LightPerformanceTests {
+
+    private final static String MESSAGE = "%s took: %s ms";
+    private final static int RELIGHT_TESTS = 50;
+    private final static int BATCH_SIZE = 10000;
+
+    private static ArrayLightAccess createTerrain(int chunks) {
+        final ArrayLightAccess access = new ArrayLightAccess(chunks);
+        final Random random = new Random(5616L);
+        final int size = chunks * 16;
+        for (int y = 0; y < 64; y++) {
+            for (int z = 0; z < size; z++) {
+                for (int x = 0; x < size; x++) {
+                    // Add some caves and light sources
+                    final int value = random.nextInt(100);
+                    access.setType(x, y, z, value < 70 ? ArrayLightAccess.STONE : value < 99 ?
+                            ArrayLightAccess.AIR : ArrayLightAccess.TORCH);
+                }
+            }
+        }
+        return access;
+    }
+
+    @Test
+    public void testRelightColumnPerformance() {
+        final ArrayLightAccess access = createTerrain(1);
+        final LightPropagator propagator = new LightPropagator(access, ArrayLightAccess.EMISSION, ArrayLightAccess.OPACITY);
+        for (int i = 0; i < 3; i++) {
+            final long time = System.nanoTime();
+            for (int j = 0; j < RELIGHT_TESTS; j++) {
+                propagator.relightColumn(0, 0, true);
+            }
+            System.out.println(String.format(MESSAGE, "Relighting " + RELIGHT_TESTS + " chunk columns",
+                    (System.nanoTime() - time) / 1000000L));
+        }
+    }
+
+    @Test
+    public void testBlockChangeBatchPerformance() {
+        final int chunks = 8;
+        final ArrayLightAccess access = createTerrain(chunks);
+        final LightPropagator propagator = new LightPropagator(access, ArrayLightAccess.EMISSION, ArrayLightAccess.OPACITY);
+        for (int x = 0; x < chunks; x++) {
+            for (int z = 0; z < chunks; z++) {
+                propagator.relightColumn(x, z, true);
+            }
+        }
+        final Random random = new Random(8946L);
+        final int size = chunks * 16;
+        for (int i = 0; i < 3; i++) {
+            final int[] positions = new int[BATCH_SIZE * 3];
+            for (int j = 0; j < BATCH_SIZE; j++) {
+                final int x = random.nextInt(size);
+                final int y = random.nextInt(80);
+                final int z = random.nextInt(size);
+                final int type = access.getType(x, y, z);
+                access.setType(x, y, z, type == ArrayLightAccess.STONE ? ArrayLightAccess.TORCH : ArrayLightAccess.STONE);
+                positions[j * 3] = x;
+                positions[j * 3 + 1] = y;
+                positions[j * 3 + 2] = z;
+            }
+            final long time = System.nanoTime();
+            for (boolean sky : new boolean[] { false, true }) {
+                for (int j = 0; j < BATCH_SIZE; j++) {
+                    propagator.check(positions[j * 3], positions[j * 3 + 1], positions[j * 3 + 2], sky);
+                }
+                propagator.propagate(sky);
+            }
+            System.out.println(String.format(MESSAGE, "Processing a batch of " + BATCH_SIZE + " block changes",
+                    (System.nanoTime() - time) / 1000000L));
+        }
+    }
+}
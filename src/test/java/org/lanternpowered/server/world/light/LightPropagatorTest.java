@@ -0,0 +1,134 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.light;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+public class LightPropagatorTest {
+
+    @Test
+    public void testBlockLight() {
+        final ArrayLightAccess access = new ArrayLightAccess(3);
+        final LightPropagator propagator = new LightPropagator(access, ArrayLightAccess.EMISSION, ArrayLightAccess.OPACITY);
+        access.setType(24, 100, 24, ArrayLightAccess.TORCH);
+        propagator.check(24, 100, 24, false);
+        propagator.propagate(false);
+        for (int i = 0; i <= 14; i++) {
+            assertEquals(14 - i, access.getLight(24 + i, 100, 24, false));
+            assertEquals(14 - i, access.getLight(24, 100 - i, 24, false));
+        }
+        assertEquals(12, access.getLight(25, 101, 24, false));
+
+        // Remove the torch again
+        access.setType(24, 100, 24, ArrayLightAccess.AIR);
+        propagator.check(24, 100, 24, false);
+        propagator.propagate(false);
+        for (int i = 0; i <= 14; i++) {
+            assertEquals(0, access.getLight(24 + i, 100, 24, false));
+            assertEquals(0, access.getLight(24, 100 - i, 24, false));
+        }
+    }
+
+    @Test
+    public void testBlockLightVirtualSection() {
+        final ArrayLightAccess access = new ArrayLightAccess(3);
+        final LightPropagator propagator = new LightPropagator(access, ArrayLightAccess.EMISSION, ArrayLightAccess.OPACITY);
+        access.setVirtual(1, true);
+        access.setType(24, 15, 24, ArrayLightAccess.TORCH);
+        propagator.check(24, 15, 24, false);
+        propagator.propagate(false);
+        // The light should spread into the virtual section
+        assertFalse(access.isVirtual(1));
+        assertEquals(13, access.getLight(24, 16, 24, false));
+        assertEquals(1, access.getLight(24, 28, 24, false));
+    }
+
+    @Test
+    public void testBlockLightOpacity() {
+        final ArrayLightAccess access = new ArrayLightAccess(3);
+        final LightPropagator propagator = new LightPropagator(access, ArrayLightAccess.EMISSION, ArrayLightAccess.OPACITY);
+        access.setType(24, 100, 24, ArrayLightAccess.TORCH);
+        propagator.check(24, 100, 24, false);
+        propagator.propagate(false);
+        assertEquals(13, access.getLight(25, 100, 24, false));
+
+        // Place a stone block next to the torch, the light should go around
+        access.setType(25, 100, 24, ArrayLightAccess.STONE);
+        propagator.check(25, 100, 24, false);
+        propagator.propagate(false);
+        assertEquals(0, access.getLight(25, 100, 24, false));
+        assertEquals(10, access.getLight(26, 100, 24, false));
+
+        // Replace the stone with water
+        access.setType(25, 100, 24, ArrayLightAccess.WATER);
+        propagator.check(25, 100, 24, false);
+        propagator.propagate(false);
+        assertEquals(12, access.getLight(25, 100, 24, false));
+        assertEquals(11, access.getLight(26, 100, 24, false));
+    }
+
+    @Test
+    public void testSkyLight() {
+        final ArrayLightAccess access = new ArrayLightAccess(1);
+        final LightPropagator propagator = new LightPropagator(access, ArrayLightAccess.EMISSION, ArrayLightAccess.OPACITY);
+        for (int y = 0; y < 64; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    access.setType(x, y, z, ArrayLightAccess.STONE);
+                }
+            }
+        }
+        // Add a roof
+        for (int x = 4; x < 12; x++) {
+            for (int z = 4; z < 12; z++) {
+                access.setType(x, 70, z, ArrayLightAccess.STONE);
+            }
+        }
+        propagator.relightColumn(0, 0, true);
+        assertEquals(15, access.getLight(0, 64, 0, true));
+        assertEquals(0, access.getLight(0, 63, 0, true));
+        assertEquals(15, access.getLight(8, 71, 8, true));
+        // Below the roof, the light comes from the side
+        assertEquals(15 - 4, access.getLight(8, 69, 8, true));
+        assertEquals(15 - 1, access.getLight(4, 69, 8, true));
+
+        // Dig a hole into the ground
+        access.setType(1, 63, 1, ArrayLightAccess.AIR);
+        propagator.check(1, 63, 1, true);
+        propagator.propagate(true);
+        assertEquals(15, access.getLight(1, 63, 1, true));
+
+        // And cover it again
+        access.setType(1, 64, 1, ArrayLightAccess.STONE);
+        propagator.check(1, 64, 1, true);
+        propagator.propagate(true);
+        assertEquals(0, access.getLight(1, 64, 1, true));
+        assertEquals(0, access.getLight(1, 63, 1, true));
+    }
+}